@@ -78,15 +78,7 @@ public class Main {
       ForFunction.COMPILE_LOOPS = true;
     }
     
-    try {
-      new Main(optionSet).run();
-    } finally {
-      if(Profiler.ENABLED) {
-        System.out.flush();
-        Profiler.dumpTotalRunningTime();
-        Profiler.dump(System.out);
-      }
-    }
+    new Main(optionSet).run();
   }
 
   public Main(OptionSet options) {
@@ -102,17 +94,27 @@ public class Main {
       
       this.session.setCommandLineArguments("renjin", options.getArguments());
 
+      Profiler profiler = session.getProfiler();
       if(options.isFlagSet(OptionSet.PROFILE)) {
-        Profiler.ENABLED = true;
+        profiler.start();
       }
 
-      if(options.hasExpression()) {
-        evaluateExpression(options.getExpression());
-        
-      } else if(options.hasFile()) {
-        evaluateFile(options.getFile());
-      } else {
-        startInteractive();
+      try {
+        if(options.hasExpression()) {
+          evaluateExpression(options.getExpression());
+
+        } else if(options.hasFile()) {
+          evaluateFile(options.getFile());
+        } else {
+          startInteractive();
+        }
+      } finally {
+        if(profiler.isRunning()) {
+          profiler.stop();
+          System.out.flush();
+          profiler.dumpTotalRunningTime(System.out);
+          profiler.dump(System.out);
+        }
       }
 
     } catch (Exception e) {
@@ -26,6 +26,7 @@ import org.renjin.primitives.Types;
 import org.renjin.primitives.io.serialization.Serialization;
 import org.renjin.primitives.matrix.Matrix;
 import org.renjin.primitives.matrix.MatrixBuilder;
+import org.renjin.primitives.summary.DeferredAccumulation;
 import org.renjin.sexp.*;
 
 import java.io.IOException;
@@ -107,13 +108,23 @@ public class Base {
    * <p>There is a bin for each of the values 1, ..., nbins; values outside that range 
    * and NAs are (silently) ignored.
    * 
+   * @param context the calling context
    * @param bin the integer vector to bin
    * @param length the length of bin
    * @param nbins the number of bins
    * @param ans not used
    * @return 
    */
-  public static PairList R_tabulate(IntVector bin, int length, int nbins, SEXP ans) {
+  public static PairList R_tabulate(@Current Context context, IntVector bin, int length, int nbins, SEXP ans) {
+    if(bin.isDeferred() && length == bin.length()) {
+      // Count the bins as the deferred vector is computed
+      Vector counts = context.materialize(new DeferredAccumulation("tabulate", bin, nbins, nbins, AttributeMap.EMPTY));
+      int[] intCounts = new int[nbins];
+      for (int i = 0; i < nbins; i++) {
+        intCounts[i] = (int) counts.getElementAsDouble(i);
+      }
+      return PairList.Node.singleton("ans", new IntArrayVector(intCounts));
+    }
     int counts[] = new int[nbins];
     for(int i=0;i!=length;++i) {
       if(!bin.isElementNA(i)) {
@@ -193,7 +193,8 @@ public class BaseFrame implements Frame {
     addPrimitiveAlias("as.double", "as.numeric");
     addPrimitiveAlias("as.double", "as.real");
     addPrimitiveAlias("is.symbol", "is.name");
-    
+
+    Environment.invalidateFunctionBindings();
   }
 
   private void addPrimitiveAlias(String primitiveName, String alias) {
@@ -0,0 +1,274 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler;
+
+import org.renjin.compiler.codegen.ByteCodeEmitter;
+import org.renjin.compiler.ir.exception.InvalidSyntaxException;
+import org.renjin.compiler.ir.tac.RuntimeState;
+import org.renjin.eval.Context;
+import org.renjin.sexp.Closure;
+import org.renjin.sexp.Environment;
+import org.renjin.sexp.Frame;
+import org.renjin.sexp.HashFrame;
+import org.renjin.sexp.Null;
+import org.renjin.sexp.SEXP;
+import org.renjin.sexp.Symbol;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Second tier of closure execution: compiles the bodies of frequently invoked closures to JVM bytecode.
+ *
+ * <p>Closures are first interpreted. Once a closure has been invoked more than {@link #THRESHOLD} times,
+ * its body is compiled at the end of the next interpreted call that returns normally, when the arguments that
+ * the body uses have been forced. The body is analyzed against the bindings of the function environment as they
+ * were before the body was evaluated, with its arguments now forced, so that the local variables assigned by the
+ * body are not mistaken for values supplied by the caller. The body is translated and type-checked on the calling
+ * thread, while it still has exclusive access to the environment, and the bytecode is then generated on a
+ * background thread, which touches neither the environment nor the caller's {@link Context}. Subsequent
+ * invocations run the compiled body if the {@link CompilationGuard} of one of its variants holds for their
+ * arguments and environment, and are interpreted otherwise.</p>
+ *
+ * <p>If compilation fails because a binding could not be resolved at the time, such as an argument that was
+ * not forced, it is re-attempted after a number of calls that doubles with each failure. Only failures
+ * that do not depend on the environment disable compilation of the closure for good.</p>
+ *
+ * <p>Tiered compilation is enabled with the {@code renjin.compile.closures} system property, and the
+ * threshold can be set with {@code renjin.compile.closures.threshold}.</p>
+ */
+public class ClosureCompiler {
+
+  private static final Logger LOGGER = Logger.getLogger(ClosureCompiler.class.getName());
+
+  public static boolean ENABLED = Boolean.getBoolean("renjin.compile.closures");
+
+  public static final int THRESHOLD = Integer.getInteger("renjin.compile.closures.threshold", 1000);
+
+  /**
+   * The maximum number of specialized variants compiled for a single closure.
+   */
+  private static final int MAX_VARIANTS = 4;
+
+  /**
+   * The maximum number of calls that are interpreted before compilation is re-attempted
+   * after a failure to resolve a binding.
+   */
+  private static final int MAX_RETRY_DELAY = 1024;
+
+  private static final ExecutorService COMPILER_THREAD = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "renjin-closure-compiler");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private static class Variant {
+    private final CompilationGuard guard;
+    private final CompiledBody body;
+
+    Variant(CompilationGuard guard, CompiledBody body) {
+      this.guard = guard;
+      this.body = body;
+    }
+  }
+
+  private final Closure closure;
+
+  private volatile Variant[] variants = new Variant[0];
+
+  private volatile boolean failed = false;
+
+  /**
+   * Set from {@link #beginCompilation(Context)} until the variant is added or compilation is abandoned,
+   * so that only one call at a time compiles a variant.
+   */
+  private final AtomicBoolean compiling = new AtomicBoolean(false);
+
+  /**
+   * The number of calls to interpret before compilation is re-attempted. Closures can be shared by
+   * sessions on different threads, so these are updated atomically.
+   */
+  private final AtomicInteger retryDelay = new AtomicInteger(1);
+  private final AtomicInteger skipCount = new AtomicInteger(0);
+
+  private final AtomicLong compiledCalls = new AtomicLong();
+
+  public ClosureCompiler(Closure closure) {
+    this.closure = closure;
+  }
+
+  /**
+   * Evaluates the closure's body using a compiled variant, if one is available for the
+   * function context's environment. Otherwise returns {@code null}, so that the caller interprets the
+   * body, after calling {@link #beginCompilation(Context)}.
+   */
+  public SEXP tryEvaluate(Context functionContext) {
+    Environment rho = functionContext.getEnvironment();
+
+    for (Variant variant : variants) {
+      if(variant.guard.holds(functionContext, rho)) {
+        compiledCalls.incrementAndGet();
+        SEXP result = variant.body.evaluate(functionContext, rho);
+        return result == null ? Null.INSTANCE : result;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Decides, before the body is interpreted in {@code functionContext}, whether a new variant should be
+   * compiled once it returns.
+   *
+   * @return a copy of the function environment's bindings before the body is evaluated, which must be passed
+   * to {@link #compileAfterInterpreting(Context, Environment)} if the body returns normally, or to
+   * {@link #abandonCompilation()} otherwise; or {@code null} if no variant will be compiled after this call.
+   */
+  public Environment beginCompilation(Context functionContext) {
+    if(failed || variants.length >= MAX_VARIANTS) {
+      return null;
+    }
+    if(skip()) {
+      return null;
+    }
+    if(!compiling.compareAndSet(false, true)) {
+      return null;
+    }
+    Environment rho = functionContext.getEnvironment();
+    Frame frame = rho.getFrame();
+    HashFrame bindings = new HashFrame();
+    for (Symbol symbol : frame.getSymbols()) {
+      bindings.setVariable(symbol, frame.getVariable(symbol));
+    }
+    return Environment.createChildEnvironment(rho.getParent(), bindings).build();
+  }
+
+  /**
+   * Releases the claim on compilation made by {@link #beginCompilation(Context)}, when the body did not
+   * return normally and the environment cannot be relied upon.
+   */
+  public void abandonCompilation() {
+    compiling.set(false);
+  }
+
+  private boolean skip() {
+    while(true) {
+      int remaining = skipCount.get();
+      if(remaining <= 0) {
+        return false;
+      }
+      if(skipCount.compareAndSet(remaining, remaining - 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Compiles a new variant specialized to the function context's environment, if possible. This must
+   * be called after the body has been interpreted in this context, so that the arguments it uses have
+   * been forced. The bytecode is generated in the background, and the variant becomes available to later
+   * calls once it is complete.
+   *
+   * @param entryEnvironment the environment returned by {@link #beginCompilation(Context)} for this call
+   */
+  public void compileAfterInterpreting(Context functionContext, Environment entryEnvironment) {
+    ByteCodeEmitter emitter;
+    CompilationGuard guard;
+    try {
+      RuntimeState runtimeState = new RuntimeState(functionContext, entryEnvironment);
+      emitter = Compiler.analyze(runtimeState, closure.getBody());
+      guard = new CompilationGuard(runtimeState);
+
+    } catch (NotCompilableException e) {
+      LOGGER.log(Level.FINE, "Could not compile closure", e);
+      if(e.isStructural()) {
+        failed = true;
+      } else {
+        int delay = retryDelay.get();
+        skipCount.set(delay);
+        retryDelay.set(Math.min(delay * 2, MAX_RETRY_DELAY));
+      }
+      compiling.set(false);
+      return;
+
+    } catch (InvalidSyntaxException e) {
+      LOGGER.log(Level.FINE, "Could not compile closure", e);
+      failed = true;
+      compiling.set(false);
+      return;
+
+    } catch (Exception e) {
+      LOGGER.log(Level.WARNING, "Exception compiling closure", e);
+      failed = true;
+      compiling.set(false);
+      return;
+    }
+
+    retryDelay.set(1);
+    scheduleCodeGeneration(emitter, guard);
+  }
+
+  /**
+   * @return true if compilation of this closure failed, and will not be re-attempted.
+   */
+  public boolean isFailed() {
+    return failed;
+  }
+
+  /**
+   * @return the number of calls evaluated by a compiled variant
+   */
+  public long getCompiledCallCount() {
+    return compiledCalls.get();
+  }
+
+  /**
+   * @return the number of variants compiled so far
+   */
+  public int getVariantCount() {
+    return variants.length;
+  }
+
+  private void scheduleCodeGeneration(ByteCodeEmitter emitter, CompilationGuard guard) {
+    COMPILER_THREAD.submit(() -> {
+      try {
+        CompiledBody body = emitter.compile().newInstance();
+        addVariant(new Variant(guard, body));
+
+      } catch (Exception e) {
+        LOGGER.log(Level.WARNING, "Exception compiling closure", e);
+        failed = true;
+
+      } finally {
+        compiling.set(false);
+      }
+    });
+  }
+
+  private synchronized void addVariant(Variant variant) {
+    Variant[] updated = new Variant[variants.length + 1];
+    System.arraycopy(variants, 0, updated, 0, variants.length);
+    updated[variants.length] = variant;
+    variants = updated;
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler;
+
+import org.renjin.compiler.ir.ValueBounds;
+import org.renjin.compiler.ir.tac.RuntimeState;
+import org.renjin.eval.Context;
+import org.renjin.sexp.Environment;
+import org.renjin.sexp.Function;
+import org.renjin.sexp.SEXP;
+import org.renjin.sexp.Symbol;
+
+import java.util.Map;
+
+/**
+ * The assumptions about the runtime environment on which a piece of compiled code depends.
+ *
+ * <p>Compiled code is specialized to the variables and functions that were in scope when it was
+ * compiled. Before compiled code can be reused in a new environment, the guard checks that every
+ * variable read at compile time is still bound to a value with the same shape, as given by
+ * {@link ValueBounds#shapeOf(SEXP)}, and that every function symbol still resolves to the same function.
+ * The contents of the values are not compared, so checking the guard does not depend on the length of
+ * the values.</p>
+ */
+public class CompilationGuard {
+
+  private final Symbol[] variableNames;
+  private final ValueBounds[] variableBounds;
+  private final Symbol[] functionNames;
+  private final Function[] functions;
+
+  /**
+   * Creates a guard from the lookups recorded by {@code runtimeState} during compilation.
+   */
+  public CompilationGuard(RuntimeState runtimeState) {
+    Map<Symbol, SEXP> variables = runtimeState.getResolvedVariables();
+    variableNames = new Symbol[variables.size()];
+    variableBounds = new ValueBounds[variables.size()];
+    int i = 0;
+    for (Map.Entry<Symbol, SEXP> entry : variables.entrySet()) {
+      variableNames[i] = entry.getKey();
+      variableBounds[i] = ValueBounds.shapeOf(entry.getValue());
+      i++;
+    }
+
+    Map<Symbol, Function> resolvedFunctions = runtimeState.getResolvedFunctions();
+    functionNames = new Symbol[resolvedFunctions.size()];
+    functions = new Function[resolvedFunctions.size()];
+    i = 0;
+    for (Map.Entry<Symbol, Function> entry : resolvedFunctions.entrySet()) {
+      functionNames[i] = entry.getKey();
+      functions[i] = entry.getValue();
+      i++;
+    }
+  }
+
+  /**
+   * @return true if all the assumptions hold in the environment {@code rho}. No promises are forced
+   * during the check: if an assumption can only be verified by forcing a promise, it is considered
+   * not to hold.
+   */
+  public boolean holds(Context context, Environment rho) {
+    RuntimeState runtimeState = new RuntimeState(context, rho);
+    try {
+      for (int i = 0; i < functionNames.length; i++) {
+        if(runtimeState.findFunctionIfExists(functionNames[i]) != functions[i]) {
+          return false;
+        }
+      }
+      for (int i = 0; i < variableNames.length; i++) {
+        SEXP value = runtimeState.findVariable(variableNames[i]);
+        if(!variableBounds[i].equals(ValueBounds.shapeOf(value))) {
+          return false;
+        }
+      }
+    } catch (NotCompilableException e) {
+      return false;
+    }
+    return true;
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler;
+
+import org.renjin.compiler.ir.ValueBounds;
+import org.renjin.compiler.ir.tac.RuntimeState;
+import org.renjin.compiler.ir.tac.expressions.ReadLoopVector;
+import org.renjin.eval.Context;
+import org.renjin.repackaged.guava.cache.Cache;
+import org.renjin.repackaged.guava.cache.CacheBuilder;
+import org.renjin.sexp.Environment;
+import org.renjin.sexp.FunctionCall;
+import org.renjin.sexp.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the compiled bodies of {@code for} loops for the lifetime of a {@link org.renjin.eval.Session}.
+ *
+ * <p>Compiled loop bodies are specialized to the shape of the values that were in scope when the loop was
+ * compiled: the type and attributes of the loop vector, the type, length and attributes of every variable
+ * read from the environment, and the functions to which call symbols were resolved. Each call site can
+ * hold a few such variants, and a variant is reused if all of its assumptions still hold when the loop is
+ * entered again, even if the loop is run over new data. Otherwise the loop is compiled afresh, or
+ * interpreted.</p>
+ *
+ * <p>Compilation can fail because of the state of the environment at the time, for example because
+ * a variable was still bound to an unevaluated promise. Failures are therefore not remembered for good:
+ * after each failure, compilation of the loop is skipped for a number of entries that doubles with
+ * each consecutive failure, up to {@link #MAX_RETRY_DELAY}.</p>
+ */
+public class CompiledLoopCache {
+
+  /**
+   * The maximum number of specialized variants retained for a single loop.
+   */
+  private static final int MAX_VARIANTS = 4;
+
+  /**
+   * The maximum number of times a loop is interpreted before compilation is re-attempted
+   * after a failure.
+   */
+  static final int MAX_RETRY_DELAY = 1024;
+
+  /**
+   * Keyed by the identity of the {@code for} call. Weak keys allow entries to be collected
+   * along with the function bodies in which they appear.
+   */
+  private final Cache<FunctionCall, CallSite> callSites = CacheBuilder.newBuilder()
+      .weakKeys()
+      .maximumSize(1000)
+      .build();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong compilations = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicLong compileTimeNanos = new AtomicLong();
+
+  /**
+   * @return true if a recent attempt to compile this loop failed, and compilation should not yet be
+   * re-attempted. Each call counts as one entry into the loop towards the retry delay.
+   */
+  public boolean isUncompilable(FunctionCall call) {
+    CallSite callSite = callSites.getIfPresent(call);
+    if(callSite == null) {
+      return false;
+    }
+    synchronized (callSite) {
+      if(callSite.skipCount > 0) {
+        callSite.skipCount--;
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Finds a previously compiled body for the given loop whose assumptions hold in the environment {@code rho}.
+   *
+   * @return the compiled body, or {@code null} if there is none.
+   */
+  public CompiledLoopBody lookup(Context context, Environment rho, FunctionCall call, Vector elements) {
+    CallSite callSite = callSites.getIfPresent(call);
+    if(callSite != null) {
+      ValueBounds elementBounds = ReadLoopVector.boundsOf(elements);
+      synchronized (callSite) {
+        for (Variant variant : callSite.variants) {
+          if(variant.elementBounds.equals(elementBounds) && variant.guard.holds(context, rho)) {
+            hits.incrementAndGet();
+            return variant.body;
+          }
+        }
+      }
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Adds a newly compiled loop body to the cache.
+   *
+   * @param runtimeState the state against which the body was compiled, recording all the
+   *                     variables and functions that the body assumes.
+   * @param compileTimeNanos the time spent compiling the body.
+   */
+  public void put(FunctionCall call, RuntimeState runtimeState, Vector elements, CompiledLoopBody body,
+                  long compileTimeNanos) {
+
+    compilations.incrementAndGet();
+    this.compileTimeNanos.addAndGet(compileTimeNanos);
+
+    Variant variant = new Variant(runtimeState, ReadLoopVector.boundsOf(elements), body);
+    CallSite callSite = getOrCreate(call);
+    synchronized (callSite) {
+      callSite.consecutiveFailures = 0;
+      if(callSite.variants.size() >= MAX_VARIANTS) {
+        callSite.variants.remove(0);
+      }
+      callSite.variants.add(variant);
+    }
+  }
+
+  /**
+   * Records that the given loop could not be compiled, and backs off from compiling it again.
+   *
+   * @return true if this is the first of a run of consecutive failures to compile this loop
+   */
+  public boolean markUncompilable(FunctionCall call, long compileTimeNanos) {
+    failures.incrementAndGet();
+    this.compileTimeNanos.addAndGet(compileTimeNanos);
+    CallSite callSite = getOrCreate(call);
+    synchronized (callSite) {
+      int shift = Math.min(callSite.consecutiveFailures, Integer.numberOfTrailingZeros(MAX_RETRY_DELAY));
+      callSite.skipCount = 1 << shift;
+      return callSite.consecutiveFailures++ == 0;
+    }
+  }
+
+  private CallSite getOrCreate(FunctionCall call) {
+    CallSite callSite = callSites.getIfPresent(call);
+    if(callSite == null) {
+      callSite = new CallSite();
+      callSites.put(call, callSite);
+    }
+    return callSite;
+  }
+
+  /**
+   * @return the number of times a compiled loop body was reused
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * @return the number of times no valid compiled loop body was found
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * @return the number of loop bodies successfully compiled
+   */
+  public long getCompilationCount() {
+    return compilations.get();
+  }
+
+  /**
+   * @return the number of loops which could not be compiled
+   */
+  public long getFailureCount() {
+    return failures.get();
+  }
+
+  /**
+   * @return the total time, in nanoseconds, spent compiling loops, whether successfully or not
+   */
+  public long getCompileTimeNanos() {
+    return compileTimeNanos.get();
+  }
+
+  /**
+   * Discards all cached loop bodies, for example after functions in the base environment have
+   * been redefined.
+   */
+  public void invalidate() {
+    callSites.invalidateAll();
+  }
+
+  @Override
+  public String toString() {
+    return "CompiledLoopCache{hits=" + hits + ", misses=" + misses +
+        ", compilations=" + compilations + ", failures=" + failures +
+        ", compileTime=" + (compileTimeNanos.get() / 1_000_000) + "ms}";
+  }
+
+  private static class CallSite {
+    private int consecutiveFailures;
+    private int skipCount;
+    private final List<Variant> variants = new ArrayList<>();
+  }
+
+  private static class Variant {
+    private final ValueBounds elementBounds;
+    private final CompilationGuard guard;
+    private final CompiledLoopBody body;
+
+    Variant(RuntimeState runtimeState, ValueBounds elementBounds, CompiledLoopBody body) {
+      this.elementBounds = elementBounds;
+      this.guard = new CompilationGuard(runtimeState);
+      this.body = body;
+    }
+  }
+}
@@ -37,45 +37,58 @@ import org.renjin.sexp.SEXP;
  */
 public class Compiler {
 
-  public static CompiledBody tryCompile(Context context, Environment rho, SEXP expression) {
-    try {
-
-      RuntimeState runtimeState = new RuntimeState(context, rho);
-      IRBodyBuilder builder = new IRBodyBuilder(runtimeState);
-      IRBody body = builder.build(expression);
-
-      ControlFlowGraph cfg = new ControlFlowGraph(body);
-
+  /**
+   * Compiles {@code expression} to JVM bytecode, specialized to the variables and functions
+   * visible through {@code runtimeState}. All lookups are recorded in {@code runtimeState}, so that a
+   * {@link CompilationGuard} can be constructed for the result.
+   *
+   * @throws NotCompilableException if the expression cannot be compiled
+   * @throws InvalidSyntaxException if the expression is not valid R
+   */
+  public static CompiledBody compile(RuntimeState runtimeState, SEXP expression) throws Exception {
+    return analyze(runtimeState, expression).compile().newInstance();
+  }
 
-      DominanceTree dTree = new DominanceTree(cfg);
-      SsaTransformer ssaTransformer = new SsaTransformer(cfg, dTree);
-      ssaTransformer.transform();
+  /**
+   * Translates and type-checks {@code expression}, performing all lookups through {@code runtimeState}.
+   *
+   * <p>The returned emitter no longer depends on the runtime state or the {@link Context}, so the bytecode
+   * can be generated on another thread.</p>
+   *
+   * @throws NotCompilableException if the expression cannot be compiled
+   * @throws InvalidSyntaxException if the expression is not valid R
+   */
+  public static ByteCodeEmitter analyze(RuntimeState runtimeState, SEXP expression) {
+    IRBodyBuilder builder = new IRBodyBuilder(runtimeState);
+    IRBody body = builder.build(expression);
 
-      System.out.println(cfg);
+    ControlFlowGraph cfg = new ControlFlowGraph(body);
 
-      UseDefMap useDefMap = new UseDefMap(cfg);
-      TypeSolver types = new TypeSolver(cfg, useDefMap);
-      types.execute();
+    DominanceTree dTree = new DominanceTree(cfg);
+    SsaTransformer ssaTransformer = new SsaTransformer(cfg, dTree);
+    ssaTransformer.transform();
 
-      types.dumpBounds();
+    UseDefMap useDefMap = new UseDefMap(cfg);
+    TypeSolver types = new TypeSolver(cfg, useDefMap);
+    types.execute();
 
+    types.verifyFunctionAssumptions(runtimeState);
 
-      types.verifyFunctionAssumptions(runtimeState);
+    ssaTransformer.removePhiFunctions(types);
 
-      ssaTransformer.removePhiFunctions(types);
+    return new ByteCodeEmitter(cfg, types);
+  }
 
-      System.out.println(cfg);
+  public static CompiledBody tryCompile(Context context, Environment rho, SEXP expression) {
+    try {
 
-      ByteCodeEmitter emitter = new ByteCodeEmitter(cfg, types);
-      return emitter.compile().newInstance();
+      return compile(new RuntimeState(context, rho), expression);
 
     } catch (NotCompilableException e) {
-      System.out.println(e.toString());
       context.warn("Could not compile loop: " + e.toString(context));
       return null;
 
     } catch (InvalidSyntaxException e) {
-      e.printStackTrace();
       throw new EvalException(e.getMessage());
 
     } catch (Exception e) {
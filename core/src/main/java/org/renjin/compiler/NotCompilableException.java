@@ -49,6 +49,21 @@ public class NotCompilableException extends RuntimeException {
     return (NotCompilableException) super.getCause();
   }
 
+  /**
+   * @return true if the code cannot be compiled regardless of the state of the environment, or
+   * false if compilation failed because a binding could not yet be resolved, and may succeed later.
+   */
+  public boolean isStructural() {
+    NotCompilableException e = this;
+    while(e != null) {
+      if(e instanceof UnresolvedBindingException) {
+        return false;
+      }
+      e = e.getCause();
+    }
+    return true;
+  }
+
 
   public String toString(Context context) {
     NotCompilableException e = this;
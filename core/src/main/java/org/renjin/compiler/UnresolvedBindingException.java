@@ -0,0 +1,35 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler;
+
+import org.renjin.sexp.SEXP;
+
+/**
+ * Thrown when compilation depends on a binding that cannot be resolved without side effects at the
+ * moment of compilation, for example because it is bound to a promise that has not yet been evaluated.
+ *
+ * <p>Unlike other {@link NotCompilableException}s, this reflects the state of the environment rather than
+ * the code being compiled, so a later attempt to compile the same code may succeed.</p>
+ */
+public class UnresolvedBindingException extends NotCompilableException {
+
+  public UnresolvedBindingException(SEXP sexp, String message) {
+    super(sexp, message);
+  }
+}
@@ -130,6 +130,25 @@ public class ValueBounds {
     return valueBounds;
   }
 
+  /**
+   * Constructs a {@code ValueBounds} describing the shape of {@code value}: its type, length and attributes,
+   * but not its contents. Whether the value is NA is only recorded for scalars; longer values are assumed
+   * to possibly contain NAs, so that the bounds can be computed in constant time regardless of the value's
+   * length. 
+   * 
+   * <p>Code compiled against these bounds remains valid for any value with the same shape, which makes them
+   * suitable for guarding compiled code that is reused with new data.</p>
+   */
+  public static ValueBounds shapeOf(SEXP value) {
+    ValueBounds valueBounds = new ValueBounds();
+    valueBounds.na = value.length() == 1 ? hasAnyNAs(value) : MAY_HAVE_NA;
+    valueBounds.typeSet = TypeSet.of(value);
+    valueBounds.length = value.length();
+    valueBounds.attributes = value.getAttributes().toMap();
+    valueBounds.attributesOpen = false;
+    return valueBounds;
+  }
+
   private static int hasAnyNAs(SEXP value) {
     if(value instanceof AtomicVector) {
       if(((AtomicVector) value).containsNA()) {
@@ -539,9 +558,10 @@ public class ValueBounds {
     ValueBounds bounds = new ValueBounds();
     bounds.length = this.length;
     bounds.typeSet = this.typeSet;
+    bounds.na = this.na;
     bounds.attributes = this.attributes;
     bounds.attributesOpen = this.attributesOpen;
-    return this;
+    return bounds;
   }
 
   public static ValueBounds.Builder builder() {
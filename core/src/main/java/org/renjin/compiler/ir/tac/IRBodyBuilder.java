@@ -175,7 +175,8 @@ public class IRBodyBuilder {
 
   private void insertVariableInitializations() {
     // For every variable that comes from the environment, 
-    // declare it as a constant in the beginning of the block
+    // read it in at the beginning of the block. Only the shape of the value
+    // is assumed, so that the compiled code can be reused with new data.
     
     List<Assignment> initializations = new ArrayList<>();
     
@@ -185,7 +186,7 @@ public class IRBodyBuilder {
 
         if (value != Symbol.UNBOUND_VALUE) {
           initializations.add(new Assignment(environmentVariable,
-              new ReadEnvironment(environmentVariable.getName(), ValueBounds.of(value))));
+              new ReadEnvironment(environmentVariable.getName(), ValueBounds.shapeOf(value))));
         }
       }
     }
@@ -18,7 +18,7 @@
  */
 package org.renjin.compiler.ir.tac;
 
-import org.renjin.compiler.NotCompilableException;
+import org.renjin.compiler.UnresolvedBindingException;
 import org.renjin.compiler.ir.exception.InvalidSyntaxException;
 import org.renjin.eval.Context;
 import org.renjin.packaging.SerializedPromise;
@@ -39,6 +39,11 @@ public class RuntimeState {
   
   private Environment methodTable;
 
+  /**
+   * The maximum number of promises which are followed when peeking at the value of a promise.
+   */
+  private static final int MAX_PEEK_DEPTH = 8;
+
 
   /**
    * List of symbols that we have resolved to builtins / or inlined
@@ -47,6 +52,12 @@ public class RuntimeState {
    */
   private Map<Symbol, Function> resolvedFunctions = Maps.newHashMap();
 
+  /**
+   * The values of all variables read from the environment during compilation, which
+   * compiled code can only be reused if these variables are bound to values with the same bounds.
+   */
+  private Map<Symbol, SEXP> resolvedVariables = Maps.newHashMap();
+
   /**
    * Creates a new {@code RuntimeState} for an arbitrary execution environment.
    * @param context
@@ -67,7 +78,7 @@ public class RuntimeState {
     
     SEXP methodTableSexp = enclosingEnvironment.getVariable(S3.METHODS_TABLE);
     if(methodTableSexp instanceof Promise) {
-      throw new NotCompilableException(S3.METHODS_TABLE, S3.METHODS_TABLE + " is not evaluated.");
+      throw new UnresolvedBindingException(S3.METHODS_TABLE, S3.METHODS_TABLE + " is not evaluated.");
     }
     if(methodTableSexp instanceof Environment) {
       methodTable = (Environment) methodTableSexp;
@@ -88,7 +99,7 @@ public class RuntimeState {
     Environment environment = rho;
     while(environment != Environment.EMPTY) {
       if (environment.isActiveBinding(name)) {
-        throw new NotCompilableException(name, "Active Binding encountered");
+        throw new UnresolvedBindingException(name, "Active Binding encountered");
       }
       value = rho.findVariable(context, name);
       if(value instanceof Promise) {
@@ -97,26 +108,71 @@ public class RuntimeState {
           value = promisedValue.force(context);
         } else {
           // Promises can have side effects, and evaluation order is important
-          // so we can't just force all the promises in the beginning of the loop
-          throw new NotCompilableException(name, "Unevaluated promise encountered");
+          // so we can't just force all the promises in the beginning of the loop,
+          // unless their value can be determined without evaluating them
+          value = peek(promisedValue, 0);
+          if(value == null) {
+            throw new UnresolvedBindingException(name, "Unevaluated promise encountered");
+          }
         }
       }
       environment = environment.getParent();
     }
     if(value == null) {
-      throw new NotCompilableException(name, "Symbol not found. Should not reach here!");
+      throw new UnresolvedBindingException(name, "Symbol not found. Should not reach here!");
     }
+    resolvedVariables.put(name, value);
     return value;
   }
 
 
+  /**
+   * Determines the value of an unevaluated promise without evaluating it, if evaluating it would have
+   * no side effects: that is, if its expression is a constant, or a symbol bound in the promise's
+   * environment to a value, to an evaluated promise, or to another such promise.
+   *
+   * @return the value to which the promise would evaluate, or {@code null} if it cannot be safely determined.
+   */
+  private static SEXP peek(Promise promise, int depth) {
+    if(promise instanceof SerializedPromise || depth > MAX_PEEK_DEPTH) {
+      return null;
+    }
+    SEXP expression = promise.getExpression();
+    if(expression instanceof AtomicVector) {
+      return expression;
+    }
+    if(!(expression instanceof Symbol)) {
+      return null;
+    }
+    Symbol symbol = (Symbol) expression;
+    if(symbol == Symbol.MISSING_ARG || symbol == Symbols.ELLIPSES || symbol.isVarArgReference()) {
+      return null;
+    }
+    Environment environment = promise.getEnvironment();
+    while(environment != Environment.EMPTY) {
+      if(environment.isActiveBinding(symbol)) {
+        return null;
+      }
+      SEXP value = environment.getFrame().getVariable(symbol);
+      if(value != Symbol.UNBOUND_VALUE) {
+        if(value instanceof Promise) {
+          Promise boundPromise = (Promise) value;
+          return boundPromise.isEvaluated() ? boundPromise.getValue() : peek(boundPromise, depth + 1);
+        }
+        return value == Symbol.MISSING_ARG ? null : value;
+      }
+      environment = environment.getParent();
+    }
+    return null;
+  }
+
   public Function findFunction(Symbol functionName) {
 
     Function f = findFunctionIfExists(functionName);
     if (f != null) {
       return f;
     }
-    throw new NotCompilableException(functionName, "Could not find function " + functionName);
+    throw new UnresolvedBindingException(functionName, "Could not find function " + functionName);
   }
 
   public Function findFunctionIfExists(Symbol functionName) {
@@ -142,7 +198,7 @@ public class RuntimeState {
    * @param exp
    * @return null if the expr is definitely not a function, or {@code expr} if the
    * value can be resolved to a Function without side effects
-   * @throws NotCompilableException if it is not possible to determine
+   * @throws UnresolvedBindingException if it is not possible to determine
    * whether the value is a function without risking side effects.
    */
   private Function isFunction(Symbol functionName, SEXP exp) {
@@ -162,7 +218,7 @@ public class RuntimeState {
       if(promise.isEvaluated()) {
         return isFunction(functionName, promise.getValue());
       } else {
-        throw new NotCompilableException(functionName, "Symbol " + functionName + " cannot be resolved to a function " +
+        throw new UnresolvedBindingException(functionName, "Symbol " + functionName + " cannot be resolved to a function " +
             " an enclosing environment has a binding of the same name to an unevaluated promise");
       }
     } else {
@@ -174,6 +230,10 @@ public class RuntimeState {
     return resolvedFunctions;
   }
 
+  public Map<Symbol, SEXP> getResolvedVariables() {
+    return resolvedVariables;
+  }
+
   /**
    * Tries to safely resolve an S3 method, without forcing any promises that might have side effects.
    * @param generic
@@ -226,7 +286,7 @@ public class RuntimeState {
     if(methodTable != null) {
       SEXP functionSexp = methodTable.getVariable(method);
       if(functionSexp instanceof Promise) {
-        throw new NotCompilableException(method, "Unevaluated entry in " + S3.METHODS_TABLE);
+        throw new UnresolvedBindingException(method, "Unevaluated entry in " + S3.METHODS_TABLE);
       }
       if(functionSexp instanceof Function) {
         return (Function) functionSexp;
@@ -36,7 +36,17 @@ public class ReadLoopVector implements Expression {
   }
 
   public ReadLoopVector(SEXP elements) {
-    bounds = ValueBounds.of(elements).withVaryingValues();
+    bounds = boundsOf(elements);
+  }
+
+  /**
+   * @return the bounds of the loop vector assumed by the compiled loop body. The length is left
+   * unbounded, as the loop body always reads the actual length of the vector at runtime.
+   */
+  public static ValueBounds boundsOf(SEXP elements) {
+    return new ValueBounds.Builder(ValueBounds.shapeOf(elements))
+        .setLength(ValueBounds.UNKNOWN_LENGTH)
+        .build();
   }
 
   @Override
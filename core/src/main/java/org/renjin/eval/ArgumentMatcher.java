@@ -25,12 +25,30 @@ import java.util.List;
 
 /**
  * Matches arguments to a function call to the formal arguments declared by an R closure.
+ *
+ * <p>The result of matching depends only on the formals and on the tags of the supplied
+ * arguments, and most call sites supply the same tags on every call. {@link #match(PairList)}
+ * therefore remembers the positions matched for the most recent tag signatures, so that a
+ * repeated call costs an identity comparison of the tags rather than a round of exact,
+ * partial and positional matching.</p>
  */
 public class ArgumentMatcher {
 
+  /**
+   * The maximum number of distinct tag signatures remembered by {@link #match(PairList)}.
+   */
+  private static final int MAX_CACHED_SIGNATURES = 8;
+
   private final String[] formalNames;
+  private final Symbol[] formalSymbols;
   private final SEXP[] defaultValues;
 
+  /**
+   * Recently matched tag signatures, most recent first. The array is replaced rather than
+   * modified, so that a matcher shared through a {@link Closure} can be used from several threads.
+   */
+  private volatile CachedMatch[] cachedMatches = new CachedMatch[0];
+
   /**
    * The zero-based index of the ellipses argument (...) within the formal parameter list.
    */
@@ -44,6 +62,7 @@ public class ArgumentMatcher {
   public ArgumentMatcher(PairList formals) {
     int formalCount = formals.length();
     formalNames = new String[formalCount];
+    formalSymbols = new Symbol[formalCount];
     formalEllipses = -1;
     defaultValues = new SEXP[formalCount];
 
@@ -56,6 +75,7 @@ public class ArgumentMatcher {
           formalEllipses = i;
         }
         formalNames[i] = formalName.getPrintName();
+        formalSymbols[i] = formalName;
       }
       defaultValues[i] = node.getValue();
       i++;
@@ -64,6 +84,10 @@ public class ArgumentMatcher {
 
   public ArgumentMatcher(String... formalNames) {
     this.formalNames = Arrays.copyOf(formalNames, formalNames.length);
+    this.formalSymbols = new Symbol[formalNames.length];
+    for (int i = 0; i < formalNames.length; i++) {
+      formalSymbols[i] = Symbol.get(formalNames[i]);
+    }
     this.defaultValues = new SEXP[formalNames.length];
     Arrays.fill(defaultValues, Symbol.MISSING_ARG);
     this.formalEllipses = -1;
@@ -168,27 +192,52 @@ public class ArgumentMatcher {
       }
     }
 
-    return new MatchedArgumentPositions(formalNames, formalToActual, matchedActuals, formalEllipses);
+    return new MatchedArgumentPositions(formalSymbols, formalToActual, matchedActuals, formalEllipses);
   }
 
   public MatchedArguments match(PairList actuals) {
     int numActuals = actuals.length();
     SEXP actualTags[] = new SEXP[numActuals];
-    String actualNames[] = new String[numActuals];
     SEXP actualValues[] = new SEXP[numActuals];
+    boolean named = false;
     {
       int i = 0;
       for (PairList.Node node : actuals.nodes()) {
         actualTags[i] = node.getRawTag();
         if (node.hasName()) {
-          actualNames[i] = node.getName();
+          named = true;
         }
         actualValues[i] = node.getValue();
         i++;
       }
     }
 
-    return new MatchedArguments(match(actualNames), actualTags, actualValues);
+    CachedMatch[] cached = cachedMatches;
+    for (CachedMatch match : cached) {
+      if(match.matches(actualTags)) {
+        return new MatchedArguments(match.positions, actualTags, actualValues);
+      }
+    }
+
+    String actualNames[] = new String[numActuals];
+    if(named) {
+      int i = 0;
+      for (PairList.Node node : actuals.nodes()) {
+        if (node.hasName()) {
+          actualNames[i] = node.getName();
+        }
+        i++;
+      }
+    }
+    MatchedArgumentPositions positions = match(actualNames);
+
+    // Remember this signature, evicting the least recently matched if full
+    CachedMatch[] updated = new CachedMatch[Math.min(cached.length + 1, MAX_CACHED_SIGNATURES)];
+    updated[0] = new CachedMatch(actualTags, positions);
+    System.arraycopy(cached, 0, updated, 1, updated.length - 1);
+    cachedMatches = updated;
+
+    return new MatchedArguments(positions, actualTags, actualValues);
   }
 
 
@@ -268,4 +317,30 @@ public class ArgumentMatcher {
   public List<String> getFormalNames() {
     return Arrays.asList(formalNames);
   }
+
+  /**
+   * The positions matched for a tag signature. Tags are either {@link Symbol}s, which are
+   * interned, or {@link Null#INSTANCE}, so signatures can be compared by identity.
+   */
+  private static final class CachedMatch {
+    private final SEXP[] tags;
+    private final MatchedArgumentPositions positions;
+
+    private CachedMatch(SEXP[] tags, MatchedArgumentPositions positions) {
+      this.tags = tags;
+      this.positions = positions;
+    }
+
+    private boolean matches(SEXP[] actualTags) {
+      if(actualTags.length != tags.length) {
+        return false;
+      }
+      for (int i = 0; i < tags.length; i++) {
+        if(actualTags[i] != tags[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
 }
@@ -36,7 +36,7 @@ public class Calls {
     Environment functionEnvironment = functionContext.getEnvironment();
 
     try {
-      ClosureDispatcher.matchArgumentsInto(closure.getFormals(), promisedArgs, functionEnvironment);
+      ClosureDispatcher.matchArgumentsInto(closure, promisedArgs, functionEnvironment);
 
       // copy supplied environment values into the function environment
       for(Symbol name : suppliedEnvironment.getSymbols()) {
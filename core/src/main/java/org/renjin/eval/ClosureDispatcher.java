@@ -68,7 +68,7 @@ public class ClosureDispatcher {
     Environment functionEnvironment = functionContext.getEnvironment();
 
     try {
-      matchArgumentsInto(closure.getFormals(), promisedArgs, functionEnvironment);
+      matchArgumentsInto(closure, promisedArgs, functionEnvironment);
 
       if(!metadata.isEmpty()) {
         for (Map.Entry<Symbol, SEXP> entry : metadata.entrySet()) {
@@ -124,13 +124,41 @@ public class ClosureDispatcher {
    * @param functionEnv the environment of the function call.
    */
   public static void matchArgumentsInto(PairList formals, PairList actuals, Environment functionEnv) {
+    matchArgumentsInto(formals, new ArgumentMatcher(formals), actuals, functionEnv);
+  }
+
+  /**
+   * Matches the {@code actual} arguments provided to the function call to the {@code closure}'s formal
+   * argument list, using the closure's own {@link ArgumentMatcher}, and populates the {@code functionEnv}
+   * with the matched symbols.
+   */
+  public static void matchArgumentsInto(Closure closure, PairList actuals, Environment functionEnv) {
+    matchArgumentsInto(closure.getFormals(), closure.getArgumentMatcher(), actuals, functionEnv);
+  }
+
+  private static void matchArgumentsInto(PairList formals, ArgumentMatcher matcher, PairList actuals,
+                                         Environment functionEnv) {
 
-    ArgumentMatcher matcher = new ArgumentMatcher(formals);
     MatchedArguments matching = matcher.match(actuals);
 
+    // If the function environment's frame was laid out for these formals, then
+    // the formal at formalIndex is stored in the slot at the same index.
+    SlotFrame slots = null;
+    if(functionEnv.getFrame() instanceof SlotFrame) {
+      slots = (SlotFrame) functionEnv.getFrame();
+      if(!slots.getLayout().hasFormals(formals)) {
+        slots = null;
+      }
+    }
+
     for (int formalIndex = 0; formalIndex < matching.getFormalCount(); formalIndex++) {
       if(matching.isFormalEllipses(formalIndex)) {
-        functionEnv.setVariableUnsafe(Symbols.ELLIPSES, matching.buildExtraArgumentList());
+        SEXP extraArguments = matching.buildExtraArgumentList();
+        if(slots != null) {
+          slots.setSlot(formalIndex, extraArguments);
+        } else {
+          functionEnv.setVariableUnsafe(Symbols.ELLIPSES, extraArguments);
+        }
 
       } else {
         Symbol formalName = matching.getFormalName(formalIndex);
@@ -164,8 +192,10 @@ public class ClosureDispatcher {
 
             functionEnv.setMissingArgument(formalName,
                 promiseDefaultValue(functionEnv, defaultValue));
-          } else {
+          } else if(slots != null) {
+            slots.setSlot(formalIndex, actualValue);
 
+          } else {
             functionEnv.setArgument(formalName, actualValue);
           }
         }
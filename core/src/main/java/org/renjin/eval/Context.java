@@ -141,7 +141,8 @@ public class Context {
     context.parent = this;
     context.evaluationDepth = evaluationDepth+1;
     context.function = closure;
-    context.environment = Environment.createChildEnvironment(closure.getEnclosingEnvironment()).build();
+    context.environment = Environment.createChildEnvironment(closure.getEnclosingEnvironment(),
+        new SlotFrame(closure.getFrameLayout())).buildCallFrame();
     context.session = session;
     context.arguments = arguments;
     context.call = call;
@@ -397,11 +398,12 @@ public class Context {
     clearInvisibleFlag();
 
     SEXP fn = call.getFunction();
-    Function functionExpr = evaluateFunction(fn, rho);
+    Function functionExpr = evaluateFunction(call, fn, rho);
 
-    boolean profiling = Profiler.ENABLED && fn instanceof Symbol && !((Symbol) fn).isReservedWord();
-    if(Profiler.ENABLED && profiling) {
-      Profiler.functionStart((Symbol)fn, functionExpr);
+    Profiler profiler = null;
+    if(Profiler.ENABLED && fn instanceof Symbol && !((Symbol) fn).isReservedWord()) {
+      profiler = session.getProfiler();
+      profiler.enter((Symbol) fn, functionExpr);
     }
     try {
       return functionExpr.apply(this, rho, call, call.getArguments());
@@ -416,19 +418,19 @@ public class Context {
       throw new EvalException(message, e);
       
     } finally {
-      if(Profiler.ENABLED && profiling) {
-        Profiler.functionEnd();
+      if(profiler != null) {
+        profiler.exit();
       }
     }
   }
 
-  private Function evaluateFunction(SEXP functionExp, Environment rho) {
+  private Function evaluateFunction(FunctionCall call, SEXP functionExp, Environment rho) {
     if(functionExp instanceof Symbol) {
       Symbol symbol = (Symbol) functionExp;
       if(symbol.isReservedWord()) {
         return Primitives.getReservedBuiltin(symbol);
       }
-      Function fn = rho.findFunction(this, symbol);
+      Function fn = findFunction(call, symbol, rho);
       if(fn == null) {
         throw new EvalException("could not find function '%s'", symbol.getPrintName());      
       }
@@ -442,6 +444,37 @@ public class Context {
     }
   }
 
+  /**
+   * Finds the function named by {@code symbol}, reusing the result of the previous lookup from this call site
+   * where possible.
+   *
+   * <p>The frames of closure calls are searched on each call, as their bindings are not versioned. Once the search
+   * reaches a shared environment, such as a namespace or the global environment, the result is cached on the
+   * {@code FunctionCall} together with the {@link Environment#getFunctionBindingsVersion() function bindings version}
+   * and reused until any function binding in a shared environment changes.</p>
+   */
+  private Function findFunction(FunctionCall call, Symbol symbol, Environment rho) {
+    Environment env = rho;
+    while(env.isCallFrame()) {
+      Function fn = env.findLocalFunction(this, symbol);
+      if(fn != null) {
+        return fn;
+      }
+      env = env.getParent();
+    }
+
+    long version = Environment.getFunctionBindingsVersion();
+    Function cached = call.getCachedFunction(env, version);
+    if(cached != null) {
+      return cached;
+    }
+    Function fn = env.findFunction(this, symbol);
+    if(fn != null) {
+      call.cacheFunction(env, fn, version);
+    }
+    return fn;
+  }
+
   /**
    *
    * @return the {@link FileSystemManager} associated with this Context. All R primitives that
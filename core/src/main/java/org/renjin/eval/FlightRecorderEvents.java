@@ -0,0 +1,126 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.eval;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Emits function calls as Java Flight Recorder custom events, named {@code org.renjin.FunctionCall}.
+ *
+ * <p>The {@code jdk.jfr} API is only available from Java 11 (and 8u262), so events are defined at runtime
+ * through {@code jdk.jfr.EventFactory} using reflection. If the API is not available,
+ * {@link #isAvailable()} returns false and no events are emitted.</p>
+ */
+class FlightRecorderEvents {
+
+  private static final Object FACTORY;
+  private static final Method NEW_EVENT;
+  private static final Method BEGIN;
+  private static final Method SET;
+  private static final Method END;
+  private static final Method COMMIT;
+
+  static {
+    Object factory = null;
+    Method newEvent = null;
+    Method begin = null;
+    Method set = null;
+    Method end = null;
+    Method commit = null;
+    try {
+      Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+      Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+      Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+      Class<?> eventClass = Class.forName("jdk.jfr.Event");
+
+      Constructor<?> annotation = annotationElementClass.getConstructor(Class.class, Object.class);
+      Constructor<?> field = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+
+      List<Object> annotations = Arrays.asList(
+          annotation.newInstance(Class.forName("jdk.jfr.Name"), "org.renjin.FunctionCall"),
+          annotation.newInstance(Class.forName("jdk.jfr.Label"), "R Function Call"),
+          annotation.newInstance(Class.forName("jdk.jfr.Category"), new String[] { "Renjin" }));
+
+      List<Object> fields = Arrays.asList(
+          field.newInstance(String.class, "function", Collections.emptyList()),
+          field.newInstance(char.class, "type", Collections.emptyList()),
+          field.newInstance(long.class, "bytesAllocated", Collections.emptyList()));
+
+      factory = factoryClass.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+      newEvent = factoryClass.getMethod("newEvent");
+      begin = eventClass.getMethod("begin");
+      set = eventClass.getMethod("set", int.class, Object.class);
+      end = eventClass.getMethod("end");
+      commit = eventClass.getMethod("commit");
+
+    } catch (Throwable e) {
+      // Flight Recorder is not available on this JVM
+      factory = null;
+    }
+    FACTORY = factory;
+    NEW_EVENT = newEvent;
+    BEGIN = begin;
+    SET = set;
+    END = end;
+    COMMIT = commit;
+  }
+
+  private FlightRecorderEvents() { }
+
+  public static boolean isAvailable() {
+    return FACTORY != null;
+  }
+
+  /**
+   * Creates and begins a new function call event.
+   *
+   * @return the event, or {@code null} if Flight Recorder is not available.
+   */
+  public static Object begin(String functionName, char type) {
+    if(FACTORY == null) {
+      return null;
+    }
+    try {
+      Object event = NEW_EVENT.invoke(FACTORY);
+      SET.invoke(event, 0, functionName);
+      SET.invoke(event, 1, type);
+      BEGIN.invoke(event);
+      return event;
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * Ends and commits an event previously created by {@link #begin(String, char)}
+   */
+  public static void commit(Object event, long bytesAllocated) {
+    try {
+      SET.invoke(event, 2, bytesAllocated);
+      END.invoke(event);
+      COMMIT.invoke(event);
+    } catch (Exception ignored) {
+      // Recording has been closed
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.eval;
+
+import org.renjin.sexp.Frame;
+import org.renjin.sexp.Function;
+import org.renjin.sexp.SEXP;
+import org.renjin.sexp.Symbol;
+
+import java.util.Set;
+
+/**
+ * The frame of a session's global environment, which keeps {@code .Random.seed} in sync with the
+ * session's random number generator.
+ *
+ * <p>The generator does not assign {@code .Random.seed} every time it draws a number. Instead, the
+ * seed is assigned when {@code .Random.seed} is about to be read, and the generator is notified when
+ * R code assigns {@code .Random.seed} itself.</p>
+ */
+class GlobalFrame implements Frame {
+
+  private static final Symbol RANDOM_SEED = Symbol.get(".Random.seed");
+
+  private final Session session;
+  private final Frame bindings;
+
+  GlobalFrame(Session session, Frame bindings) {
+    this.session = session;
+    this.bindings = bindings;
+  }
+
+  /**
+   * @return the underlying frame, which holds the bindings without synchronizing {@code .Random.seed}
+   */
+  Frame getBindings() {
+    return bindings;
+  }
+
+  @Override
+  public Set<Symbol> getSymbols() {
+    return bindings.getSymbols();
+  }
+
+  @Override
+  public SEXP getVariable(Symbol name) {
+    if(name == RANDOM_SEED) {
+      session.getRNG().publishSeed();
+    }
+    return bindings.getVariable(name);
+  }
+
+  @Override
+  public Function getFunction(Context context, Symbol name) {
+    return bindings.getFunction(context, name);
+  }
+
+  @Override
+  public boolean isMissingArgument(Symbol name) {
+    return bindings.isMissingArgument(name);
+  }
+
+  @Override
+  public void setVariable(Symbol name, SEXP value) {
+    bindings.setVariable(name, value);
+    if(name == RANDOM_SEED) {
+      session.getRNG().seedAssigned(value);
+    }
+  }
+
+  @Override
+  public void clear() {
+    bindings.clear();
+  }
+
+  @Override
+  public void remove(Symbol name) {
+    bindings.remove(name);
+  }
+
+  @Override
+  public String toString() {
+    return bindings.toString();
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.eval;
+
+/**
+ * A {@linkplain Session#getSingleton(Class) session singleton} whose state is inherited by child sessions
+ * and by sessions created from a {@link SessionSnapshot}.
+ *
+ * <p>Singletons that do not implement this interface start afresh in each new session.</p>
+ */
+public interface InheritedSingleton {
+
+  /**
+   * @return the instance to be used by a new session: a copy of this instance, so that changes made by
+   * either session are not visible to the other, or this instance itself, if it is immutable or
+   * safe to use from sessions running concurrently.
+   */
+  Object copyForChild();
+}
@@ -36,13 +36,13 @@ import java.util.Set;
 public class MatchedArgumentPositions {
 
   private final boolean[] matchedActuals;
-  private String[] formalNames;
+  private final Symbol[] formalNames;
   private final int formalEllipses;
   private final int[] formalMatches;
 
   private int extraArgumentCount;
 
-  MatchedArgumentPositions(String[] formalNames, int[] formalMatches, boolean[] matchedActuals, int formalEllipses) {
+  MatchedArgumentPositions(Symbol[] formalNames, int[] formalMatches, boolean[] matchedActuals, int formalEllipses) {
     this.formalNames = formalNames;
     this.formalMatches = formalMatches;
 
@@ -61,7 +61,7 @@ public class MatchedArgumentPositions {
     for (int i = 0; i < names.length; i++) {
       names[i] = arguments.get(i).getName();
     }
-    return new ArgumentMatcher(closure).match(names);
+    return closure.getArgumentMatcher().match(names);
   }
 
   public static MatchedArgumentPositions matchArgumentBounds(Closure closure, List<ArgumentBounds> arguments) {
@@ -69,7 +69,7 @@ public class MatchedArgumentPositions {
     for (int i = 0; i < names.length; i++) {
       names[i] = arguments.get(i).getName();
     }
-    return new ArgumentMatcher(closure).match(names);
+    return closure.getArgumentMatcher().match(names);
   }
 
   public Set<Symbol> getSuppliedFormals() {
@@ -88,7 +88,7 @@ public class MatchedArgumentPositions {
     HashMap<Symbol, Integer> map = new HashMap<>();
     for (int i = 0; i < formalMatches.length; i++) {
       if(formalMatches[i] != -1) {
-        map.put(Symbol.get(formalNames[i]), formalMatches[i]);
+        map.put(formalNames[i], formalMatches[i]);
       }
     }
     return map;
@@ -111,7 +111,7 @@ public class MatchedArgumentPositions {
    * @return the name of the {@code i}th formal argument
    */
   public Symbol getFormalName(int i) {
-    return Symbol.get(formalNames[i]);
+    return formalNames[i];
   }
 
   public int getFormalCount() {
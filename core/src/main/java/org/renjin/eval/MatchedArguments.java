@@ -57,6 +57,10 @@ public class MatchedArguments {
     return matchedPositions.getFormalName(formalIndex);
   }
 
+  MatchedArgumentPositions getPositions() {
+    return matchedPositions;
+  }
+
   public PromisePairList buildExtraArgumentList() {
     PromisePairList.Builder promises = new PromisePairList.Builder();
     for (int actualIndex = 0; actualIndex < actualValues.length; actualIndex++) {
@@ -28,7 +28,7 @@ import java.util.Set;
  * Session-level options for an R session.
  *
  */
-public class Options {
+public class Options implements InheritedSingleton {
   private Map<String, SEXP> map;
 
   public Options() {
@@ -70,4 +70,18 @@ public class Options {
     return map.keySet();
   }
 
+  /**
+   * @return a new copy of these options.
+   */
+  Options copy() {
+    Options copy = new Options();
+    copy.map = Maps.newHashMap(map);
+    return copy;
+  }
+
+  @Override
+  public Options copyForChild() {
+    return copy();
+  }
+
 }
\ No newline at end of file
@@ -18,32 +18,59 @@
  */
 package org.renjin.eval;
 
-import org.renjin.repackaged.guava.base.Predicate;
 import org.renjin.repackaged.guava.collect.Iterables;
 import org.renjin.repackaged.guava.collect.Lists;
 import org.renjin.repackaged.guava.collect.Ordering;
 import org.renjin.sexp.*;
 import org.renjin.sexp.Vector;
 
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.Writer;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
-import static java.lang.System.out;
-
 /**
- * Simple profiler intended to be used from the command line.
- * 
- * <p>The profiler can be enabled using the JVM flag -Drenjin.profile=true</p>
+ * Instrumenting profiler for a single {@link Session}.
+ *
+ * <p>Each session has its own profiler, which can be started and stopped at runtime, either from Java through
+ * {@link Session#getProfiler()}, or from R with {@code Rprof()}. The profiler records the call tree
+ * with the count, total and own time, and bytes allocated by each function, the time spent materializing
+ * deferred computations, time spent in native (.C, .Fortran and .Call) code, long running loops, and the hit
+ * rate of the {@link org.renjin.primitives.S3DispatchCache S3 dispatch cache}.</p>
+ *
+ * <p>Results can be written as a text report, as collapsed stacks for flame graph tools, as JSON, or
+ * in the sampled format read by {@code summaryRprof()}. Function calls can also be emitted as Java Flight
+ * Recorder events when running on a JVM which supports custom events.</p>
+ *
+ * <p>The JVM flag -Drenjin.profile=true starts the profiler of every new session.</p>
  */
 public class Profiler {
 
-  public static boolean ENABLED = Boolean.getBoolean("renjin.profile");
+  /**
+   * True while at least one session's profiler is running. Instrumented code checks this flag before calling
+   * the profiler, so that there is no overhead when no profiler is running.
+   */
+  public static volatile boolean ENABLED = false;
 
-  private static final long MIN_LOOP_TIME_RECORD = TimeUnit.MILLISECONDS.toNanos(500);
+  /**
+   * If true, every session's profiler is started when the session is created.
+   */
+  public static final boolean PROFILE_ALL_SESSIONS = Boolean.getBoolean("renjin.profile");
 
-  private static long MATERIALIZATION_TIME = 0;
-  private static long MATERIALIZATION_COUNT = 0;
+  /**
+   * The number of sessions whose profiler is running. Guarded by the Profiler class monitor, so that
+   * {@link #ENABLED} is always updated together with the count.
+   */
+  private static int runningCount = 0;
+
+  /**
+   * The profiler of the session whose function call is currently being evaluated on this thread, used by
+   * instrumentation which does not have access to the {@link Context}
+   */
+  private static final ThreadLocal<Profiler> ACTIVE = new ThreadLocal<>();
+
+  private static final long MIN_LOOP_TIME_RECORD = TimeUnit.MILLISECONDS.toNanos(500);
 
   private static class FunctionProfile {
     private Symbol symbol;
@@ -53,10 +80,46 @@ public class Profiler {
     private long bytesAllocated;
     private char type;
   }
-  
+
+  /**
+   * Node in the call tree, aggregating all calls with the same stack.
+   */
+  private static class CallNode {
+    private final Symbol symbol;
+    private final char type;
+    private final CallNode parent;
+    private Map<Symbol, CallNode> children = null;
+    private long count;
+    private long time;
+    private long ownTime;
+    private long bytesAllocated;
+    private long materializationTime;
+
+    private CallNode(CallNode parent, Symbol symbol, char type) {
+      this.parent = parent;
+      this.symbol = symbol;
+      this.type = type;
+    }
+
+    private CallNode child(Symbol symbol, char type) {
+      if(children == null) {
+        children = new IdentityHashMap<>();
+      }
+      CallNode child = children.get(symbol);
+      if(child == null) {
+        child = new CallNode(this, symbol, type);
+        children.put(symbol, child);
+      }
+      return child;
+    }
+
+    private Collection<CallNode> getChildren() {
+      return children == null ? Collections.<CallNode>emptyList() : children.values();
+    }
+  }
+
   private static class CallTiming {
-    private Symbol symbol;
-    private char type;
+    private CallNode node;
     private CallTiming parent;
     private long startTime;
     private long childTime;
@@ -66,15 +129,13 @@ public class Profiler {
      * Nanos spent materializing deferred computations
      */
     private long materializationTime;
-    private long materializeCount;
-  }
-  
-  private static class LoopProfile {
-    private FunctionCall call;
-    private long time;
-    private long iterations;
+
+    /**
+     * The Flight Recorder event for this call, if enabled.
+     */
+    private Object event;
   }
-  
+
   private static class LoopTiming {
     private FunctionCall call;
     private long startTime;
@@ -84,129 +145,304 @@ public class Profiler {
     private long actualIterations;
     public CallTiming parentCall;
   }
-  
-  
-  
-  private static Map<Symbol, FunctionProfile> FUNCTION_PROFILES = new IdentityHashMap<>();
-  
-  private static Map<Symbol, FunctionProfile> TOP_LEVEL_PROFILES = new IdentityHashMap<>();
-  
-  private static List<LoopTiming> LOOP_TIMINGS = new ArrayList<>();
-  
-  private static CallTiming CURRENT = null;
-  private static LoopTiming CURRENT_LOOP;
-  
-  private static long LOOP_TIME = 0;
-  
-  private static long startTime = System.nanoTime();
+
+  private volatile boolean running = false;
+  private boolean flightRecorderEnabled = false;
+
+  private Map<Symbol, FunctionProfile> functionProfiles = new IdentityHashMap<>();
+  private Map<Symbol, FunctionProfile> topLevelProfiles = new IdentityHashMap<>();
+  private List<LoopTiming> loopTimings = new ArrayList<>();
+
+  private CallNode root = new CallNode(null, null, ' ');
+
+  private CallTiming current = null;
+  private LoopTiming currentLoop = null;
+
+  private long materializationTime = 0;
+  private long materializationCount = 0;
+  private long loopTime = 0;
+
+  private long s3DispatchHits = 0;
+  private long s3DispatchMisses = 0;
+
+  private long startTime = System.nanoTime();
+  private long stopTime = 0;
+
+  public Profiler() {
+    if(PROFILE_ALL_SESSIONS) {
+      start();
+    }
+  }
+
+  /**
+   * Clears any existing profile data and starts the profiler.
+   */
+  public synchronized void start() {
+    reset();
+    if(!running) {
+      running = true;
+      profilerStarted();
+    }
+  }
 
   /**
-   * Clears any existing function profiles, and restarts the 
-   * program timer.
+   * Stops the profiler. The profile data collected remains available until the profiler is restarted.
    */
-  public static void reset() {
-    FUNCTION_PROFILES.clear();
+  public synchronized void stop() {
+    if(running) {
+      running = false;
+      stopTime = System.nanoTime();
+      current = null;
+      if(ACTIVE.get() == this) {
+        ACTIVE.remove();
+      }
+      profilerStopped();
+    }
+  }
+
+  private static synchronized void profilerStarted() {
+    runningCount++;
+    ENABLED = true;
+  }
+
+  private static synchronized void profilerStopped() {
+    runningCount--;
+    ENABLED = runningCount > 0;
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Clears any existing profile data, and restarts the program timer.
+   */
+  public synchronized void reset() {
+    functionProfiles = new IdentityHashMap<>();
+    topLevelProfiles = new IdentityHashMap<>();
+    loopTimings = new ArrayList<>();
+    root = new CallNode(null, null, ' ');
+    current = null;
+    currentLoop = null;
+    materializationTime = 0;
+    materializationCount = 0;
+    loopTime = 0;
+    s3DispatchHits = 0;
+    s3DispatchMisses = 0;
     startTime = System.nanoTime();
+    stopTime = 0;
+  }
+
+  /**
+   * Enables or disables the emission of a Java Flight Recorder event for each function call.
+   *
+   * @return false if Flight Recorder custom events are not supported by this JVM
+   */
+  public boolean setFlightRecorderEnabled(boolean enabled) {
+    this.flightRecorderEnabled = enabled && FlightRecorderEvents.isAvailable();
+    return flightRecorderEnabled == enabled;
   }
 
   /**
    * Reports the start of a function call
    * @param functionName the name of the function being called
+   * @param type 'R' for closures, 'B' for builtins, or 'C' or 'F' for native calls
    */
-  public static void functionStart(Symbol functionName, char type) {
+  public void enter(Symbol functionName, char type) {
+    if(!running) {
+      return;
+    }
     CallTiming timing = new CallTiming();
-    timing.symbol = functionName;
-    timing.parent = CURRENT;
+    timing.node = (current == null ? root : current.node).child(functionName, type);
+    timing.parent = current;
     timing.startTime = System.nanoTime();
-    timing.type = type;
-
-    CURRENT = timing;
-  }
-  
-  public static void functionStart(Symbol functionName, Function functionExpr) {
-
-    if(functionExpr instanceof Closure) {
-      functionStart(functionName, 'R');
-    } else {
-      functionStart(functionName, 'B');
+    if(flightRecorderEnabled) {
+      timing.event = FlightRecorderEvents.begin(functionName.getPrintName(), type);
     }
-  }
-  
-  public static void loopStart(FunctionCall call, Vector elements) {
-    LoopTiming timing = new LoopTiming();
-    timing.call = call;
-    timing.parentCall = CURRENT;
-    timing.parent = CURRENT_LOOP;
-    timing.startTime = System.nanoTime();
-    timing.expectedIterations = elements.length();
-    
-    CURRENT_LOOP = timing;
+    if(current == null) {
+      ACTIVE.set(this);
+    }
+    current = timing;
   }
 
-  public static void materialized(long time) {
-    MATERIALIZATION_TIME += time;
-    MATERIALIZATION_COUNT ++;
-    
-    if(CURRENT != null) {
-      CURRENT.materializationTime += time;
-      CURRENT.materializeCount ++;
-    }
+  public void enter(Symbol functionName, Function functionExpr) {
+    enter(functionName, functionExpr instanceof Closure ? 'R' : 'B');
   }
 
   /**
-   * Reports the end of a function call
+   * Reports the end of the current function call
    */
-  public static void functionEnd() {
+  public void exit() {
+    if(current == null) {
+      // The profiler was started during this call
+      return;
+    }
     long endTime = System.nanoTime();
-    long time = endTime - CURRENT.startTime;
-    
-    // Update the "flat" profile for the given
-    // function
-    updateMap(FUNCTION_PROFILES, time);
-    
+    long time = endTime - current.startTime;
+
+    CallNode node = current.node;
+    node.count++;
+    node.time += time;
+    node.ownTime += (time - current.childTime);
+    node.bytesAllocated += current.bytesAllocated;
+    node.materializationTime += current.materializationTime;
+
+    // Update the "flat" profile for the given function
+    updateMap(functionProfiles, time);
+
     // If this is a top level call, save
-    if(CURRENT.parent == null) {
-      updateMap(TOP_LEVEL_PROFILES, time);
+    if(current.parent == null) {
+      updateMap(topLevelProfiles, time);
+    }
+
+    if(current.event != null) {
+      FlightRecorderEvents.commit(current.event, current.bytesAllocated);
     }
-    
-    // If this function is a nested function call, then 
+
+    // If this function is a nested function call, then
     // mark our parent as the current function, and add our run time
     // to our parent's child time count.
-    CURRENT = CURRENT.parent;
-    if(CURRENT != null) {
-      CURRENT.childTime += time;
+    current = current.parent;
+    if(current != null) {
+      current.childTime += time;
+    } else {
+      ACTIVE.remove();
     }
   }
 
-  private static void updateMap(Map<Symbol, FunctionProfile> map, long time) {
-    FunctionProfile profile = map.get(CURRENT.symbol);
+  private void updateMap(Map<Symbol, FunctionProfile> map, long time) {
+    FunctionProfile profile = map.get(current.node.symbol);
     if(profile == null) {
       profile = new FunctionProfile();
-      profile.symbol = CURRENT.symbol;
-      profile.type = CURRENT.type;
+      profile.symbol = current.node.symbol;
+      profile.type = current.node.type;
       map.put(profile.symbol, profile);
     }
     profile.time += time;
-    profile.ownTime += (time - CURRENT.childTime);
+    profile.ownTime += (time - current.childTime);
     profile.count++;
-    profile.bytesAllocated += CURRENT.bytesAllocated;
+    profile.bytesAllocated += current.bytesAllocated;
   }
 
-  public static void loopEnd(int iterations) {
+  private void startLoop(FunctionCall call, Vector elements) {
+    LoopTiming timing = new LoopTiming();
+    timing.call = call;
+    timing.parentCall = current;
+    timing.parent = currentLoop;
+    timing.startTime = System.nanoTime();
+    timing.expectedIterations = elements.length();
+
+    currentLoop = timing;
+  }
+
+  private void endLoop(int iterations) {
+    if(currentLoop == null) {
+      return;
+    }
     long endTime = System.nanoTime();
-    long time = endTime - CURRENT_LOOP.startTime;
-    
-    LOOP_TIME += time;
-    
-    if(time > MIN_LOOP_TIME_RECORD) {
-      CURRENT_LOOP.time = time;
-      CURRENT_LOOP.actualIterations = iterations;
-      LOOP_TIMINGS.add(CURRENT_LOOP);
+    long time = endTime - currentLoop.startTime;
+
+    loopTime += time;
+
+    if(time > MIN_LOOP_TIME_RECORD && currentLoop.parentCall != null) {
+      currentLoop.time = time;
+      currentLoop.actualIterations = iterations;
+      loopTimings.add(currentLoop);
+    }
+
+    currentLoop = currentLoop.parent;
+  }
+
+  private void recordMaterialization(long time) {
+    materializationTime += time;
+    materializationCount++;
+
+    if(current != null) {
+      current.materializationTime += time;
+    }
+  }
+
+  private void recordS3Dispatch(boolean cacheHit) {
+    if(cacheHit) {
+      s3DispatchHits++;
+    } else {
+      s3DispatchMisses++;
     }
-    
-    CURRENT_LOOP = CURRENT_LOOP.parent;
   }
 
+  private void recordAllocation(long bytes) {
+    if(current != null) {
+      current.bytesAllocated += bytes;
+    }
+  }
+
+  /*
+   * Hooks for instrumented code without access to the Context. These record to the profiler of the session
+   * whose function call is being evaluated on the current thread, if any.
+   */
+
+  private static Profiler active() {
+    Profiler profiler = ACTIVE.get();
+    if(profiler != null && !profiler.running) {
+      // The profiler was stopped from another thread
+      ACTIVE.remove();
+      return null;
+    }
+    return profiler;
+  }
+
+  public static void functionStart(Symbol functionName, char type) {
+    Profiler profiler = active();
+    if(profiler != null) {
+      profiler.enter(functionName, type);
+    }
+  }
+
+  public static void functionStart(Symbol functionName, Function functionExpr) {
+    Profiler profiler = active();
+    if(profiler != null) {
+      profiler.enter(functionName, functionExpr);
+    }
+  }
+
+  public static void functionEnd() {
+    Profiler profiler = active();
+    if(profiler != null) {
+      profiler.exit();
+    }
+  }
+
+  public static void loopStart(FunctionCall call, Vector elements) {
+    Profiler profiler = active();
+    if(profiler != null) {
+      profiler.startLoop(call, elements);
+    }
+  }
+
+  public static void loopEnd(int iterations) {
+    Profiler profiler = active();
+    if(profiler != null) {
+      profiler.endLoop(iterations);
+    }
+  }
+
+  public static void materialized(long time) {
+    Profiler profiler = active();
+    if(profiler != null) {
+      profiler.recordMaterialization(time);
+    }
+  }
+
+  /**
+   * Records an S3 method dispatch
+   * @param cacheHit true if the method was resolved from the session's dispatch cache
+   */
+  public static void s3Dispatched(boolean cacheHit) {
+    Profiler profiler = active();
+    if(profiler != null) {
+      profiler.recordS3Dispatch(cacheHit);
+    }
+  }
 
   /**
    * Records a memory allocation attempt
@@ -214,50 +450,81 @@ public class Profiler {
    * @param length the number of elements
    */
   public static void memoryAllocated(int size, int length) {
-    if(CURRENT != null) {
-      CURRENT.bytesAllocated += (length * (size/8));
+    Profiler profiler = active();
+    if(profiler != null) {
+      profiler.recordAllocation(((long) length) * (size / 8));
+    }
+  }
+
+  private long getTotalRunningTime() {
+    return (running || stopTime == 0 ? System.nanoTime() : stopTime) - startTime;
+  }
+
+  /**
+   * @return the total time, in nanoseconds, spent in native (.C, .Fortran, and .Call) functions.
+   */
+  public synchronized long getNativeTime() {
+    long time = 0;
+    for (FunctionProfile profile : functionProfiles.values()) {
+      if(profile.type == 'C' || profile.type == 'F') {
+        time += profile.ownTime;
+      }
     }
+    return time;
+  }
+
+  /**
+   * @return the total time, in nanoseconds, spent materializing deferred computations.
+   */
+  public synchronized long getMaterializationTime() {
+    return materializationTime;
+  }
+
+  /**
+   * @return the number of S3 dispatches resolved from the session's dispatch cache
+   */
+  public synchronized long getS3DispatchHitCount() {
+    return s3DispatchHits;
   }
 
-  public static void dumpTotalRunningTime() {
-    long totalRunningTime = (System.nanoTime() - startTime);
+  /**
+   * @return the number of S3 dispatches which required a full method search
+   */
+  public synchronized long getS3DispatchMissCount() {
+    return s3DispatchMisses;
+  }
 
-    double seconds = TimeUnit.NANOSECONDS.toSeconds(totalRunningTime);
+  public void dumpTotalRunningTime(PrintStream out) {
+    double seconds = TimeUnit.NANOSECONDS.toSeconds(getTotalRunningTime());
     double minutes = seconds / 60d;
-    
-    out.println("Completed in " + minutes + " minutes");
 
+    out.println("Completed in " + minutes + " minutes");
   }
-  
+
   /**
    * Dumps the results of the profile to the given PrintStream.
    */
-  public static void dump(PrintStream out) {
-    
-    long totalRunningTime = (System.nanoTime() - startTime);
+  public synchronized void dump(PrintStream out) {
+
+    long totalRunningTime = getTotalRunningTime();
 
     printTopFunctions(out, totalRunningTime);
     printFunctionTimings(out, totalRunningTime);
     printLoopTimings(out);
     printMaterializationStats(out);
+    printNativeStats(out);
+    printS3DispatchStats(out);
   }
 
+  private void printTopFunctions(PrintStream out, final double totalRunningTime) {
 
-  private static void printTopFunctions(PrintStream out, final double totalRunningTime) {
-
-    List<FunctionProfile> profiles = Lists.newArrayList(TOP_LEVEL_PROFILES.values());
+    List<FunctionProfile> profiles = Lists.newArrayList(topLevelProfiles.values());
     Collections.sort(profiles, Ordering.natural().onResultOf(new org.renjin.repackaged.guava.base.Function<FunctionProfile, Long>() {
       @Override
       public Long apply(FunctionProfile input) {
         return input.time;
       }
       }).reverse());
-    Iterables.filter(profiles, new Predicate<FunctionProfile>() {
-      @Override
-      public boolean apply(FunctionProfile input) {
-        return (((double) input.time) / totalRunningTime) > 0.01;
-      }
-      });
 
     out.println();
     out.println("TOP-LEVEL FUNCTION CALLS");
@@ -268,10 +535,9 @@ public class Profiler {
     printProfiles(out, totalRunningTime, Iterables.limit(profiles, 10));
   }
 
+  private void printFunctionTimings(PrintStream out, double totalRunningTime) {
 
-  private static void printFunctionTimings(PrintStream out, double totalRunningTime) {
-
-    List<FunctionProfile> profiles = Lists.newArrayList(FUNCTION_PROFILES.values());
+    List<FunctionProfile> profiles = Lists.newArrayList(functionProfiles.values());
     Collections.sort(profiles, Ordering.natural().onResultOf(new org.renjin.repackaged.guava.base.Function<FunctionProfile, Long>() {
       @Override
       public Long apply(FunctionProfile input) {
@@ -279,7 +545,6 @@ public class Profiler {
       }
       }).reverse());
 
-
     out.println();
     out.println("FUNCTION CALLS BY OWN TIME");
     out.println("==========================");
@@ -302,12 +567,12 @@ public class Profiler {
     }
   }
 
-  private static void printLoopTimings(PrintStream out) {
+  private void printLoopTimings(PrintStream out) {
     out.println();
     out.println("LONG RUNNING LOOPS");
     out.println("==================");
-    
-    List<LoopTiming> loops = Lists.newArrayList(LOOP_TIMINGS);
+
+    List<LoopTiming> loops = Lists.newArrayList(loopTimings);
     Collections.sort(loops, Ordering.<Long>natural().onResultOf(new org.renjin.repackaged.guava.base.Function<LoopTiming, Long>() {
       @Override
       public Long apply(LoopTiming input) {
@@ -315,35 +580,194 @@ public class Profiler {
       }
     }));
 
-
     out.println(String.format("%-25s%10s%10s", "Function", "Iterations", "Time"));
 
     for (LoopTiming loop : loops) {
       out.println(String.format("%-25s%10d%10d",
-          loop.parentCall.symbol.getPrintName(),
+          loop.parentCall.node.symbol.getPrintName(),
           loop.actualIterations,
           TimeUnit.NANOSECONDS.toMillis(loop.time)));
     }
   }
 
-  private static void printMaterializationStats(PrintStream out) {
+  private void printMaterializationStats(PrintStream out) {
     out.println();
     out.println("VECTOR PIPELINER");
     out.println("================");
 
-    System.out.println("Materialization count: " + MATERIALIZATION_COUNT);
-    System.out.println("Materialization time (ms): " + TimeUnit.NANOSECONDS.toMillis(MATERIALIZATION_TIME));
+    out.println("Materialization count: " + materializationCount);
+    out.println("Materialization time (ms): " + TimeUnit.NANOSECONDS.toMillis(materializationTime));
+  }
 
+  private void printNativeStats(PrintStream out) {
+    out.println();
+    out.println("NATIVE CODE");
+    out.println("===========");
+
+    out.println("Native time (ms): " + TimeUnit.NANOSECONDS.toMillis(getNativeTime()));
+  }
+
+  private void printS3DispatchStats(PrintStream out) {
+    out.println();
+    out.println("S3 DISPATCH");
+    out.println("===========");
+
+    long total = s3DispatchHits + s3DispatchMisses;
+    out.println("Dispatch count: " + total);
+    out.println("Cache hits: " + s3DispatchHits);
+    if(total > 0) {
+      out.println(String.format("Cache hit rate: %.1f%%", s3DispatchHits * 100d / total));
+    }
+  }
+
+  /**
+   * Writes the call tree in the "collapsed stack" format used by flame graph tools: one line per
+   * distinct stack, with the frames separated by semicolons from outermost to innermost, followed
+   * by the own time of the innermost frame in microseconds.
+   */
+  public synchronized void writeCollapsedStacks(Writer writer) throws IOException {
+    for (CallNode child : root.getChildren()) {
+      writeCollapsedStacks(writer, child, child.symbol.getPrintName());
+    }
+    writer.flush();
+  }
+
+  private static void writeCollapsedStacks(Writer writer, CallNode node, String stack) throws IOException {
+    long micros = TimeUnit.NANOSECONDS.toMicros(node.ownTime);
+    if(micros > 0) {
+      writer.write(stack);
+      writer.write(' ');
+      writer.write(Long.toString(micros));
+      writer.write('\n');
+    }
+    for (CallNode child : node.getChildren()) {
+      writeCollapsedStacks(writer, child, stack + ";" + child.symbol.getPrintName());
+    }
+  }
+
+  /**
+   * Writes the profile as a JSON object, including a flat profile of all functions and the call tree.
+   * All times are in nanoseconds.
+   */
+  public synchronized void writeJson(Writer writer) throws IOException {
+    writer.write("{\"totalTime\":");
+    writer.write(Long.toString(getTotalRunningTime()));
+    writer.write(",\"materializationTime\":");
+    writer.write(Long.toString(materializationTime));
+    writer.write(",\"materializationCount\":");
+    writer.write(Long.toString(materializationCount));
+    writer.write(",\"nativeTime\":");
+    writer.write(Long.toString(getNativeTime()));
+    writer.write(",\"loopTime\":");
+    writer.write(Long.toString(loopTime));
+    writer.write(",\"s3DispatchHits\":");
+    writer.write(Long.toString(s3DispatchHits));
+    writer.write(",\"s3DispatchMisses\":");
+    writer.write(Long.toString(s3DispatchMisses));
+    writer.write(",\"functions\":[");
+    boolean needsComma = false;
+    for (FunctionProfile profile : functionProfiles.values()) {
+      if(needsComma) {
+        writer.write(',');
+      }
+      writer.write("{\"name\":");
+      writeJsonString(writer, profile.symbol.getPrintName());
+      writer.write(",\"type\":\"" + profile.type + "\"");
+      writer.write(",\"count\":" + profile.count);
+      writer.write(",\"time\":" + profile.time);
+      writer.write(",\"ownTime\":" + profile.ownTime);
+      writer.write(",\"bytesAllocated\":" + profile.bytesAllocated);
+      writer.write('}');
+      needsComma = true;
+    }
+    writer.write("],\"calls\":");
+    writeJsonCalls(writer, root.getChildren());
+    writer.write('}');
+    writer.flush();
+  }
+
+  private static void writeJsonCalls(Writer writer, Collection<CallNode> nodes) throws IOException {
+    writer.write('[');
+    boolean needsComma = false;
+    for (CallNode node : nodes) {
+      if(needsComma) {
+        writer.write(',');
+      }
+      writer.write("{\"name\":");
+      writeJsonString(writer, node.symbol.getPrintName());
+      writer.write(",\"type\":\"" + node.type + "\"");
+      writer.write(",\"count\":" + node.count);
+      writer.write(",\"time\":" + node.time);
+      writer.write(",\"ownTime\":" + node.ownTime);
+      writer.write(",\"bytesAllocated\":" + node.bytesAllocated);
+      writer.write(",\"materializationTime\":" + node.materializationTime);
+      writer.write(",\"children\":");
+      writeJsonCalls(writer, node.getChildren());
+      writer.write('}');
+      needsComma = true;
+    }
+    writer.write(']');
+  }
+
+  private static void writeJsonString(Writer writer, String string) throws IOException {
+    writer.write('"');
+    for (int i = 0; i < string.length(); i++) {
+      char c = string.charAt(i);
+      if(c == '"' || c == '\\') {
+        writer.write('\\');
+        writer.write(c);
+      } else if(c < 0x20) {
+        writer.write(String.format("\\u%04x", (int) c));
+      } else {
+        writer.write(c);
+      }
+    }
+    writer.write('"');
+  }
+
+  /**
+   * Writes the profile in the format produced by GNU R's sampling profiler, so that it can be summarized
+   * with {@code summaryRprof()}. Each call stack is written once for each {@code interval} of its own time.
+   *
+   * @param intervalMicros the sampling interval, in microseconds
+   */
+  public synchronized void writeRprof(Writer writer, long intervalMicros) throws IOException {
+    writer.write("sample.interval=" + intervalMicros + "\n");
+    for (CallNode child : root.getChildren()) {
+      writeRprofSamples(writer, child, TimeUnit.MICROSECONDS.toNanos(intervalMicros));
+    }
+    writer.flush();
+  }
+
+  private static void writeRprofSamples(Writer writer, CallNode node, long intervalNanos) throws IOException {
+    long samples = Math.round((double) node.ownTime / intervalNanos);
+    if(samples > 0) {
+      // Stacks are written from the innermost to outermost frame
+      StringBuilder line = new StringBuilder();
+      for (CallNode frame = node; frame.symbol != null; frame = frame.parent) {
+        if(line.length() > 0) {
+          line.append(' ');
+        }
+        line.append('"').append(frame.symbol.getPrintName()).append('"');
+      }
+      line.append('\n');
+      for (long i = 0; i < samples; i++) {
+        writer.write(line.toString());
+      }
+    }
+    for (CallNode child : node.getChildren()) {
+      writeRprofSamples(writer, child, intervalNanos);
+    }
   }
 
   private static String formatAlloc(long bytes) {
     if(bytes < 1024) {
       return "";
-    } 
+    }
     double kb = bytes / 1024d;
     if(kb < 1024) {
       return String.format("%.1f kb", kb);
-    } 
+    }
     double mb = kb / 1024d;
     if(mb < 1024) {
       return String.format("%.1f mb", mb);
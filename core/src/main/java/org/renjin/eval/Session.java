@@ -21,7 +21,9 @@ package org.renjin.eval;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.apache.commons.vfs2.FileSystemManager;
+import org.renjin.compiler.CompiledLoopCache;
 import org.renjin.pipeliner.VectorPipeliner;
+import org.renjin.primitives.S3DispatchCache;
 import org.renjin.primitives.Warning;
 import org.renjin.primitives.io.connections.ConnectionTable;
 import org.renjin.primitives.packaging.DllInfo;
@@ -60,6 +62,10 @@ public class Session {
 
   private S4Cache s4Cache = new S4Cache();
 
+  private CompiledLoopCache compiledLoopCache = new CompiledLoopCache();
+
+  private S3DispatchCache s3DispatchCache = new S3DispatchCache();
+
   private FinalizerRegistry finalizers = null;
 
   /**
@@ -101,7 +107,7 @@ public class Session {
   
   private Map<Class, Object> singletons = Maps.newHashMap();
   
-  private final ConnectionTable connectionTable = new ConnectionTable();
+  private final ConnectionTable connectionTable;
 
   private FileObject workingDirectory;
   
@@ -113,6 +119,8 @@ public class Session {
   
   private VectorPipeliner vectorPipeliner;
 
+  private final Profiler profiler = new Profiler();
+
   private ClassLoader classLoader;
 
   /**
@@ -144,10 +152,11 @@ public class Session {
     this.workingDirectory = FileSystemUtils.workingDirectory(fileSystemManager);
     this.systemEnvironment = Maps.newHashMap(System.getenv()); //load system environment variables
     this.baseEnvironment = Environment.createBaseEnvironment(this);
-    this.globalEnvironment = Environment.createGlobalEnvironment(baseEnvironment, globalFrame);
+    this.globalEnvironment = Environment.createGlobalEnvironment(baseEnvironment, new GlobalFrame(this, globalFrame));
     this.baseNamespaceEnv = Environment.createBaseNamespaceEnvironment(globalEnvironment, baseEnvironment).build();
     this.topLevelContext = new Context(this);
     this.baseNamespaceEnv.setVariableUnsafe(Symbol.get(".BaseNamespaceEnv"), baseNamespaceEnv);
+    this.connectionTable = new ConnectionTable();
 
     namespaceRegistry = new NamespaceRegistry(packageLoader, baseNamespaceEnv);
     securityManager = new SecurityManager();
@@ -162,6 +171,83 @@ public class Session {
   }
 
 
+  /**
+   * Creates a child session which shares the parent's base environment, loaded namespaces and
+   * attached packages. The child's global environment initially has the bindings of {@code sharedGlobalFrame},
+   * but the child's assignments to it are private. The child has its own copy of the parent's namespace registry
+   * and of those singletons which implement {@link InheritedSingleton}, such as its options; all other
+   * singletons are created afresh.
+   *
+   * @param sharedGlobalFrame the frame from which the child's global environment is initialized. It must not be
+   *                          modified while the child is in use.
+   * @param connectionTable the connections to be used by the child
+   */
+  private Session(Session parent, Frame sharedGlobalFrame, ConnectionTable connectionTable) {
+    this.fileSystemManager = parent.fileSystemManager;
+    this.classLoader = parent.classLoader;
+    this.homeDirectory = parent.homeDirectory;
+    this.workingDirectory = parent.workingDirectory;
+    this.systemEnvironment = Maps.newHashMap(parent.systemEnvironment);
+    this.baseEnvironment = parent.baseEnvironment;
+    this.globalEnvironment = Environment.createGlobalEnvironment(parent.globalEnvironment.getParent(),
+        new GlobalFrame(this, new CopyOnWriteFrame(sharedGlobalFrame)));
+    this.baseNamespaceEnv = parent.baseNamespaceEnv;
+    this.namespaceRegistry = parent.namespaceRegistry.copy();
+    this.securityManager = parent.securityManager;
+    this.vectorPipeliner = parent.vectorPipeliner;
+    this.connectionTable = connectionTable;
+    this.commandLineArguments = parent.commandLineArguments;
+    for (Map.Entry<Class, Object> singleton : parent.singletons.entrySet()) {
+      if(singleton.getValue() instanceof InheritedSingleton) {
+        this.singletons.put(singleton.getKey(), ((InheritedSingleton) singleton.getValue()).copyForChild());
+      }
+    }
+    this.loadedLibraries = new ArrayList<>(parent.loadedLibraries);
+    this.sessionController = parent.sessionController;
+    this.topLevelContext = new Context(this);
+  }
+
+  /**
+   * Creates a new, isolated session from a snapshot.
+   */
+  Session(SessionSnapshot snapshot) {
+    this(snapshot.getTemplate(), snapshot.getGlobalFrame(), new ConnectionTable());
+  }
+
+  /**
+   * Forks this session, creating a lightweight child session that can evaluate R code concurrently
+   * with other children of this session.
+   *
+   * <p>The child shares this session's base environment, namespaces and options, so these must
+   * not be modified while children are running. Changes to the child's global environment are not
+   * visible to this session.</p>
+   */
+  public Session fork() {
+    Session child = new Session(this, ((GlobalFrame) globalEnvironment.getFrame()).getBindings(), connectionTable);
+    child.rng = rng.copy(child);
+    return child;
+  }
+
+  /**
+   * Takes a snapshot of this fully-initialized session, from which new, isolated sessions can be created
+   * in milliseconds rather than re-initializing the base package and reloading packages.
+   *
+   * <p>Sessions created from the snapshot share this session's base environment, loaded namespaces and
+   * attached packages, so this session should not be used to evaluate further code once the snapshot
+   * has been taken.</p>
+   */
+  public SessionSnapshot snapshot() {
+    return new SessionSnapshot(this);
+  }
+
+  /**
+   * @return this session's profiler, which records function calls evaluated in this session
+   * while it is running.
+   */
+  public Profiler getProfiler() {
+    return profiler;
+  }
+
   public void setStdOut(PrintWriter writer) {
     this.connectionTable.getStdout().setStream(writer);
   }
@@ -355,6 +441,14 @@ public class Session {
     return s4Cache;
   }
 
+  public CompiledLoopCache getCompiledLoopCache() {
+    return compiledLoopCache;
+  }
+
+  public S3DispatchCache getS3DispatchCache() {
+    return s3DispatchCache;
+  }
+
   public void registerFinalizer(SEXP sexp, FinalizationHandler handler, boolean onExit) {
     if(finalizers == null) {
       finalizers = new FinalizerRegistry();
@@ -44,6 +44,8 @@ public class SessionBuilder {
 
   private Frame globalFrame = new HashFrame();
 
+  private SessionSnapshot snapshot = null;
+
   public SessionBuilder() {
 
   }
@@ -77,6 +79,19 @@ public class SessionBuilder {
     return this;
   }
 
+  /**
+   * Creates the new {@code Session} from a snapshot of an existing, initialized session rather than
+   * initializing the base package and loading packages. All other settings of this builder are ignored: the new
+   * {@code Session} shares the file system manager, package loader, class loader and executor service of the
+   * snapshot's session.
+   *
+   * @see Session#snapshot()
+   */
+  public SessionBuilder fromSnapshot(SessionSnapshot snapshot) {
+    this.snapshot = snapshot;
+    return this;
+  }
+
   /**
    * Sets the {@link FileSystemManager} used to implement calls to R's builtin functions.
    *
@@ -158,6 +173,9 @@ public class SessionBuilder {
   }
 
   public Session build() {
+    if(snapshot != null) {
+      return snapshot.newSession();
+    }
     try {
 
       if(classLoader == null) {
@@ -0,0 +1,70 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.eval;
+
+import org.renjin.sexp.Frame;
+import org.renjin.sexp.HashFrame;
+import org.renjin.sexp.Symbol;
+
+/**
+ * A snapshot of an initialized {@link Session}, from which new sessions can be created cheaply.
+ *
+ * <p>Sessions created from the snapshot share the base environment, the loaded namespaces and the attached
+ * packages of the original session, which must be treated as read-only. Each session has its own copy-on-write
+ * global environment, initialized with the bindings of the original global environment at the time the
+ * snapshot was taken, as well as its own connections, random number generator and profiler. Each session also
+ * has its own copy of the namespace registry and of the original session's {@link InheritedSingleton}s, such as
+ * its options and S4 method dispatch tables, while all other singletons, such as the last error message, are
+ * created afresh.</p>
+ *
+ * @see Session#snapshot()
+ * @see SessionBuilder#fromSnapshot(SessionSnapshot)
+ */
+public class SessionSnapshot {
+
+  private final Session template;
+  private final Frame globalFrame;
+
+  SessionSnapshot(Session template) {
+    this.template = template;
+
+    // Copy the global environment's bindings so that later changes to the original
+    // session's global environment are not visible to new sessions.
+    Frame frame = template.getGlobalEnvironment().getFrame();
+    this.globalFrame = new HashFrame();
+    for (Symbol symbol : frame.getSymbols()) {
+      this.globalFrame.setVariable(symbol, frame.getVariable(symbol));
+    }
+  }
+
+  Session getTemplate() {
+    return template;
+  }
+
+  Frame getGlobalFrame() {
+    return globalFrame;
+  }
+
+  /**
+   * Creates a new session from this snapshot.
+   */
+  public Session newSession() {
+    return new Session(this);
+  }
+}
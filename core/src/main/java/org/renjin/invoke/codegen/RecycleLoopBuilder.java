@@ -53,6 +53,12 @@ public class RecycleLoopBuilder {
     private JVar currentElementIndex;
     private JVar currentElement;
 
+    /**
+     * For double and integer arguments, the elements read in bulk before entering the loop,
+     * or {@code null} if elements are read one at a time through the accessor method.
+     */
+    private JVar elements;
+
 
 
     public RecycledArgument(JvmMethod.Argument argument, JExpression parameter) {
@@ -75,7 +81,30 @@ public class RecycleLoopBuilder {
       return scalarType.testNaExpr(codeModel, currentElement);
     }
 
+    /**
+     * Declares an array holding all of this argument's elements, so that the loop body
+     * reads from a plain array rather than through a megamorphic call to the vector's accessor.
+     */
+    public void declareElements(JBlock block) {
+      String helper;
+      JType elementType;
+      if(scalarType instanceof DoubleType) {
+        helper = "getDoubles";
+        elementType = codeModel.DOUBLE;
+      } else if(scalarType instanceof IntegerType) {
+        helper = "getInts";
+        elementType = codeModel.INT;
+      } else {
+        return;
+      }
+      elements = block.decl(elementType.array(), "elements" + formal.getIndex(),
+          codeModel.ref(WrapperRuntime.class).staticInvoke(helper).arg(vector));
+    }
+
     public JExpression getCurrentElement() {
+      if(elements != null) {
+        return elements.component(currentElementIndex);
+      }
       return vector.invoke(scalarType.getAccessorMethod()).arg(currentElementIndex);
     }
 
@@ -228,6 +257,10 @@ public class RecycleLoopBuilder {
   }
 
   private void loop() {
+    for (RecycledArgument recycledArgument : recycledArguments) {
+      recycledArgument.declareElements(parent);
+    }
+
     JForLoop loop = parent._for();
     cycleIndex = loop.init(codeModel.INT, "i", lit(0));
     loop.test(cycleIndex.ne(cycleCount));
@@ -173,6 +173,44 @@ public class WrapperRuntime {
     return new LogicalArrayVector(result);
   }
 
+  /**
+   * @return the elements of {@code vector} as doubles: the backing array itself for a
+   * {@code DoubleArrayVector}, which must not be modified, and otherwise a copy read in bulk.
+   */
+  public static double[] getDoubles(Vector vector) {
+    if(vector instanceof DoubleArrayVector) {
+      return ((DoubleArrayVector) vector).toDoubleArrayUnsafe();
+    }
+    double[] array = new double[vector.length()];
+    if(vector instanceof AtomicVector) {
+      ((AtomicVector) vector).getDoubles(0, array, 0, array.length);
+    } else {
+      for (int i = 0; i < array.length; i++) {
+        array[i] = vector.getElementAsDouble(i);
+      }
+    }
+    return array;
+  }
+
+  /**
+   * @return the elements of {@code vector} as integers: the backing array itself for an
+   * {@code IntArrayVector}, which must not be modified, and otherwise a copy read in bulk.
+   */
+  public static int[] getInts(Vector vector) {
+    if(vector instanceof IntArrayVector) {
+      return ((IntArrayVector) vector).toIntArrayUnsafe();
+    }
+    int[] array = new int[vector.length()];
+    if(vector instanceof AtomicVector) {
+      ((AtomicVector) vector).getInts(0, array, 0, array.length);
+    } else {
+      for (int i = 0; i < array.length; i++) {
+        array[i] = vector.getElementAsInt(i);
+      }
+    }
+    return array;
+  }
+
   public static SEXP maybeConvertToStringVector(Context context, SEXP vector) {
     if(vector instanceof Symbol) {
       return StringVector.valueOf(((Symbol)vector).getPrintName());
@@ -23,17 +23,22 @@ import org.renjin.eval.EvalException;
 import org.renjin.invoke.codegen.ArgumentIterator;
 import org.renjin.invoke.reflection.converters.Converter;
 import org.renjin.invoke.reflection.converters.Converters;
+import org.renjin.repackaged.guava.cache.Cache;
+import org.renjin.repackaged.guava.cache.CacheBuilder;
 import org.renjin.repackaged.guava.collect.Iterables;
 import org.renjin.repackaged.guava.collect.Lists;
-import org.renjin.sexp.Environment;
-import org.renjin.sexp.ListVector;
-import org.renjin.sexp.PairList;
-import org.renjin.sexp.SEXP;
+import org.renjin.sexp.*;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Encapsulates the binding between a JVM method and a R function, including any
@@ -41,8 +46,27 @@ import java.util.List;
  */
 public class FunctionBinding {
 
+  /**
+   * The maximum number of argument type combinations remembered for a single call site
+   */
+  private static final int MAX_TYPES_PER_CALL_SITE = 8;
+
   private List<Overload> overloads = Lists.newArrayList();
   private int maxArgCount;
+
+  /**
+   * The overloads chosen at each call site, keyed by the identity of the call. Weak keys
+   * allow entries to be collected along with the function bodies in which they appear.
+   */
+  private final Cache<FunctionCall, CallSite> callSites = CacheBuilder.newBuilder()
+      .weakKeys()
+      .maximumSize(1000)
+      .build();
+
+  /**
+   * Overloads chosen when invoked without a call, for example through {@code .Call}
+   */
+  private final CallSite uncalledSite = new CallSite();
   
   public FunctionBinding(Iterable<Method> overloads) {
     for(Method method : overloads) {
@@ -81,6 +105,13 @@ public class FunctionBinding {
   public static class Overload extends AbstractOverload {
     private Method method;
     private Converter returnValueConverter;
+
+    /**
+     * The method's handle, adapted to the type {@code (Object instance, Object[] arguments)Object}
+     * so that it can be invoked with {@code invokeExact}, or {@code null} if the method
+     * cannot be accessed through a method handle.
+     */
+    private MethodHandle invoker;
     
     public Overload(Method method) {
       super(method.getParameterTypes(),
@@ -101,6 +132,22 @@ public class FunctionBinding {
           // but we should still continue constructing the metadata for this class.
         }
       }
+      this.invoker = createInvoker(method);
+    }
+
+    private static MethodHandle createInvoker(Method method) {
+      MethodHandle handle;
+      try {
+        handle = MethodHandles.lookup().unreflect(method).asFixedArity();
+      } catch (IllegalAccessException e) {
+        return null;
+      }
+      if(Modifier.isStatic(method.getModifiers())) {
+        handle = MethodHandles.dropArguments(handle, 0, Object.class);
+      }
+      return handle
+          .asSpreader(Object[].class, method.getParameterCount())
+          .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
     }
     
     public Class getDeclaringClass() {
@@ -113,6 +160,15 @@ public class FunctionBinding {
     
     public SEXP invoke(Context context, Object instance, List<SEXP> args) {
       Object[] converted = convertArguments(context, args);
+      if(invoker != null) {
+        Object result;
+        try {
+          result = (Object) invoker.invokeExact(instance, converted);
+        } catch (Throwable e) {
+          throw new EvalException(e.getMessage(), e);
+        }
+        return returnValueConverter.convertToR(result);
+      }
       try {
         Object result = method.invoke(instance, converted);
         return returnValueConverter.convertToR(result);
@@ -144,6 +200,18 @@ public class FunctionBinding {
    * @param arguments the UNEVALUATED arguments
    */
   public SEXP evaluateArgsAndInvoke(Object instance, Context context, Environment rho, PairList arguments) {
+    return evaluateArgsAndInvoke(instance, context, rho, null, arguments);
+  }
+
+  /**
+   *
+   * @param instance the JVM object instance
+   * @param context the calling context
+   * @param rho the calling environment
+   * @param call the call to this function, used to remember the overload chosen, or {@code null}
+   * @param arguments the UNEVALUATED arguments
+   */
+  public SEXP evaluateArgsAndInvoke(Object instance, Context context, Environment rho, FunctionCall call, PairList arguments) {
     
     // eval arguments
     List<SEXP> args = Lists.newArrayListWithCapacity(maxArgCount);
@@ -151,7 +219,17 @@ public class FunctionBinding {
     while(it.hasNext()) {
       args.add(context.evaluate( it.next(), rho));
     }
-    return invoke(instance, context, args);
+    CallSite callSite;
+    if(call == null) {
+      callSite = uncalledSite;
+    } else {
+      callSite = callSites.getIfPresent(call);
+      if(callSite == null) {
+        callSite = new CallSite();
+        callSites.put(call, callSite);
+      }
+    }
+    return callSite.select(args).invoke(context, instance, args);
   }
 
   /**
@@ -162,20 +240,100 @@ public class FunctionBinding {
    */
   public SEXP invoke(Object instance, Context context, ListVector evaluatedArguments) {
     List<SEXP> args = Lists.newArrayList(evaluatedArguments);
-    return invoke(instance, context, args);
+    return uncalledSite.select(args).invoke(context, instance, args);
   }
 
-  private SEXP invoke(Object instance, Context context, List<SEXP> args) {
-    // find overload
+  private Overload findOverload(List<SEXP> args) {
     for(Overload overload : overloads) {
       if(overload.accept(args)) {
-        return overload.invoke(context, instance, args);
+        return overload;
       }
     }
     throw new EvalException("Cannot match arguments (%s) to any JVM method overload:\n%s",
         ExceptionUtil.toString(args), ExceptionUtil.overloadListToString(overloads));
   }
 
+  /**
+   * Remembers the overloads chosen at a single call site for the argument types seen there.
+   */
+  private class CallSite {
+    private final Map<ArgumentTypes, Overload> chosen = new ConcurrentHashMap<>();
+
+    Overload select(List<SEXP> args) {
+      if(overloads.size() == 1) {
+        Overload overload = overloads.get(0);
+        if(overload.accept(args)) {
+          return overload;
+        }
+      }
+      ArgumentTypes types = new ArgumentTypes(args);
+      Overload overload = chosen.get(types);
+      if(overload == null) {
+        overload = findOverload(args);
+        if(chosen.size() < MAX_TYPES_PER_CALL_SITE) {
+          chosen.put(types, overload);
+        }
+      }
+      return overload;
+    }
+  }
+
+  /**
+   * The properties of a list of R arguments that determine which overloads accept them:
+   * the class of each argument, the class of the instance wrapped by an {@link ExternalPtr},
+   * whether each argument is empty or a scalar, and whether a scalar is NA, which the
+   * scalar converters treat as a missing value.
+   */
+  private static final class ArgumentTypes {
+    private final Class[] classes;
+    private final byte[] shapes;
+    private final int hashCode;
+
+    ArgumentTypes(List<SEXP> args) {
+      classes = new Class[args.size()];
+      shapes = new byte[args.size()];
+      for (int i = 0; i < classes.length; i++) {
+        SEXP arg = args.get(i);
+        if(arg instanceof ExternalPtr) {
+          Object instance = ((ExternalPtr) arg).getInstance();
+          classes[i] = instance == null ? Void.class : instance.getClass();
+        } else {
+          classes[i] = arg.getClass();
+        }
+        shapes[i] = shapeOf(arg);
+      }
+      hashCode = 31 * Arrays.hashCode(classes) + Arrays.hashCode(shapes);
+    }
+
+    /**
+     * @return 0 for an empty argument, 1 for a scalar, 2 for an NA scalar, and 3 for a longer argument
+     */
+    private static byte shapeOf(SEXP arg) {
+      int length = arg.length();
+      if(length == 0) {
+        return 0;
+      } else if(length == 1) {
+        return (byte) (arg instanceof AtomicVector && ((AtomicVector) arg).isElementNA(0) ? 2 : 1);
+      } else {
+        return 3;
+      }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if(!(o instanceof ArgumentTypes)) {
+        return false;
+      }
+      ArgumentTypes other = (ArgumentTypes) o;
+      return Arrays.equals(classes, other.classes) && Arrays.equals(shapes, other.shapes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
   @Override
   public String toString() {
     return getName();
@@ -28,20 +28,46 @@ import org.renjin.sexp.SEXP;
 /**
  * Converts between {@code boolean[]} and R {@code logical} vectors
  */
-public class BooleanArrayConverter implements Converter<Boolean[]> {
+public class BooleanArrayConverter implements Converter<Object> {
 
-  public static final BooleanArrayConverter INSTANCE = new BooleanArrayConverter();
+  /**
+   * Converts to and from boxed {@code Boolean[]} arrays
+   */
+  public static final BooleanArrayConverter INSTANCE = new BooleanArrayConverter(false);
+
+  /**
+   * Converts to and from primitive {@code boolean[]} arrays
+   */
+  public static final BooleanArrayConverter BOOLEAN_ARRAY = new BooleanArrayConverter(true);
+
+  private final boolean primitive;
+
+  private BooleanArrayConverter(boolean primitive) {
+    this.primitive = primitive;
+  }
 
   public static boolean accept(Class clazz) {
     return clazz.isArray() &&( clazz.getComponentType() == Boolean.class||clazz.getComponentType()== Boolean.TYPE);
   }
   
   @Override
-  public LogicalVector convertToR(Boolean[] value) {
+  public LogicalVector convertToR(Object value) {
     if(value == null) {
       return new LogicalArrayVector(LogicalVector.NA);
+    } else if(value instanceof boolean[]) {
+      boolean[] array = (boolean[]) value;
+      int[] values = new int[array.length];
+      for (int i = 0; i < array.length; i++) {
+        values[i] = array[i] ? 1 : 0;
+      }
+      return LogicalArrayVector.unsafe(values);
     } else {
-      return new LogicalArrayVector(value);
+      Boolean[] array = (Boolean[]) value;
+      int[] values = new int[array.length];
+      for (int i = 0; i < array.length; i++) {
+        values[i] = array[i] == null ? LogicalVector.NA : (array[i] ? 1 : 0);
+      }
+      return LogicalArrayVector.unsafe(values);
     }
   }
   
@@ -49,6 +75,20 @@ public class BooleanArrayConverter implements Converter<Boolean[]> {
   public Object convertToJava(SEXP value) {  
     if(!(value instanceof AtomicVector)) {
       throw new EvalException("It's not an AtomicVector", value.getTypeName());
+    } else if(primitive) {
+      boolean[] values = new boolean[value.length()];
+      if(value instanceof LogicalArrayVector) {
+        int[] source = ((LogicalArrayVector) value).toIntArrayUnsafe();
+        for (int i = 0; i < values.length; i++) {
+          values[i] = source[i] == 1;
+        }
+      } else {
+        AtomicVector vector = (AtomicVector) value;
+        for (int i = 0; i < values.length; i++) {
+          values[i] = vector.getElementAsRawLogical(i) == 1;
+        }
+      }
+      return values;
     } else if(value.length() < 1) {
       //to keep its type info
       return new Boolean[0];
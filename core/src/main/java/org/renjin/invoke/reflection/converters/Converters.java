@@ -60,9 +60,15 @@ public class Converters  {
     } else if(StringArrayConverter.accept(clazz)) {
       return StringArrayConverter.INSTANCE;
       
+    } else if(clazz == boolean[].class) {
+      return BooleanArrayConverter.BOOLEAN_ARRAY;
+
     }else if(BooleanArrayConverter.accept(clazz)) {
       return BooleanArrayConverter.INSTANCE;
       
+    } else if(clazz == int[].class) {
+      return IntegerArrayConverter.INT_ARRAY;
+
     } else if(IntegerArrayConverter.accept(clazz)) {
       return IntegerArrayConverter.INSTANCE;
 
@@ -21,16 +21,26 @@ package org.renjin.invoke.reflection.converters;
 import org.renjin.eval.EvalException;
 import org.renjin.sexp.*;
 
-import java.lang.reflect.Array;
 
 
 /**
  * Converts between {@code double[]} and {@link DoubleArrayVector}s
+ *
+ * <p>Arrays are passed across without copying where the representations agree: a
+ * {@code double[]} returned from Java is wrapped as-is, and an array-backed R double vector
+ * is passed to Java as its underlying array. Java code must therefore not modify arrays it
+ * has received from, or handed to, R.</p>
  */
 public class DoubleArrayConverter implements Converter<Object> {
 
   public static final DoubleArrayConverter DOUBLE_ARRAY = new DoubleArrayConverter(double.class);
 
+  /**
+   * Arrays of primitives that must be widened to {@code double} are converted lazily,
+   * element by element on access, once they reach this length.
+   */
+  static final int VIEW_THRESHOLD = 64 * 1024;
+
   protected final Class componentClass;
 
   protected DoubleArrayConverter(Class clazz) {
@@ -46,14 +56,23 @@ public class DoubleArrayConverter implements Converter<Object> {
     if (value == null) {
       return new DoubleArrayVector(DoubleVector.NA);
     } else {
-      double dArray[] = new double[Array.getLength(value)];
-      for (int i = 0; i < Array.getLength(value); i++) {
-        dArray[i] = ((Number)Array.get(value, i)).doubleValue();
-      }
-      return new DoubleArrayVector(dArray);
+      return convertArrayToR(value);
     }
   }
 
+  protected DoubleVector convertArrayToR(Object value) {
+    if(value instanceof double[]) {
+      return DoubleArrayVector.unsafe((double[]) value);
+    }
+    Object[] boxed = (Object[]) value;
+    double[] array = new double[boxed.length];
+    for (int i = 0; i < array.length; i++) {
+      Number element = (Number) boxed[i];
+      array[i] = element == null ? DoubleVector.NA : element.doubleValue();
+    }
+    return DoubleArrayVector.unsafe(array);
+  }
+
   @Override
   public final boolean acceptsSEXP(SEXP exp) {
     return  exp instanceof DoubleVector ||
@@ -75,6 +94,9 @@ public class DoubleArrayConverter implements Converter<Object> {
   }
 
   protected Object convertToJavaArray(AtomicVector vector) {
+    if(vector instanceof DoubleArrayVector) {
+      return ((DoubleArrayVector) vector).toDoubleArrayUnsafe();
+    }
     return vector.toDoubleArray();
   }
 }
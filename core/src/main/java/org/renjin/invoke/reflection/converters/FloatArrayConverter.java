@@ -18,7 +18,7 @@
  */
 package org.renjin.invoke.reflection.converters;
 
-import org.renjin.sexp.AtomicVector;
+import org.renjin.sexp.*;
 
 public class FloatArrayConverter extends DoubleArrayConverter {
 
@@ -28,12 +28,65 @@ public class FloatArrayConverter extends DoubleArrayConverter {
     super(float.class);
   }
 
+  @Override
+  protected DoubleVector convertArrayToR(Object value) {
+    float[] array = (float[]) value;
+    if(array.length >= VIEW_THRESHOLD) {
+      return new FloatArrayView(array, AttributeMap.EMPTY);
+    }
+    double[] values = new double[array.length];
+    for (int i = 0; i < array.length; i++) {
+      values[i] = array[i];
+    }
+    return DoubleArrayVector.unsafe(values);
+  }
+
   @Override
   protected Object convertToJavaArray(AtomicVector vector) {
     float[] array = new float[vector.length()];
-    for (int i = 0; i < array.length; i++) {
-      array[i] = (float) vector.getElementAsDouble(i);
+    if(vector instanceof DoubleArrayVector) {
+      double[] source = ((DoubleArrayVector) vector).toDoubleArrayUnsafe();
+      for (int i = 0; i < array.length; i++) {
+        array[i] = (float) source[i];
+      }
+    } else {
+      for (int i = 0; i < array.length; i++) {
+        array[i] = (float) vector.getElementAsDouble(i);
+      }
     }
     return array;
   }
+
+  /**
+   * A read-only view of a large {@code float[]} that widens each element on access
+   * rather than allocating a second, twice-as-large copy up front.
+   */
+  private static class FloatArrayView extends DoubleVector {
+    private final float[] array;
+
+    FloatArrayView(float[] array, AttributeMap attributes) {
+      super(attributes);
+      this.array = array;
+    }
+
+    @Override
+    public int length() {
+      return array.length;
+    }
+
+    @Override
+    public double getElementAsDouble(int index) {
+      return array[index];
+    }
+
+    @Override
+    public boolean isConstantAccessTime() {
+      return true;
+    }
+
+    @Override
+    protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+      return new FloatArrayView(array, attributes);
+    }
+  }
 }
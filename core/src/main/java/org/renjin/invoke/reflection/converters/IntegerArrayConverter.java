@@ -24,29 +24,52 @@ import org.renjin.sexp.IntArrayVector;
 import org.renjin.sexp.IntVector;
 import org.renjin.sexp.SEXP;
 
-import java.lang.reflect.Array;
-
 
 /**
  * Converts between JVM {@code int[]} arrays and R {@code integer} vectors
+ *
+ * <p>{@code int[]} arrays are passed in both directions without copying when the R vector
+ * is array-backed, so Java code must not modify arrays it has received from, or handed to, R.</p>
  */
 public class IntegerArrayConverter implements Converter<Object> {
 
-  public static final IntegerArrayConverter INSTANCE = new IntegerArrayConverter();
+  /**
+   * Converts to and from boxed {@code Integer[]} arrays
+   */
+  public static final IntegerArrayConverter INSTANCE = new IntegerArrayConverter(false);
+
+  /**
+   * Converts to and from primitive {@code int[]} arrays
+   */
+  public static final IntegerArrayConverter INT_ARRAY = new IntegerArrayConverter(true);
 
-  private IntegerArrayConverter() {
+  private final boolean primitive;
+
+  private IntegerArrayConverter(boolean primitive) {
+    this.primitive = primitive;
   }
 
   @Override
   public SEXP convertToR(Object value) {
     if (value == null) {
       return new IntArrayVector(IntArrayVector.NA);
+    } else if (value instanceof int[]) {
+      return IntArrayVector.unsafe((int[]) value);
+    } else if (value instanceof short[]) {
+      short[] array = (short[]) value;
+      int[] iArray = new int[array.length];
+      for (int i = 0; i < array.length; i++) {
+        iArray[i] = array[i];
+      }
+      return IntArrayVector.unsafe(iArray);
     } else {
-      int iArray[] = new int[Array.getLength(value)];
-      for (int i = 0; i < Array.getLength(value); i++) {
-        iArray[i] = ((Number)Array.get(value, i)).intValue();
+      Object[] array = (Object[]) value;
+      int[] iArray = new int[array.length];
+      for (int i = 0; i < array.length; i++) {
+        Number element = (Number) array[i];
+        iArray[i] = element == null ? IntVector.NA : element.intValue();
       }
-      return new IntArrayVector(iArray);
+      return IntArrayVector.unsafe(iArray);
     }
   }
 
@@ -72,6 +95,11 @@ public class IntegerArrayConverter implements Converter<Object> {
   public Object convertToJava(SEXP value) {  
     if(!(value instanceof AtomicVector)) {
       throw new EvalException("It's not an AtomicVector", value.getTypeName());
+    } else if(primitive) {
+      if(value instanceof IntArrayVector) {
+        return ((IntArrayVector) value).toIntArrayUnsafe();
+      }
+      return ((AtomicVector) value).toIntArray();
     } else if(value.length() < 1) {
       //to keep its type info
       return new Integer[0];
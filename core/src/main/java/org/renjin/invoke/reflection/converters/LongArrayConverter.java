@@ -18,7 +18,7 @@
  */
 package org.renjin.invoke.reflection.converters;
 
-import org.renjin.sexp.AtomicVector;
+import org.renjin.sexp.*;
 
 public class LongArrayConverter extends DoubleArrayConverter {
 
@@ -28,13 +28,65 @@ public class LongArrayConverter extends DoubleArrayConverter {
     super(long.class);
   }
 
+  @Override
+  protected DoubleVector convertArrayToR(Object value) {
+    long[] array = (long[]) value;
+    if(array.length >= VIEW_THRESHOLD) {
+      return new LongArrayView(array, AttributeMap.EMPTY);
+    }
+    double[] values = new double[array.length];
+    for (int i = 0; i < array.length; i++) {
+      values[i] = array[i];
+    }
+    return DoubleArrayVector.unsafe(values);
+  }
+
   @Override
   protected Object convertToJavaArray(AtomicVector vector) {
     long[] values = new long[vector.length()];
-    for (int i = 0; i < values.length; i++) {
-      values[i] = (long) vector.getElementAsDouble(i);
+    if(vector instanceof DoubleArrayVector) {
+      double[] source = ((DoubleArrayVector) vector).toDoubleArrayUnsafe();
+      for (int i = 0; i < values.length; i++) {
+        values[i] = (long) source[i];
+      }
+    } else {
+      for (int i = 0; i < values.length; i++) {
+        values[i] = (long) vector.getElementAsDouble(i);
+      }
     }
     return values;
   }
-}
 
+  /**
+   * A read-only view of a large {@code long[]} that converts each element on access
+   * rather than allocating a second copy up front.
+   */
+  private static class LongArrayView extends DoubleVector {
+    private final long[] array;
+
+    LongArrayView(long[] array, AttributeMap attributes) {
+      super(attributes);
+      this.array = array;
+    }
+
+    @Override
+    public int length() {
+      return array.length;
+    }
+
+    @Override
+    public double getElementAsDouble(int index) {
+      return array[index];
+    }
+
+    @Override
+    public boolean isConstantAccessTime() {
+      return true;
+    }
+
+    @Override
+    protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+      return new LongArrayView(array, attributes);
+    }
+  }
+}
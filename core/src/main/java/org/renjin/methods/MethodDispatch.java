@@ -21,6 +21,7 @@ package org.renjin.methods;
 import org.renjin.eval.Calls;
 import org.renjin.eval.Context;
 import org.renjin.eval.EvalException;
+import org.renjin.eval.InheritedSingleton;
 import org.renjin.invoke.annotations.SessionScoped;
 import org.renjin.primitives.Evaluation;
 import org.renjin.repackaged.guava.base.Preconditions;
@@ -30,7 +31,7 @@ import org.renjin.sexp.*;
 import java.util.HashMap;
 
 @SessionScoped
-public class MethodDispatch {
+public class MethodDispatch implements InheritedSingleton {
 
 
   public static final Symbol DOT_METHOD = Symbol.get(".Method");
@@ -105,6 +106,16 @@ public class MethodDispatch {
     methodsNamespace = environment;
   }
 
+  @Override
+  public MethodDispatch copyForChild() {
+    MethodDispatch copy = new MethodDispatch();
+    copy.enabled = enabled;
+    copy.extendsTable = new HashMap<>(extendsTable);
+    copy.methodsNamespace = methodsNamespace;
+    copy.tableDispatchEnabled = tableDispatchEnabled;
+    return copy;
+  }
+
   public boolean isEnabled() {
     return enabled;
   }
@@ -18,6 +18,7 @@
  */
 package org.renjin.methods;
 
+import org.renjin.eval.InheritedSingleton;
 import org.renjin.repackaged.guava.cache.CacheBuilder;
 import org.renjin.repackaged.guava.cache.CacheLoader;
 import org.renjin.repackaged.guava.cache.LoadingCache;
@@ -26,9 +27,10 @@ import org.renjin.sexp.Null;
 import org.renjin.sexp.PrimitiveFunction;
 import org.renjin.sexp.SEXP;
 
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
-public class PrimitiveMethodTable {
+public class PrimitiveMethodTable implements InheritedSingleton {
 
   public enum prim_methods_t {NO_METHODS, NEEDS_RESET, HAS_METHODS, SUPPRESSED} ;
 
@@ -50,6 +52,14 @@ public class PrimitiveMethodTable {
     public void setMethodList(SEXP methodList) {
       this.methodList = methodList;
     }
+
+    private Entry copy() {
+      Entry copy = new Entry();
+      copy.methods = methods;
+      copy.generic = generic;
+      copy.methodList = methodList;
+      return copy;
+    }
     
   }
 
@@ -75,6 +85,16 @@ public class PrimitiveMethodTable {
     }
   }
 
+  @Override
+  public PrimitiveMethodTable copyForChild() {
+    PrimitiveMethodTable copy = new PrimitiveMethodTable();
+    for (Map.Entry<PrimitiveFunction, Entry> entry : map.asMap().entrySet()) {
+      copy.map.put(entry.getKey(), entry.getValue().copy());
+    }
+    copy.primitiveMethodsAllowed = primitiveMethodsAllowed;
+    return copy;
+  }
+
   public boolean isPrimitiveMethodsAllowed() {
     return primitiveMethodsAllowed;
   }
@@ -29,11 +29,25 @@ public class ComputeMethod {
   private MethodVisitor visitor;
   private int maxStackSize = 0;
   private int currentStack = 0;
+  private boolean ranged;
 
   public ComputeMethod(MethodVisitor visitor) {
     this.visitor = visitor;
   }
 
+  /**
+   * @param ranged true if the method computes a partial result over a range of the kernel's loop,
+   *               in which case the method has two additional int arguments: the start (inclusive) and
+   *               end (exclusive) of the range.
+   */
+  public ComputeMethod(MethodVisitor visitor, boolean ranged) {
+    this.visitor = visitor;
+    this.ranged = ranged;
+    if(ranged) {
+      this.localCount = 4;
+    }
+  }
+
   public MethodVisitor getVisitor() {
     return visitor;
   }
@@ -72,6 +86,27 @@ public class ComputeMethod {
     return 1;
   }
 
+  /**
+   * @return true if this method computes a partial result over a range of the kernel's loop.
+   */
+  public boolean isRanged() {
+    return ranged;
+  }
+
+  /**
+   * @return the index of the int local holding the start of the range, inclusive
+   */
+  public int getRangeStartLocalIndex() {
+    return 2;
+  }
+
+  /**
+   * @return the index of the int local holding the end of the range, exclusive
+   */
+  public int getRangeEndLocalIndex() {
+    return 3;
+  }
+
   public int getMaxLocals() {
     return localCount;
   }
@@ -34,6 +34,18 @@ public class VectorPipeliner {
 
   public static boolean DEBUG = "true".equals(System.getProperty("renjin.vp.debug"));
   public static int MAX_DEPTH = 25;
+
+  /**
+   * The minimum length of a loop's input, in elements, above which the loop is split into
+   * ranges computed in parallel on the session's {@code ExecutorService}.
+   */
+  public static int PARTITION_THRESHOLD = Integer.getInteger("renjin.vp.partition.threshold", 1 << 20);
+
+  /**
+   * The maximum number of ranges into which a single loop is split.
+   */
+  public static int MAX_PARTITIONS = Integer.getInteger("renjin.vp.partition.max",
+      Runtime.getRuntime().availableProcessors());
   
   private final ListeningExecutorService executorService;
 
@@ -19,6 +19,7 @@
 package org.renjin.pipeliner.fusion;
 
 import org.renjin.eval.EvalException;
+import org.renjin.pipeliner.VectorPipeliner;
 import org.renjin.pipeliner.fusion.kernel.CompiledKernel;
 import org.renjin.pipeliner.fusion.kernel.LoopKernel;
 import org.renjin.pipeliner.fusion.node.*;
@@ -32,6 +33,7 @@ import org.renjin.sexp.*;
 
 import java.lang.reflect.Method;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 /**
@@ -46,6 +48,12 @@ public class FusedNode extends DeferredNode implements Runnable {
   private MemoizedComputation memoizedComputation;
   private DoubleArrayVector resultVector;
   private Future<CompiledKernel> compiledKernel;
+  private ExecutorService executorService;
+
+  /**
+   * The arguments to the function computed by this node, used to partition the computation.
+   */
+  private final Vector[] arguments;
 
   public FusedNode(FunctionNode node) {
     super();
@@ -53,10 +61,21 @@ public class FusedNode extends DeferredNode implements Runnable {
     this.kernel = LoopKernels.INSTANCE.get(node);
     this.kernelOperands = new LoopNode[node.getOperands().size()];
     this.memoizedComputation = (MemoizedComputation) node.getVector();
+    this.arguments = new Vector[kernelOperands.length];
 
     for (int i = 0; i < kernelOperands.length; i++) {
-      kernelOperands[i] = addLoopNode(node.getOperand(i));
+      DeferredNode operand = node.getOperand(i);
+      arguments[i] = argumentVector(operand);
+      kernelOperands[i] = addLoopNode(operand);
+    }
+  }
+
+  private static Vector argumentVector(DeferredNode node) {
+    if(node instanceof FusedNode) {
+      // Not computed yet, but the deferred vector has the same length and attributes
+      return (Vector) ((FusedNode) node).memoizedComputation;
     }
+    return node.getVector();
   }
   
   private LoopNode addLoopNode(DeferredNode node) {
@@ -134,6 +153,18 @@ public class FusedNode extends DeferredNode implements Runnable {
     if(node.getVector() instanceof IntBufferVector) {
       return new IntBufferNode(inputIndex);
     }
+
+    if(node.getVector() instanceof LogicalBufferVector) {
+      return new IntBufferNode(inputIndex, Type.getType(LogicalBufferVector.class));
+    }
+
+    if(node.getVector() instanceof DoubleBufferVector) {
+      return new DoubleBufferNode(inputIndex);
+    }
+
+    if(node.getVector() instanceof RawBufferVector) {
+      return new RawBufferNode(inputIndex);
+    }
     
     if(node.getVector() instanceof IntSequence) {
       return new IntSeqNode(inputIndex);
@@ -171,14 +202,15 @@ public class FusedNode extends DeferredNode implements Runnable {
 
   public void startCompilation(LoopKernelCache loopKernelCache) {
     this.compiledKernel = loopKernelCache.get(kernel, kernelOperands);
+    this.executorService = loopKernelCache.getExecutorService();
   }
 
   @Override
   public void run() {
 
-    CompiledKernel kernel;
+    CompiledKernel compiled;
     try {
-      kernel = compiledKernel.get();
+      compiled = compiledKernel.get();
     } catch (InterruptedException | ExecutionException e) {
       throw new EvalException("Exception compiling kernel", e);
     }
@@ -188,13 +220,33 @@ public class FusedNode extends DeferredNode implements Runnable {
       vectorOperands[i] = getOperand(i).getVector();
     }
 
-    double[] result = kernel.compute(vectorOperands);
+    double[] result;
+    int partitions = partitionCount();
+    if(partitions > 1) {
+      PartitionedComputation computation = new PartitionedComputation(kernel, compiled, vectorOperands,
+          kernel.getPartitionCount(arguments), partitions);
+      result = computation.compute(executorService, arguments);
+    } else {
+      result = compiled.compute(vectorOperands);
+    }
 
     resultVector = DoubleArrayVector.unsafe(result, memoizedComputation.getAttributes());
 
     memoizedComputation.setResult(resultVector);
   }
   
+  /**
+   * @return the number of ranges into which to split this node's loop, or 1 if the
+   * loop is too small to be worth splitting.
+   */
+  private int partitionCount() {
+    if(executorService == null || arguments.length == 0 ||
+        arguments[0].length() < VectorPipeliner.PARTITION_THRESHOLD) {
+      return 1;
+    }
+    return Math.min(kernel.getPartitionCount(arguments), VectorPipeliner.MAX_PARTITIONS);
+  }
+
   public DoubleArrayVector getVector() {
     if(resultVector == null) {
       throw new IllegalStateException("Not computed yet.");
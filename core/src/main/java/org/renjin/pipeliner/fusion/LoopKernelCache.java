@@ -62,6 +62,10 @@ public class LoopKernelCache {
     return compiledKernel;
   }
 
+  public ExecutorService getExecutorService() {
+    return executorService;
+  }
+
   private String kernelKey(LoopKernel kernel, LoopNode[] kernelOperands) {
     StringBuilder key = new StringBuilder();
     kernel.appendToKey(key);
@@ -98,9 +98,11 @@ public class LoopKernelCompiler implements Callable<CompiledKernel> {
 
     writeConstructor();
     if(DEBUG) {
-      writeComputeDebug(kernel, operands);
+      writeComputeDebug(kernel, operands, false);
+      writeComputeDebug(kernel, operands, true);
     } else {
-      writeCompute(kernel, operands);
+      writeCompute(kernel, operands, false);
+      writeCompute(kernel, operands, true);
     }
     cv.visitEnd();
 
@@ -142,15 +144,19 @@ public class LoopKernelCompiler implements Callable<CompiledKernel> {
     mv.visitEnd();
   }
 
-  private void writeCompute(LoopKernel kernel, LoopNode[] operands) {
-    String typeDescriptor = "([Lorg/renjin/sexp/Vector;)[D";
+  private static String computeDescriptor(boolean ranged) {
+    return ranged ? "([Lorg/renjin/sexp/Vector;II)[D" : "([Lorg/renjin/sexp/Vector;)[D";
+  }
+
+  private void writeCompute(LoopKernel kernel, LoopNode[] operands, boolean ranged) {
+    String typeDescriptor = computeDescriptor(ranged);
 
     MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, "compute", typeDescriptor, null, null);
 //
 //    mv = new CheckMethodAdapter(ACC_PUBLIC, "compute", typeDescriptor, mv, new HashMap());
 //    mv.visitCode();
 
-    ComputeMethod methodContext = new ComputeMethod(mv);
+    ComputeMethod methodContext = new ComputeMethod(mv, ranged);
 
     kernel.compute(methodContext, operands);
 
@@ -158,12 +164,12 @@ public class LoopKernelCompiler implements Callable<CompiledKernel> {
     mv.visitEnd();
   }
 
-  private void writeComputeDebug(LoopKernel kernel, LoopNode[] operands) {
+  private void writeComputeDebug(LoopKernel kernel, LoopNode[] operands, boolean ranged) {
 
-    MethodNode mv = new MethodNode(ACC_PUBLIC, "compute", "([Lorg/renjin/sexp/Vector;)[D", null, null);
+    MethodNode mv = new MethodNode(ACC_PUBLIC, "compute", computeDescriptor(ranged), null, null);
     mv.visitCode();
 
-    ComputeMethod methodContext = new ComputeMethod(mv);
+    ComputeMethod methodContext = new ComputeMethod(mv, ranged);
 
     kernel.compute(methodContext, operands);
 
@@ -18,6 +18,7 @@
  */
 package org.renjin.pipeliner.fusion;
 
+import org.renjin.pipeliner.fusion.kernel.AccumulatorKernel;
 import org.renjin.pipeliner.fusion.kernel.ColSumKernel;
 import org.renjin.pipeliner.fusion.kernel.LoopKernel;
 import org.renjin.pipeliner.fusion.kernel.RowMeanKernel;
@@ -42,6 +43,14 @@ public enum LoopKernels {
       map.put("sum", SumMeanKernel.sum());
       map.put("rowMeans", new RowMeanKernel());
       map.put("colSums", new ColSumKernel());
+      map.put("rowSums", new RowMeanKernel(true));
+      map.put("colMeans", new ColSumKernel(true));
+
+      // Reductions and scans computed by an Accumulator
+      String[] accumulators = { "min", "max", "range", "prod", "var", "any", "all", "which.max", "cumsum", "tabulate" };
+      for (String accumulator : accumulators) {
+        map.put(accumulator, new AccumulatorKernel(accumulator));
+      }
     } else {
       System.err.println("Specializers are disabled");
     }
@@ -0,0 +1,87 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.pipeliner.fusion;
+
+import org.renjin.eval.EvalException;
+import org.renjin.pipeliner.fusion.kernel.CompiledKernel;
+import org.renjin.pipeliner.fusion.kernel.LoopKernel;
+import org.renjin.sexp.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes a compiled kernel in parallel by splitting its loop into consecutive ranges of
+ * units and combining the partial results.
+ *
+ * <p>The calling thread claims and computes ranges along with the tasks submitted to the executor, so
+ * that the computation completes even if all of the executor's threads are busy, for example
+ * computing other nodes of the same graph.</p>
+ */
+class PartitionedComputation {
+
+  private final LoopKernel loopKernel;
+  private final CompiledKernel kernel;
+  private final Vector[] operands;
+  private final int[] bounds;
+  private final double[][] partials;
+  private final AtomicInteger nextPartition = new AtomicInteger(0);
+
+  PartitionedComputation(LoopKernel loopKernel, CompiledKernel kernel, Vector[] operands, int units, int partitions) {
+    this.loopKernel = loopKernel;
+    this.kernel = kernel;
+    this.operands = operands;
+    this.bounds = new int[partitions + 1];
+    for (int i = 0; i <= partitions; i++) {
+      bounds[i] = (int) ((long) units * i / partitions);
+    }
+    this.partials = new double[partitions][];
+  }
+
+  double[] compute(ExecutorService executorService, Vector[] arguments) {
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 1; i < partials.length; i++) {
+      futures.add(executorService.submit(this::computePartitions));
+    }
+
+    computePartitions();
+
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        throw new EvalException("Deferred vector execution interrupted.");
+      } catch (ExecutionException e) {
+        throw new EvalException(e.getCause());
+      }
+    }
+    return loopKernel.combine(arguments, partials);
+  }
+
+  private void computePartitions() {
+    int i;
+    while((i = nextPartition.getAndIncrement()) < partials.length) {
+      partials[i] = kernel.compute(operands, bounds[i], bounds[i + 1]);
+    }
+  }
+}
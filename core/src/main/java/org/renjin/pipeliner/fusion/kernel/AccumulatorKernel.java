@@ -0,0 +1,166 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.pipeliner.fusion.kernel;
+
+import org.renjin.pipeliner.ComputeMethod;
+import org.renjin.pipeliner.fusion.node.LoopNode;
+import org.renjin.primitives.summary.Accumulator;
+import org.renjin.repackaged.asm.Label;
+import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.sexp.Vector;
+
+import java.util.Optional;
+
+import static org.renjin.repackaged.asm.Opcodes.*;
+
+/**
+ * Computes a reduction or scan, such as {@code max} or {@code cumsum}, by passing each element of the
+ * fused operand to an {@link Accumulator}.
+ *
+ * <p>The accumulator's class is fixed for each compiled kernel, so the JIT can inline its
+ * {@code accept} method into the loop.</p>
+ */
+public class AccumulatorKernel implements LoopKernel {
+
+  private static final String ACCUMULATOR_CLASS = "org/renjin/primitives/summary/Accumulator";
+
+  private final String name;
+
+  public AccumulatorKernel(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public void compute(ComputeMethod method, LoopNode[] operands) {
+
+    MethodVisitor mv = method.getVisitor();
+
+    LoopNode vector = operands[0];
+    vector.init(method);
+
+    // create a new accumulator
+    int accumulatorLocal = method.reserveLocal(1);
+    mv.visitLdcInsn(name);
+    mv.visitMethodInsn(INVOKESTATIC, ACCUMULATOR_CLASS, "create",
+        "(Ljava/lang/String;)L" + ACCUMULATOR_CLASS + ";", false);
+    mv.visitVarInsn(ASTORE, accumulatorLocal);
+
+    // pass on the parameter, if any
+    if(operands.length > 1) {
+      LoopNode parameter = operands[1];
+      parameter.init(method);
+      mv.visitVarInsn(ALOAD, accumulatorLocal);
+      parameter.pushElementAsInt(method, 0);
+      mv.visitMethodInsn(INVOKEVIRTUAL, ACCUMULATOR_CLASS, "setParameter", "(I)V", false);
+    }
+
+    // determine the range of elements to accumulate
+    int counterLocal = method.reserveLocal(1);
+    int endLocal = method.reserveLocal(1);
+    if(method.isRanged()) {
+      mv.visitVarInsn(ILOAD, method.getRangeStartLocalIndex());
+      mv.visitVarInsn(ISTORE, counterLocal);
+      mv.visitVarInsn(ILOAD, method.getRangeEndLocalIndex());
+      mv.visitVarInsn(ISTORE, endLocal);
+    } else {
+      mv.visitInsn(ICONST_0);
+      mv.visitVarInsn(ISTORE, counterLocal);
+      vector.pushLength(method);
+      mv.visitVarInsn(ISTORE, endLocal);
+    }
+
+    mv.visitVarInsn(ALOAD, accumulatorLocal);
+    mv.visitVarInsn(ILOAD, counterLocal);
+    mv.visitVarInsn(ILOAD, endLocal);
+    mv.visitMethodInsn(INVOKEVIRTUAL, ACCUMULATOR_CLASS, "begin", "(II)V", false);
+
+    Optional<Label> integerNaLabel;
+    if(vector.mustCheckForIntegerNAs()) {
+      integerNaLabel = Optional.of(new Label());
+    } else {
+      integerNaLabel = Optional.empty();
+    }
+
+    Label loopHead = new Label();
+    Label nextElement = new Label();
+    Label done = new Label();
+
+    mv.visitLabel(loopHead);
+    mv.visitVarInsn(ILOAD, counterLocal);
+    mv.visitVarInsn(ILOAD, endLocal);
+    mv.visitJumpInsn(IF_ICMPEQ, done);
+
+    // pass the next element to the accumulator
+    mv.visitVarInsn(ALOAD, accumulatorLocal);
+    mv.visitVarInsn(ILOAD, counterLocal);
+    vector.pushElementAsDouble(method, integerNaLabel);
+    mv.visitMethodInsn(INVOKEVIRTUAL, ACCUMULATOR_CLASS, "accept", "(D)V", false);
+    mv.visitJumpInsn(GOTO, nextElement);
+
+    // HANDLE THE INTEGER NA CASE:
+    if(integerNaLabel.isPresent()) {
+      mv.visitLabel(integerNaLabel.get());
+      // replace the integer NA on the stack with a double NA
+      mv.visitInsn(POP);
+      mv.visitFieldInsn(GETSTATIC, "org/renjin/sexp/DoubleVector", "NA", "D");
+      mv.visitMethodInsn(INVOKEVIRTUAL, ACCUMULATOR_CLASS, "accept", "(D)V", false);
+    }
+
+    mv.visitLabel(nextElement);
+    mv.visitIincInsn(counterLocal, 1);
+    mv.visitJumpInsn(GOTO, loopHead);
+
+    // return either the partial state for this range, or the final result
+    mv.visitLabel(done);
+    mv.visitVarInsn(ALOAD, accumulatorLocal);
+    mv.visitMethodInsn(INVOKEVIRTUAL, ACCUMULATOR_CLASS, method.isRanged() ? "partial" : "result", "()[D", false);
+    mv.visitInsn(ARETURN);
+  }
+
+  @Override
+  public int getPartitionCount(Vector[] arguments) {
+    return arguments[0].length();
+  }
+
+  /**
+   * Merges the partial state of each range, in order, into a new accumulator.
+   */
+  @Override
+  public double[] combine(Vector[] arguments, double[][] partials) {
+    Accumulator accumulator = Accumulator.create(name);
+    if(arguments.length > 1) {
+      accumulator.setParameter(arguments[1].getElementAsInt(0));
+    }
+    accumulator.begin(0, arguments[0].length());
+    for (double[] partial : partials) {
+      accumulator.merge(partial);
+    }
+    return accumulator.result();
+  }
+
+  @Override
+  public String debugLabel(LoopNode[] operands) {
+    return name + "(" + operands[0] + ")";
+  }
+
+  @Override
+  public void appendToKey(StringBuilder key) {
+    key.append(name);
+  }
+}
@@ -22,6 +22,7 @@ import org.renjin.pipeliner.ComputeMethod;
 import org.renjin.pipeliner.fusion.node.LoopNode;
 import org.renjin.repackaged.asm.Label;
 import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.sexp.Vector;
 
 import java.util.Optional;
 
@@ -30,6 +31,19 @@ import static org.renjin.repackaged.asm.Opcodes.*;
 
 public class ColSumKernel implements LoopKernel {
 
+  private final boolean mean;
+
+  public ColSumKernel() {
+    this(false);
+  }
+
+  /**
+   * @param mean true if the sum of each column should be divided by the number of rows
+   */
+  public ColSumKernel(boolean mean) {
+    this.mean = mean;
+  }
+
   @Override
   public void compute(ComputeMethod method, LoopNode operands[]) {
 
@@ -42,12 +56,30 @@ public class ColSumKernel implements LoopKernel {
     numColumnsAccessor.init(method);
 
     int numColumns = method.reserveLocal(1);
+    numColumnsAccessor.pushElementAsInt(method, 0);
+    mv.visitVarInsn(ISTORE, numColumns);
+
+    // determine the range of columns to sum: either all columns, or
+    // the range of columns passed as arguments
+    int startColumn = method.reserveLocal(1);
+    int endColumn = method.reserveLocal(1);
+    if(method.isRanged()) {
+      mv.visitVarInsn(ILOAD, method.getRangeStartLocalIndex());
+      mv.visitVarInsn(ISTORE, startColumn);
+      mv.visitVarInsn(ILOAD, method.getRangeEndLocalIndex());
+      mv.visitVarInsn(ISTORE, endColumn);
+    } else {
+      mv.visitInsn(ICONST_0);
+      mv.visitVarInsn(ISTORE, startColumn);
+      mv.visitVarInsn(ILOAD, numColumns);
+      mv.visitVarInsn(ISTORE, endColumn);
+    }
 
     // create the array to hold the sums
     int resultArray = method.reserveLocal(1);
-    numColumnsAccessor.pushElementAsInt(method, 0);
-    mv.visitInsn(DUP);
-    mv.visitVarInsn(ISTORE, numColumns);
+    mv.visitVarInsn(ILOAD, endColumn);
+    mv.visitVarInsn(ILOAD, startColumn);
+    mv.visitInsn(ISUB);
     mv.visitIntInsn(NEWARRAY, T_DOUBLE);
     mv.visitVarInsn(ASTORE, resultArray);
 
@@ -63,6 +95,14 @@ public class ColSumKernel implements LoopKernel {
     int rowIndex = method.declareCounter();
     int sourceIndex = method.declareCounter();
 
+    // start at the first element of the start column
+    mv.visitVarInsn(ILOAD, startColumn);
+    mv.visitInsn(DUP);
+    mv.visitVarInsn(ISTORE, colIndex);
+    mv.visitVarInsn(ILOAD, numRows);
+    mv.visitInsn(IMUL);
+    mv.visitVarInsn(ISTORE, sourceIndex);
+
     int sum = method.reserveLocal(2);
     mv.visitInsn(DCONST_0);
     mv.visitVarInsn(DSTORE, sum);
@@ -117,7 +157,14 @@ public class ColSumKernel implements LoopKernel {
     // save the sum to the result array
     mv.visitVarInsn(ALOAD, resultArray);
     mv.visitVarInsn(ILOAD, colIndex);
+    mv.visitVarInsn(ILOAD, startColumn);
+    mv.visitInsn(ISUB);
     mv.visitVarInsn(DLOAD, sum);
+    if(mean) {
+      mv.visitVarInsn(ILOAD, numRows);
+      mv.visitInsn(I2D);
+      mv.visitInsn(DDIV);
+    }
     mv.visitInsn(DASTORE);
 
     // reset row index
@@ -133,7 +180,7 @@ public class ColSumKernel implements LoopKernel {
 
     // .. and check to see if we have any columns left
     mv.visitVarInsn(ILOAD, colIndex);
-    mv.visitVarInsn(ILOAD, numColumns);
+    mv.visitVarInsn(ILOAD, endColumn);
 
     mv.visitJumpInsn(IF_ICMPNE, loopHead);
 
@@ -143,13 +190,32 @@ public class ColSumKernel implements LoopKernel {
 
   }
 
+  @Override
+  public int getPartitionCount(Vector[] arguments) {
+    return arguments[1].getElementAsInt(0);
+  }
+
+  /**
+   * Concatenates the sums or means of each block of columns.
+   */
+  @Override
+  public double[] combine(Vector[] arguments, double[][] partials) {
+    double[] sums = new double[getPartitionCount(arguments)];
+    int offset = 0;
+    for (double[] partial : partials) {
+      System.arraycopy(partial, 0, sums, offset, partial.length);
+      offset += partial.length;
+    }
+    return sums;
+  }
+
   @Override
   public String debugLabel(LoopNode[] operands) {
-    return "colSums(" + operands[0] + ")";
+    return (mean ? "colMeans(" : "colSums(") + operands[0] + ")";
   }
 
   @Override
   public void appendToKey(StringBuilder key) {
-    key.append("colSums");
+    key.append(mean ? "colMeans" : "colSums");
   }
 }
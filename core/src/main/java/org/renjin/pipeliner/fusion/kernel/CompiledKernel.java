@@ -31,4 +31,14 @@ public interface CompiledKernel {
    * @param operands the array of loop inputs.
    */
   public double[] compute(Vector[] operands);
+
+  /**
+   * Computes a partial result over the range {@code [start, end)} of the units into which the
+   * kernel's loop is partitioned.
+   *
+   * @param operands the array of loop inputs.
+   * @see LoopKernel#getPartitionCount(Vector[])
+   * @see LoopKernel#combine(Vector[], double[][])
+   */
+  public double[] compute(Vector[] operands, int start, int end);
 }
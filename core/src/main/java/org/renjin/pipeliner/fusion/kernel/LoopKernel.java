@@ -20,13 +20,31 @@ package org.renjin.pipeliner.fusion.kernel;
 
 import org.renjin.pipeliner.ComputeMethod;
 import org.renjin.pipeliner.fusion.node.LoopNode;
+import org.renjin.sexp.Vector;
 
 /**
  * Specializes a function for specific operands.
  *
  */
 public interface LoopKernel {
+
+  /**
+   * Writes the body of the kernel's compute method. If the method is {@link ComputeMethod#isRanged() ranged},
+   * the kernel must only compute the partial result for the range of units passed as arguments.
+   */
   void compute(ComputeMethod method, LoopNode node[]);
+
+  /**
+   * @param arguments the arguments to the function computed by this kernel
+   * @return the number of independent units, such as elements or columns, over which this kernel's loop
+   * can be partitioned, or zero if the kernel cannot be partitioned.
+   */
+  int getPartitionCount(Vector[] arguments);
+
+  /**
+   * Combines the partial results computed over consecutive ranges of units into the final result.
+   */
+  double[] combine(Vector[] arguments, double[][] partials);
   
   String debugLabel(LoopNode[] operands);
 
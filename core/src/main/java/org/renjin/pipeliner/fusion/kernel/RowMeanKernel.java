@@ -22,11 +22,25 @@ import org.renjin.pipeliner.ComputeMethod;
 import org.renjin.pipeliner.fusion.node.LoopNode;
 import org.renjin.repackaged.asm.Label;
 import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.sexp.Vector;
 
 import static org.renjin.repackaged.asm.Opcodes.*;
 
 public class RowMeanKernel implements LoopKernel {
 
+  private final boolean sum;
+
+  public RowMeanKernel() {
+    this(false);
+  }
+
+  /**
+   * @param sum true if the sums of each row should be returned without dividing by the number of columns
+   */
+  public RowMeanKernel(boolean sum) {
+    this.sum = sum;
+  }
+
   @Override
   public void compute(ComputeMethod method, LoopNode kernelOperands[]) {
 
@@ -54,15 +68,30 @@ public class RowMeanKernel implements LoopKernel {
     mv.visitInsn(ICONST_0);
     mv.visitVarInsn(ISTORE, rowLocal);
 
-    // initialize row index
-    mv.visitInsn(ICONST_0);
-    mv.visitVarInsn(ISTORE, counterLocal);
+    // initialize the vector index counter, and the end of the loop: either the whole
+    // matrix, or the block of columns passed as arguments
+    int endLocal = method.reserveLocal(1);
+    if(method.isRanged()) {
+      mv.visitVarInsn(ILOAD, method.getRangeStartLocalIndex());
+      mv.visitVarInsn(ILOAD, numRowsLocal);
+      mv.visitInsn(IMUL);
+      mv.visitVarInsn(ISTORE, counterLocal);
+      mv.visitVarInsn(ILOAD, method.getRangeEndLocalIndex());
+      mv.visitVarInsn(ILOAD, numRowsLocal);
+      mv.visitInsn(IMUL);
+      mv.visitVarInsn(ISTORE, endLocal);
+    } else {
+      mv.visitInsn(ICONST_0);
+      mv.visitVarInsn(ISTORE, counterLocal);
+      matrix.pushLength(method);
+      mv.visitVarInsn(ISTORE, endLocal);
+    }
 
     // check whether to loop
     Label l4 = new Label();
     mv.visitLabel(l4);
     mv.visitVarInsn(ILOAD, counterLocal);
-    matrix.pushLength(method);
+    mv.visitVarInsn(ILOAD, endLocal);
 
     Label l5 = new Label();
     mv.visitJumpInsn(IF_ICMPEQ, l5);
@@ -108,6 +137,13 @@ public class RowMeanKernel implements LoopKernel {
 
     mv.visitLabel(l5);
 
+    // partial row sums are divided only once they have been combined
+    if(method.isRanged() || sum) {
+      mv.visitVarInsn(ALOAD, meansLocal);
+      mv.visitInsn(ARETURN);
+      return;
+    }
+
     int numColsLocal = method.reserveLocal(2);
     // calculate num cols (length / num rows)
     matrix.pushLength(method);
@@ -155,13 +191,44 @@ public class RowMeanKernel implements LoopKernel {
     mv.visitInsn(ARETURN);
   }
 
+  @Override
+  public int getPartitionCount(Vector[] arguments) {
+    int numRows = arguments[1].getElementAsInt(0);
+    if(numRows <= 0) {
+      return 0;
+    }
+    return arguments[0].length() / numRows;
+  }
+
+  /**
+   * Adds the row sums of each block of columns, and divides by the number of columns
+   * when computing means.
+   */
+  @Override
+  public double[] combine(Vector[] arguments, double[][] partials) {
+    double[] means = new double[arguments[1].getElementAsInt(0)];
+    for (double[] partial : partials) {
+      for (int i = 0; i < means.length; i++) {
+        means[i] += partial[i];
+      }
+    }
+    if(sum) {
+      return means;
+    }
+    double numColumns = getPartitionCount(arguments);
+    for (int i = 0; i < means.length; i++) {
+      means[i] /= numColumns;
+    }
+    return means;
+  }
+
   @Override
   public String debugLabel(LoopNode[] operands) {
-    return "rowMeans(" + operands[0] + ")";
+    return (sum ? "rowSums(" : "rowMeans(") + operands[0] + ")";
   }
 
   @Override
   public void appendToKey(StringBuilder key) {
-    key.append("rowMeans");
+    key.append(sum ? "rowSums" : "rowMeans");
   }
 }
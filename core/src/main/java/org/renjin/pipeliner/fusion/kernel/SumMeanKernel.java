@@ -22,6 +22,7 @@ import org.renjin.pipeliner.ComputeMethod;
 import org.renjin.pipeliner.fusion.node.LoopNode;
 import org.renjin.repackaged.asm.Label;
 import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.sexp.Vector;
 
 import static org.renjin.repackaged.asm.Opcodes.*;
 
@@ -50,9 +51,13 @@ public class SumMeanKernel implements LoopKernel {
     LoopNode vector = operands[0];
     vector.init(method);
 
-    // get the length of the vector
+    // get the length of the vector, or the end of the range
     int lengthLocal = method.reserveLocal(1);
-    vector.pushLength(method);
+    if(method.isRanged()) {
+      mv.visitVarInsn(ILOAD, method.getRangeEndLocalIndex());
+    } else {
+      vector.pushLength(method);
+    }
     mv.visitVarInsn(ISTORE, lengthLocal);
 
     // initial the sum variable
@@ -61,7 +66,11 @@ public class SumMeanKernel implements LoopKernel {
     mv.visitVarInsn(DSTORE, sumLocal);
 
     int counterLocal = method.reserveLocal(1);
-    mv.visitInsn(ICONST_0);
+    if(method.isRanged()) {
+      mv.visitVarInsn(ILOAD, method.getRangeStartLocalIndex());
+    } else {
+      mv.visitInsn(ICONST_0);
+    }
     mv.visitVarInsn(ISTORE, counterLocal);
 
     Label l3 = new Label();
@@ -97,7 +106,8 @@ public class SumMeanKernel implements LoopKernel {
     mv.visitInsn(ICONST_0);
     mv.visitVarInsn(DLOAD, sumLocal);
     
-    if(mean) {
+    // partial results are divided only once they have been combined
+    if(mean && !method.isRanged()) {
       mv.visitVarInsn(ILOAD, lengthLocal);
       mv.visitInsn(I2D);
       mv.visitInsn(DDIV);
@@ -107,6 +117,37 @@ public class SumMeanKernel implements LoopKernel {
     mv.visitInsn(ARETURN);
   }
 
+  @Override
+  public int getPartitionCount(Vector[] arguments) {
+    return arguments[0].length();
+  }
+
+  /**
+   * Adds the partial sums using Kahan summation, to limit the loss of precision from
+   * combining the partial sums of large vectors.
+   */
+  @Override
+  public double[] combine(Vector[] arguments, double[][] partials) {
+    double sum = 0;
+    double compensation = 0;
+    double naiveSum = 0;
+    for (double[] partial : partials) {
+      double y = partial[0] - compensation;
+      double t = sum + y;
+      compensation = (t - sum) - y;
+      sum = t;
+      naiveSum += partial[0];
+    }
+    // The compensation is meaningless once an infinite or NA/NaN value has been added
+    if(!Double.isFinite(naiveSum)) {
+      sum = naiveSum;
+    }
+    if(mean) {
+      sum /= arguments[0].length();
+    }
+    return new double[] { sum };
+  }
+
   @Override
   public String debugLabel(LoopNode[] operands) {
     return (mean ? "mean" : "sum") + "(...)";
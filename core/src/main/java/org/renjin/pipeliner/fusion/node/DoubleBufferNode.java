@@ -0,0 +1,98 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.pipeliner.fusion.node;
+
+import org.renjin.pipeliner.ComputeMethod;
+import org.renjin.repackaged.asm.Label;
+import org.renjin.repackaged.asm.MethodVisitor;
+
+import java.util.Optional;
+
+import static org.renjin.repackaged.asm.Opcodes.*;
+
+/**
+ * Generates the bytecode to access elements stored within the {@link java.nio.DoubleBuffer}
+ * backing a {@link org.renjin.sexp.DoubleBufferVector}
+ */
+public class DoubleBufferNode extends LoopNode {
+
+  private int operandIndex;
+
+  /**
+   * The local variable where we're storing the
+   * raw DoubleBuffer
+   */
+  private int bufferLocal;
+
+  private int bufferLengthLocal;
+
+  public DoubleBufferNode(int operandIndex) {
+    this.operandIndex = operandIndex;
+  }
+
+  public void init(ComputeMethod method) {
+
+    bufferLocal = method.reserveLocal(1);
+    bufferLengthLocal = method.reserveLocal(1);
+
+    MethodVisitor mv = method.getVisitor();
+    mv.visitVarInsn(ALOAD, method.getOperandsLocalIndex());
+    pushIntConstant(mv, operandIndex);
+    mv.visitInsn(AALOAD);
+    mv.visitTypeInsn(CHECKCAST, "org/renjin/sexp/DoubleBufferVector");
+    mv.visitInsn(DUP);
+    mv.visitMethodInsn(INVOKEVIRTUAL, "org/renjin/sexp/DoubleBufferVector", "toDoubleBufferUnsafe", "()Ljava/nio/DoubleBuffer;", false);
+    mv.visitVarInsn(ASTORE, bufferLocal);
+    mv.visitMethodInsn(INVOKEVIRTUAL, "org/renjin/sexp/DoubleBufferVector", "length", "()I", false);
+    mv.visitVarInsn(ISTORE, bufferLengthLocal);
+  }
+
+  @Override
+  public void pushLength(ComputeMethod method) {
+    MethodVisitor mv = method.getVisitor();
+    mv.visitVarInsn(ILOAD, bufferLengthLocal);
+  }
+
+  @Override
+  public void pushElementAsDouble(ComputeMethod method, Optional<Label> integerNaLabel) {
+    MethodVisitor mv = method.getVisitor();
+    // STACK: [ ..., index]
+    mv.visitVarInsn(ALOAD, bufferLocal);
+    // STACK: [ ..., index, buffer ]
+    mv.visitInsn(SWAP);
+    // STACK: [ ..., buffer, index ]
+    mv.visitMethodInsn(INVOKEVIRTUAL, "java/nio/DoubleBuffer", "get", "(I)D", false);
+    // STACK: [ ..., value ]
+  }
+
+  @Override
+  public boolean mustCheckForIntegerNAs() {
+    return false;
+  }
+
+  @Override
+  public void appendToKey(StringBuilder key) {
+    key.append("DBN");
+  }
+
+  @Override
+  public String toString() {
+    return "x" + operandIndex;
+  }
+}
@@ -21,18 +21,22 @@ package org.renjin.pipeliner.fusion.node;
 import org.renjin.pipeliner.ComputeMethod;
 import org.renjin.repackaged.asm.Label;
 import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.repackaged.asm.Type;
+import org.renjin.sexp.IntBufferVector;
 
 import java.util.Optional;
 
 import static org.renjin.repackaged.asm.Opcodes.*;
 
 /**
- * Generates the bytecode to access elements stored within an {@link java.nio.IntBuffer}
+ * Generates the bytecode to access elements stored within an {@link java.nio.IntBuffer},
+ * backing either an {@link IntBufferVector} or a {@link org.renjin.sexp.LogicalBufferVector}
  *
  */
 public class IntBufferNode extends LoopNode {
 
   private int operandIndex;
+  private String vectorType;
 
   /**
    * The local variable where we're storing the
@@ -43,7 +47,12 @@ public class IntBufferNode extends LoopNode {
   private int bufferLengthLocal;
 
   public IntBufferNode(int operandIndex) {
+    this(operandIndex, Type.getType(IntBufferVector.class));
+  }
+
+  public IntBufferNode(int operandIndex, Type vectorType) {
     this.operandIndex = operandIndex;
+    this.vectorType = vectorType.getInternalName();
   }
 
   public void init(ComputeMethod method) {
@@ -55,11 +64,11 @@ public class IntBufferNode extends LoopNode {
     mv.visitVarInsn(ALOAD, method.getOperandsLocalIndex());
     pushIntConstant(mv, operandIndex);
     mv.visitInsn(AALOAD);
-    mv.visitTypeInsn(CHECKCAST, "org/renjin/sexp/IntBufferVector");
-    mv.visitMethodInsn(INVOKEVIRTUAL, "org/renjin/sexp/IntBufferVector", "toIntBufferUnsafe", "()Ljava/nio/IntBuffer;", false);
+    mv.visitTypeInsn(CHECKCAST, vectorType);
     mv.visitInsn(DUP);
+    mv.visitMethodInsn(INVOKEVIRTUAL, vectorType, "toIntBufferUnsafe", "()Ljava/nio/IntBuffer;", false);
     mv.visitVarInsn(ASTORE, bufferLocal);
-    mv.visitMethodInsn(INVOKEVIRTUAL, "java/nio/IntBuffer", "remaining", "()I", false);
+    mv.visitMethodInsn(INVOKEVIRTUAL, vectorType, "length", "()I", false);
     mv.visitVarInsn(ISTORE, bufferLengthLocal);
   }
 
@@ -100,7 +109,7 @@ public class IntBufferNode extends LoopNode {
 
   @Override
   public void appendToKey(StringBuilder key) {
-    key.append("IBN");
+    key.append(vectorType.endsWith("IntBufferVector") ? "IBN" : "LBN");
   }
 
   @Override
@@ -0,0 +1,107 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.pipeliner.fusion.node;
+
+import org.renjin.pipeliner.ComputeMethod;
+import org.renjin.repackaged.asm.Label;
+import org.renjin.repackaged.asm.MethodVisitor;
+
+import java.util.Optional;
+
+import static org.renjin.repackaged.asm.Opcodes.*;
+
+/**
+ * Generates the bytecode to access elements stored within the {@link java.nio.ByteBuffer}
+ * backing a {@link org.renjin.sexp.RawBufferVector}. Raw values are unsigned and never NA.
+ */
+public class RawBufferNode extends LoopNode {
+
+  private int operandIndex;
+
+  /**
+   * The local variable where we're storing the
+   * raw ByteBuffer
+   */
+  private int bufferLocal;
+
+  private int bufferLengthLocal;
+
+  public RawBufferNode(int operandIndex) {
+    this.operandIndex = operandIndex;
+  }
+
+  public void init(ComputeMethod method) {
+
+    bufferLocal = method.reserveLocal(1);
+    bufferLengthLocal = method.reserveLocal(1);
+
+    MethodVisitor mv = method.getVisitor();
+    mv.visitVarInsn(ALOAD, method.getOperandsLocalIndex());
+    pushIntConstant(mv, operandIndex);
+    mv.visitInsn(AALOAD);
+    mv.visitTypeInsn(CHECKCAST, "org/renjin/sexp/RawBufferVector");
+    mv.visitInsn(DUP);
+    mv.visitMethodInsn(INVOKEVIRTUAL, "org/renjin/sexp/RawBufferVector", "toByteBufferUnsafe", "()Ljava/nio/ByteBuffer;", false);
+    mv.visitVarInsn(ASTORE, bufferLocal);
+    mv.visitMethodInsn(INVOKEVIRTUAL, "org/renjin/sexp/RawBufferVector", "length", "()I", false);
+    mv.visitVarInsn(ISTORE, bufferLengthLocal);
+  }
+
+  @Override
+  public void pushLength(ComputeMethod method) {
+    MethodVisitor mv = method.getVisitor();
+    mv.visitVarInsn(ILOAD, bufferLengthLocal);
+  }
+
+  @Override
+  public void pushElementAsDouble(ComputeMethod method, Optional<Label> integerNaLabel) {
+    pushElementAsInt(method, integerNaLabel);
+    method.getVisitor().visitInsn(I2D);
+  }
+
+  @Override
+  public void pushElementAsInt(ComputeMethod method, Optional<Label> naLabel) {
+    MethodVisitor mv = method.getVisitor();
+    // STACK: [ ..., index]
+    mv.visitVarInsn(ALOAD, bufferLocal);
+    // STACK: [ ..., index, buffer ]
+    mv.visitInsn(SWAP);
+    // STACK: [ ..., buffer, index ]
+    mv.visitMethodInsn(INVOKEVIRTUAL, "java/nio/ByteBuffer", "get", "(I)B", false);
+    // STACK: [ ..., signed value ]
+    mv.visitIntInsn(SIPUSH, 0xFF);
+    mv.visitInsn(IAND);
+    // STACK: [ ..., value ]
+  }
+
+  @Override
+  public boolean mustCheckForIntegerNAs() {
+    return false;
+  }
+
+  @Override
+  public void appendToKey(StringBuilder key) {
+    key.append("RBN");
+  }
+
+  @Override
+  public String toString() {
+    return "x" + operandIndex;
+  }
+}
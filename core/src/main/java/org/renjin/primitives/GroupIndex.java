@@ -0,0 +1,131 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives;
+
+import org.renjin.eval.EvalException;
+import org.renjin.sexp.IntArrayVector;
+import org.renjin.sexp.IntVector;
+
+import java.util.Arrays;
+
+/**
+ * Index of the elements of a vector by group, as used by {@code split()}.
+ *
+ * <p>The index is built in two passes over the group codes: the first counts the size of each
+ * group, and the second scatters the element positions into a single array, ordered by group and then
+ * by position. The elements of each group can then be copied into arrays of exactly the right size,
+ * without boxing group codes or growing a builder for each group.</p>
+ */
+final class GroupIndex {
+
+  /**
+   * The start of each group within {@code elements}. The elements of group {@code g} are found in
+   * {@code elements[offsets[g]]} to {@code elements[offsets[g+1]-1]}.
+   */
+  private final int[] offsets;
+
+  /**
+   * The zero-based positions of all elements which belong to a group, ordered by group.
+   */
+  private final int[] elements;
+
+  private GroupIndex(int[] offsets, int[] elements) {
+    this.offsets = offsets;
+    this.elements = elements;
+  }
+
+  /**
+   * Builds an index of the elements of a vector of length {@code length}.
+   *
+   * @param codes the one-based group of each element, or {@code NA} if the element belongs to no group.
+   *              The codes are recycled if shorter than {@code length}.
+   * @param length the length of the vector to split
+   * @param groupCount the number of groups
+   */
+  static GroupIndex build(IntVector codes, int length, int groupCount) {
+    int codeCount = codes.length();
+    if(codeCount == 0 && length > 0) {
+      throw new EvalException("group length is 0 but data length > 0");
+    }
+    int[] codeArray = codes instanceof IntArrayVector ?
+        ((IntArrayVector) codes).toIntArrayUnsafe() : codes.toIntArray();
+
+    // First pass: count the number of elements in each group
+    int[] offsets = new int[groupCount + 1];
+    int elementCount = 0;
+    for (int i = 0, j = 0; i < length; i++, j++) {
+      if(j == codeCount) {
+        j = 0;
+      }
+      int code = codeArray[j];
+      if(!IntVector.isNA(code)) {
+        if(code < 1 || code > groupCount) {
+          throw new EvalException("factor has bad level");
+        }
+        offsets[code]++;
+        elementCount++;
+      }
+    }
+
+    // Convert the counts to the start offsets of each group
+    for (int g = 1; g <= groupCount; g++) {
+      offsets[g] += offsets[g - 1];
+    }
+
+    // Second pass: scatter the positions of the elements into their groups
+    int[] next = Arrays.copyOf(offsets, groupCount);
+    int[] elements = new int[elementCount];
+    for (int i = 0, j = 0; i < length; i++, j++) {
+      if(j == codeCount) {
+        j = 0;
+      }
+      int code = codeArray[j];
+      if(!IntVector.isNA(code)) {
+        elements[next[code - 1]++] = i;
+      }
+    }
+
+    return new GroupIndex(offsets, elements);
+  }
+
+  int getGroupCount() {
+    return offsets.length - 1;
+  }
+
+  /**
+   * @return the number of elements in the zero-based group {@code group}
+   */
+  int getGroupSize(int group) {
+    return offsets[group + 1] - offsets[group];
+  }
+
+  /**
+   * @return the offset within {@link #getElements()} of the first element of the zero-based group {@code group}
+   */
+  int getGroupStart(int group) {
+    return offsets[group];
+  }
+
+  /**
+   * @return the positions of all grouped elements, ordered by group. This array must not be modified.
+   */
+  int[] getElements() {
+    return elements;
+  }
+}
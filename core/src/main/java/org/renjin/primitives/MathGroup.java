@@ -23,6 +23,7 @@ import org.apache.commons.math.util.MathUtils;
 import org.renjin.eval.Context;
 import org.renjin.eval.EvalException;
 import org.renjin.invoke.annotations.*;
+import org.renjin.primitives.summary.DeferredAccumulation;
 import org.renjin.repackaged.guava.math.IntMath;
 import org.renjin.sexp.*;
 
@@ -400,6 +401,9 @@ public class MathGroup {
 
   @Builtin
   public static DoubleVector cumsum(DoubleVector source) {
+    if(source.isDeferred()) {
+      return new DeferredAccumulation("cumsum", source, source.length(), source.getAttributes().copyNames());
+    }
     return cumulativeRealSum(source);
   }
   
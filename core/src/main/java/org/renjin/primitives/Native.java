@@ -40,7 +40,6 @@ import org.renjin.sexp.*;
 import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.lang.reflect.Type;
 import java.util.Collections;
 import java.util.Optional;
 import java.util.function.Predicate;
@@ -52,6 +51,21 @@ public class Native {
 
   public static final ThreadLocal<Context> CURRENT_CONTEXT = new ThreadLocal<>();
 
+  /**
+   * Identifies the call into native code executing on this thread, so that state handed out to native
+   * code, such as arrays materialized for {@code REAL()}, can be scoped to a single call. A new token is
+   * set on entry to each call, and the caller's token is restored when it returns.
+   */
+  private static final ThreadLocal<Object> CURRENT_CALL = new ThreadLocal<>();
+
+  /**
+   * @return a token identifying the call into native code executing on this thread, or {@code null} if
+   * no call is executing.
+   */
+  public static Object currentCall() {
+    return CURRENT_CALL.get();
+  }
+
   public static Context currentContext() {
     Context context = Native.CURRENT_CONTEXT.get();
     if(context == null) {
@@ -165,38 +179,26 @@ public class Native {
       return delegateToJavaMethod(context, methodExp, packageName, null, callArguments);
     }
 
-    DllSymbol method = findMethod(context, methodExp, packageName, null, DllSymbol.Convention.C);
-    MethodHandle handle = method.getMethodHandle();
+    NativeCallCache.CallSite callSite = getCallSite(context, methodExp, packageName, null, DllSymbol.Convention.C);
 
-    Object[] nativeArguments = new Object[handle.type().parameterCount()];
-    for(int i=0;i!=nativeArguments.length;++i) {
-      Type type = handle.type().parameterType(i);
-      SEXP callArgument = callArguments.get(i);
-      if(callArgument instanceof IntVector || callArgument instanceof LogicalVector) {
-        nativeArguments[i] = intPtrFromVector(callArguments.get(i));
-      } else if(callArgument instanceof DoubleVector) {
-        nativeArguments[i] = doublePtrFromVector(callArguments.get(i));
-      } else if(callArgument instanceof StringVector) {
-        nativeArguments[i] = stringPtrToCharPtrPtr(callArguments.get(i));
-      } else {
-        throw new EvalException("Don't know how to marshall type " + callArguments.get(i).getClass().getName() +
-            " to for C argument " +  type + " in call to " + handle);
-      }
-    }
+    Object[] nativeArguments = callSite.marshalC(callArguments);
     
     if(Profiler.ENABLED) {
-      Profiler.functionStart(Symbol.get(method.getName()), 'C');
+      Profiler.functionStart(callSite.getProfilerName(), 'C');
     }
     Context previousContext = CURRENT_CONTEXT.get();
+    Object previousCall = CURRENT_CALL.get();
     CURRENT_CONTEXT.set(context);
+    CURRENT_CALL.set(new Object());
     try {
-      handle.invokeWithArguments(nativeArguments);
+      callSite.invokeWithPointers(nativeArguments);
     } catch (EvalException | Error e) {
       throw e;
     } catch (Throwable e) {
       throw new EvalException(e.getMessage(), e);
     } finally {
       CURRENT_CONTEXT.set(previousContext);
+      CURRENT_CALL.set(previousCall);
       if(Profiler.ENABLED) {
         Profiler.functionEnd();
       }
@@ -217,7 +219,7 @@ public class Native {
   /**
    * Converts a StringVector to an array of null-terminated strings.
    */
-  private static PointerPtr stringPtrToCharPtrPtr(SEXP sexp) {
+  static PointerPtr stringPtrToCharPtrPtr(SEXP sexp) {
     if(!((sexp instanceof StringVector))) {
       throw new EvalException(".C function expected 'character', but argument was '%s'", sexp.getTypeName());
     }
@@ -246,25 +248,6 @@ public class Native {
     }
   }
 
-  private static DoublePtr doublePtrFromVector(SEXP sexp) {
-    if(!(sexp instanceof AtomicVector)) {
-      throw new EvalException("expected atomic vector");
-    }
-    return new DoublePtr(((AtomicVector) sexp).toDoubleArray());
-  }
-
-  private static IntPtr intPtrFromVector(SEXP sexp) {
-    if(!(sexp instanceof AtomicVector)) {
-      throw new EvalException("expected atomic vector");
-    }
-    AtomicVector vector = (AtomicVector)sexp;
-    int[] array = new int[vector.length()];
-    for(int i=0;i!=array.length;++i) {
-      array[i] = vector.getElementAsInt(i);
-    }
-    return new IntPtr(array, 0);
-  }
-
   /**
    * Invokes a method compiled to JVM byte code from Fortran, applying the correct calling
    * conventions, etc. This method differs from the
@@ -280,26 +263,27 @@ public class Native {
                                 @NamedFlag("DUP") boolean dup,
                                 @NamedFlag("ENCODING") boolean encoding) throws IllegalAccessException {
 
-    DllSymbol method = findMethod(context, methodExp, packageName, className, DllSymbol.Convention.FORTRAN);
+    NativeCallCache.CallSite callSite = getCallSite(context, methodExp, packageName, className, DllSymbol.Convention.FORTRAN);
+    DllSymbol method = callSite.getSymbol();
 
-    Class<?>[] fortranTypes = method.getMethodHandle().type().parameterArray();
-    if(fortranTypes.length > callArguments.length()) {
+    int arity = callSite.getArity();
+    if(arity > callArguments.length()) {
       throw new EvalException("Argument mismatch while invoking .Fortran(" + method.getName() + ", ...): " +
-          " expected " + fortranTypes.length + " arguments, received " + callArguments.length() + " arguments");
+          " expected " + arity + " arguments, received " + callArguments.length() + " arguments");
     }
 
-    Object[] fortranArgs = new Object[fortranTypes.length];
+    Object[] fortranArgs = new Object[arity];
     ListVector.NamedBuilder returnValues = ListVector.newNamedBuilder();
 
     if(Profiler.ENABLED) {
-      Profiler.functionStart(Symbol.get(method.getName()), 'F');
+      Profiler.functionStart(callSite.getProfilerName(), 'F');
     }
 
     // For .Fortran() calls, we make a copy of the arguments, pass them by
     // reference to the fortran subroutine, and then return the modified arguments
     // as a ListVector.
 
-    for(int i=0;i!=fortranTypes.length;++i) {
+    for(int i=0;i!=arity;++i) {
       AtomicVector vector = (AtomicVector) callArguments.get(i);
       if(vector instanceof DoubleVector) {
         double[] array = vector.toDoubleArray();
@@ -317,15 +301,18 @@ public class Native {
     }
 
     Context previousContext = CURRENT_CONTEXT.get();
+    Object previousCall = CURRENT_CALL.get();
     CURRENT_CONTEXT.set(context);
+    CURRENT_CALL.set(new Object());
     try {
-      method.getMethodHandle().invokeWithArguments(fortranArgs);
+      callSite.invokeWithPointers(fortranArgs);
     } catch (Error e) {
       throw e;
     } catch (Throwable e) {
       throw new EvalException("Exception thrown while executing " + method.getName(), e);
     } finally {
       CURRENT_CONTEXT.set(previousContext);
+      CURRENT_CALL.set(previousCall);
       if(Profiler.ENABLED) {
         Profiler.functionEnd();
       }
@@ -361,39 +348,32 @@ public class Native {
       return delegateToJavaMethod(context, methodExp, packageName, className, callArguments);
     }
 
-    DllSymbol method = findMethod(context, methodExp, packageName, className, DllSymbol.Convention.CALL);
+    NativeCallCache.CallSite callSite = getCallSite(context, methodExp, packageName, className, DllSymbol.Convention.CALL);
+    DllSymbol method = callSite.getSymbol();
 
-    MethodHandle methodHandle = method.getMethodHandle();
-    if(methodHandle == null) {
-      throw new NullPointerException("methodHandle for " + method.getName() + " is null.");
-    }
-    if(methodHandle.type().parameterCount() != callArguments.length()) {
+    if(callSite.getArity() != callArguments.length()) {
       throw new EvalException("Expected %d arguments, found %d in call to %s",
-          methodHandle.type().parameterCount(),
+          callSite.getArity(),
           callArguments.length(),
           method.getName());
     }
-    MethodHandle transformedHandle = methodHandle.asSpreader(SEXP[].class, methodHandle.type().parameterCount());
     SEXP[] arguments = toSexpArray(callArguments);
     if(Profiler.ENABLED) {
-      Profiler.functionStart(Symbol.get(method.getName()), 'C');
+      Profiler.functionStart(callSite.getProfilerName(), 'C');
     }
     Context previousContext = CURRENT_CONTEXT.get();
+    Object previousCall = CURRENT_CALL.get();
     try {
       CURRENT_CONTEXT.set(context);
-      if (transformedHandle.type().returnType().equals(void.class)) {
-        transformedHandle.invokeExact(arguments);
-        return Null.INSTANCE;
-      } else {
-        SEXP result = (SEXP) transformedHandle.invokeExact(arguments);
-        return result;
-      }
+      CURRENT_CALL.set(new Object());
+      return callSite.invokeWithSexps(arguments);
     } catch (Error e) {
       throw e;
     } catch (Throwable e) {
       throw new EvalException("Exception calling " +  method.getName() + " : " + e.getMessage(), e);
     } finally {
       CURRENT_CONTEXT.set(previousContext);
+      CURRENT_CALL.set(previousCall);
       if(Profiler.ENABLED) {
         Profiler.functionEnd();
       }
@@ -410,7 +390,7 @@ public class Native {
                               @NamedFlag("CLASS") String className) {
 
 
-    DllSymbol symbol = findMethod(context, methodExp, packageName, className, DllSymbol.Convention.EXTERNAL);
+    DllSymbol symbol = getCallSite(context, methodExp, packageName, className, DllSymbol.Convention.EXTERNAL).getSymbol();
 
     MethodHandle methodHandle = symbol.getMethodHandle();
     if(methodHandle.type().parameterCount() != 1) {
@@ -426,8 +406,10 @@ public class Native {
       Profiler.functionStart(Symbol.get(nameExp.getElementAsString(0)), 'C');
     }
     Context previousContext = CURRENT_CONTEXT.get();
+    Object previousCall = CURRENT_CALL.get();
     try {
       CURRENT_CONTEXT.set(context);
+      CURRENT_CALL.set(new Object());
       if (methodHandle.type().returnType().equals(void.class)) {
         methodHandle.invokeExact(argumentList);
         return Null.INSTANCE;
@@ -440,6 +422,7 @@ public class Native {
       throw new EvalException("Exception calling " + methodExp + " : " + e.getMessage(), e);
     } finally {
       CURRENT_CONTEXT.set(previousContext);
+      CURRENT_CALL.set(previousCall);
       if(Profiler.ENABLED) {
         Profiler.functionEnd();
       }
@@ -454,7 +437,7 @@ public class Native {
                               @NamedFlag("CLASS") String className) throws ClassNotFoundException {
 
 
-    DllSymbol symbol = findMethod(context, methodExp, packageName, className, DllSymbol.Convention.EXTERNAL);
+    DllSymbol symbol = getCallSite(context, methodExp, packageName, className, DllSymbol.Convention.EXTERNAL).getSymbol();
 
     MethodHandle methodHandle = symbol.getMethodHandle();
     if(methodHandle.type().parameterCount() != 4) {
@@ -473,8 +456,10 @@ public class Native {
       Profiler.functionStart(Symbol.get(nameExp.getElementAsString(0)), 'C');
     }
     Context previousContext = CURRENT_CONTEXT.get();
+    Object previousCall = CURRENT_CALL.get();
     try {
       CURRENT_CONTEXT.set(context);
+      CURRENT_CALL.set(new Object());
       if (methodHandle.type().returnType().equals(void.class)) {
         methodHandle.invokeExact(call, op, args, rho);
         return Null.INSTANCE;
@@ -487,6 +472,7 @@ public class Native {
       throw new EvalException("Exception calling " + methodExp + " : " + e.getMessage(), e);
     } finally {
       CURRENT_CONTEXT.set(previousContext);
+      CURRENT_CALL.set(previousCall);
       if(Profiler.ENABLED) {
         Profiler.functionEnd();
       }
@@ -530,7 +516,13 @@ public class Native {
     return functionBinding.invoke(null, context, arguments);
   }
 
-  private static DllSymbol findMethod(Context context, SEXP method, String packageName, String className, DllSymbol.Convention convention) {
+  private static NativeCallCache.CallSite getCallSite(Context context, SEXP methodExp, String packageName, String className,
+                                                      DllSymbol.Convention convention) {
+    return context.getSession().getSingleton(NativeCallCache.class)
+        .get(context, methodExp, packageName, className, convention);
+  }
+
+  static DllSymbol findMethod(Context context, SEXP method, String packageName, String className, DllSymbol.Convention convention) {
 
     if(method.inherits("NativeSymbolInfo")) {
       return DllSymbol.fromSexp(method);
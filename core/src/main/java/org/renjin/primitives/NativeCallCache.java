@@ -0,0 +1,243 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives;
+
+import org.renjin.eval.Context;
+import org.renjin.eval.EvalException;
+import org.renjin.eval.InheritedSingleton;
+import org.renjin.gcc.runtime.DoublePtr;
+import org.renjin.gcc.runtime.IntPtr;
+import org.renjin.primitives.packaging.DllSymbol;
+import org.renjin.repackaged.guava.cache.Cache;
+import org.renjin.repackaged.guava.cache.CacheBuilder;
+import org.renjin.sexp.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Objects;
+
+/**
+ * Caches the native routines resolved by {@code .C}, {@code .Fortran}, {@code .Call} and
+ * {@code .External} for each call site within a session, together with method handles that
+ * have already been adapted to accept their arguments as a single array.
+ *
+ * <p>The method expression passed to these builtins is almost always a constant of the
+ * calling function: either a {@code NativeSymbolInfo} object bound in a package namespace, or
+ * a string literal. Its identity therefore stands in for the call site.</p>
+ *
+ * <p>The cache is safe for concurrent use, and resolved routines do not depend on the session, so a single
+ * instance is shared with child sessions.</p>
+ */
+public class NativeCallCache implements InheritedSingleton {
+
+  /**
+   * Keyed by the identity of the method expression. Weak keys allow entries to be collected
+   * along with the functions or namespaces in which they appear.
+   */
+  private final Cache<SEXP, CallSite> callSites = CacheBuilder.newBuilder()
+      .weakKeys()
+      .maximumSize(5000)
+      .build();
+
+  @Override
+  public NativeCallCache copyForChild() {
+    return this;
+  }
+
+  /**
+   * Returns the call site for {@code methodExp}, resolving the native routine if it has not
+   * been called from this site before.
+   */
+  CallSite get(Context context, SEXP methodExp, String packageName, String className, DllSymbol.Convention convention) {
+    CallSite callSite = callSites.getIfPresent(methodExp);
+    if(callSite == null || !callSite.matches(packageName, className, convention)) {
+      DllSymbol symbol = Native.findMethod(context, methodExp, packageName, className, convention);
+      callSite = new CallSite(symbol, packageName, className, convention);
+      callSites.put(methodExp, callSite);
+    }
+    return callSite;
+  }
+
+  /**
+   * The kinds of arguments that can be passed to a {@code .C} routine.
+   */
+  enum CArgument {
+    INT {
+      @Override
+      boolean accepts(SEXP argument) {
+        return argument instanceof IntVector || argument instanceof LogicalVector;
+      }
+
+      @Override
+      Object marshal(SEXP argument) {
+        return new IntPtr(((AtomicVector) argument).toIntArray(), 0);
+      }
+    },
+    DOUBLE {
+      @Override
+      boolean accepts(SEXP argument) {
+        return argument instanceof DoubleVector;
+      }
+
+      @Override
+      Object marshal(SEXP argument) {
+        return new DoublePtr(((AtomicVector) argument).toDoubleArray());
+      }
+    },
+    STRING {
+      @Override
+      boolean accepts(SEXP argument) {
+        return argument instanceof StringVector;
+      }
+
+      @Override
+      Object marshal(SEXP argument) {
+        return Native.stringPtrToCharPtrPtr(argument);
+      }
+    };
+
+    abstract boolean accepts(SEXP argument);
+
+    abstract Object marshal(SEXP argument);
+
+    static CArgument of(SEXP argument) {
+      for (CArgument kind : values()) {
+        if(kind.accepts(argument)) {
+          return kind;
+        }
+      }
+      return null;
+    }
+  }
+
+  static final class CallSite {
+    private final DllSymbol symbol;
+    private final Symbol profilerName;
+    private final String packageName;
+    private final String className;
+    private final DllSymbol.Convention convention;
+
+    /**
+     * The symbol's method handle, spread over an {@code Object[]} (for {@code .C} and
+     * {@code .Fortran}) or an {@code SEXP[]} (for {@code .Call}), so that it can be
+     * invoked with {@code invokeExact}.
+     */
+    private MethodHandle spreadHandle;
+
+    /**
+     * The kinds of the arguments last passed to a {@code .C} routine from this site.
+     */
+    private volatile CArgument[] plan;
+
+    private CallSite(DllSymbol symbol, String packageName, String className, DllSymbol.Convention convention) {
+      this.symbol = symbol;
+      this.profilerName = Symbol.get(symbol.getName());
+      this.packageName = packageName;
+      this.className = className;
+      this.convention = convention;
+    }
+
+    private boolean matches(String packageName, String className, DllSymbol.Convention convention) {
+      return this.convention == convention &&
+          Objects.equals(this.packageName, packageName) &&
+          Objects.equals(this.className, className);
+    }
+
+    DllSymbol getSymbol() {
+      return symbol;
+    }
+
+    MethodHandle getMethodHandle() {
+      return symbol.getMethodHandle();
+    }
+
+    int getArity() {
+      return symbol.getMethodHandle().type().parameterCount();
+    }
+
+    Symbol getProfilerName() {
+      return profilerName;
+    }
+
+    /**
+     * Converts the arguments of a {@code .C} call to pointers, reusing the kinds of the
+     * arguments seen on the previous call if they still apply.
+     */
+    Object[] marshalC(ListVector callArguments) {
+      int arity = getArity();
+      CArgument[] plan = this.plan;
+      if(plan == null || !accepts(plan, callArguments)) {
+        plan = new CArgument[arity];
+        for (int i = 0; i < arity; i++) {
+          plan[i] = CArgument.of(callArguments.get(i));
+          if(plan[i] == null) {
+            throw new EvalException("Don't know how to marshall type " + callArguments.get(i).getClass().getName() +
+                " to for C argument " + getMethodHandle().type().parameterType(i) + " in call to " + getMethodHandle());
+          }
+        }
+        this.plan = plan;
+      }
+      Object[] nativeArguments = new Object[arity];
+      for (int i = 0; i < arity; i++) {
+        nativeArguments[i] = plan[i].marshal(callArguments.get(i));
+      }
+      return nativeArguments;
+    }
+
+    private static boolean accepts(CArgument[] plan, ListVector callArguments) {
+      for (int i = 0; i < plan.length; i++) {
+        if(!plan[i].accepts(callArguments.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Invokes a {@code .C} or {@code .Fortran} routine, discarding any return value.
+     */
+    void invokeWithPointers(Object[] arguments) throws Throwable {
+      MethodHandle handle = spreadHandle;
+      if(handle == null) {
+        handle = getMethodHandle()
+            .asSpreader(Object[].class, getArity())
+            .asType(MethodType.methodType(void.class, Object[].class));
+        spreadHandle = handle;
+      }
+      handle.invokeExact(arguments);
+    }
+
+    /**
+     * Invokes a {@code .Call} routine, returning {@code NULL} if it is declared {@code void}.
+     */
+    SEXP invokeWithSexps(SEXP[] arguments) throws Throwable {
+      MethodHandle handle = spreadHandle;
+      if(handle == null) {
+        handle = getMethodHandle().asSpreader(SEXP[].class, getArity());
+        if(handle.type().returnType().equals(void.class)) {
+          handle = MethodHandles.filterReturnValue(handle, MethodHandles.constant(SEXP.class, Null.INSTANCE));
+        }
+        handle = handle.asType(MethodType.methodType(SEXP.class, SEXP[].class));
+        spreadHandle = handle;
+      }
+      return (SEXP) handle.invokeExact(arguments);
+    }
+  }
+}
@@ -700,6 +700,7 @@ public class Primitives {
     f("seq_len", Sequences.class, 1);
     f("list", Vectors.class, "list", 1);
     f("split",  Split.class, 11);
+    f("splitReduce",  Split.class, 11);
     f("is.loaded", Native.class, 11);
     f(".C", Native.class, -1);
     f(".Fortran", Native.class, -1);
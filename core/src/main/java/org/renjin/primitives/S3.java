@@ -31,6 +31,7 @@ import org.renjin.repackaged.guava.collect.Sets;
 import org.renjin.s4.S4;
 import org.renjin.sexp.*;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -617,7 +618,103 @@ public class S3 {
     }
 
     private GenericMethod findNextOrDefault() {
-      GenericMethod next = findNext();
+      return resolve(true);
+    }
+
+    public GenericMethod findNext() {
+      return resolve(false);
+    }
+
+    /**
+     * Resolves the method to dispatch to, reusing the outcome of an earlier resolution from the
+     * session's {@link S3DispatchCache} if none of the bindings it depended on have changed.
+     *
+     * @param withDefault true if the default method should be selected when there is no method for
+     *                    any of the classes.
+     */
+    private GenericMethod resolve(boolean withDefault) {
+      Environment methodTable = getMethodTable();
+
+      // Call frames are searched on every dispatch, as their bindings are not versioned,
+      // so the cached outcome is keyed on the first shared environment.
+      Environment searchEnvironment = callingEnvironment;
+      while(searchEnvironment.isCallFrame()) {
+        searchEnvironment = searchEnvironment.getParent();
+      }
+      if(definitionEnvironment.isCallFrame()) {
+        return withDefault ? lookupNextOrDefault(methodTable) : lookupNext(methodTable);
+      }
+
+      S3DispatchCache cache = context.getSession().getS3DispatchCache();
+      S3DispatchCache.Key key = new S3DispatchCache.Key(genericMethodName, group, classes,
+          definitionEnvironment, searchEnvironment, withDefault);
+
+      long version = Environment.getFunctionBindingsVersion();
+      S3DispatchCache.Entry entry = cache.lookup(key, version, methodTable);
+      if(entry != null && !boundInCallFrames(entry.getCandidates(), searchEnvironment)) {
+        cache.recordHit();
+        if(Profiler.ENABLED) {
+          Profiler.s3Dispatched(true);
+        }
+        if(entry.getFunction() == null) {
+          return null;
+        }
+        return new GenericMethod(this, entry.getMethod(), entry.getClassName(), entry.getFunction());
+      }
+
+      cache.recordMiss();
+      if(Profiler.ENABLED) {
+        Profiler.s3Dispatched(false);
+      }
+
+      GenericMethod method = withDefault ? lookupNextOrDefault(methodTable) : lookupNext(methodTable);
+
+      Symbol[] candidates = candidateMethods(withDefault);
+      if(!boundInCallFrames(candidates, searchEnvironment)) {
+        if(method == null) {
+          cache.put(key, new S3DispatchCache.Entry(version, methodTable, candidates, null, null, null));
+        } else {
+          cache.put(key, new S3DispatchCache.Entry(version, methodTable, candidates,
+              method.method, method.className, method.function));
+        }
+      }
+      return method;
+    }
+
+    /**
+     * @return the names of all the methods which could be selected by this resolution.
+     */
+    private Symbol[] candidateMethods(boolean withDefault) {
+      List<Symbol> candidates = new ArrayList<>();
+      for (String className : classes) {
+        candidates.add(Symbol.get(genericMethodName + "." + className));
+        if(group != null) {
+          candidates.add(Symbol.get(group + "." + className));
+        }
+      }
+      if(withDefault) {
+        candidates.add(Symbol.get(genericMethodName + ".default"));
+      }
+      return candidates.toArray(new Symbol[0]);
+    }
+
+    /**
+     * @return true if any of the {@code candidates} are bound in the call frames between the calling
+     * environment and {@code searchEnvironment}
+     */
+    private boolean boundInCallFrames(Symbol[] candidates, Environment searchEnvironment) {
+      for(Environment env = callingEnvironment; env != searchEnvironment; env = env.getParent()) {
+        for (Symbol candidate : candidates) {
+          if(env.hasVariable(candidate)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    private GenericMethod lookupNextOrDefault(Environment methodTable) {
+      GenericMethod next = lookupNext(methodTable);
 
       if(next != null) {
         return next;
@@ -630,7 +727,7 @@ public class S3 {
       }
 
       // Otherwise see if *another* package has defined a default method
-      function = findNext(getMethodTable(), genericMethodName, "default");
+      function = findNext(methodTable, genericMethodName, "default");
       if(function != null) {
         return function;
       }
@@ -645,9 +742,7 @@ public class S3 {
       return null;
     }
 
-    public GenericMethod findNext() {
-      
-      Environment methodTable = getMethodTable();
+    private GenericMethod lookupNext(Environment methodTable) {
       GenericMethod method;
 
       for(String className : classes) {
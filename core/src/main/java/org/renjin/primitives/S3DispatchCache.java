@@ -0,0 +1,223 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives;
+
+import org.renjin.repackaged.guava.cache.Cache;
+import org.renjin.repackaged.guava.cache.CacheBuilder;
+import org.renjin.sexp.Environment;
+import org.renjin.sexp.Function;
+import org.renjin.sexp.Symbol;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the outcome of S3 method resolution for the lifetime of a {@link org.renjin.eval.Session}.
+ *
+ * <p>Resolving a method for {@code UseMethod()}, {@code NextMethod()} or a dispatching primitive
+ * requires building the name {@code generic.class} for each class of the object, and searching for it
+ * from the calling environment up through the search path, and then in the {@code .__S3MethodsTable__.}
+ * of the environment in which the generic was defined. The outcome depends only on the generic, the
+ * classes, the definition environment and the function bindings visible from the calling environment,
+ * and so can be reused for as long as none of these change.</p>
+ *
+ * <p>Entries are keyed on the first environment above the calling environment which is not a call frame,
+ * and are valid for as long as the {@link Environment#getFunctionBindingsVersion() function bindings version}
+ * is unchanged and the definition environment still has the same methods table. Because the bindings of
+ * call frames are not versioned, the caller must check that none of the {@link Entry#getCandidates() candidate}
+ * method names are bound in the call frames between the calling environment and that key environment.</p>
+ */
+public class S3DispatchCache {
+
+  /**
+   * The maximum number of resolutions retained. Each distinct combination of generic, classes and
+   * environments uses one entry.
+   */
+  private static final int MAX_ENTRIES = 2000;
+
+  private final Cache<Key, Entry> entries = CacheBuilder.newBuilder()
+      .maximumSize(MAX_ENTRIES)
+      .build();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Finds a previous resolution which is still valid.
+   *
+   * @param version the current {@link Environment#getFunctionBindingsVersion() function bindings version}
+   * @param methodTable the current methods table of the key's definition environment.
+   * @return the entry, or {@code null} if there is none, or if it is no longer valid. The caller must
+   * still check that none of its candidates are bound in intervening call frames.
+   */
+  Entry lookup(Key key, long version, Environment methodTable) {
+    Entry entry = entries.getIfPresent(key);
+    if(entry != null && entry.version == version && entry.methodTable == methodTable) {
+      return entry;
+    }
+    return null;
+  }
+
+  /**
+   * Caches the result of a resolution.
+   */
+  void put(Key key, Entry entry) {
+    entries.put(key, entry);
+  }
+
+  void recordHit() {
+    hits.incrementAndGet();
+  }
+
+  void recordMiss() {
+    misses.incrementAndGet();
+  }
+
+  /**
+   * @return the number of dispatches resolved from the cache
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * @return the number of dispatches which required a full method search
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Discards all cached resolutions. This is only necessary if S3 methods or their tables have been
+   * modified without going through an {@link Environment}.
+   */
+  public void invalidate() {
+    entries.invalidateAll();
+  }
+
+  @Override
+  public String toString() {
+    return "S3DispatchCache{hits=" + hits + ", misses=" + misses + ", size=" + entries.size() + "}";
+  }
+
+  static final class Key {
+    private final String generic;
+    private final String group;
+    private final List<String> classes;
+    private final Environment definitionEnvironment;
+    private final Environment searchEnvironment;
+    private final boolean withDefault;
+    private final int hashCode;
+
+    /**
+     * @param generic the name of the generic, for example "print"
+     * @param group the name of the group generic, such as "Ops", or {@code null}
+     * @param classes the classes to try in turn
+     * @param definitionEnvironment the environment in which the generic was defined
+     * @param searchEnvironment the first environment above the calling environment which is not a call frame
+     * @param withDefault true if the resolution falls back to the default method.
+     */
+    Key(String generic, String group, List<String> classes, Environment definitionEnvironment,
+        Environment searchEnvironment, boolean withDefault) {
+      this.generic = generic;
+      this.group = group;
+      this.classes = classes;
+      this.definitionEnvironment = definitionEnvironment;
+      this.searchEnvironment = searchEnvironment;
+      this.withDefault = withDefault;
+
+      int hash = generic.hashCode();
+      hash = 31 * hash + (group == null ? 0 : group.hashCode());
+      hash = 31 * hash + classes.hashCode();
+      hash = 31 * hash + System.identityHashCode(definitionEnvironment);
+      hash = 31 * hash + System.identityHashCode(searchEnvironment);
+      hash = 31 * hash + (withDefault ? 1 : 0);
+      this.hashCode = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if(this == o) {
+        return true;
+      }
+      if(!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return hashCode == other.hashCode &&
+          withDefault == other.withDefault &&
+          definitionEnvironment == other.definitionEnvironment &&
+          searchEnvironment == other.searchEnvironment &&
+          generic.equals(other.generic) &&
+          (group == null ? other.group == null : group.equals(other.group)) &&
+          classes.equals(other.classes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * The outcome of a method resolution: the selected method, or no method at all.
+   */
+  static final class Entry {
+    private final long version;
+    private final Environment methodTable;
+    private final Symbol[] candidates;
+    private final Symbol method;
+    private final String className;
+    private final Function function;
+
+    /**
+     * @param version the function bindings version read <em>before</em> the resolution began
+     * @param methodTable the methods table of the definition environment
+     * @param candidates the names of all the methods which the resolution considered
+     * @param method the name of the selected method, or {@code null} if none was found.
+     * @param className the class for which the method was selected, or {@code null}
+     * @param function the selected method, or {@code null} if none was found.
+     */
+    Entry(long version, Environment methodTable, Symbol[] candidates, Symbol method, String className,
+          Function function) {
+      this.version = version;
+      this.methodTable = methodTable;
+      this.candidates = candidates;
+      this.method = method;
+      this.className = className;
+      this.function = function;
+    }
+
+    Symbol[] getCandidates() {
+      return candidates;
+    }
+
+    Symbol getMethod() {
+      return method;
+    }
+
+    String getClassName() {
+      return className;
+    }
+
+    Function getFunction() {
+      return function;
+    }
+  }
+}
@@ -24,15 +24,10 @@ import org.renjin.eval.EvalException;
 import org.renjin.gcc.runtime.DoublePtr;
 import org.renjin.gcc.runtime.IntPtr;
 import org.renjin.invoke.annotations.*;
-import org.renjin.repackaged.guava.collect.Lists;
+import org.renjin.primitives.sort.RadixOrder;
+import org.renjin.primitives.summary.DeferredAccumulation;
 import org.renjin.sexp.*;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
-import java.util.stream.IntStream;
-
 public class Sort {
 
   @Internal
@@ -47,12 +42,11 @@ public class Sort {
       throw new EvalException("sorting of vectors with names not yet implemented!");
     }
 
-    String sorted[] = x.toArray();
-
-    if(decreasing) {
-      Arrays.sort(sorted, Collections.reverseOrder());
-    }else{
-      Arrays.sort(sorted);
+    int[] order = RadixOrder.order(x, true, decreasing);
+    String[] elements = x.toArray();
+    String sorted[] = new String[order.length];
+    for (int i = 0; i < order.length; i++) {
+      sorted[i] = elements[order[i]];
     }
 
     return new StringArrayVector(sorted);
@@ -65,30 +59,34 @@ public class Sort {
       throw new EvalException("sorting of vectors with names not yet implemented!");
     }
 
-    double sorted[] = x.toDoubleArray();
-
-    Arrays.sort(sorted);
+    return DoubleArrayVector.unsafe(sortedDoubles(x, decreasing));
+  }
 
-    if(decreasing) {
-      reverse(sorted);
+  private static double[] sortedDoubles(AtomicVector x, boolean decreasing) {
+    int[] order = RadixOrder.order(x, true, decreasing);
+    double[] elements = x.toDoubleArray();
+    double sorted[] = new double[order.length];
+    for (int i = 0; i < order.length; i++) {
+      sorted[i] = elements[order[i]];
     }
-
-    return DoubleArrayVector.unsafe(sorted);
+    return sorted;
   }
-  
-  private static void reverse(double[] b) {
-    int left  = 0;          
-    int right = b.length-1; 
 
-    while (left < right) {
-      double temp = b[left]; 
-      b[left]  = b[right]; 
-      b[right] = temp;
+  private static int[] sortedInts(AtomicVector x, boolean decreasing) {
+    int[] order = RadixOrder.order(x, true, decreasing);
+    int[] elements = x.toIntArray();
+    int sorted[] = new int[order.length];
+    for (int i = 0; i < order.length; i++) {
+      sorted[i] = elements[order[i]];
+    }
+    return sorted;
+  }
 
-      // move the bounds toward the center
-      left++;
-      right--;
+  private static IntArrayVector oneBased(int[] order) {
+    for (int i = 0; i < order.length; i++) {
+      order[i]++;
     }
+    return IntArrayVector.unsafe(order);
   }
 
   @Internal
@@ -98,15 +96,7 @@ public class Sort {
       throw new EvalException("sorting of vectors with names not yet implemented!");
     }
 
-    int sorted[] = x.toIntArray();
-
-    Arrays.sort(sorted);
-
-    if(decreasing) {
-      reverse(sorted);
-    }
-
-    return new IntArrayVector(sorted);
+    return IntArrayVector.unsafe(sortedInts(x, decreasing));
   }
 
   @Internal
@@ -116,15 +106,7 @@ public class Sort {
       throw new EvalException("sorting of vectors with names not yet implemented!");
     }
 
-    int sorted[] = x.toIntArray();
-
-    Arrays.sort(sorted);
-
-    if(decreasing) {
-      reverse(sorted);
-    }
-
-    return new LogicalArrayVector(sorted);
+    return new LogicalArrayVector(sortedInts(x, decreasing));
   }
 
   @Internal("is.unsorted")
@@ -197,20 +179,19 @@ public class Sort {
   public static Vector qsort(DoubleVector x, LogicalVector returnIndexes) {
 
     
-    double[] values = x.toDoubleArray();
-    Arrays.sort(values);
+    int[] order = RadixOrder.order(x, true, false);
+    double[] elements = x.toDoubleArray();
+    double[] values = new double[order.length];
+    for (int i = 0; i < order.length; i++) {
+      values[i] = elements[order[i]];
+    }
     
     DoubleVector sorted = new DoubleArrayVector(values, x.getAttributes());
 
     if(returnIndexes.isElementTrue(0)) {
-      final double[] doubleArray = x.toDoubleArray();
-      int[] sortedIndices = IntStream.range(0, doubleArray.length)
-          .boxed().sorted((i, j) ->  Double.compare(doubleArray[i], doubleArray[j]) )
-          .mapToInt(ele -> ele).toArray();
-
       ListVector.NamedBuilder builder = new ListVector.NamedBuilder();
       builder.add("x", sorted);
-      builder.add("ix", new IntArrayVector(sortedIndices));
+      builder.add("ix", oneBased(order));
       return builder.build();
     }
 
@@ -229,20 +210,19 @@ public class Sort {
   public static Vector qsort(IntVector x, LogicalVector returnIndexes) {
 
     
-    int[] values = x.toIntArray();
-    Arrays.sort(values);
+    int[] order = RadixOrder.order(x, true, false);
+    int[] elements = x.toIntArray();
+    int[] values = new int[order.length];
+    for (int i = 0; i < order.length; i++) {
+      values[i] = elements[order[i]];
+    }
     
     IntVector sorted = new IntArrayVector(values, x.getAttributes());
 
     if(returnIndexes.isElementTrue(0)) {
-      final int[] intArr = x.toIntArray();
-      int[] sortedIndices = IntStream.range(0, intArr.length)
-          .boxed().sorted((i, j) ->  Integer.compare(intArr[i], intArr[j]) )
-          .mapToInt(ele -> ele).toArray();
-
       ListVector.NamedBuilder builder = new ListVector.NamedBuilder();
       builder.add("x", sorted);
-      builder.add("ix", new IntArrayVector(sortedIndices));
+      builder.add("ix", oneBased(order));
       return builder.build();
     }
     // drop the names attributes if present because it will not be sorted
@@ -259,24 +239,21 @@ public class Sort {
   @Internal
   public static Vector qsort(LogicalVector x, boolean returnIndexes) {
 
-    int[] array = x.toIntArray();
-    
-    Arrays.sort(array);
+    int[] order = RadixOrder.order(x, true, false);
+    int[] elements = x.toIntArray();
+    int[] array = new int[order.length];
+    for (int i = 0; i < order.length; i++) {
+      array[i] = elements[order[i]];
+    }
 
     LogicalVector sorted = new LogicalArrayVector(array, x.getAttributes());
 
 
     if(returnIndexes) {
-      final int[] intArr = x.toIntArray();
-      int[] sortedIndices = IntStream.range(0, intArr.length)
-          .boxed().sorted((i, j) ->  Integer.compare(intArr[i], intArr[j]) )
-          .mapToInt(ele -> ele).toArray();
-
       ListVector.NamedBuilder builder = new ListVector.NamedBuilder();
       builder.add("x", sorted);
-      builder.add("ix", new IntArrayVector(sortedIndices));
+      builder.add("ix", oneBased(order));
       return builder.build();
-//      throw new EvalException("qsort(indexes=TRUE) not yet implemented");
     }
 
     // drop the names attributes if present because it will not be sorted
@@ -289,21 +266,6 @@ public class Sort {
     return qsort(x, false);
   }
 
-  private static void reverse(int[] b) {
-    int left  = 0;          
-    int right = b.length-1; 
-
-    while (left < right) {
-      int temp = b[left]; 
-      b[left]  = b[right]; 
-      b[right] = temp;
-
-      // move the bounds toward the center
-      left++;
-      right--;
-    }
-  }
-  
   /**
    * Returns a permutation which rearranges its first argument into ascending or
    * descending order, breaking ties by further arguments.
@@ -329,56 +291,13 @@ public class Sort {
       }
     }
 
-    List<Integer> ordering = Lists.newArrayListWithCapacity(numRows);
-    for (int i = 0; i != numRows; ++i) {
-      ordering.add(i);
-    }
-
-    Collections.sort(ordering, new Comparator<Integer>() {
-
-      @Override
-      public int compare(Integer row1, Integer row2) {
-        int col = 0;
-        int rel;
-        while ((rel = compare(row1, row2, col)) == 0) {
-          col++;
-          if (col == columns.length()) {
-            return 0;
-          }
-        }
-        return rel;
-      }
-
-      private int compare(Integer row1, Integer row2, int col) {
-        AtomicVector column = (AtomicVector) columns.get(col);
-        boolean na1 = column.isElementNA(row1);
-        boolean na2 = column.isElementNA(row2);
-        if(na1 && na2) {
-          // Both values are NA, consider equal
-          return 0;
-        } else if(na1) {
-          // NA <-> 42
-          return naLast ? +1 : -1;
-        } else if(na2) {
-          // 42 <-> NA
-          return naLast ? -1 : +1;
-        } else {
-          // 42 <-> 41
-          return decreasing ?
-              -column.compare(row1, row2) :
-              +column.compare(row1, row2);
-        }
-      }
-
-    });
-
-    IntArrayVector.Builder result = new IntArrayVector.Builder();
-    for (Integer index : ordering) {
-      result.add(index + 1);
+    AtomicVector[] keys = new AtomicVector[columns.length()];
+    for (int i = 0; i != columns.length(); ++i) {
+      keys[i] = (AtomicVector) columns.getElementAsSEXP(i);
     }
 
-    return result.build();
-  }   
+    return oneBased(RadixOrder.order(keys, naLast, decreasing));
+  }
 
   @Internal("which.min")
   public static IntVector whichMin(Vector input) {
@@ -403,7 +322,19 @@ public class Sort {
   }
 
   @Internal("which.max")
-  public static IntVector whichMax(Vector input) {
+  public static IntVector whichMax(@Current Context context, Vector input) {
+    if(input.isDeferred() && input.getNames() == Null.INSTANCE &&
+        (input instanceof DoubleVector || input instanceof IntVector || input instanceof LogicalVector)) {
+      // Fuse the search with the computation of the deferred vector
+      Vector result = context.materialize(new DeferredAccumulation("which.max", input, 1, AttributeMap.EMPTY));
+      double index = result.getElementAsDouble(0);
+      if(Double.isNaN(index)) {
+        return IntVector.EMPTY;
+      } else {
+        return new IntArrayVector((int) index);
+      }
+    }
+
     int maxIndex = -1;
     double maxValue = 0;
 
@@ -439,42 +370,20 @@ public class Sort {
   @Internal
   public static Vector rank(final AtomicVector input, String tiesMethod) {
 
-    boolean decreasing = false;
-
-    AtomicVector sortedInput;
-
-    String typeVector = input.getTypeName();
-    switch (typeVector){
-      case "character":
-        StringVector inputStringVector = ((StringVector) input.setAttributes(AttributeMap.EMPTY));
-        sortedInput = ((AtomicVector) sort(inputStringVector, decreasing));
-        break;
-      case "double":
-        DoubleVector inputDoubleVector = ((DoubleVector) input.setAttributes(AttributeMap.EMPTY));
-        sortedInput = ((AtomicVector) sort(inputDoubleVector, decreasing));
-        break;
-      default:
-        IntVector inputIntVector = ((IntVector) input.setAttributes(AttributeMap.EMPTY));
-        sortedInput = ((AtomicVector) sort(inputIntVector, decreasing));
-        break;
-    }
-
-
-
+    int[] order = RadixOrder.order(input, true, false);
 
     switch(tiesMethod.toUpperCase()){
       case "MIN":
-        return rankMin(input, sortedInput);
-
       case "MAX":
-        return rankMax(input, sortedInput);
-
       case "AVERAGE":
-        return rankAverage(input, sortedInput);
+        return rankTies(input, order, tiesMethod.toUpperCase());
 
       case "FIRST":
-        throw new EvalException("ties.method=first not implemented");
-
+        int[] ranks = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+          ranks[order[i]] = i + 1;
+        }
+        return IntArrayVector.unsafe(ranks);
 
       case "RANDOM":
         throw new EvalException("ties.method=random not implemented");
@@ -487,43 +396,55 @@ public class Sort {
 
   }
 
-  private static Vector rankAverage(AtomicVector input, AtomicVector sortedInput) {
-    DoubleArrayVector.Builder ranks = new DoubleArrayVector.Builder();
-    for ( int i=0; i < sortedInput.length(); i++ ) {
-      int minRank = sortedInput.indexOf(input, i, 0);
-      int maxRank = minRank;
-      while ( maxRank+1 < sortedInput.length() &&
-              sortedInput.compare(minRank, maxRank+1) == 0) {
-        maxRank++;
+  /**
+   * Assigns ranks to each run of tied values in the sorted {@code order}
+   */
+  private static Vector rankTies(AtomicVector input, int[] order, String tiesMethod) {
+    int n = order.length;
+    double[] averageRanks = tiesMethod.equals("AVERAGE") ? new double[n] : null;
+    int[] ranks = averageRanks == null ? new int[n] : null;
+
+    int runStart = 0;
+    while(runStart < n) {
+      int runEnd = runStart + 1;
+      while(runEnd < n && sameValue(input, order[runStart], order[runEnd])) {
+        runEnd++;
       }
-
-      double average = (((double) minRank) + ((double) maxRank)) / 2d;
-      ranks.add(average + 1);
+      for (int i = runStart; i < runEnd; i++) {
+        switch (tiesMethod) {
+          case "MIN":
+            ranks[order[i]] = runStart + 1;
+            break;
+          case "MAX":
+            ranks[order[i]] = runEnd;
+            break;
+          default:
+            averageRanks[order[i]] = (runStart + runEnd + 1) / 2d;
+            break;
+        }
+      }
+      runStart = runEnd;
     }
-    return ranks.build();
-  }
 
-  private static Vector rankMax(AtomicVector input, AtomicVector sortedInput) {
-    IntArrayVector.Builder ranks = new IntArrayVector.Builder();
-    for ( int i=0; i < sortedInput.length(); i++ ) {
-      int minRank = sortedInput.indexOf(input, i, 0);
-      int maxRank = minRank;
-      while ( maxRank+1 < sortedInput.length() &&
-              sortedInput.compare(minRank, maxRank+1) == 0) {
-        maxRank++;
-      }
-      ranks.add(maxRank + 1);
+    if(averageRanks != null) {
+      return DoubleArrayVector.unsafe(averageRanks);
+    } else {
+      return IntArrayVector.unsafe(ranks);
     }
-    return ranks.build();
   }
 
-  private static Vector rankMin(AtomicVector input, AtomicVector sortedInput) {
-    IntArrayVector.Builder ranks = new IntArrayVector.Builder();
-
-    for (int i=0; i < sortedInput.length(); i++) {
-      ranks.add( sortedInput.indexOf( input, i, 0 ) + 1 );
+  private static boolean sameValue(AtomicVector input, int i, int j) {
+    if(input instanceof DoubleVector) {
+      double x = input.getElementAsDouble(i);
+      double y = input.getElementAsDouble(j);
+      return x == y || (Double.isNaN(x) && Double.isNaN(y));
+    }
+    boolean na1 = input.isElementNA(i);
+    boolean na2 = input.isElementNA(j);
+    if(na1 || na2) {
+      return na1 && na2;
     }
-    return ranks.build();
+    return input.compare(i, j) == 0;
   }
 
   @Builtin
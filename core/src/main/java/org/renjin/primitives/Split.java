@@ -18,75 +18,254 @@
  */
 package org.renjin.primitives;
 
+import org.renjin.eval.Context;
+import org.renjin.eval.EvalException;
+import org.renjin.invoke.annotations.Current;
 import org.renjin.invoke.annotations.Internal;
-import org.renjin.repackaged.guava.collect.Maps;
 import org.renjin.sexp.*;
 
-import java.util.Map;
-
 public class Split {
   private Split() {}
 
 
   @Internal
   public static ListVector split(Vector toSplit, IntVector factors) {
-    Map<Integer, SplitBuilder> map = Maps.newHashMap();
-
-    int length = Math.max(toSplit.length(), factors.length());
-
-    for(int i=0;i!=length;++i) {
-      int factorIndex = i % factors.length();
-      int splitIndex = factors.getElementAsInt(factorIndex);
-      if(!IntVector.isNA(splitIndex)) {
-        SplitBuilder splitBuilder = map.get(splitIndex);
-        if (splitBuilder == null) {
-          splitBuilder = new SplitBuilder(toSplit);
-          map.put(splitIndex, splitBuilder);
-        }
-        splitBuilder.add(toSplit, i);
-      }
-    }
-
     StringVector levels = (StringVector) factors.getAttributes().get(Symbols.LEVELS);
+    GroupIndex index = GroupIndex.build(factors, toSplit.length(), levels.length());
+
+    AtomicVector sourceNames = toSplit.getNames();
 
-    ListVector.NamedBuilder resultList = new ListVector.NamedBuilder();
-    for(Integer split : map.keySet()) {
-      resultList.add(levels.getElementAsString(split-1), map.get(split).build());
+    ListVector.NamedBuilder resultList = new ListVector.NamedBuilder(0, levels.length());
+    for (int group = 0; group < index.getGroupCount(); group++) {
+      resultList.add(levels.getElementAsString(group), select(toSplit, sourceNames, index, group));
     }
 
     return resultList.build();
   }
 
+  /**
+   * Copies the elements of {@code source} which belong to the given group into a new vector of
+   * exactly the group's size.
+   */
+  private static Vector select(Vector source, AtomicVector sourceNames, GroupIndex index, int group) {
+    int[] elements = index.getElements();
+    int start = index.getGroupStart(group);
+    int size = index.getGroupSize(group);
+
+    AttributeMap attributes = AttributeMap.EMPTY;
+    if(sourceNames != Null.INSTANCE) {
+      String[] names = new String[size];
+      for (int i = 0; i < size; i++) {
+        names[i] = sourceNames.getElementAsString(elements[start + i]);
+      }
+      attributes = AttributeMap.builder().setNames(new StringArrayVector(names)).build();
+    }
+
+    if(source instanceof DoubleVector) {
+      double[] values = new double[size];
+      for (int i = 0; i < size; i++) {
+        values[i] = source.getElementAsDouble(elements[start + i]);
+      }
+      return DoubleArrayVector.unsafe(values, attributes);
+
+    } else if(source instanceof IntVector) {
+      int[] values = new int[size];
+      for (int i = 0; i < size; i++) {
+        values[i] = source.getElementAsInt(elements[start + i]);
+      }
+      return IntArrayVector.unsafe(values, attributes);
+
+    } else if(source instanceof LogicalVector) {
+      int[] values = new int[size];
+      for (int i = 0; i < size; i++) {
+        values[i] = source.getElementAsRawLogical(elements[start + i]);
+      }
+      return LogicalArrayVector.unsafe(values, attributes);
 
-  private static class SplitBuilder {
-    private Vector.Builder source;
-    private AtomicVector sourceNames;
-    private StringVector.Builder names;
+    } else if(source instanceof StringVector) {
+      String[] values = new String[size];
+      for (int i = 0; i < size; i++) {
+        values[i] = source.getElementAsString(elements[start + i]);
+      }
+      return new StringArrayVector(values, attributes);
 
-    public SplitBuilder(Vector toSplit) {
-      this.source = toSplit.newBuilderWithInitialCapacity(0);
-      this.sourceNames = toSplit.getNames();
+    } else {
+      Vector.Builder builder = source.newBuilderWithInitialCapacity(size);
+      for (int i = 0; i < size; i++) {
+        builder.addFrom(source, elements[start + i]);
+      }
       if(sourceNames != Null.INSTANCE) {
-        names = new StringArrayVector.Builder();
+        builder.setAttribute(Symbols.NAMES, attributes.getNames());
+      }
+      return builder.build();
+    }
+  }
+
+  /**
+   * Reduces the elements of {@code x} in each group to a single value, in one pass over {@code x} and
+   * without splitting {@code x} into a vector for each group. This is used by {@code tapply()} when
+   * the function applied is {@code sum}, {@code mean} or {@code length}, and gives the same results as
+   * applying these functions to each group.
+   *
+   * @param x an integer, double or logical vector without a class attribute
+   * @param groups the one-based group of each element of {@code x}, or {@code NA} if the element belongs
+   *               to no group
+   * @param groupCount the number of groups
+   * @param reduction "sum", "mean" or "length"
+   * @param removeNA true if {@code NA} and {@code NaN} values should be excluded from sums and means.
+   * @return a vector of length {@code groupCount}, with {@code NA} for groups with no elements.
+   */
+  @Internal
+  public static Vector splitReduce(@Current Context context, AtomicVector x, IntVector groups,
+                                   int groupCount, String reduction, boolean removeNA) {
+    if(groups.length() != x.length()) {
+      throw new EvalException("arguments must have same length");
+    }
+    int[] codes = groups.toIntArray();
+    for (int code : codes) {
+      if(!IntVector.isNA(code) && (code < 1 || code > groupCount)) {
+        throw new EvalException("invalid group code %d", code);
+      }
+    }
+
+    switch (reduction) {
+      case "length":
+        return groupLengths(codes, groupCount);
+      case "sum":
+        if(x instanceof DoubleVector) {
+          return groupDoubleSums(x, codes, groupCount, removeNA);
+        } else if(x instanceof IntVector || x instanceof LogicalVector) {
+          return groupIntSums(context, x, codes, groupCount, removeNA);
+        }
+        break;
+      case "mean":
+        if(x instanceof DoubleVector || x instanceof IntVector || x instanceof LogicalVector) {
+          return groupMeans(x, codes, groupCount, removeNA);
+        }
+        break;
+    }
+    throw new EvalException("invalid reduction '%s' of %s", reduction, x.getTypeName());
+  }
+
+  private static IntVector groupLengths(int[] codes, int groupCount) {
+    int[] lengths = new int[groupCount];
+    for (int code : codes) {
+      if(!IntVector.isNA(code)) {
+        lengths[code - 1]++;
       }
     }
+    for (int g = 0; g < groupCount; g++) {
+      if(lengths[g] == 0) {
+        lengths[g] = IntVector.NA;
+      }
+    }
+    return IntArrayVector.unsafe(lengths);
+  }
+
+  private static IntVector groupIntSums(Context context, AtomicVector x, int[] codes, int groupCount,
+                                        boolean removeNA) {
+    int[] sums = new int[groupCount];
+    int[] counts = new int[groupCount];
+    boolean[] na = new boolean[groupCount];
 
-    public void add(Vector source, int sourceIndex) {
-      if(sourceIndex < source.length()) {
-        this.source.addFrom(source, sourceIndex);
-        if (names != null) {
-          names.add(sourceNames.getElementAsString(sourceIndex));
+    for (int i = 0; i < codes.length; i++) {
+      int code = codes[i];
+      if(IntVector.isNA(code)) {
+        continue;
+      }
+      int g = code - 1;
+      counts[g]++;
+      if(na[g]) {
+        continue;
+      }
+      int element = x.getElementAsInt(i);
+      if(IntVector.isNA(element)) {
+        if(!removeNA) {
+          na[g] = true;
+        }
+      } else {
+        try {
+          sums[g] = Math.addExact(sums[g], element);
+        } catch (ArithmeticException e) {
+          // Overflow
+          context.warn("Integer overflow - use sum(as.numeric(.))");
+          na[g] = true;
         }
       }
     }
 
-    public Vector build() {
-      if(names != null) {
-        source.setAttribute(Symbols.NAMES, names.build());
+    for (int g = 0; g < groupCount; g++) {
+      if(na[g] || counts[g] == 0) {
+        sums[g] = IntVector.NA;
+      }
+    }
+    return IntArrayVector.unsafe(sums);
+  }
+
+  private static DoubleVector groupDoubleSums(AtomicVector x, int[] codes, int groupCount, boolean removeNA) {
+    double[] sums = new double[groupCount];
+    int[] counts = new int[groupCount];
+
+    // The first NA or NaN encountered in a group decides the result, as in sum()
+    double[] missing = new double[groupCount];
+    boolean[] isMissing = new boolean[groupCount];
+
+    for (int i = 0; i < codes.length; i++) {
+      int code = codes[i];
+      if(IntVector.isNA(code)) {
+        continue;
+      }
+      int g = code - 1;
+      counts[g]++;
+      double element = x.getElementAsDouble(i);
+      if(Double.isNaN(element)) {
+        if(!removeNA && !isMissing[g]) {
+          isMissing[g] = true;
+          missing[g] = DoubleVector.isNA(element) ? DoubleVector.NA : Double.NaN;
+        }
+      } else {
+        sums[g] += element;
       }
-      return source.build();
     }
 
+    for (int g = 0; g < groupCount; g++) {
+      if(counts[g] == 0) {
+        sums[g] = DoubleVector.NA;
+      } else if(isMissing[g]) {
+        sums[g] = missing[g];
+      }
+    }
+    return DoubleArrayVector.unsafe(sums);
   }
 
+  private static DoubleVector groupMeans(AtomicVector x, int[] codes, int groupCount, boolean removeNA) {
+    double[] sums = new double[groupCount];
+    int[] counts = new int[groupCount];
+    int[] included = new int[groupCount];
+
+    for (int i = 0; i < codes.length; i++) {
+      int code = codes[i];
+      if(IntVector.isNA(code)) {
+        continue;
+      }
+      int g = code - 1;
+      counts[g]++;
+      double element = x.getElementAsDouble(i);
+      if(removeNA && Double.isNaN(element)) {
+        continue;
+      }
+      sums[g] += element;
+      included[g]++;
+    }
+
+    double[] means = new double[groupCount];
+    for (int g = 0; g < groupCount; g++) {
+      if(counts[g] == 0) {
+        means[g] = DoubleVector.NA;
+      } else {
+        means[g] = sums[g] / included[g];
+      }
+    }
+    return DoubleArrayVector.unsafe(means);
+  }
 }
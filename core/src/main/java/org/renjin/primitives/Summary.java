@@ -23,6 +23,7 @@ import org.renjin.eval.Context;
 import org.renjin.eval.EvalException;
 import org.renjin.invoke.annotations.*;
 import org.renjin.parser.NumericLiterals;
+import org.renjin.primitives.summary.DeferredAccumulation;
 import org.renjin.primitives.summary.DeferredMean;
 import org.renjin.primitives.summary.DeferredSum;
 import org.renjin.sexp.*;
@@ -42,6 +43,10 @@ public class Summary {
   public static SEXP min(@ArgumentList ListVector arguments,
                          @NamedFlag("na.rm") boolean removeNA) {
 
+    if(isDeferredDouble(arguments, removeNA)) {
+      return new DeferredAccumulation("min", (Vector) arguments.get(0), 1, AttributeMap.EMPTY);
+    }
+
     return new RangeCalculator()
             .setRemoveNA(removeNA)
             .addList(arguments)
@@ -53,6 +58,10 @@ public class Summary {
   public static SEXP max(@ArgumentList ListVector arguments,
                          @NamedFlag("na.rm") boolean removeNA) {
 
+    if(isDeferredDouble(arguments, removeNA)) {
+      return new DeferredAccumulation("max", (Vector) arguments.get(0), 1, AttributeMap.EMPTY);
+    }
+
     return new RangeCalculator()
             .setRemoveNA(removeNA)
             .addList(arguments)
@@ -81,6 +90,10 @@ public class Summary {
     // another oddity: the min() and max() functions do not accept lists or 
     // other recursive structures. The range() implementation does.
 
+    if(isDeferredDouble(arguments, removeNA)) {
+      return new DeferredAccumulation("range", (Vector) arguments.get(0), 2, AttributeMap.EMPTY);
+    }
+
     return new RangeCalculator()
             .setRemoveNA(removeNA)
             .setRecursive(true)
@@ -88,6 +101,42 @@ public class Summary {
             .getRange();
   }
 
+  /**
+   * @return true if the summary is of a single, deferred double vector, which the vector pipeliner
+   * can fuse with the computation of the summary.
+   */
+  private static boolean isDeferredDouble(ListVector arguments, boolean removeNA) {
+    return arguments.length() == 1 &&
+        arguments.get(0) instanceof DoubleVector &&
+        ((DoubleVector) arguments.get(0)).isDeferred() &&
+        !removeNA;
+  }
+
+  /**
+   * @return true if the logical summary is of a single, deferred numeric or logical vector, such as {@code x > 0}.
+   */
+  private static boolean isDeferredLogical(ListVector arguments, boolean removeNA) {
+    if(arguments.length() != 1 || removeNA) {
+      return false;
+    }
+    SEXP argument = arguments.get(0);
+    return (argument instanceof LogicalVector || argument instanceof IntVector || argument instanceof DoubleVector) &&
+        ((Vector) argument).isDeferred();
+  }
+
+  /**
+   * Computes {@code any()} or {@code all()} of a deferred vector using the vector pipeliner.
+   */
+  private static Logical accumulateLogical(Context context, String name, Vector vector) {
+    Vector result = context.materialize(new DeferredAccumulation(name, vector, 1, AttributeMap.EMPTY));
+    double value = result.getElementAsDouble(0);
+    if(Double.isNaN(value)) {
+      return Logical.NA;
+    } else {
+      return Logical.valueOf(value != 0);
+    }
+  }
+
   private static class RangeCalculator {
     private boolean removeNA;
     private boolean recursive;
@@ -169,20 +218,25 @@ public class Summary {
 
       boolean hasValues = false;
 
-      for (int i = 0; i < vector.length(); i++) {
-        int value = vector.getElementAsInt(i);
-
-        if(IntVector.isNA(value)) {
-          if(!removeNA) {
-            // If we encounter an NA and na.rm = FALSE,
-            // we can stop processing immediately.
-            naEncountered = true;
-            return;
+      IntCursor cursor = new IntCursor(vector);
+      while (cursor.next()) {
+        int[] chunk = cursor.getChunk();
+        int chunkLength = cursor.getChunkLength();
+        for (int i = 0; i < chunkLength; i++) {
+          int value = chunk[i];
+
+          if(IntVector.isNA(value)) {
+            if(!removeNA) {
+              // If we encounter an NA and na.rm = FALSE,
+              // we can stop processing immediately.
+              naEncountered = true;
+              return;
+            }
+          } else {
+            hasValues = true;
+            minValue = Math.min(minValue, value);
+            maxValue = Math.max(maxValue, value);
           }
-        } else {
-          hasValues = true;
-          minValue = Math.min(minValue, value);
-          maxValue = Math.max(maxValue, value);
         }
       }
 
@@ -217,29 +271,33 @@ public class Summary {
       double maxValue = Double.NEGATIVE_INFINITY;
       boolean hasValues = false;
 
-      int length = vector.length();
-      for (int i = 0; i < length; i++) {
-        double value = vector.getElementAsDouble(i);
-        if(Double.isNaN(value)) {
-          if(!removeNA) {
-            if (DoubleVector.isNA(value)) {
-              // If we encounter an NA, we can stop processing immediately.
-              naEncountered = true;
-              return;
-            } else {
-              // If we encounter an NaN, we have to keep going to check for
-              // an NA value.
-              nanEncountered = true;
+      DoubleCursor cursor = new DoubleCursor(vector);
+      chunkLoop: while (cursor.next()) {
+        double[] chunk = cursor.getChunk();
+        int chunkLength = cursor.getChunkLength();
+        for (int i = 0; i < chunkLength; i++) {
+          double value = chunk[i];
+          if(Double.isNaN(value)) {
+            if(!removeNA) {
+              if (DoubleVector.isNA(value)) {
+                // If we encounter an NA, we can stop processing immediately.
+                naEncountered = true;
+                return;
+              } else {
+                // If we encounter an NaN, we have to keep going to check for
+                // an NA value.
+                nanEncountered = true;
+              }
+              break chunkLoop;
+            }
+          } else {
+            hasValues = true;
+            if(value > maxValue) {
+              maxValue = value;
+            }
+            if(value < minValue) {
+              minValue = value;
             }
-            break;
-          }
-        } else {
-          hasValues = true;
-          if(value > maxValue) {
-            maxValue = value;
-          }
-          if(value < minValue) {
-            minValue = value;
           }
         }
       }
@@ -390,6 +448,10 @@ public class Summary {
   @GroupGeneric
   public static AtomicVector prod(@ArgumentList ListVector arguments, @NamedFlag("na.rm") boolean removeNA) {
 
+    if(isDeferredDouble(arguments, removeNA)) {
+      return new DeferredAccumulation("prod", (Vector) arguments.get(0), 1, AttributeMap.EMPTY);
+    }
+
     double realProduct = realProduct(arguments, removeNA);
     Complex complexProduct = complexProduct(arguments, removeNA);
     
@@ -495,47 +557,55 @@ public class Summary {
 
     argumentLoop: for (SEXP argument : arguments) {
       if (argument instanceof IntVector || argument instanceof LogicalVector) {
-        AtomicVector vector = (AtomicVector) argument;
-        for (int i = 0; i != argument.length(); ++i) {
-          int element = vector.getElementAsInt(i);
-          if (IntVector.isNA(element)) {
-            if (!removeNA) {
-              return naValue;
-            }
-          } else {
-            try {
-              intSum = Math.addExact(intSum, element);
-            } catch(ArithmeticException e) {
-              // Overflow
-              context.warn("Integer overflow - use sum(as.numeric(.))");
-              return naValue;
-            }
-          }
-        }
-      } else if (argument instanceof DoubleVector) {
-        DoubleVector vector = (DoubleVector) argument;
-        for (int i = 0; i != vector.length(); ++i) {
-          double doubleValue = vector.getElementAsDouble(i);
-          if (Double.isNaN(doubleValue)) {
-            if (DoubleVector.isNA(doubleValue)) {
-              // If this is a "missing" value NA, then we can abort
-              // all calculation now.
+        IntCursor cursor = new IntCursor((AtomicVector) argument);
+        while (cursor.next()) {
+          int[] chunk = cursor.getChunk();
+          int chunkLength = cursor.getChunkLength();
+          for (int i = 0; i != chunkLength; ++i) {
+            int element = chunk[i];
+            if (IntVector.isNA(element)) {
               if (!removeNA) {
                 return naValue;
               }
             } else {
-              // Otherwise for normal NaNs, we can stop processing
-              // only if there are no complex arguments.
-              if (!removeNA) {
-                if (haveComplex) {
-                  break;
-                } else {
-                  return new DoubleArrayVector(Double.NaN);
+              try {
+                intSum = Math.addExact(intSum, element);
+              } catch(ArithmeticException e) {
+                // Overflow
+                context.warn("Integer overflow - use sum(as.numeric(.))");
+                return naValue;
+              }
+            }
+          }
+        }
+      } else if (argument instanceof DoubleVector) {
+        DoubleCursor cursor = new DoubleCursor((DoubleVector) argument);
+        chunkLoop: while (cursor.next()) {
+          double[] chunk = cursor.getChunk();
+          int chunkLength = cursor.getChunkLength();
+          for (int i = 0; i != chunkLength; ++i) {
+            double doubleValue = chunk[i];
+            if (Double.isNaN(doubleValue)) {
+              if (DoubleVector.isNA(doubleValue)) {
+                // If this is a "missing" value NA, then we can abort
+                // all calculation now.
+                if (!removeNA) {
+                  return naValue;
+                }
+              } else {
+                // Otherwise for normal NaNs, we can stop processing
+                // only if there are no complex arguments.
+                if (!removeNA) {
+                  if (haveComplex) {
+                    break chunkLoop;
+                  } else {
+                    return new DoubleArrayVector(Double.NaN);
+                  }
                 }
               }
+            } else {
+              realSum += doubleValue;
             }
-          } else {
-            realSum += doubleValue;
           }
         }
       } else if (argument instanceof ComplexVector) {
@@ -581,9 +651,13 @@ public class Summary {
    */
   @Builtin
   @GroupGeneric
-  public static Logical any(@ArgumentList ListVector arguments,
+  public static Logical any(@Current Context context, @ArgumentList ListVector arguments,
                             @NamedFlag("na.rm") boolean removeNA) {
 
+    if(isDeferredLogical(arguments, removeNA)) {
+      return accumulateLogical(context, "any", (Vector) arguments.get(0));
+    }
+
     for(SEXP argument : arguments) {
       Vector vector = (Vector) argument;
       for(int i=0;i!=vector.length();++i) {
@@ -614,9 +688,13 @@ public class Summary {
    */
   @Builtin
   @GroupGeneric
-  public static Logical all(@ArgumentList ListVector arguments,
+  public static Logical all(@Current Context context, @ArgumentList ListVector arguments,
                             @NamedFlag("na.rm") boolean removeNA) {
 
+    if(isDeferredLogical(arguments, removeNA)) {
+      return accumulateLogical(context, "all", (Vector) arguments.get(0));
+    }
+
     for(SEXP argument : arguments) {
       Vector vector = (Vector) argument;
       for(int i=0;i!=vector.length();++i) {
@@ -645,8 +723,19 @@ public class Summary {
     }
 
     double mean = 0;
-    for (int i=0;i<x.length();i++){
-      mean+=x.getElementAsDouble(i);
+    if(x instanceof AtomicVector) {
+      DoubleCursor cursor = new DoubleCursor((AtomicVector) x);
+      while(cursor.next()) {
+        double[] chunk = cursor.getChunk();
+        int chunkLength = cursor.getChunkLength();
+        for (int i=0;i<chunkLength;i++){
+          mean+=chunk[i];
+        }
+      }
+    } else {
+      for (int i=0;i<x.length();i++){
+        mean+=x.getElementAsDouble(i);
+      }
     }
     return new DoubleArrayVector(mean / x.length());
   }
@@ -152,7 +152,7 @@ public class Vectors {
           .convertToR((Boolean) instance);
     } else if (BooleanArrayConverter.accept(clazz)) {
       return BooleanArrayConverter.INSTANCE
-          .convertToR((Boolean[]) instance);
+          .convertToR(instance);
     } else {
       return new LogicalArrayVector(Logical.NA);
     }
@@ -188,7 +188,7 @@ public class Vectors {
           .convertToR((Number) instance);
     } else if (IntegerArrayConverter.accept(clazz)) {
       return (IntVector) IntegerArrayConverter.INSTANCE
-          .convertToR((Number[]) instance);
+          .convertToR(instance);
     } else {
       return IntVector.valueOf(IntVector.NA);
     }
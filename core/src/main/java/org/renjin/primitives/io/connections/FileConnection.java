@@ -22,14 +22,21 @@ import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.vfs2.FileNotFoundException;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.provider.local.LocalFile;
 import org.renjin.eval.EvalException;
+import org.renjin.repackaged.guava.io.CountingInputStream;
 import org.tukaani.xz.XZInputStream;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.zip.GZIPInputStream;
 
@@ -40,6 +47,12 @@ public class FileConnection extends AbstractConnection {
 
   private InputStream in;  
   private OutputStream out;
+
+  /**
+   * The input stream of an uncompressed file, which counts the bytes read so far
+   * so that the remaining content can be mapped into memory instead.
+   */
+  private CountingInputStream plainIn;
   
   private FileObject file;
   private OpenSpec openSpec = null;
@@ -109,8 +122,48 @@ public class FileConnection extends AbstractConnection {
     if(Arrays.equals(header, XzFileConnection.XZ_MAGIC_BYTES)) {
       return new XZInputStream(in);
     }
-    
-    return in;
+
+    plainIn = new CountingInputStream(in);
+    return plainIn;
+  }
+
+  /**
+   * Maps the unread remainder of this connection's content into memory, opening the
+   * connection for input if necessary. This is only possible for uncompressed files on
+   * the local file system.
+   *
+   * <p>The mapping does not advance the connection: callers that consume part of the
+   * returned buffer should skip the same number of bytes on the {@link #getInputStream() input stream}.</p>
+   *
+   * <p>The buffer aliases the file. The file is registered with {@link MappedFiles}, so that connections which
+   * later write to it replace the file rather than modifying the mapped content in place.</p>
+   *
+   * <p>A single buffer can address at most 2GB, so larger remainders are not mapped, and should be
+   * read from the input stream instead.</p>
+   *
+   * @param minimumSize the minimum number of remaining bytes worth mapping
+   * @return a read-only, big-endian buffer over the remaining content, or {@code null} if the
+   * content cannot be mapped, is smaller than {@code minimumSize}, or is larger than 2GB
+   */
+  public ByteBuffer mapRemainingInput(long minimumSize) throws IOException {
+    if(!(file instanceof LocalFile)) {
+      return null;
+    }
+    assureOpenForInput();
+    if(plainIn == null) {
+      return null;
+    }
+    File localFile = new File(file.getName().getPath());
+    try(FileChannel channel = FileChannel.open(localFile.toPath(), StandardOpenOption.READ)) {
+      long offset = plainIn.getCount();
+      long remaining = channel.size() - offset;
+      if(remaining < minimumSize || remaining > Integer.MAX_VALUE) {
+        return null;
+      }
+      ByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, offset, remaining);
+      MappedFiles.register(localFile.toPath(), mapping);
+      return mapping;
+    }
   }
   
   private OutputStream assureOpenForOutput() throws IOException {
@@ -125,6 +178,12 @@ public class FileConnection extends AbstractConnection {
 
   protected OutputStream doOpenForOutput() throws FileSystemException, IOException {
     boolean append = (openSpec != null && openSpec.isAppend());
+    if(file instanceof LocalFile) {
+      Path localPath = new File(file.getName().getPath()).toPath();
+      if(MappedFiles.isMapped(localPath)) {
+        return MappedFiles.openReplacement(localPath, append);
+      }
+    }
     return file.getContent().getOutputStream(append);
   }
   
@@ -24,7 +24,6 @@ import org.renjin.repackaged.guava.base.Charsets;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * Connection to a gzipped file.
@@ -50,6 +49,6 @@ public class GzFileConnection extends FileConnection {
 
   @Override
   protected OutputStream doOpenForOutput() throws IOException {
-    return new GZIPOutputStream(super.doOpenForOutput());
+    return new ParallelGzipOutputStream(super.doOpenForOutput());
   }
 }
@@ -0,0 +1,150 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.io.connections;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the local files which have been memory-mapped by {@link FileConnection#mapRemainingInput(long)},
+ * and which may still be referenced by vectors backed by the mapping.
+ *
+ * <p>Vectors read from a mapped file alias its contents: overwriting the file in place would silently change
+ * their values, and truncating it would crash the JVM when they are next read. Connections opened for output on a
+ * file which is still mapped therefore write to a temporary file, which replaces the original when the connection is
+ * closed. The original contents remain available to the mapping until it is no longer referenced.</p>
+ *
+ * <p>This only guards against writes made through Renjin's connections. Files which are mapped must not be
+ * modified in place by other processes.</p>
+ */
+final class MappedFiles {
+
+  private static final Map<Path, List<WeakReference<ByteBuffer>>> MAPPINGS = new HashMap<>();
+
+  private MappedFiles() {
+  }
+
+  static synchronized void register(Path path, ByteBuffer mapping) {
+    MAPPINGS.computeIfAbsent(key(path), k -> new ArrayList<>()).add(new WeakReference<>(mapping));
+  }
+
+  /**
+   * @return true if {@code path} has been mapped, and the mapping may still be referenced.
+   */
+  static synchronized boolean isMapped(Path path) {
+    Path key = key(path);
+    List<WeakReference<ByteBuffer>> mappings = MAPPINGS.get(key);
+    if(mappings == null) {
+      return false;
+    }
+    Iterator<WeakReference<ByteBuffer>> it = mappings.iterator();
+    while(it.hasNext()) {
+      if(it.next().get() == null) {
+        it.remove();
+      }
+    }
+    if(mappings.isEmpty()) {
+      MAPPINGS.remove(key);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Opens an output stream which writes to a temporary file in the same directory as {@code path}, and
+   * atomically moves it into place when closed.
+   *
+   * @param append if true, the temporary file is initialized with the current contents of {@code path}
+   */
+  static OutputStream openReplacement(Path path, boolean append) throws IOException {
+    Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "." + path.getFileName(), ".tmp");
+    if(append) {
+      Files.copy(path, temp, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+    } else if(Files.exists(path)) {
+      try {
+        Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(path));
+      } catch (UnsupportedOperationException e) {
+        // Not a POSIX file system: keep the default permissions
+      }
+    }
+    OutputStream out = Files.newOutputStream(temp, StandardOpenOption.APPEND);
+    return new ReplacingOutputStream(out, temp, path);
+  }
+
+  private static Path key(Path path) {
+    try {
+      return path.toRealPath();
+    } catch (IOException e) {
+      return path.toAbsolutePath().normalize();
+    }
+  }
+
+  private static class ReplacingOutputStream extends OutputStream {
+    private final OutputStream out;
+    private final Path temp;
+    private final Path target;
+    private boolean closed = false;
+
+    ReplacingOutputStream(OutputStream out, Path temp, Path target) {
+      this.out = out;
+      this.temp = temp;
+      this.target = target;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if(closed) {
+        return;
+      }
+      closed = true;
+      try {
+        out.close();
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+    }
+  }
+}
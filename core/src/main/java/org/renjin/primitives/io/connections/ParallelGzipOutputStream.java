@@ -0,0 +1,216 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.io.connections;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a gzip stream, compressing blocks of the input in parallel.
+ *
+ * <p>The input is divided into blocks of {@link #BLOCK_SIZE} bytes, which are deflated
+ * concurrently on the common fork/join pool. Each block is primed with the last 32 KB of
+ * the preceding input and ends with a sync flush, so that the compressed blocks concatenate
+ * into a single deflate stream, and the output is an ordinary single-member gzip file that
+ * can be read by {@link java.util.zip.GZIPInputStream}, GNU R or gzip.</p>
+ *
+ * <p>Like {@link java.util.zip.GZIPOutputStream}, {@link #flush()} does not flush input
+ * which is still waiting to be compressed.</p>
+ */
+public class ParallelGzipOutputStream extends FilterOutputStream {
+
+  public static final int BLOCK_SIZE = 128 * 1024;
+
+  private static final int DICTIONARY_SIZE = 32 * 1024;
+
+  private static final byte[] HEADER = {
+      (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+  private final int level;
+
+  /**
+   * The maximum number of blocks being compressed at once, which bounds the memory used.
+   */
+  private final int maxPending;
+
+  private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+  private final CRC32 crc = new CRC32();
+  private long size;
+
+  private byte[] block = new byte[BLOCK_SIZE];
+  private int blockLength;
+  private byte[] dictionary;
+
+  private boolean finished;
+
+  public ParallelGzipOutputStream(OutputStream out, int level) throws IOException {
+    super(out);
+    this.level = level;
+    this.maxPending = ForkJoinPool.getCommonPoolParallelism() * 2;
+    out.write(HEADER);
+  }
+
+  public ParallelGzipOutputStream(OutputStream out) throws IOException {
+    this(out, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    if(finished) {
+      throw new IOException("write beyond end of stream");
+    }
+    if(blockLength == BLOCK_SIZE) {
+      submitBlock(false);
+    }
+    block[blockLength++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if(finished) {
+      throw new IOException("write beyond end of stream");
+    }
+    while(len > 0) {
+      if(blockLength == BLOCK_SIZE) {
+        submitBlock(false);
+      }
+      int count = Math.min(len, BLOCK_SIZE - blockLength);
+      System.arraycopy(b, off, block, blockLength, count);
+      blockLength += count;
+      off += count;
+      len -= count;
+    }
+  }
+
+  /**
+   * Compresses the remaining input and writes the gzip trailer, without closing the
+   * underlying stream.
+   */
+  public void finish() throws IOException {
+    if(finished) {
+      return;
+    }
+    submitBlock(true);
+    while(!pending.isEmpty()) {
+      writeCompressed(pending.removeFirst());
+    }
+    writeTrailerInt((int) crc.getValue());
+    writeTrailerInt((int) size);
+    finished = true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      finish();
+    } finally {
+      out.close();
+    }
+  }
+
+  private void submitBlock(final boolean last) throws IOException {
+    final byte[] input = block;
+    final int length = blockLength;
+    final byte[] inputDictionary = dictionary;
+
+    crc.update(input, 0, length);
+    size += length;
+    dictionary = nextDictionary(inputDictionary, input, length);
+
+    pending.add(ForkJoinPool.commonPool().submit(() -> deflate(input, length, inputDictionary, last)));
+
+    block = new byte[BLOCK_SIZE];
+    blockLength = 0;
+
+    while(pending.size() > maxPending) {
+      writeCompressed(pending.removeFirst());
+    }
+  }
+
+  /**
+   * @return the last 32 KB of the input up to and including this block
+   */
+  private static byte[] nextDictionary(byte[] previous, byte[] input, int length) {
+    if(length >= DICTIONARY_SIZE || previous == null) {
+      return Arrays.copyOfRange(input, Math.max(0, length - DICTIONARY_SIZE), length);
+    }
+    int keep = Math.min(previous.length, DICTIONARY_SIZE - length);
+    byte[] next = new byte[keep + length];
+    System.arraycopy(previous, previous.length - keep, next, 0, keep);
+    System.arraycopy(input, 0, next, keep, length);
+    return next;
+  }
+
+  private byte[] deflate(byte[] input, int length, byte[] dictionary, boolean last) {
+    Deflater deflater = new Deflater(level, true);
+    try {
+      if(dictionary != null && dictionary.length > 0) {
+        deflater.setDictionary(dictionary);
+      }
+      deflater.setInput(input, 0, length);
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+      byte[] buffer = new byte[64 * 1024];
+      if(last) {
+        deflater.finish();
+        while(!deflater.finished()) {
+          int count = deflater.deflate(buffer);
+          compressed.write(buffer, 0, count);
+        }
+      } else {
+        // A sync flush ends the block on a byte boundary, so that the next block can follow it
+        int count;
+        do {
+          count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+          compressed.write(buffer, 0, count);
+        } while(count == buffer.length);
+      }
+      return compressed.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private void writeCompressed(Future<byte[]> block) throws IOException {
+    try {
+      out.write(block.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    } catch (ExecutionException e) {
+      throw new IOException("gzip compression failed", e.getCause());
+    }
+  }
+
+  private void writeTrailerInt(int value) throws IOException {
+    out.write(value & 0xff);
+    out.write((value >> 8) & 0xff);
+    out.write((value >> 16) & 0xff);
+    out.write((value >> 24) & 0xff);
+  }
+}
@@ -34,9 +34,8 @@ import org.renjin.sexp.*;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
 import java.nio.IntBuffer;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
 import java.util.List;
 
@@ -74,6 +73,15 @@ public class RDataReader implements AutoCloseable {
     this.conn = conn;
   }
 
+  /**
+   * Creates a reader over a memory-mapped file. Numeric and logical vectors read from
+   * an XDR stream are returned as views over {@code mapped} rather than copied onto the heap.
+   * The buffer's position is advanced past the bytes that have been read.
+   */
+  public RDataReader(Context context, ByteBuffer mapped) {
+    this(context, new ByteBufferInputStream(mapped));
+  }
+
   public SEXP readFile() throws IOException {
     byte streamType = readStreamType(conn);
     in = createStreamReader(streamType, conn);
@@ -139,6 +147,9 @@ public class RDataReader implements AutoCloseable {
     switch(type) {
       case XDR_FORMAT:
       case BINARY_FORMAT:
+        if(conn instanceof ByteBufferInputStream) {
+          return new MappedXdrReader(((ByteBufferInputStream) conn).buffer);
+        }
         return new XdrReader(conn);
       case ASCII_FORMAT:
         return new AsciiReader(conn);
@@ -675,35 +686,39 @@ public class RDataReader implements AutoCloseable {
   private SEXP readComplexExp(int flags) throws IOException {
     int length = in.readInt();
     Complex[] values = new Complex[length];
+    DoubleBuffer parts = in.readDoubleBuffer(length * 2);
     for(int i=0;i!=length;++i) {
-      values[i] = new Complex(in.readDouble(), in.readDouble());
+      values[i] = new Complex(parts.get(i * 2), parts.get(i * 2 + 1));
     }
     return new ComplexArrayVector(values, readAttributes(flags));
   }
 
   private SEXP readDoubleExp(int flags) throws IOException {
     int length = in.readInt();
-    double[] values = new double[length];
-    for(int i=0;i!=length;++i) {
-      values[i] = in.readDouble();
+    DoubleBuffer buffer = in.readDoubleBuffer(length);
+    if(buffer.hasArray()) {
+      return DoubleArrayVector.unsafe(buffer.array(), readAttributes(flags));
     }
-    return new DoubleArrayVector(values, readAttributes(flags));
+    return new DoubleBufferVector(buffer, length, readAttributes(flags));
   }
 
   private SEXP readIntVector(int flags) throws IOException {
     int length = in.readInt();
     IntBuffer buffer = in.readIntBuffer(length);
+    if(buffer.hasArray()) {
+      return IntArrayVector.unsafe(buffer.array(), readAttributes(flags));
+    }
     return new IntBufferVector(buffer, length, readAttributes(flags));
   }
 
 
   private SEXP readLogical(int flags) throws IOException {
     int length = in.readInt();
-    int values[] = new int[length];
-    for(int i=0;i!=length;++i) {
-      values[i] = in.readInt();
+    IntBuffer buffer = in.readIntBuffer(length);
+    if(buffer.hasArray()) {
+      return LogicalArrayVector.unsafe(buffer.array(), readAttributes(flags));
     }
-    return new LogicalArrayVector(values, readAttributes(flags));
+    return new LogicalBufferVector(buffer, length, readAttributes(flags));
   }
 
   private SEXP readCharExp(int flags) throws IOException {
@@ -787,6 +802,7 @@ public class RDataReader implements AutoCloseable {
     byte[] readString(int length) throws IOException;
     void readFully(byte[] buffer, int offset, int length) throws IOException;
     double readDouble() throws IOException;
+    DoubleBuffer readDoubleBuffer(int size) throws IOException;
   }
 
   private static class AsciiReader implements StreamReader {
@@ -851,6 +867,15 @@ public class RDataReader implements AutoCloseable {
       }
     }
 
+    @Override
+    public DoubleBuffer readDoubleBuffer(int size) throws IOException {
+      double[] array = new double[size];
+      for(int i=0;i!=size;++i) {
+        array[i] = readDouble();
+      }
+      return DoubleBuffer.wrap(array);
+    }
+
     @Override
     public byte[] readString(int length) throws IOException {
       byte buf[] = null;
@@ -913,7 +938,14 @@ public class RDataReader implements AutoCloseable {
   }
 
   private static class XdrReader implements StreamReader {
+
+    /**
+     * The number of bytes decoded at a time when reading integer and double vectors
+     */
+    private static final int BLOCK_SIZE = 64 * 1024;
+
     private final DataInputStream in;
+    private byte[] block;
 
     private XdrReader(DataInputStream in) throws IOException {
       this.in = in;
@@ -930,16 +962,20 @@ public class RDataReader implements AutoCloseable {
 
     @Override
     public IntBuffer readIntBuffer(int size) throws IOException {
-      ByteBuffer byteBuffer = ByteBuffer.allocateDirect(size * 4);
-      ReadableByteChannel channel = Channels.newChannel(in);
-      while(byteBuffer.hasRemaining()) {
-        channel.read(byteBuffer);
+      if(block == null) {
+        block = new byte[BLOCK_SIZE];
+      }
+      int[] array = new int[size];
+      IntBuffer blockInts = ByteBuffer.wrap(block).order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+      int offset = 0;
+      while(offset < size) {
+        int count = Math.min(size - offset, BLOCK_SIZE / 4);
+        in.readFully(block, 0, count * 4);
+        blockInts.rewind();
+        blockInts.get(array, offset, count);
+        offset += count;
       }
-      byteBuffer = (ByteBuffer)byteBuffer.rewind();
-      byteBuffer.order(ByteOrder.BIG_ENDIAN);
-      IntBuffer intBuffer = byteBuffer.asIntBuffer();
-      assert intBuffer.limit() == size;
-      return intBuffer;
+      return IntBuffer.wrap(array);
     }
 
     @Override
@@ -959,6 +995,122 @@ public class RDataReader implements AutoCloseable {
       long bits = in.readLong();
       return Double.longBitsToDouble(bits);
     }
+
+    @Override
+    public DoubleBuffer readDoubleBuffer(int size) throws IOException {
+      if(block == null) {
+        block = new byte[BLOCK_SIZE];
+      }
+      double[] array = new double[size];
+      DoubleBuffer blockDoubles = ByteBuffer.wrap(block).order(ByteOrder.BIG_ENDIAN).asDoubleBuffer();
+      int offset = 0;
+      while(offset < size) {
+        int count = Math.min(size - offset, BLOCK_SIZE / 8);
+        in.readFully(block, 0, count * 8);
+        blockDoubles.rewind();
+        blockDoubles.get(array, offset, count);
+        offset += count;
+      }
+      return DoubleBuffer.wrap(array);
+    }
+  }
+
+  /**
+   * Reads an XDR stream from a memory-mapped file. Vectors are returned as
+   * big-endian views over the mapping rather than copied.
+   */
+  private static class MappedXdrReader implements StreamReader {
+    private final ByteBuffer buffer;
+
+    private MappedXdrReader(ByteBuffer buffer) {
+      this.buffer = buffer;
+      this.buffer.order(ByteOrder.BIG_ENDIAN);
+    }
+
+    private ByteBuffer slice(int byteCount) throws EOFException {
+      if(buffer.remaining() < byteCount) {
+        throw new EOFException();
+      }
+      ByteBuffer slice = buffer.slice();
+      slice.limit(byteCount);
+      slice.order(ByteOrder.BIG_ENDIAN);
+      buffer.position(buffer.position() + byteCount);
+      return slice;
+    }
+
+    @Override
+    public int readInt() throws IOException {
+      if(buffer.remaining() < 4) {
+        throw new EOFException();
+      }
+      return buffer.getInt();
+    }
+
+    @Override
+    public IntBuffer readIntBuffer(int size) throws IOException {
+      return slice(size * 4).asIntBuffer();
+    }
+
+    @Override
+    public byte[] readString(int length) throws IOException {
+      byte buf[] = new byte[length];
+      readFully(buf, 0, length);
+      return buf;
+    }
+
+    @Override
+    public void readFully(byte[] buffer, int offset, int length) throws IOException {
+      if(this.buffer.remaining() < length) {
+        throw new EOFException();
+      }
+      this.buffer.get(buffer, offset, length);
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+      if(buffer.remaining() < 8) {
+        throw new EOFException();
+      }
+      return buffer.getDouble();
+    }
+
+    @Override
+    public DoubleBuffer readDoubleBuffer(int size) throws IOException {
+      return slice(size * 8).asDoubleBuffer();
+    }
+  }
+
+  /**
+   * Exposes a memory-mapped file as an {@code InputStream} so that the stream header
+   * can be read as usual before handing the buffer to a {@link MappedXdrReader}.
+   */
+  private static class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      if(!buffer.hasRemaining()) {
+        return -1;
+      }
+      return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if(len == 0) {
+        return 0;
+      }
+      if(!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(len, buffer.remaining());
+      buffer.get(b, off, count);
+      return count;
+    }
   }
 
   /**
@@ -25,15 +25,24 @@ import org.renjin.repackaged.guava.base.Charsets;
 import org.renjin.repackaged.guava.collect.Maps;
 import org.renjin.sexp.*;
 
+import java.io.BufferedOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
 import java.util.Map;
 
 import static org.renjin.primitives.io.serialization.SerializationFormat.*;
 
 public class RDataWriter implements AutoCloseable {
 
+  /**
+   * The number of bytes encoded at a time when writing vectors
+   */
+  private static final int BLOCK_SIZE = 64 * 1024;
 
   /**
    * Interfaces that allows R developers and Renjin containers to provide
@@ -63,7 +72,7 @@ public class RDataWriter implements AutoCloseable {
                      SerializationType type) {
     this.context = context;
     this.hook = hook;
-    this.conn = new DataOutputStream(out);
+    this.conn = new DataOutputStream(new BufferedOutputStream(out, BLOCK_SIZE));
     this.serializationType = type;
     switch(this.serializationType) {
       case ASCII: this.out = new AsciiWriter(this.conn); break;
@@ -123,6 +132,7 @@ public class RDataWriter implements AutoCloseable {
     conn.writeByte('\n');
     writeVersion();
     writeExp(exp);
+    conn.flush();
   }
 
 
@@ -248,9 +258,7 @@ public class RDataWriter implements AutoCloseable {
   private void writeLogical(LogicalVector vector) throws IOException {
     writeFlags(SexpType.LGLSXP, vector);
     out.writeInt(vector.length());
-    for(int i=0;i!=vector.length();++i) {
-      out.writeInt(vector.getElementAsRawLogical(i));
-    }
+    writeInts(vector);
     writeAttributes(vector);
   }
 
@@ -266,9 +274,7 @@ public class RDataWriter implements AutoCloseable {
         }
       }
     } else {
-      for(int i=0;i!=vector.length();++i) {
-        out.writeInt(vector.getElementAsInt(i));
-      }
+      writeInts(vector);
     }
     
     writeAttributes(vector);
@@ -293,18 +299,22 @@ public class RDataWriter implements AutoCloseable {
         }  
       }
     } else {
-      for(int i=0;i!=vector.length();++i) { 
-        if(vector.isElementNA(i)) {
-          out.writeLong(DoubleVector.NA_BITS);
-        } else {
-          out.writeDouble(vector.getElementAsDouble(i));
-        }
+      DoubleCursor cursor = new DoubleCursor(vector);
+      while(cursor.next()) {
+        out.writeDoubles(cursor.getChunk(), 0, cursor.getChunkLength());
       }
     }
     
     writeAttributes(vector);
   }
 
+  private void writeInts(AtomicVector vector) throws IOException {
+    IntCursor cursor = new IntCursor(vector);
+    while(cursor.next()) {
+      out.writeInts(cursor.getChunk(), 0, cursor.getChunkLength());
+    }
+  }
+
 
   private void writeS4(S4Object exp) throws IOException {
     writeFlags(SexpType.S4SXP, exp);
@@ -322,10 +332,17 @@ public class RDataWriter implements AutoCloseable {
   private void writeComplexVector(ComplexVector vector) throws IOException {
     writeFlags(SexpType.CPLXSXP, vector);
     out.writeInt(vector.length());
-    for(int i=0;i!=vector.length();++i) {
-      Complex value = vector.getElementAsComplex(i);
-      out.writeDouble(value.getReal());
-      out.writeDouble(value.getImaginary());
+    double[] parts = new double[Math.min(vector.length(), DoubleCursor.CHUNK_SIZE) * 2];
+    int start = 0;
+    while(start < vector.length()) {
+      int count = Math.min(vector.length() - start, parts.length / 2);
+      for(int i=0;i!=count;++i) {
+        Complex value = vector.getElementAsComplex(start + i);
+        parts[i * 2] = value.getReal();
+        parts[i * 2 + 1] = value.getImaginary();
+      }
+      out.writeDoubles(parts, 0, count * 2);
+      start += count;
     }
     writeAttributes(vector);
   }
@@ -565,6 +582,8 @@ public class RDataWriter implements AutoCloseable {
     void writeString(byte[] bytes) throws IOException;
     void writeLong(long l) throws IOException;
     void writeDouble(double d) throws IOException;
+    void writeInts(int[] values, int offset, int length) throws IOException;
+    void writeDoubles(double[] values, int offset, int length) throws IOException;
 
     @Override
     void close() throws IOException;
@@ -589,6 +608,18 @@ public class RDataWriter implements AutoCloseable {
       out.writeBytes(l + "\n");
     }
 
+    public void writeInts(int[] values, int offset, int length) throws IOException {
+      for(int i = 0; i < length; i++) {
+        writeInt(values[offset + i]);
+      }
+    }
+
+    public void writeDoubles(double[] values, int offset, int length) throws IOException {
+      for(int i = 0; i < length; i++) {
+        writeDouble(values[offset + i]);
+      }
+    }
+
     public void writeString(byte[] bytes) throws IOException {
       for(int i = 0; i < bytes.length; i++) {
         String s;
@@ -629,10 +660,18 @@ public class RDataWriter implements AutoCloseable {
   
   private static class XdrWriter implements StreamWriter {
     private DataOutputStream out;
+    private ByteBuffer block;
       
     private XdrWriter(DataOutputStream out) {
       this.out = out;
     }
+
+    private ByteBuffer block() {
+      if(block == null) {
+        block = ByteBuffer.allocate(BLOCK_SIZE).order(ByteOrder.BIG_ENDIAN);
+      }
+      return block;
+    }
       
     public void writeInt(int v) throws IOException {
       out.writeInt(v);
@@ -650,6 +689,42 @@ public class RDataWriter implements AutoCloseable {
       out.write(bytes);
     }
 
+    public void writeInts(int[] values, int offset, int length) throws IOException {
+      ByteBuffer block = block();
+      IntBuffer blockInts = block.asIntBuffer();
+      while(length > 0) {
+        int count = Math.min(length, BLOCK_SIZE / 4);
+        blockInts.clear();
+        blockInts.put(values, offset, count);
+        out.write(block.array(), 0, count * 4);
+        offset += count;
+        length -= count;
+      }
+    }
+
+    /**
+     * Writes doubles in blocks, with the same bit patterns as {@code DataOutputStream.writeDouble()}:
+     * NA is written as {@code NA_BITS} and every other NaN as the canonical NaN.
+     */
+    public void writeDoubles(double[] values, int offset, int length) throws IOException {
+      ByteBuffer block = block();
+      DoubleBuffer blockDoubles = block.asDoubleBuffer();
+      while(length > 0) {
+        int count = Math.min(length, BLOCK_SIZE / 8);
+        blockDoubles.clear();
+        blockDoubles.put(values, offset, count);
+        for(int i = 0; i < count; i++) {
+          double value = values[offset + i];
+          if(Double.isNaN(value)) {
+            block.putLong(i * 8, DoubleVector.isNA(value) ? DoubleVector.NA_BITS : Double.doubleToLongBits(value));
+          }
+        }
+        out.write(block.array(), 0, count * 8);
+        offset += count;
+        length -= count;
+      }
+    }
+
     @Override
     public void close() throws IOException {
       out.close();
@@ -25,14 +25,17 @@ import org.renjin.invoke.annotations.DotCall;
 import org.renjin.invoke.annotations.Internal;
 import org.renjin.primitives.io.connections.Connection;
 import org.renjin.primitives.io.connections.Connections;
+import org.renjin.primitives.io.connections.FileConnection;
 import org.renjin.primitives.io.connections.OpenSpec;
 import org.renjin.primitives.io.serialization.RDataWriter.PersistenceHook;
+import org.renjin.repackaged.guava.io.ByteStreams;
 import org.renjin.sexp.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Implementation of serialization builtins and internal functions.
@@ -42,22 +45,44 @@ public class Serialization {
 
   private static final int DEFAULT_SERIALIZATION_VERSION = 0;
 
+  /**
+   * Uncompressed files at least this large are memory-mapped rather than streamed
+   */
+  private static final long MAPPING_THRESHOLD = 1024 * 1024;
+
   public enum SerializationType { ASCII, XDR, BINARY};
 
   @Internal
   public static SEXP unserializeFromConn(@Current Context context,
       SEXP conn, Environment rho) throws IOException {
     
-    RDataReader reader = new RDataReader(context, Connections.getConnection(context, conn).getInputStream());
-    return reader.readFile();
+    return readFromConn(context, conn);
   }
 
   @Internal
   public static SEXP unserializeFromConn(@Current Context context,
       SEXP conn, Null nz) throws IOException {
     
-    RDataReader reader = new RDataReader(context, 
-        Connections.getConnection(context, conn).getInputStream());
+    return readFromConn(context, conn);
+  }
+
+  /**
+   * Reads a serialized object from a connection. Large, uncompressed local files are
+   * memory-mapped so that their numeric vectors are never copied onto the heap.
+   */
+  private static SEXP readFromConn(Context context, SEXP conn) throws IOException {
+    Connection connection = Connections.getConnection(context, conn);
+    if(connection instanceof FileConnection) {
+      FileConnection fileConnection = (FileConnection) connection;
+      ByteBuffer mapped = fileConnection.mapRemainingInput(MAPPING_THRESHOLD);
+      if(mapped != null) {
+        RDataReader reader = new RDataReader(context, mapped);
+        SEXP result = reader.readFile();
+        ByteStreams.skipFully(fileConnection.getInputStream(), mapped.position());
+        return result;
+      }
+    }
+    RDataReader reader = new RDataReader(context, connection.getInputStream());
     return reader.readFile();
   }
 
@@ -204,13 +229,16 @@ public class Serialization {
   public static SEXP loadFromConn2(@Current Context context, SEXP conn,
       Environment env) throws IOException {
 
-    InputStream inputStream = Connections.getConnection(context, conn).getInputStream();
-    return load(context, env, inputStream);
+    return assign(context, env, readFromConn(context, conn));
   }
 
   public static SEXP load(@Current Context context, Environment env, InputStream inputStream) throws IOException {
     RDataReader reader = new RDataReader(context, inputStream);
-    HasNamedValues data = EvalException.checkedCast(reader.readFile());
+    return assign(context, env, reader.readFile());
+  }
+
+  private static SEXP assign(Context context, Environment env, SEXP exp) {
+    HasNamedValues data = EvalException.checkedCast(exp);
 
     StringArrayVector.Builder names = new StringArrayVector.Builder();
 
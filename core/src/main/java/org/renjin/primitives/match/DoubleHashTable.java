@@ -0,0 +1,127 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.match;
+
+import org.renjin.sexp.DoubleVector;
+
+import java.util.Arrays;
+
+import static org.renjin.primitives.match.HashTables.ABSENT;
+
+/**
+ * Open-addressing hash table mapping {@code double} keys to non-negative {@code int} values,
+ * without boxing.
+ *
+ * <p>Keys are compared in the sense of {@link DoubleVector#match(double, double)}: NA matches only NA,
+ * all other NaNs match each other, and {@code -0.0} matches {@code 0.0}.</p>
+ */
+final class DoubleHashTable {
+
+  private static final long NaN_BITS = Double.doubleToLongBits(Double.NaN);
+
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+
+  DoubleHashTable(int expectedSize) {
+    allocate(HashTables.capacityFor(expectedSize));
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    Arrays.fill(values, ABSENT);
+    mask = capacity - 1;
+  }
+
+  /**
+   * Normalizes a double value to the bits used as its key, collapsing all
+   * NaN payloads other than NA to a single key, and both zeros to a single key.
+   */
+  static long key(double value) {
+    if(Double.isNaN(value)) {
+      return DoubleVector.isNA(value) ? DoubleVector.NA_BITS : NaN_BITS;
+    } else if(value == 0d) {
+      return 0L;
+    } else {
+      return Double.doubleToRawLongBits(value);
+    }
+  }
+
+  /**
+   * @return the value associated with {@code key}, or -1 if the key is not present.
+   */
+  int get(double value) {
+    long key = key(value);
+    int slot = HashTables.mix(key) & mask;
+    while(true) {
+      int existing = values[slot];
+      if(existing == ABSENT || keys[slot] == key) {
+        return existing;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  /**
+   * Associates {@code value} with {@code key} if the key is not yet present.
+   *
+   * @return the value previously associated with {@code key}, or -1 if the key was added.
+   */
+  int putIfAbsent(double value, int index) {
+    long key = key(value);
+    int slot = HashTables.mix(key) & mask;
+    while(true) {
+      int existing = values[slot];
+      if(existing == ABSENT) {
+        keys[slot] = key;
+        values[slot] = index;
+        if(++size * 2 > values.length) {
+          rehash();
+        }
+        return ABSENT;
+      }
+      if(keys[slot] == key) {
+        return existing;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void rehash() {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(oldValues.length * 2);
+    for (int i = 0; i < oldValues.length; i++) {
+      if(oldValues[i] != ABSENT) {
+        int slot = HashTables.mix(oldKeys[i]) & mask;
+        while(values[slot] != ABSENT) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+}
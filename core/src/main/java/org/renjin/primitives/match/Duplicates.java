@@ -20,10 +20,9 @@ package org.renjin.primitives.match;
 
 import org.renjin.invoke.annotations.Internal;
 import org.renjin.primitives.match.DuplicateSearchAlgorithm.Action;
+import org.renjin.primitives.sequence.IntSequence;
 import org.renjin.repackaged.guava.collect.Maps;
-import org.renjin.sexp.AtomicVector;
-import org.renjin.sexp.SEXP;
-import org.renjin.sexp.Vector;
+import org.renjin.sexp.*;
 
 import java.util.HashMap;
 
@@ -85,7 +84,166 @@ public class Duplicates {
 
 
     algorithm.init(x);
-    
+
+    if(x instanceof IntSequence && ((IntSequence) x).getBy() != 0) {
+      return searchDistinct(x, fromLast, algorithm);
+    } else if(x instanceof IntVector || x instanceof LogicalVector) {
+      if(isSortedInts(x)) {
+        return searchSortedInts(x, fromLast, algorithm);
+      }
+      return searchInts(x, fromLast, algorithm);
+    } else if(x instanceof DoubleVector) {
+      if(isSortedDoubles(x)) {
+        return searchSortedDoubles(x, fromLast, algorithm);
+      }
+      return searchDoubles(x, fromLast, algorithm);
+    } else if(x instanceof StringVector) {
+      return searchStrings(x, fromLast, algorithm);
+    } else {
+      return searchElements(x, fromLast, algorithm);
+    }
+  }
+
+  /**
+   * Every element of a sequence with a non-zero step is distinct, so no hashing is required.
+   */
+  private static <ResultType> ResultType searchDistinct(Vector x, boolean fromLast,
+                                                        DuplicateSearchAlgorithm<ResultType> algorithm) {
+    int length = x.length();
+    for (int i = 0; i < length; i++) {
+      algorithm.onUnique(fromLast ? (length - 1 - i) : i);
+    }
+    return algorithm.getResult();
+  }
+
+  private static boolean isSortedInts(Vector x) {
+    int length = x.length();
+    for (int i = 1; i < length; i++) {
+      if(x.getElementAsInt(i) < x.getElementAsInt(i - 1)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * In a sorted vector, equal elements are adjacent, so each element only needs to be compared with
+   * its predecessor.
+   */
+  private static <ResultType> ResultType searchSortedInts(Vector x, boolean fromLast,
+                                                          DuplicateSearchAlgorithm<ResultType> algorithm) {
+    int length = x.length();
+    int runStart = -1;
+    int runValue = 0;
+    for (int i = 0; i < length; i++) {
+      int index = fromLast ? (length - 1 - i) : i;
+      int value = x.getElementAsInt(index);
+      if(runStart != -1 && value == runValue) {
+        if(algorithm.onDuplicate(index, runStart) == Action.STOP) {
+          return algorithm.getResult();
+        }
+      } else {
+        algorithm.onUnique(index);
+        runStart = index;
+        runValue = value;
+      }
+    }
+    return algorithm.getResult();
+  }
+
+  /**
+   * @return true if {@code x} is non-decreasing and free of NA and NaN values, which never
+   * satisfy the comparison.
+   */
+  private static boolean isSortedDoubles(Vector x) {
+    int length = x.length();
+    if(length > 0 && Double.isNaN(x.getElementAsDouble(0))) {
+      return false;
+    }
+    for (int i = 1; i < length; i++) {
+      if(!(x.getElementAsDouble(i) >= x.getElementAsDouble(i - 1))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static <ResultType> ResultType searchSortedDoubles(Vector x, boolean fromLast,
+                                                             DuplicateSearchAlgorithm<ResultType> algorithm) {
+    int length = x.length();
+    int runStart = -1;
+    double runValue = 0;
+    for (int i = 0; i < length; i++) {
+      int index = fromLast ? (length - 1 - i) : i;
+      double value = x.getElementAsDouble(index);
+      if(runStart != -1 && value == runValue) {
+        if(algorithm.onDuplicate(index, runStart) == Action.STOP) {
+          return algorithm.getResult();
+        }
+      } else {
+        algorithm.onUnique(index);
+        runStart = index;
+        runValue = value;
+      }
+    }
+    return algorithm.getResult();
+  }
+
+  private static <ResultType> ResultType searchInts(Vector x, boolean fromLast,
+                                                    DuplicateSearchAlgorithm<ResultType> algorithm) {
+    int length = x.length();
+    IntHashTable seen = new IntHashTable(length);
+    for (int i = 0; i < length; i++) {
+      int index = fromLast ? (length - 1 - i) : i;
+      int originalIndex = seen.putIfAbsent(x.getElementAsInt(index), index);
+      if(originalIndex == HashTables.ABSENT) {
+        algorithm.onUnique(index);
+      } else if(algorithm.onDuplicate(index, originalIndex) == Action.STOP) {
+        return algorithm.getResult();
+      }
+    }
+    return algorithm.getResult();
+  }
+
+  private static <ResultType> ResultType searchDoubles(Vector x, boolean fromLast,
+                                                       DuplicateSearchAlgorithm<ResultType> algorithm) {
+    int length = x.length();
+    DoubleHashTable seen = new DoubleHashTable(length);
+    for (int i = 0; i < length; i++) {
+      int index = fromLast ? (length - 1 - i) : i;
+      int originalIndex = seen.putIfAbsent(x.getElementAsDouble(index), index);
+      if(originalIndex == HashTables.ABSENT) {
+        algorithm.onUnique(index);
+      } else if(algorithm.onDuplicate(index, originalIndex) == Action.STOP) {
+        return algorithm.getResult();
+      }
+    }
+    return algorithm.getResult();
+  }
+
+  private static <ResultType> ResultType searchStrings(Vector x, boolean fromLast,
+                                                       DuplicateSearchAlgorithm<ResultType> algorithm) {
+    int length = x.length();
+    StringHashTable seen = new StringHashTable(length);
+    for (int i = 0; i < length; i++) {
+      int index = fromLast ? (length - 1 - i) : i;
+      int originalIndex = seen.putIfAbsent(x.getElementAsString(index), index);
+      if(originalIndex == HashTables.ABSENT) {
+        algorithm.onUnique(index);
+      } else if(algorithm.onDuplicate(index, originalIndex) == Action.STOP) {
+        return algorithm.getResult();
+      }
+    }
+    return algorithm.getResult();
+  }
+
+  /**
+   * Fallback for lists and the remaining atomic types, which compares elements
+   * through their {@code SEXP} representation.
+   */
+  private static <ResultType> ResultType searchElements(Vector x, boolean fromLast,
+                                                        DuplicateSearchAlgorithm<ResultType> algorithm) {
+
     /* Maps elements -> first encountered index */
     HashMap<SEXP, Integer> seen = Maps.newHashMap();
    
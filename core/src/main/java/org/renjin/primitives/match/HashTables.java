@@ -0,0 +1,57 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.match;
+
+/**
+ * Helpers shared by the open-addressing hash tables used for matching and
+ * duplicate detection.
+ */
+final class HashTables {
+
+  /**
+   * Marks an empty slot in a table's values array.
+   */
+  static final int ABSENT = -1;
+
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  private HashTables() { }
+
+  /**
+   * @return a power-of-two capacity that keeps the load factor at or below 0.5
+   * for {@code expectedSize} keys.
+   */
+  static int capacityFor(int expectedSize) {
+    int capacity = 4;
+    while(capacity < MAXIMUM_CAPACITY && capacity < expectedSize * 2L) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  static int mix(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  static int mix(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+}
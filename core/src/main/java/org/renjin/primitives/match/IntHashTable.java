@@ -0,0 +1,105 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.match;
+
+import java.util.Arrays;
+
+import static org.renjin.primitives.match.HashTables.ABSENT;
+
+/**
+ * Open-addressing hash table mapping {@code int} keys to non-negative {@code int} values,
+ * without boxing. NA ({@code Integer.MIN_VALUE}) is treated as an ordinary key, which
+ * matches R's semantics for integer and logical vectors.
+ */
+final class IntHashTable {
+
+  private int[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+
+  IntHashTable(int expectedSize) {
+    allocate(HashTables.capacityFor(expectedSize));
+  }
+
+  private void allocate(int capacity) {
+    keys = new int[capacity];
+    values = new int[capacity];
+    Arrays.fill(values, ABSENT);
+    mask = capacity - 1;
+  }
+
+  /**
+   * @return the value associated with {@code key}, or -1 if the key is not present.
+   */
+  int get(int key) {
+    int slot = HashTables.mix(key) & mask;
+    while(true) {
+      int value = values[slot];
+      if(value == ABSENT || keys[slot] == key) {
+        return value;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  /**
+   * Associates {@code value} with {@code key} if the key is not yet present.
+   *
+   * @return the value previously associated with {@code key}, or -1 if the key was added.
+   */
+  int putIfAbsent(int key, int value) {
+    int slot = HashTables.mix(key) & mask;
+    while(true) {
+      int existing = values[slot];
+      if(existing == ABSENT) {
+        keys[slot] = key;
+        values[slot] = value;
+        if(++size * 2 > values.length) {
+          rehash();
+        }
+        return ABSENT;
+      }
+      if(keys[slot] == key) {
+        return existing;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void rehash() {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(oldValues.length * 2);
+    for (int i = 0; i < oldValues.length; i++) {
+      if(oldValues[i] != ABSENT) {
+        int slot = HashTables.mix(oldKeys[i]) & mask;
+        while(values[slot] != ABSENT) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+}
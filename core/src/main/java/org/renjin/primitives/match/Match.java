@@ -82,6 +82,10 @@ public class Match {
     search = commonType.to(search);
     table = commonType.to(table);
 
+    if(table.length() >= MatchIndex.MIN_TABLE_LENGTH && MatchIndex.isSupported(table)) {
+      return matchUsingIndex((AtomicVector) search, MatchIndex.of((AtomicVector) table), noMatch, incomparables);
+    }
+
     int[] matches = new int[search.length()];
     for(int i=0;i!=search.length();++i) {
       if( incomparables.contains(search, i)) {
@@ -99,6 +103,20 @@ public class Match {
     return IntArrayVector.unsafe(matches);
   }
 
+  private static IntVector matchUsingIndex(AtomicVector search, MatchIndex index, int noMatch, AtomicVector incomparables) {
+    boolean checkIncomparables = incomparables.length() > 0;
+    int[] matches = new int[search.length()];
+    for(int i=0;i!=search.length();++i) {
+      if(checkIncomparables && incomparables.contains(search, i)) {
+        matches[i] = noMatch;
+      } else {
+        int pos = index.indexOf(search, i);
+        matches[i] = pos >= 0 ? pos+1 : noMatch;
+      }
+    }
+    return IntArrayVector.unsafe(matches);
+  }
+
   /**
    * Match a vector against a string sequence, for example as.character(1:1000)
    */
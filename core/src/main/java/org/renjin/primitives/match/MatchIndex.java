@@ -0,0 +1,176 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.match;
+
+import org.renjin.repackaged.guava.cache.Cache;
+import org.renjin.repackaged.guava.cache.CacheBuilder;
+import org.renjin.sexp.*;
+
+/**
+ * A hash index over the elements of a "table" vector that maps each distinct
+ * value to the position of its first occurrence.
+ *
+ * <p>Building the index is O(n) in the length of the table, after which each lookup
+ * is O(1), turning {@code match(x, table)} and {@code x %in% table} from O(n·m) into O(n+m).</p>
+ *
+ * <p>Vectors are immutable, so indexes over large tables are cached on the identity of the
+ * table vector, and repeated lookups against the same key column do not rebuild the index.</p>
+ */
+public abstract class MatchIndex {
+
+  /**
+   * Tables shorter than this are scanned linearly.
+   */
+  public static final int MIN_TABLE_LENGTH = 16;
+
+  /**
+   * Only indexes over tables at least this long are kept in the cache; smaller
+   * indexes are cheaper to rebuild than to look up.
+   */
+  private static final int MIN_CACHED_LENGTH = 1000;
+
+  /**
+   * Weak keys are compared by identity, and allow the index to be collected with its table.
+   */
+  private static final Cache<AtomicVector, MatchIndex> CACHE = CacheBuilder.newBuilder()
+      .weakKeys()
+      .softValues()
+      .maximumSize(64)
+      .build();
+
+  MatchIndex() {
+  }
+
+  /**
+   * @return true if an index can be built over vectors of this type.
+   */
+  public static boolean isSupported(Vector table) {
+    return table instanceof IntVector ||
+        table instanceof LogicalVector ||
+        table instanceof DoubleVector ||
+        table instanceof StringVector;
+  }
+
+  /**
+   * Returns the index for the given {@code table}, building it if it is not already cached.
+   *
+   * @throws IllegalArgumentException if the table's type is not supported.
+   */
+  public static MatchIndex of(AtomicVector table) {
+    if(table.length() < MIN_CACHED_LENGTH) {
+      return build(table);
+    }
+    MatchIndex index = CACHE.getIfPresent(table);
+    if(index == null) {
+      index = build(table);
+      CACHE.put(table, index);
+    }
+    return index;
+  }
+
+  private static MatchIndex build(AtomicVector table) {
+    if(table instanceof IntVector || table instanceof LogicalVector) {
+      return new IntIndex(table);
+    } else if(table instanceof DoubleVector) {
+      return new DoubleIndex(table);
+    } else if(table instanceof StringVector) {
+      return new StringIndex(table);
+    } else {
+      throw new IllegalArgumentException("Unsupported table type: " + table.getTypeName());
+    }
+  }
+
+  /**
+   * @return the zero-based position of the first element in the table that matches
+   * {@code search[searchIndex]}, or -1 if there is no such element.
+   */
+  public abstract int indexOf(AtomicVector search, int searchIndex);
+
+  /**
+   * @return the number of distinct values in the table.
+   */
+  public abstract int distinctCount();
+
+
+  private static class IntIndex extends MatchIndex {
+    private final IntHashTable table;
+
+    IntIndex(AtomicVector vector) {
+      int length = vector.length();
+      table = new IntHashTable(length);
+      for (int i = 0; i < length; i++) {
+        table.putIfAbsent(vector.getElementAsInt(i), i);
+      }
+    }
+
+    @Override
+    public int indexOf(AtomicVector search, int searchIndex) {
+      return table.get(search.getElementAsInt(searchIndex));
+    }
+
+    @Override
+    public int distinctCount() {
+      return table.size();
+    }
+  }
+
+  private static class DoubleIndex extends MatchIndex {
+    private final DoubleHashTable table;
+
+    DoubleIndex(AtomicVector vector) {
+      int length = vector.length();
+      table = new DoubleHashTable(length);
+      for (int i = 0; i < length; i++) {
+        table.putIfAbsent(vector.getElementAsDouble(i), i);
+      }
+    }
+
+    @Override
+    public int indexOf(AtomicVector search, int searchIndex) {
+      return table.get(search.getElementAsDouble(searchIndex));
+    }
+
+    @Override
+    public int distinctCount() {
+      return table.size();
+    }
+  }
+
+  private static class StringIndex extends MatchIndex {
+    private final StringHashTable table;
+
+    StringIndex(AtomicVector vector) {
+      int length = vector.length();
+      table = new StringHashTable(length);
+      for (int i = 0; i < length; i++) {
+        table.putIfAbsent(vector.getElementAsString(i), i);
+      }
+    }
+
+    @Override
+    public int indexOf(AtomicVector search, int searchIndex) {
+      return table.get(search.getElementAsString(searchIndex));
+    }
+
+    @Override
+    public int distinctCount() {
+      return table.size();
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.match;
+
+import java.util.Arrays;
+
+import static org.renjin.primitives.match.HashTables.ABSENT;
+
+/**
+ * Open-addressing hash table mapping {@code String} keys to non-negative {@code int} values.
+ *
+ * <p>R's {@code NA_character_} is represented by {@code null} and is stored outside of the
+ * table proper. String hash codes are kept alongside the keys so that probing rarely
+ * needs to call {@link String#equals(Object)}.</p>
+ */
+final class StringHashTable {
+
+  private String[] keys;
+  private int[] hashes;
+  private int[] values;
+  private int mask;
+  private int size;
+
+  private int naValue = ABSENT;
+
+  StringHashTable(int expectedSize) {
+    allocate(HashTables.capacityFor(expectedSize));
+  }
+
+  private void allocate(int capacity) {
+    keys = new String[capacity];
+    hashes = new int[capacity];
+    values = new int[capacity];
+    Arrays.fill(values, ABSENT);
+    mask = capacity - 1;
+  }
+
+  /**
+   * @return the value associated with {@code key}, or -1 if the key is not present.
+   */
+  int get(String key) {
+    if(key == null) {
+      return naValue;
+    }
+    int hash = key.hashCode();
+    int slot = HashTables.mix(hash) & mask;
+    while(true) {
+      int existing = values[slot];
+      if(existing == ABSENT || (hashes[slot] == hash && key.equals(keys[slot]))) {
+        return existing;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  /**
+   * Associates {@code value} with {@code key} if the key is not yet present.
+   *
+   * @return the value previously associated with {@code key}, or -1 if the key was added.
+   */
+  int putIfAbsent(String key, int value) {
+    if(key == null) {
+      int existing = naValue;
+      if(existing == ABSENT) {
+        naValue = value;
+        size++;
+      }
+      return existing;
+    }
+    int hash = key.hashCode();
+    int slot = HashTables.mix(hash) & mask;
+    while(true) {
+      int existing = values[slot];
+      if(existing == ABSENT) {
+        keys[slot] = key;
+        hashes[slot] = hash;
+        values[slot] = value;
+        if(++size * 2 > values.length) {
+          rehash();
+        }
+        return ABSENT;
+      }
+      if(hashes[slot] == hash && key.equals(keys[slot])) {
+        return existing;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void rehash() {
+    String[] oldKeys = keys;
+    int[] oldHashes = hashes;
+    int[] oldValues = values;
+    allocate(oldValues.length * 2);
+    for (int i = 0; i < oldValues.length; i++) {
+      if(oldValues[i] != ABSENT) {
+        int slot = HashTables.mix(oldHashes[i]) & mask;
+        while(values[slot] != ABSENT) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        hashes[slot] = oldHashes[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+}
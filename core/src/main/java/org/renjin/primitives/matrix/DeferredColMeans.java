@@ -0,0 +1,107 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.matrix;
+
+import org.renjin.primitives.vector.MemoizedComputation;
+import org.renjin.sexp.*;
+
+public class DeferredColMeans extends DoubleVector implements MemoizedComputation {
+
+  private final AtomicVector vector;
+  private int numColumns;
+  private double[] means = null;
+
+  public DeferredColMeans(AtomicVector vector, int numColumns, AttributeMap attributes) {
+    super(attributes);
+    this.vector = vector;
+    this.numColumns = numColumns;
+  }
+
+  @Override
+  public Vector[] getOperands() {
+    return new Vector[]{vector, new IntArrayVector(numColumns)};
+  }
+
+  @Override
+  public String getComputationName() {
+    return "colMeans";
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new DeferredColMeans(vector, numColumns, attributes);
+  }
+
+  @Override
+  public double getElementAsDouble(int index) {
+    if(this.means == null) {
+      computeMeans();
+    }
+    return means[index];
+  }
+
+  @Override
+  public boolean isConstantAccessTime() {
+    return false;
+  }
+
+  @Override
+  public int length() {
+    return numColumns;
+  }
+
+  private void computeMeans() {
+    double means[] = new double[numColumns];
+    int numRows = vector.length() / numColumns;
+    int sourceIndex = 0;
+
+    for (int colIndex = 0; colIndex < numColumns; colIndex++) {
+      double sum = 0;
+      for (int rowIndex = 0; rowIndex < numRows; rowIndex++) {
+        sum += vector.getElementAsDouble(sourceIndex++);
+      }
+      means[colIndex] = sum / numRows;
+    }
+
+    this.means = means;
+  }
+
+  @Override
+  public boolean isCalculated() {
+    return means != null;
+  }
+
+  @Override
+  public boolean isDeferred() {
+    return !isCalculated();
+  }
+
+  @Override
+  public Vector forceResult() {
+    if(this.means == null) {
+      computeMeans();
+    }
+    return DoubleArrayVector.unsafe(this.means, getAttributes());
+  }
+
+  @Override
+  public void setResult(Vector result) {
+    this.means = ((DoubleArrayVector)result).toDoubleArrayUnsafe();
+  }
+}
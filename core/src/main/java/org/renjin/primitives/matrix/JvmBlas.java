@@ -0,0 +1,443 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.matrix;
+
+import com.github.fommil.netlib.BLAS;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * The BLAS routines used for matrix products, implemented in Java for dense, column-major
+ * double matrices. The arguments follow the conventions of the reference BLAS.
+ *
+ * <p>The Level-3 routines follow the approach of GotoBLAS: blocks of the operands are packed into
+ * contiguous panels that fit in the cache, and a register-blocked micro-kernel computes each
+ * {@code MR x NR} block of the result from a pair of panels. Blocks of the result are computed in
+ * parallel on the common fork/join pool.</p>
+ */
+public final class JvmBlas {
+
+  /**
+   * True if these routines should be used instead of the BLAS found by netlib-java, which is
+   * the case unless netlib-java has loaded a native BLAS library or they have been disabled
+   * with {@code -Drenjin.blas.jvm=false}
+   */
+  public static final boolean ENABLED = !"false".equals(System.getProperty("renjin.blas.jvm")) &&
+      !BLAS.getInstance().getClass().getSimpleName().startsWith("Native");
+
+  /**
+   * Rows of the block computed by the micro-kernel
+   */
+  private static final int MR = 4;
+
+  /**
+   * Columns of the block computed by the micro-kernel
+   */
+  private static final int NR = 4;
+
+  /**
+   * Rows of op(A) packed at once, so that the packed block stays in the L2 cache
+   */
+  private static final int MC = 96;
+
+  /**
+   * Depth of the packed blocks of op(A) and op(B)
+   */
+  private static final int KC = 256;
+
+  /**
+   * Columns of op(B) packed at once, so that the packed block stays in the L3 cache
+   */
+  private static final int NC = 2048;
+
+  /**
+   * Width of the column blocks into which a symmetric rank-k update is split
+   */
+  private static final int SYRK_BLOCK = 256;
+
+  /**
+   * Minimum number of multiply-adds before a routine is split across threads
+   */
+  private static final long PARALLEL_THRESHOLD = 1L << 20;
+
+  private static final ThreadLocal<double[]> PACKED_A = ThreadLocal.withInitial(() -> new double[MC * KC]);
+
+  private JvmBlas() {
+  }
+
+  /**
+   * Computes {@code C := alpha * op(A) * op(B) + beta * C}, where op(A) is {@code m x k} and op(B) is
+   * {@code k x n}.
+   */
+  public static void dgemm(String transa, String transb, int m, int n, int k, double alpha,
+                           double[] a, int lda, double[] b, int ldb, double beta, double[] c, int ldc) {
+    gemm(isTransposed(transa), isTransposed(transb), m, n, k, alpha, a, 0, lda, b, 0, ldb, beta, c, 0, ldc);
+  }
+
+  /**
+   * Computes {@code C := alpha * A * A' + beta * C} if {@code trans} is "N", or
+   * {@code C := alpha * A' * A + beta * C} if {@code trans} is "T", where C is an {@code n x n}
+   * symmetric matrix of which only the triangle given by {@code uplo} is referenced.
+   */
+  public static void dsyrk(String uplo, String trans, int n, int k, double alpha,
+                           double[] a, int lda, double beta, double[] c, int ldc) {
+
+    boolean upper = uplo.equalsIgnoreCase("U");
+    boolean transposed = isTransposed(trans);
+
+    // op(A) is the n x k matrix whose product with its transpose we compute:
+    // row i of op(A) begins at offset i of A, or at column i of A if transposed.
+    int rowStride = transposed ? lda : 1;
+
+    int blockSize = Math.min(SYRK_BLOCK, n);
+    double[] diagonal = new double[blockSize * blockSize];
+
+    for (int j0 = 0; j0 < n; j0 += SYRK_BLOCK) {
+      int width = Math.min(SYRK_BLOCK, n - j0);
+      int j1 = j0 + width;
+
+      // The block of the triangle outside the diagonal block
+      if(upper) {
+        gemm(transposed, !transposed, j0, width, k, alpha,
+            a, 0, lda, a, j0 * rowStride, lda, beta, c, j0 * ldc, ldc);
+      } else {
+        gemm(transposed, !transposed, n - j1, width, k, alpha,
+            a, j1 * rowStride, lda, a, j0 * rowStride, lda, beta, c, j1 + j0 * ldc, ldc);
+      }
+
+      // The diagonal block is computed in full, but only its triangle is stored
+      gemm(transposed, !transposed, width, width, k, alpha,
+          a, j0 * rowStride, lda, a, j0 * rowStride, lda, 0, diagonal, 0, width);
+
+      for (int j = 0; j < width; j++) {
+        int start = upper ? 0 : j;
+        int end = upper ? j + 1 : width;
+        for (int i = start; i < end; i++) {
+          int ci = (j0 + i) + (j0 + j) * ldc;
+          c[ci] = scaled(beta, c[ci]) + diagonal[i + j * width];
+        }
+      }
+    }
+  }
+
+  /**
+   * Computes {@code y := alpha * A * x + beta * y} if {@code trans} is "N", or
+   * {@code y := alpha * A' * x + beta * y} if {@code trans} is "T", where A is {@code m x n}.
+   */
+  public static void dgemv(String trans, int m, int n, double alpha, double[] a, int lda,
+                           double[] x, int incx, double beta, double[] y, int incy) {
+
+    boolean transposed = isTransposed(trans);
+    int lenx = transposed ? m : n;
+    int leny = transposed ? n : m;
+    int kx = incx > 0 ? 0 : -(lenx - 1) * incx;
+    int ky = incy > 0 ? 0 : -(leny - 1) * incy;
+
+    int tasks = taskCount((long) m * n, leny);
+    if(tasks == 1) {
+      gemv(transposed, 0, leny, lenx, alpha, a, lda, x, kx, incx, beta, y, ky, incy);
+    } else {
+      // Split the elements of y between the tasks
+      IntStream.range(0, tasks).parallel().forEach(task -> {
+        int start = (int) ((long) leny * task / tasks);
+        int end = (int) ((long) leny * (task + 1) / tasks);
+        gemv(transposed, start, end, lenx, alpha, a, lda, x, kx, incx, beta, y, ky, incy);
+      });
+    }
+  }
+
+  /**
+   * Computes the elements {@code start} to {@code end} of y.
+   */
+  private static void gemv(boolean transposed, int start, int end, int lenx, double alpha,
+                           double[] a, int lda, double[] x, int kx, int incx,
+                           double beta, double[] y, int ky, int incy) {
+    if(transposed) {
+      // y[j] is the dot product of column j with x
+      for (int j = start; j < end; j++) {
+        int aj = j * lda;
+        double sum = 0;
+        int ix = kx;
+        for (int i = 0; i < lenx; i++) {
+          sum += a[aj + i] * x[ix];
+          ix += incx;
+        }
+        int iy = ky + j * incy;
+        y[iy] = scaled(beta, y[iy]) + alpha * sum;
+      }
+    } else {
+      for (int i = start; i < end; i++) {
+        int iy = ky + i * incy;
+        y[iy] = scaled(beta, y[iy]);
+      }
+      // Add each column of A, scaled by x[j], to y
+      int jx = kx;
+      for (int j = 0; j < lenx; j++) {
+        double temp = alpha * x[jx];
+        int aj = j * lda;
+        int iy = ky + start * incy;
+        for (int i = start; i < end; i++) {
+          y[iy] += temp * a[aj + i];
+          iy += incy;
+        }
+        jx += incx;
+      }
+    }
+  }
+
+  private static void gemm(boolean transA, boolean transB, int m, int n, int k, double alpha,
+                           double[] a, int aOffset, int lda, double[] b, int bOffset, int ldb,
+                           double beta, double[] c, int cOffset, int ldc) {
+
+    if(m == 0 || n == 0) {
+      return;
+    }
+
+    // Scale C once, so that the blocks of the product can then be added to it
+    if(beta != 1) {
+      for (int j = 0; j < n; j++) {
+        int cj = cOffset + j * ldc;
+        for (int i = 0; i < m; i++) {
+          c[cj + i] = scaled(beta, c[cj + i]);
+        }
+      }
+    }
+
+    if(k == 0 || alpha == 0) {
+      return;
+    }
+
+    double[] packedB = new double[Math.min(KC, k) * roundUp(Math.min(NC, n), NR)];
+
+    for (int jc = 0; jc < n; jc += NC) {
+      int nc = Math.min(NC, n - jc);
+      int numPanels = (nc + NR - 1) / NR;
+
+      for (int pc = 0; pc < k; pc += KC) {
+        int kc = Math.min(KC, k - pc);
+
+        packB(transB, b, bOffset, ldb, pc, jc, kc, nc, packedB);
+
+        // Divide the rows of C into blocks of MC rows, and if there are too few
+        // row blocks to keep all threads busy, the columns as well.
+        int rowBlocks = (m + MC - 1) / MC;
+        int tasks = taskCount((long) m * nc * kc, rowBlocks * numPanels);
+        int columnSplits = Math.min(numPanels, (tasks + rowBlocks - 1) / rowBlocks);
+
+        int blockCount = rowBlocks * columnSplits;
+        int pcBlock = pc;
+        int cOffsetBlock = cOffset + jc * ldc;
+        if(tasks == 1) {
+          computeBlock(transA, a, aOffset, lda, 0, pcBlock, m, kc, nc, 0, numPanels, alpha, packedB,
+              c, cOffsetBlock, ldc);
+        } else {
+          IntStream.range(0, blockCount).parallel().forEach(block -> {
+            int ic = (block / columnSplits) * MC;
+            int split = block % columnSplits;
+            int panelStart = numPanels * split / columnSplits;
+            int panelEnd = numPanels * (split + 1) / columnSplits;
+            computeBlock(transA, a, aOffset, lda, ic, pcBlock, Math.min(MC, m - ic), kc, nc,
+                panelStart, panelEnd, alpha, packedB, c, cOffsetBlock, ldc);
+          });
+        }
+      }
+    }
+  }
+
+  /**
+   * Packs the rows {@code ic} to {@code ic + mc} of a block of op(A) and adds their product with
+   * the given panels of the packed block of op(B) to C.
+   */
+  private static void computeBlock(boolean transA, double[] a, int aOffset, int lda, int ic, int pc, int mc, int kc,
+                                   int nc, int panelStart, int panelEnd, double alpha, double[] packedB,
+                                   double[] c, int cOffset, int ldc) {
+    double[] packedA = PACKED_A.get();
+    for (int icBlock = 0; icBlock < mc; icBlock += MC) {
+      int mcBlock = Math.min(MC, mc - icBlock);
+      packA(transA, a, aOffset, lda, ic + icBlock, pc, mcBlock, kc, packedA);
+
+      for (int panel = panelStart; panel < panelEnd; panel++) {
+        int jr = panel * NR;
+        int nr = Math.min(NR, nc - jr);
+        for (int ir = 0; ir < mcBlock; ir += MR) {
+          int mr = Math.min(MR, mcBlock - ir);
+          microKernel(kc, alpha, packedA, ir * kc, packedB, jr * kc,
+              c, cOffset + (ic + icBlock + ir) + jr * ldc, ldc, mr, nr);
+        }
+      }
+    }
+  }
+
+  /**
+   * Packs an {@code mc x kc} block of op(A) into panels of {@code MR} rows, each stored
+   * column by column, padding the last panel with zeros.
+   */
+  private static void packA(boolean transA, double[] a, int aOffset, int lda, int ic, int pc, int mc, int kc,
+                            double[] packed) {
+    int rowStride = transA ? lda : 1;
+    int colStride = transA ? 1 : lda;
+    int dest = 0;
+    for (int ir = 0; ir < mc; ir += MR) {
+      int mr = Math.min(MR, mc - ir);
+      for (int l = 0; l < kc; l++) {
+        int source = aOffset + (ic + ir) * rowStride + (pc + l) * colStride;
+        for (int i = 0; i < mr; i++) {
+          packed[dest++] = a[source + i * rowStride];
+        }
+        for (int i = mr; i < MR; i++) {
+          packed[dest++] = 0;
+        }
+      }
+    }
+  }
+
+  /**
+   * Packs a {@code kc x nc} block of op(B) into panels of {@code NR} columns, each stored
+   * row by row, padding the last panel with zeros.
+   */
+  private static void packB(boolean transB, double[] b, int bOffset, int ldb, int pc, int jc, int kc, int nc,
+                            double[] packed) {
+    int rowStride = transB ? ldb : 1;
+    int colStride = transB ? 1 : ldb;
+    int dest = 0;
+    for (int jr = 0; jr < nc; jr += NR) {
+      int nr = Math.min(NR, nc - jr);
+      for (int l = 0; l < kc; l++) {
+        int source = bOffset + (pc + l) * rowStride + (jc + jr) * colStride;
+        for (int j = 0; j < nr; j++) {
+          packed[dest++] = b[source + j * colStride];
+        }
+        for (int j = nr; j < NR; j++) {
+          packed[dest++] = 0;
+        }
+      }
+    }
+  }
+
+  /**
+   * Computes the product of a panel of packed A and a panel of packed B in registers,
+   * and adds the {@code mr x nr} block of the product, scaled by alpha, to C.
+   */
+  private static void microKernel(int kc, double alpha, double[] a, int ai, double[] b, int bi,
+                                  double[] c, int ci, int ldc, int mr, int nr) {
+    double c00 = 0, c10 = 0, c20 = 0, c30 = 0;
+    double c01 = 0, c11 = 0, c21 = 0, c31 = 0;
+    double c02 = 0, c12 = 0, c22 = 0, c32 = 0;
+    double c03 = 0, c13 = 0, c23 = 0, c33 = 0;
+
+    for (int l = 0; l < kc; l++) {
+      double a0 = a[ai];
+      double a1 = a[ai + 1];
+      double a2 = a[ai + 2];
+      double a3 = a[ai + 3];
+
+      double b0 = b[bi];
+      c00 += a0 * b0;
+      c10 += a1 * b0;
+      c20 += a2 * b0;
+      c30 += a3 * b0;
+
+      double b1 = b[bi + 1];
+      c01 += a0 * b1;
+      c11 += a1 * b1;
+      c21 += a2 * b1;
+      c31 += a3 * b1;
+
+      double b2 = b[bi + 2];
+      c02 += a0 * b2;
+      c12 += a1 * b2;
+      c22 += a2 * b2;
+      c32 += a3 * b2;
+
+      double b3 = b[bi + 3];
+      c03 += a0 * b3;
+      c13 += a1 * b3;
+      c23 += a2 * b3;
+      c33 += a3 * b3;
+
+      ai += MR;
+      bi += NR;
+    }
+
+    if(mr == MR && nr == NR) {
+      c[ci] += alpha * c00;
+      c[ci + 1] += alpha * c10;
+      c[ci + 2] += alpha * c20;
+      c[ci + 3] += alpha * c30;
+      ci += ldc;
+      c[ci] += alpha * c01;
+      c[ci + 1] += alpha * c11;
+      c[ci + 2] += alpha * c21;
+      c[ci + 3] += alpha * c31;
+      ci += ldc;
+      c[ci] += alpha * c02;
+      c[ci + 1] += alpha * c12;
+      c[ci + 2] += alpha * c22;
+      c[ci + 3] += alpha * c32;
+      ci += ldc;
+      c[ci] += alpha * c03;
+      c[ci + 1] += alpha * c13;
+      c[ci + 2] += alpha * c23;
+      c[ci + 3] += alpha * c33;
+    } else {
+      // Edge of the matrix: only part of the block lies within C
+      double[] block = {
+          c00, c10, c20, c30,
+          c01, c11, c21, c31,
+          c02, c12, c22, c32,
+          c03, c13, c23, c33 };
+      for (int j = 0; j < nr; j++) {
+        for (int i = 0; i < mr; i++) {
+          c[ci + i + j * ldc] += alpha * block[i + j * MR];
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the number of parallel tasks into which to split a computation
+   */
+  private static int taskCount(long multiplyAdds, int maxTasks) {
+    if(multiplyAdds < PARALLEL_THRESHOLD) {
+      return 1;
+    }
+    return Math.max(1, Math.min(maxTasks, ForkJoinPool.getCommonPoolParallelism()));
+  }
+
+  /**
+   * Scales an element of C or y by beta. As in the reference BLAS, the element is not read
+   * when beta is zero, so that C or y need not be initialized.
+   */
+  private static double scaled(double beta, double value) {
+    if(beta == 0) {
+      return 0;
+    } else {
+      return beta * value;
+    }
+  }
+
+  private static boolean isTransposed(String trans) {
+    return trans.equalsIgnoreCase("T") || trans.equalsIgnoreCase("C");
+  }
+
+  private static int roundUp(int n, int multiple) {
+    return ((n + multiple - 1) / multiple) * multiple;
+  }
+}
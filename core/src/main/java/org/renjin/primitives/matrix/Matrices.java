@@ -180,6 +180,10 @@ public class Matrices {
 
   @Internal
   public static DoubleVector rowSums(AtomicVector x, int numRows, int rowLength, boolean naRm) {
+    if(!naRm && x.isDeferred()) {
+      return new DeferredRowSums(x, numRows, AttributeMap.EMPTY);
+    }
+
     double sums[] = new double[numRows];
     int sourceIndex = 0;
     for(int col=0;col < rowLength; col++) {
@@ -237,6 +241,10 @@ public class Matrices {
 
   @Internal
   public static DoubleVector colMeans(AtomicVector x, int columnLength, int numColumns, boolean naRm) {
+    if(!naRm && x.isDeferred()) {
+      return new DeferredColMeans(x, numColumns, AttributeMap.EMPTY);
+    }
+
     double sums[] = new double[numColumns];
     int counts[] = new int[numColumns];
 
@@ -376,8 +376,10 @@ class MatrixProduct {
             z[i + k * nrx] = sum;
           }
         }
+      } else if(ncy == 1) {
+        dgemv("N", nrx, ncx, x, nrx, y, z);
       } else {
-        BLAS.getInstance().dgemm(transa, transb, nrx, ncy, ncx, one,
+        dgemm(transa, transb, nrx, ncy, ncx, one,
             x, nrx, y, nry, zero, z, nrx);
       }
     }
@@ -394,8 +396,12 @@ class MatrixProduct {
     String transb = "N";
     double one = 1.0, zero = 0.0;
     if (nrx > 0 && ncx > 0 && nry > 0 && ncy > 0) {
-      BLAS.getInstance().dgemm(transa, transb, ncx, ncy, nrx, one,
-          x, nrx, y, nry, zero, z, ncx);
+      if(ncy == 1) {
+        dgemv(transa, nrx, ncx, x, nrx, y, z);
+      } else {
+        dgemm(transa, transb, ncx, ncy, nrx, one,
+            x, nrx, y, nry, zero, z, ncx);
+      }
     }
 
     return z;
@@ -410,7 +416,7 @@ class MatrixProduct {
     String transb = "T";
     double one = 1.0, zero = 0.0;
     if (nrx > 0 && ncx > 0 && nry > 0 && ncy > 0) {
-      BLAS.getInstance().dgemm(transa, transb, nrx, nry, ncx, one,
+      dgemm(transa, transb, nrx, nry, ncx, one,
           x, nrx, y, nry, zero, z, nrx);
     }
     return z;
@@ -427,7 +433,7 @@ class MatrixProduct {
 
     int i, j;
     if (nrx > 0 && ncx > 0) {
-      BLAS.getInstance().dsyrk(uplo, trans, ncx, nrx, one, x, nrx, zero, z, ncx);
+      dsyrk(uplo, trans, ncx, nrx, one, x, nrx, zero, z, ncx);
 
       for (i = 1; i < ncx; i++) {
         for (j = 0; j < i; j++) {
@@ -448,7 +454,7 @@ class MatrixProduct {
     double one = 1.0, zero = 0.0;
     int i, j;
     if (nrx > 0 && ncx > 0) {
-      BLAS.getInstance().dsyrk(uplo, trans, nrx, ncx, one, x, nrx, zero, z, nrx);
+      dsyrk(uplo, trans, nrx, ncx, one, x, nrx, zero, z, nrx);
       for (i = 1; i < nrx; i++) {
         for (j = 0; j < i; j++) {
           z[i + nrx *j] = z[j + nrx * i];
@@ -458,4 +464,32 @@ class MatrixProduct {
     return z;
   }
 
+  private static void dgemm(String transa, String transb, int m, int n, int k, double alpha,
+                            double[] a, int lda, double[] b, int ldb, double beta, double[] c, int ldc) {
+    if(JvmBlas.ENABLED) {
+      JvmBlas.dgemm(transa, transb, m, n, k, alpha, a, lda, b, ldb, beta, c, ldc);
+    } else {
+      BLAS.getInstance().dgemm(transa, transb, m, n, k, alpha, a, lda, b, ldb, beta, c, ldc);
+    }
+  }
+
+  /**
+   * Computes the product of the m x n matrix a, or its transpose, with the vector x.
+   */
+  private static void dgemv(String trans, int m, int n, double[] a, int lda, double[] x, double[] y) {
+    if(JvmBlas.ENABLED) {
+      JvmBlas.dgemv(trans, m, n, 1.0, a, lda, x, 1, 0.0, y, 1);
+    } else {
+      BLAS.getInstance().dgemv(trans, m, n, 1.0, a, lda, x, 1, 0.0, y, 1);
+    }
+  }
+
+  private static void dsyrk(String uplo, String trans, int n, int k, double alpha,
+                            double[] a, int lda, double beta, double[] c, int ldc) {
+    if(JvmBlas.ENABLED) {
+      JvmBlas.dsyrk(uplo, trans, n, k, alpha, a, lda, beta, c, ldc);
+    } else {
+      BLAS.getInstance().dsyrk(uplo, trans, n, k, alpha, a, lda, beta, c, ldc);
+    }
+  }
 }
@@ -72,6 +72,22 @@ public class NamespaceRegistry {
     envirMap.put(baseNamespaceEnv, baseNamespace);
   }
 
+  private NamespaceRegistry(NamespaceRegistry toCopy) {
+    this.loader = toCopy.loader;
+    this.baseNamespace = toCopy.baseNamespace;
+    this.localNameMap.putAll(toCopy.localNameMap);
+    this.namespaceMap.putAll(toCopy.namespaceMap);
+    this.envirMap.putAll(toCopy.envirMap);
+  }
+
+  /**
+   * @return a new registry with the same loaded namespaces as this one. Namespaces subsequently
+   * loaded through either registry are not registered in the other.
+   */
+  public NamespaceRegistry copy() {
+    return new NamespaceRegistry(this);
+  }
+
   public Namespace getBaseNamespace() {
     return baseNamespace;
   }
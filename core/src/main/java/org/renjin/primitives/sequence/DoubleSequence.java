@@ -47,6 +47,14 @@ public class DoubleSequence extends DoubleVector {
     return from + index * by;
   }
 
+  @Override
+  public void getDoubles(int start, double[] dst, int dstOffset, int length) {
+    checkRange(start, length);
+    for (int i = 0; i < length; i++) {
+      dst[dstOffset + i] = from + (start + i) * by;
+    }
+  }
+
   @Override
   public boolean isConstantAccessTime() {
     return false;
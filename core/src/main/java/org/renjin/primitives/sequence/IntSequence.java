@@ -65,6 +65,22 @@ public class IntSequence extends IntVector {
     return from + i*by;
   }
 
+  @Override
+  public void getInts(int start, int[] dst, int dstOffset, int length) {
+    checkRange(start, length);
+    for (int i = 0; i < length; i++) {
+      dst[dstOffset + i] = from + (start + i) * by;
+    }
+  }
+
+  @Override
+  public void getDoubles(int start, double[] dst, int dstOffset, int length) {
+    checkRange(start, length);
+    for (int i = 0; i < length; i++) {
+      dst[dstOffset + i] = from + (start + i) * by;
+    }
+  }
+
   @Override
   public boolean isElementNA(int index) {
     return false;
@@ -73,6 +73,32 @@ public class RepDoubleVector extends DoubleVector implements DeferredComputation
     return source.getElementAsDouble((index / each) % source.length());
   }
 
+  @Override
+  public void getDoubles(int start, double[] dst, int dstOffset, int length) {
+    checkRange(start, length);
+    int sourceLength = source.length();
+    int i = 0;
+    if(each == 1 && source instanceof AtomicVector) {
+      // Copy whole cycles of the source at a time
+      AtomicVector atomicSource = (AtomicVector) source;
+      while(i < length) {
+        int sourceIndex = (start + i) % sourceLength;
+        int count = Math.min(length - i, sourceLength - sourceIndex);
+        atomicSource.getDoubles(sourceIndex, dst, dstOffset + i, count);
+        i += count;
+      }
+    } else {
+      // Fill each run of repeated elements at a time
+      while(i < length) {
+        int index = start + i;
+        int runEnd = Math.min(length, i + each - (index % each));
+        double value = source.getElementAsDouble((index / each) % sourceLength);
+        Arrays.fill(dst, dstOffset + i, dstOffset + runEnd, value);
+        i = runEnd;
+      }
+    }
+  }
+
   @Override
   public boolean isConstantAccessTime() {
     return true;
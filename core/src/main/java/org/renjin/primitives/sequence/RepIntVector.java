@@ -18,11 +18,14 @@
  */
 package org.renjin.primitives.sequence;
 
+import org.renjin.sexp.AtomicVector;
 import org.renjin.sexp.AttributeMap;
 import org.renjin.sexp.IntVector;
 import org.renjin.sexp.SEXP;
 import org.renjin.sexp.Vector;
 
+import java.util.Arrays;
+
 public class RepIntVector extends IntVector {
 
   public static final int LENGTH_THRESHOLD = 100;
@@ -51,6 +54,32 @@ public class RepIntVector extends IntVector {
     return source.getElementAsInt((index / each) % source.length());
   }
 
+  @Override
+  public void getInts(int start, int[] dst, int dstOffset, int length) {
+    checkRange(start, length);
+    int sourceLength = source.length();
+    int i = 0;
+    if(each == 1 && source instanceof AtomicVector) {
+      // Copy whole cycles of the source at a time
+      AtomicVector atomicSource = (AtomicVector) source;
+      while(i < length) {
+        int sourceIndex = (start + i) % sourceLength;
+        int count = Math.min(length - i, sourceLength - sourceIndex);
+        atomicSource.getInts(sourceIndex, dst, dstOffset + i, count);
+        i += count;
+      }
+    } else {
+      // Fill each run of repeated elements at a time
+      while(i < length) {
+        int index = start + i;
+        int runEnd = Math.min(length, i + each - (index % each));
+        int value = source.getElementAsInt((index / each) % sourceLength);
+        Arrays.fill(dst, dstOffset + i, dstOffset + runEnd, value);
+        i = runEnd;
+      }
+    }
+  }
+
   @Override
   public boolean isConstantAccessTime() {
     return true;
@@ -0,0 +1,387 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.sort;
+
+import org.renjin.sexp.*;
+
+import java.util.Arrays;
+
+/**
+ * Computes the ordering permutation of one or more key columns using
+ * radix and counting sorts rather than comparison sorts.
+ *
+ * <p>Each column is first mapped to an array of unsigned integer keys whose natural
+ * order is the requested order, with NA (and NaN) placed first or last:</p>
+ * <ul>
+ *   <li>Integers, logicals and factors are offset by their minimum value and sorted with a
+ *   single counting pass when their range is small, or an LSD radix sort otherwise.</li>
+ *   <li>Doubles are mapped to the IEEE-754 bit patterns that sort as unsigned longs, and
+ *   sorted with an LSD radix sort.</li>
+ *   <li>Strings are ranked against the sorted set of their distinct values, and the ranks
+ *   are then counting-sorted.</li>
+ * </ul>
+ *
+ * <p>All passes are stable, so multi-key orderings are computed by sorting on the last
+ * key first and the first key last, and ties are left in their original order.</p>
+ */
+public final class RadixOrder {
+
+  /**
+   * Inputs at least this long rank their strings using a parallel (fork/join) sort.
+   */
+  public static final int PARALLEL_THRESHOLD = 1 << 17;
+
+  /**
+   * Integer keys spanning no more than this many distinct values are sorted with a single
+   * counting pass.
+   */
+  private static final int MAX_COUNTING_RANGE = 1 << 16;
+
+  private static final int RADIX_BITS = 8;
+  private static final int RADIX = 1 << RADIX_BITS;
+  private static final int RADIX_MASK = RADIX - 1;
+
+  private RadixOrder() { }
+
+  /**
+   * @return the zero-based permutation which rearranges {@code column} into ascending
+   * or descending order.
+   */
+  public static int[] order(AtomicVector column, boolean naLast, boolean decreasing) {
+    return order(new AtomicVector[] { column }, naLast, decreasing);
+  }
+
+  /**
+   * @return the zero-based permutation which rearranges the rows of {@code columns} into ascending
+   * or descending order, breaking ties in the first column by the following columns.
+   */
+  public static int[] order(AtomicVector[] columns, boolean naLast, boolean decreasing) {
+    int numRows = columns.length == 0 ? 0 : columns[0].length();
+    int[] perm = new int[numRows];
+    for (int i = 0; i < numRows; i++) {
+      perm[i] = i;
+    }
+    for (int col = columns.length - 1; col >= 0; col--) {
+      sortBy(perm, columns[col], naLast, decreasing);
+    }
+    return perm;
+  }
+
+  private static void sortBy(int[] perm, AtomicVector column, boolean naLast, boolean decreasing) {
+    if(perm.length < 2) {
+      return;
+    }
+    if(column instanceof DoubleVector) {
+      sortByDoubles(perm, column, naLast, decreasing);
+    } else if(column instanceof IntVector || column instanceof LogicalVector) {
+      sortByInts(perm, column, naLast, decreasing);
+    } else if(column instanceof StringVector) {
+      sortByStrings(perm, column, naLast, decreasing);
+    } else {
+      sortByComparison(perm, column, naLast, decreasing);
+    }
+  }
+
+  private static void sortByInts(int[] perm, AtomicVector column, boolean naLast, boolean decreasing) {
+    int n = perm.length;
+    int[] elements = column.toIntArray();
+    int[] keys = new int[n];
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (int i = 0; i < n; i++) {
+      int value = elements[perm[i]];
+      keys[i] = value;
+      if(value != IntVector.NA) {
+        if(value < min) {
+          min = value;
+        }
+        if(value > max) {
+          max = value;
+        }
+      }
+    }
+    if(min > max) {
+      // All values are NA, and so all are ties
+      return;
+    }
+
+    // Non-NA values are mapped to offsets in [0, range), which is at most 2^32-1
+    // as NA itself is the smallest integer. As unsigned ints, the offsets leave room
+    // for NA either just below (naLast = FALSE) or just above (naLast = TRUE) the range.
+    long range = (long)max - (long)min + 1L;
+    int naKey = naLast ? (int) range : 0;
+    int shift = naLast ? 0 : 1;
+    for (int i = 0; i < n; i++) {
+      int value = keys[i];
+      if(value == IntVector.NA) {
+        keys[i] = naKey;
+      } else {
+        keys[i] = (decreasing ? (max - value) : (value - min)) + shift;
+      }
+    }
+
+    if(range < MAX_COUNTING_RANGE || range < n) {
+      countingSort(keys, perm, (int) range + 1);
+    } else {
+      radixSort(keys, perm);
+    }
+  }
+
+  private static void sortByDoubles(int[] perm, AtomicVector column, boolean naLast, boolean decreasing) {
+    int n = perm.length;
+    long[] keys = new long[n];
+
+    // Zero and all-ones are never produced by real values, and so are free to hold NA
+    long naKey = naLast ? -1L : 0L;
+
+    double[] elements = column.toDoubleArray();
+    for (int i = 0; i < n; i++) {
+      double value = elements[perm[i]];
+      if(Double.isNaN(value)) {
+        keys[i] = naKey;
+      } else {
+        long key = sortableBits(value);
+        keys[i] = decreasing ? ~key : key;
+      }
+    }
+    radixSort(keys, perm);
+  }
+
+  /**
+   * Maps a non-NaN double to a long whose unsigned ordering matches the numeric ordering
+   * of the doubles. Negative zero is mapped to the same key as positive zero.
+   */
+  static long sortableBits(double value) {
+    if(value == 0d) {
+      value = 0d;
+    }
+    long bits = Double.doubleToRawLongBits(value);
+    if(bits < 0) {
+      return ~bits;
+    } else {
+      return bits ^ Long.MIN_VALUE;
+    }
+  }
+
+  private static void sortByStrings(int[] perm, AtomicVector column, boolean naLast, boolean decreasing) {
+    int n = perm.length;
+    String[] elements = ((StringVector) column).toArray();
+    String[] values = new String[n];
+    String[] distinct = new String[n];
+    int count = 0;
+    for (int i = 0; i < n; i++) {
+      String value = elements[perm[i]];
+      values[i] = value;
+      if(value != null) {
+        distinct[count++] = value;
+      }
+    }
+
+    if(count >= PARALLEL_THRESHOLD) {
+      Arrays.parallelSort(distinct, 0, count);
+    } else {
+      Arrays.sort(distinct, 0, count);
+    }
+    int numDistinct = 0;
+    for (int i = 0; i < count; i++) {
+      if(numDistinct == 0 || !distinct[i].equals(distinct[numDistinct - 1])) {
+        distinct[numDistinct++] = distinct[i];
+      }
+    }
+
+    int naKey = naLast ? numDistinct : 0;
+    int shift = naLast ? 0 : 1;
+    int[] keys = new int[n];
+    for (int i = 0; i < n; i++) {
+      String value = values[i];
+      if(value == null) {
+        keys[i] = naKey;
+      } else {
+        int rank = Arrays.binarySearch(distinct, 0, numDistinct, value);
+        keys[i] = (decreasing ? (numDistinct - 1 - rank) : rank) + shift;
+      }
+    }
+    countingSort(keys, perm, numDistinct + 1);
+  }
+
+  /**
+   * Falls back to a stable merge sort for the remaining types, such as complex and raw vectors.
+   */
+  private static void sortByComparison(int[] perm, final AtomicVector column, final boolean naLast, final boolean decreasing) {
+    int[] buffer = perm.clone();
+    mergeSort(buffer, perm, 0, perm.length, (row1, row2) -> {
+      boolean na1 = column.isElementNA(row1);
+      boolean na2 = column.isElementNA(row2);
+      if(na1 && na2) {
+        return 0;
+      } else if(na1) {
+        return naLast ? +1 : -1;
+      } else if(na2) {
+        return naLast ? -1 : +1;
+      } else {
+        return decreasing ? -column.compare(row1, row2) : column.compare(row1, row2);
+      }
+    });
+  }
+
+  private interface RowComparator {
+    int compare(int row1, int row2);
+  }
+
+  /**
+   * Sorts {@code src[lo, hi)} into {@code dst[lo, hi)}. Both arrays must initially hold the same elements.
+   */
+  private static void mergeSort(int[] src, int[] dst, int lo, int hi, RowComparator comparator) {
+    if(hi - lo < 2) {
+      return;
+    }
+    int mid = (lo + hi) >>> 1;
+    mergeSort(dst, src, lo, mid, comparator);
+    mergeSort(dst, src, mid, hi, comparator);
+
+    int i = lo;
+    int j = mid;
+    for (int k = lo; k < hi; k++) {
+      if(j >= hi || (i < mid && comparator.compare(src[i], src[j]) <= 0)) {
+        dst[k] = src[i++];
+      } else {
+        dst[k] = src[j++];
+      }
+    }
+  }
+
+  /**
+   * Stable counting sort of {@code perm} by {@code keys}, which must lie in {@code [0, numBuckets)}
+   */
+  private static void countingSort(int[] keys, int[] perm, int numBuckets) {
+    int n = perm.length;
+    int[] offsets = new int[numBuckets + 1];
+    for (int i = 0; i < n; i++) {
+      offsets[keys[i] + 1]++;
+    }
+    for (int b = 0; b < numBuckets; b++) {
+      offsets[b + 1] += offsets[b];
+    }
+    int[] sorted = new int[n];
+    for (int i = 0; i < n; i++) {
+      sorted[offsets[keys[i]]++] = perm[i];
+    }
+    System.arraycopy(sorted, 0, perm, 0, n);
+  }
+
+  /**
+   * Stable LSD radix sort of {@code perm} by {@code keys}, treated as unsigned integers. Digits on which
+   * all keys agree are skipped.
+   */
+  private static void radixSort(int[] keys, int[] perm) {
+    int n = perm.length;
+    int numDigits = Integer.SIZE / RADIX_BITS;
+    int[][] counts = new int[numDigits][RADIX];
+    for (int i = 0; i < n; i++) {
+      int key = keys[i];
+      for (int d = 0; d < numDigits; d++) {
+        counts[d][(key >>> (d * RADIX_BITS)) & RADIX_MASK]++;
+      }
+    }
+
+    int[] srcKeys = keys;
+    int[] srcPerm = perm;
+    int[] dstKeys = new int[n];
+    int[] dstPerm = new int[n];
+
+    for (int d = 0; d < numDigits; d++) {
+      int[] offsets = counts[d];
+      if(isTrivialDigit(offsets, n)) {
+        continue;
+      }
+      toOffsets(offsets);
+      int shift = d * RADIX_BITS;
+      for (int i = 0; i < n; i++) {
+        int key = srcKeys[i];
+        int pos = offsets[(key >>> shift) & RADIX_MASK]++;
+        dstKeys[pos] = key;
+        dstPerm[pos] = srcPerm[i];
+      }
+      int[] tmp = srcKeys; srcKeys = dstKeys; dstKeys = tmp;
+      tmp = srcPerm; srcPerm = dstPerm; dstPerm = tmp;
+    }
+    if(srcPerm != perm) {
+      System.arraycopy(srcPerm, 0, perm, 0, n);
+    }
+  }
+
+  /**
+   * Stable LSD radix sort of {@code perm} by {@code keys}, treated as unsigned longs. Digits on which
+   * all keys agree are skipped.
+   */
+  private static void radixSort(long[] keys, int[] perm) {
+    int n = perm.length;
+    int numDigits = Long.SIZE / RADIX_BITS;
+    int[][] counts = new int[numDigits][RADIX];
+    for (int i = 0; i < n; i++) {
+      long key = keys[i];
+      for (int d = 0; d < numDigits; d++) {
+        counts[d][(int) (key >>> (d * RADIX_BITS)) & RADIX_MASK]++;
+      }
+    }
+
+    long[] srcKeys = keys;
+    int[] srcPerm = perm;
+    long[] dstKeys = new long[n];
+    int[] dstPerm = new int[n];
+
+    for (int d = 0; d < numDigits; d++) {
+      int[] offsets = counts[d];
+      if(isTrivialDigit(offsets, n)) {
+        continue;
+      }
+      toOffsets(offsets);
+      int shift = d * RADIX_BITS;
+      for (int i = 0; i < n; i++) {
+        long key = srcKeys[i];
+        int pos = offsets[(int) (key >>> shift) & RADIX_MASK]++;
+        dstKeys[pos] = key;
+        dstPerm[pos] = srcPerm[i];
+      }
+      long[] tmpKeys = srcKeys; srcKeys = dstKeys; dstKeys = tmpKeys;
+      int[] tmpPerm = srcPerm; srcPerm = dstPerm; dstPerm = tmpPerm;
+    }
+    if(srcPerm != perm) {
+      System.arraycopy(srcPerm, 0, perm, 0, n);
+    }
+  }
+
+  private static boolean isTrivialDigit(int[] counts, int n) {
+    for (int b = 0; b < RADIX; b++) {
+      if(counts[b] != 0) {
+        return counts[b] == n;
+      }
+    }
+    return true;
+  }
+
+  private static void toOffsets(int[] counts) {
+    int sum = 0;
+    for (int b = 0; b < RADIX; b++) {
+      int count = counts[b];
+      counts[b] = sum;
+      sum += count;
+    }
+  }
+}
@@ -19,6 +19,7 @@
 package org.renjin.primitives.special;
 
 import org.renjin.compiler.CompiledLoopBody;
+import org.renjin.compiler.CompiledLoopCache;
 import org.renjin.compiler.NotCompilableException;
 import org.renjin.compiler.TypeSolver;
 import org.renjin.compiler.cfg.ControlFlowGraph;
@@ -105,45 +106,58 @@ public class ForFunction extends SpecialFunction {
 
   private boolean tryCompileAndRun(Context context, Environment rho, FunctionCall call, Vector elements, int i) {
 
-    CompiledLoopBody compiledBody = null;
+    CompiledLoopCache cache = context.getSession().getCompiledLoopCache();
+    if(cache.isUncompilable(call)) {
+      return false;
+    }
 
-    try {
+    CompiledLoopBody compiledBody = cache.lookup(context, rho, call, elements);
 
-      RuntimeState runtimeState = new RuntimeState(context, rho);
-      IRBodyBuilder builder = new IRBodyBuilder(runtimeState);
-      IRBody body = builder.buildLoopBody(call, elements);
+    if(compiledBody == null) {
+      long compileStart = System.nanoTime();
+      try {
 
-      ControlFlowGraph cfg = new ControlFlowGraph(body);
+        RuntimeState runtimeState = new RuntimeState(context, rho);
+        IRBodyBuilder builder = new IRBodyBuilder(runtimeState);
+        IRBody body = builder.buildLoopBody(call, elements);
 
-      DominanceTree dTree = new DominanceTree(cfg);
-      SsaTransformer ssaTransformer = new SsaTransformer(cfg, dTree);
-      ssaTransformer.transform();
+        ControlFlowGraph cfg = new ControlFlowGraph(body);
 
+        DominanceTree dTree = new DominanceTree(cfg);
+        SsaTransformer ssaTransformer = new SsaTransformer(cfg, dTree);
+        ssaTransformer.transform();
 
-      UseDefMap useDefMap = new UseDefMap(cfg);
-      TypeSolver types = new TypeSolver(cfg, useDefMap);
-      types.execute();
 
-      types.verifyFunctionAssumptions(runtimeState);
+        UseDefMap useDefMap = new UseDefMap(cfg);
+        TypeSolver types = new TypeSolver(cfg, useDefMap);
+        types.execute();
 
-      ssaTransformer.removePhiFunctions(types);
+        types.verifyFunctionAssumptions(runtimeState);
 
+        ssaTransformer.removePhiFunctions(types);
 
-      ByteCodeEmitter emitter = new ByteCodeEmitter(cfg, types);
-      compiledBody = emitter.compileLoopBody().newInstance();
 
-    } catch (NotCompilableException e) {
-      if(FAIL_ON_COMPILATION_ERROR) {
-        throw new AssertionError("Loop compilation failed: " + e.toString(context));
-      }
-      context.warn("Could not compile loop because: " + e.toString(context));
-      return false;
+        ByteCodeEmitter emitter = new ByteCodeEmitter(cfg, types);
+        compiledBody = emitter.compileLoopBody().newInstance();
+
+        cache.put(call, runtimeState, elements, compiledBody, System.nanoTime() - compileStart);
 
-    } catch (InvalidSyntaxException e) {
-      throw new EvalException(e.getMessage());
-      
-    } catch (Exception e) {
-      throw new EvalException("Exception compiling loop: " + e.getMessage(), e);
+      } catch (NotCompilableException e) {
+        boolean firstFailure = cache.markUncompilable(call, System.nanoTime() - compileStart);
+        if(FAIL_ON_COMPILATION_ERROR) {
+          throw new AssertionError("Loop compilation failed: " + e.toString(context));
+        }
+        if(firstFailure) {
+          context.warn("Could not compile loop because: " + e.toString(context));
+        }
+        return false;
+
+      } catch (InvalidSyntaxException e) {
+        throw new EvalException(e.getMessage());
+
+      } catch (Exception e) {
+        throw new EvalException("Exception compiling loop: " + e.getMessage(), e);
+      }
     }
 
     compiledBody.run(context, rho, elements, i);
@@ -0,0 +1,101 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.summary;
+
+import org.renjin.eval.EvalException;
+
+/**
+ * Accumulates a summary of a sequence of double values, such as their maximum or variance.
+ *
+ * <p>Accumulators are shared by the deferred summary vectors, which compute their result in Java,
+ * and the {@link org.renjin.pipeliner.fusion.kernel.AccumulatorKernel}, which calls the accumulator
+ * from a compiled loop into which the computation of the input vector has been fused.</p>
+ *
+ * <p>The loop over a vector may be split into consecutive ranges: each range is accumulated separately
+ * and its {@link #partial()} state is then {@link #merge(double[]) merged}, in order, into a single accumulator
+ * which has begun the full range.</p>
+ *
+ * <p>Values are always passed as doubles, with integer and logical {@code NA}s passed as
+ * {@link org.renjin.sexp.DoubleVector#NA}.</p>
+ */
+public abstract class Accumulator {
+
+  /**
+   * Creates a new accumulator for the given computation name.
+   */
+  public static Accumulator create(String name) {
+    switch (name) {
+      case "min":
+        return new RangeAccumulator(RangeAccumulator.MIN);
+      case "max":
+        return new RangeAccumulator(RangeAccumulator.MAX);
+      case "range":
+        return new RangeAccumulator(RangeAccumulator.RANGE);
+      case "prod":
+        return new ProductAccumulator();
+      case "var":
+        return new VarianceAccumulator();
+      case "any":
+        return new LogicalAccumulator(false);
+      case "all":
+        return new LogicalAccumulator(true);
+      case "which.max":
+        return new WhichMaxAccumulator();
+      case "cumsum":
+        return new CumsumAccumulator();
+      case "tabulate":
+        return new TabulateAccumulator();
+      default:
+        throw new EvalException("No accumulator for " + name);
+    }
+  }
+
+  /**
+   * Sets the integer parameter of the summary, such as the number of bins, before {@link #begin(int, int)}
+   * is called.
+   */
+  public void setParameter(int value) {
+  }
+
+  /**
+   * Prepares the accumulator to accept the elements from {@code start}, inclusive, to {@code end},
+   * exclusive.
+   */
+  public abstract void begin(int start, int end);
+
+  /**
+   * Accepts the next element in the range.
+   */
+  public abstract void accept(double value);
+
+  /**
+   * @return the state of this accumulator, to be merged into an accumulator over a larger range.
+   */
+  public abstract double[] partial();
+
+  /**
+   * Merges the partial state of the next consecutive range of elements into this accumulator.
+   */
+  public abstract void merge(double[] partial);
+
+  /**
+   * @return the final result of the summary.
+   */
+  public abstract double[] result();
+}
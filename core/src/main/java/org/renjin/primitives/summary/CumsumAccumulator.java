@@ -0,0 +1,73 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.summary;
+
+import org.renjin.sexp.DoubleVector;
+
+/**
+ * Computes the cumulative sums of double values. Once the sum becomes {@code NA}, the remaining
+ * sums are {@code NA}.
+ */
+class CumsumAccumulator extends Accumulator {
+
+  private double[] sums;
+  private int position;
+  private double sum;
+  private boolean naEncountered;
+
+  @Override
+  public void begin(int start, int end) {
+    sums = new double[end - start];
+    position = 0;
+    sum = 0;
+    naEncountered = false;
+  }
+
+  @Override
+  public void accept(double value) {
+    if(!naEncountered) {
+      sum += value;
+      naEncountered = DoubleVector.isNA(sum);
+    }
+    sums[position++] = naEncountered ? DoubleVector.NA : sum;
+  }
+
+  @Override
+  public double[] partial() {
+    return sums;
+  }
+
+  @Override
+  public void merge(double[] partial) {
+    // The partial sums of the next range are offset by the total of the preceding ranges
+    double offset = sum;
+    for (int i = 0; i < partial.length; i++) {
+      if(!naEncountered) {
+        sum = offset + partial[i];
+        naEncountered = DoubleVector.isNA(partial[i]) || DoubleVector.isNA(sum);
+      }
+      sums[position++] = naEncountered ? DoubleVector.NA : sum;
+    }
+  }
+
+  @Override
+  public double[] result() {
+    return sums;
+  }
+}
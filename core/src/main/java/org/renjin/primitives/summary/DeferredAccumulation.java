@@ -0,0 +1,146 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.summary;
+
+import org.renjin.primitives.vector.MemoizedComputation;
+import org.renjin.sexp.*;
+
+/**
+ * A summary of a deferred vector, computed by an {@link Accumulator}, which the vector pipeliner
+ * can fuse with the computation of the vector so that the vector itself is never stored.
+ */
+public class DeferredAccumulation extends DoubleVector implements MemoizedComputation {
+
+  private final String name;
+  private final Vector vector;
+  private final IntVector parameter;
+  private final int length;
+  private double[] result;
+
+  /**
+   * @param name the name of the accumulator, such as "max" or "var"
+   * @param vector the vector to summarize
+   * @param length the length of the result
+   */
+  public DeferredAccumulation(String name, Vector vector, int length, AttributeMap attributes) {
+    this(name, vector, null, length, attributes);
+  }
+
+  /**
+   * @param name the name of the accumulator, such as "tabulate"
+   * @param vector the vector to summarize
+   * @param parameter the integer parameter passed to the accumulator
+   * @param length the length of the result
+   */
+  public DeferredAccumulation(String name, Vector vector, int parameter, int length, AttributeMap attributes) {
+    this(name, vector, new IntArrayVector(parameter), length, attributes);
+  }
+
+  private DeferredAccumulation(String name, Vector vector, IntVector parameter, int length, AttributeMap attributes) {
+    super(attributes);
+    this.name = name;
+    this.vector = vector;
+    this.parameter = parameter;
+    this.length = length;
+  }
+
+  @Override
+  public Vector[] getOperands() {
+    if(parameter == null) {
+      return new Vector[] { vector };
+    } else {
+      return new Vector[] { vector, parameter };
+    }
+  }
+
+  @Override
+  public String getComputationName() {
+    return name;
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    DeferredAccumulation copy = new DeferredAccumulation(name, vector, parameter, length, attributes);
+    copy.result = result;
+    return copy;
+  }
+
+  @Override
+  public double getElementAsDouble(int index) {
+    if(result == null) {
+      result = compute();
+    }
+    return result[index];
+  }
+
+  private double[] compute() {
+    Accumulator accumulator = Accumulator.create(name);
+    if(parameter != null) {
+      accumulator.setParameter(parameter.getElementAsInt(0));
+    }
+    int vectorLength = vector.length();
+    accumulator.begin(0, vectorLength);
+    for (int i = 0; i < vectorLength; i++) {
+      accumulator.accept(vector.getElementAsDouble(i));
+    }
+    return accumulator.result();
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public boolean isConstantAccessTime() {
+    return false;
+  }
+
+  @Override
+  public boolean isCalculated() {
+    return result != null;
+  }
+
+  @Override
+  public boolean isDeferred() {
+    return !isCalculated();
+  }
+
+  @Override
+  public Vector forceResult() {
+    if(result == null) {
+      result = compute();
+    }
+    return DoubleArrayVector.unsafe(result, getAttributes());
+  }
+
+  @Override
+  public void setResult(Vector result) {
+    this.result = ((DoubleArrayVector) result).toDoubleArrayUnsafe();
+  }
+
+  @Override
+  public String toString() {
+    if(result != null) {
+      return DoubleArrayVector.unsafe(result).toString();
+    } else {
+      return "<deferred " + name + ">";
+    }
+  }
+}
@@ -39,10 +39,6 @@ public class DeferredMean extends DeferredSummary {
   }
 
   protected double calculate() {
-    double sum = 0;
-    for(int i=0;i!=vector.length();++i) {
-      sum += vector.getElementAsDouble(i);
-    }
-    return sum / vector.length();
+    return sumElements() / vector.length();
   }
 }
@@ -30,11 +30,7 @@ public class DeferredSum extends DeferredSummary {
 
   @Override
   protected double calculate() {
-    double sum = 0;
-    for(int i=0;i!=vector.length();++i) {
-      sum += vector.getElementAsDouble(i);
-    }
-    return sum;
+    return sumElements();
   }
 
 
@@ -19,8 +19,10 @@
 package org.renjin.primitives.summary;
 
 import org.renjin.primitives.vector.MemoizedComputation;
+import org.renjin.sexp.AtomicVector;
 import org.renjin.sexp.AttributeMap;
 import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.DoubleCursor;
 import org.renjin.sexp.DoubleVector;
 import org.renjin.sexp.Vector;
 
@@ -54,6 +56,28 @@ public abstract class DeferredSummary extends DoubleVector implements MemoizedCo
 
   protected abstract double calculate();
 
+  /**
+   * @return the sum of the operand's elements, read in chunks when the operand is atomic.
+   */
+  protected final double sumElements() {
+    double sum = 0;
+    if(vector instanceof AtomicVector) {
+      DoubleCursor cursor = new DoubleCursor((AtomicVector) vector);
+      while(cursor.next()) {
+        double[] chunk = cursor.getChunk();
+        int chunkLength = cursor.getChunkLength();
+        for(int i=0;i!=chunkLength;++i) {
+          sum += chunk[i];
+        }
+      }
+    } else {
+      for(int i=0;i!=vector.length();++i) {
+        sum += vector.getElementAsDouble(i);
+      }
+    }
+    return sum;
+  }
+
   @Override
   public final int length() {
     return 1;
@@ -0,0 +1,79 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.summary;
+
+import org.renjin.sexp.DoubleVector;
+
+/**
+ * Computes {@code any()} or {@code all()} of values coerced to logical, encoding the
+ * result as 1, 0 or {@code NA}.
+ */
+class LogicalAccumulator extends Accumulator {
+
+  private final boolean all;
+
+  private boolean trueEncountered;
+  private boolean falseEncountered;
+  private boolean naEncountered;
+
+  LogicalAccumulator(boolean all) {
+    this.all = all;
+  }
+
+  @Override
+  public void begin(int start, int end) {
+    trueEncountered = false;
+    falseEncountered = false;
+    naEncountered = false;
+  }
+
+  @Override
+  public void accept(double value) {
+    if(Double.isNaN(value)) {
+      naEncountered = true;
+    } else if(value != 0) {
+      trueEncountered = true;
+    } else {
+      falseEncountered = true;
+    }
+  }
+
+  @Override
+  public double[] partial() {
+    return new double[] { trueEncountered ? 1 : 0, falseEncountered ? 1 : 0, naEncountered ? 1 : 0 };
+  }
+
+  @Override
+  public void merge(double[] partial) {
+    trueEncountered |= partial[0] != 0;
+    falseEncountered |= partial[1] != 0;
+    naEncountered |= partial[2] != 0;
+  }
+
+  @Override
+  public double[] result() {
+    double result;
+    if(all) {
+      result = falseEncountered ? 0 : (naEncountered ? DoubleVector.NA : 1);
+    } else {
+      result = trueEncountered ? 1 : (naEncountered ? DoubleVector.NA : 0);
+    }
+    return new double[] { result };
+  }
+}
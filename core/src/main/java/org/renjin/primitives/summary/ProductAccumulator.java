@@ -0,0 +1,61 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.summary;
+
+import org.renjin.sexp.DoubleVector;
+
+/**
+ * Computes the product of double values, which is {@code NA} if any value is {@code NA}.
+ */
+class ProductAccumulator extends Accumulator {
+
+  private double product;
+  private boolean naEncountered;
+
+  @Override
+  public void begin(int start, int end) {
+    product = 1;
+    naEncountered = false;
+  }
+
+  @Override
+  public void accept(double value) {
+    if(DoubleVector.isNA(value)) {
+      naEncountered = true;
+    } else {
+      product *= value;
+    }
+  }
+
+  @Override
+  public double[] partial() {
+    return new double[] { product, naEncountered ? 1 : 0 };
+  }
+
+  @Override
+  public void merge(double[] partial) {
+    product *= partial[0];
+    naEncountered |= partial[1] != 0;
+  }
+
+  @Override
+  public double[] result() {
+    return new double[] { naEncountered ? DoubleVector.NA : product };
+  }
+}
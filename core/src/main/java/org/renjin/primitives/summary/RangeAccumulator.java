@@ -0,0 +1,101 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.summary;
+
+import org.renjin.sexp.DoubleVector;
+
+/**
+ * Computes the minimum, maximum, or range of double values. As in {@code min()} and {@code max()},
+ * an {@code NA} takes precedence over a {@code NaN}.
+ */
+class RangeAccumulator extends Accumulator {
+
+  static final int MIN = 0;
+  static final int MAX = 1;
+  static final int RANGE = 2;
+
+  private final int mode;
+
+  private double min;
+  private double max;
+  private boolean naEncountered;
+  private boolean nanEncountered;
+
+  RangeAccumulator(int mode) {
+    this.mode = mode;
+  }
+
+  @Override
+  public void begin(int start, int end) {
+    min = Double.POSITIVE_INFINITY;
+    max = Double.NEGATIVE_INFINITY;
+    naEncountered = false;
+    nanEncountered = false;
+  }
+
+  @Override
+  public void accept(double value) {
+    if(Double.isNaN(value)) {
+      if(DoubleVector.isNA(value)) {
+        naEncountered = true;
+      } else {
+        nanEncountered = true;
+      }
+    } else {
+      if(value < min) {
+        min = value;
+      }
+      if(value > max) {
+        max = value;
+      }
+    }
+  }
+
+  @Override
+  public double[] partial() {
+    return new double[] { min, max, naEncountered ? 1 : 0, nanEncountered ? 1 : 0 };
+  }
+
+  @Override
+  public void merge(double[] partial) {
+    min = Math.min(min, partial[0]);
+    max = Math.max(max, partial[1]);
+    naEncountered |= partial[2] != 0;
+    nanEncountered |= partial[3] != 0;
+  }
+
+  @Override
+  public double[] result() {
+    double resultMin = min;
+    double resultMax = max;
+    if(naEncountered) {
+      resultMin = resultMax = DoubleVector.NA;
+    } else if(nanEncountered) {
+      resultMin = resultMax = Double.NaN;
+    }
+    switch (mode) {
+      case MIN:
+        return new double[] { resultMin };
+      case MAX:
+        return new double[] { resultMax };
+      default:
+        return new double[] { resultMin, resultMax };
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.summary;
+
+/**
+ * Counts the number of times each integer value from 1 to {@code nbins} occurs, ignoring
+ * {@code NA}s and values outside that range, as {@code tabulate()} does.
+ */
+class TabulateAccumulator extends Accumulator {
+
+  private int numBins;
+  private double[] counts;
+
+  @Override
+  public void setParameter(int value) {
+    this.numBins = value;
+  }
+
+  @Override
+  public void begin(int start, int end) {
+    counts = new double[numBins];
+  }
+
+  @Override
+  public void accept(double value) {
+    if(value >= 1 && value < numBins + 1) {
+      counts[((int) value) - 1]++;
+    }
+  }
+
+  @Override
+  public double[] partial() {
+    return counts;
+  }
+
+  @Override
+  public void merge(double[] partial) {
+    for (int i = 0; i < numBins; i++) {
+      counts[i] += partial[i];
+    }
+  }
+
+  @Override
+  public double[] result() {
+    return counts;
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.summary;
+
+import org.renjin.sexp.DoubleVector;
+
+/**
+ * Computes the sample variance of double values in a single pass, using Welford's update for
+ * each value and Chan's formula to merge the state of consecutive ranges.
+ *
+ * <p>Missing values propagate, as with {@code use = "everything"}.</p>
+ */
+class VarianceAccumulator extends Accumulator {
+
+  private double count;
+  private double mean;
+  private double sumOfSquares;
+
+  @Override
+  public void begin(int start, int end) {
+    count = 0;
+    mean = 0;
+    sumOfSquares = 0;
+  }
+
+  @Override
+  public void accept(double value) {
+    count++;
+    double delta = value - mean;
+    mean += delta / count;
+    sumOfSquares += delta * (value - mean);
+  }
+
+  @Override
+  public double[] partial() {
+    return new double[] { count, mean, sumOfSquares };
+  }
+
+  @Override
+  public void merge(double[] partial) {
+    double otherCount = partial[0];
+    if(otherCount == 0) {
+      return;
+    }
+    double total = count + otherCount;
+    double delta = partial[1] - mean;
+    mean += delta * otherCount / total;
+    sumOfSquares += partial[2] + delta * delta * count * otherCount / total;
+    count = total;
+  }
+
+  @Override
+  public double[] result() {
+    if(count < 2) {
+      return new double[] { DoubleVector.NA };
+    }
+    return new double[] { sumOfSquares / (count - 1d) };
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.summary;
+
+import org.renjin.sexp.DoubleVector;
+
+/**
+ * Finds the one-based index of the first maximum of the values, ignoring {@code NA} and {@code NaN}s.
+ * The result is {@code NA} if there are no such values.
+ */
+class WhichMaxAccumulator extends Accumulator {
+
+  private int index;
+  private int maxIndex;
+  private double maxValue;
+
+  @Override
+  public void begin(int start, int end) {
+    index = start;
+    maxIndex = -1;
+    maxValue = Double.NEGATIVE_INFINITY;
+  }
+
+  @Override
+  public void accept(double value) {
+    if(!Double.isNaN(value)) {
+      if(maxIndex == -1 || value > maxValue) {
+        maxIndex = index;
+        maxValue = value;
+      }
+    }
+    index++;
+  }
+
+  @Override
+  public double[] partial() {
+    return new double[] { maxIndex, maxValue };
+  }
+
+  @Override
+  public void merge(double[] partial) {
+    // Ranges are merged in order, so a tie goes to the earlier range
+    if(partial[0] != -1 && (maxIndex == -1 || partial[1] > maxValue)) {
+      maxIndex = (int) partial[0];
+      maxValue = partial[1];
+    }
+  }
+
+  @Override
+  public double[] result() {
+    if(maxIndex == -1) {
+      return new double[] { DoubleVector.NA };
+    }
+    return new double[] { maxIndex + 1 };
+  }
+}
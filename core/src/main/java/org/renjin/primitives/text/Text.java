@@ -403,7 +403,7 @@ public class Text {
     if(value) {
       StringVector.Builder result = new StringVector.Builder();
       for(String string : x) {
-        if(re.match(string)) {
+        if(re.find(string)) {
           result.add(string);
         }
       }
@@ -413,7 +413,7 @@ public class Text {
       IntArrayVector.Builder result = new IntArrayVector.Builder(0);
       for(int i=0;i!=x.length();++i) {
         if (!x.isElementNA(i)) {
-          if (re.match(x.getElementAsString(i))) {
+          if (re.find(x.getElementAsString(i))) {
             result.add(i + 1);
           }
         }
@@ -452,7 +452,7 @@ public class Text {
     RE re = REFactory.compile(pattern, ignoreCase,  perl, fixed, useBytes);
     LogicalArrayVector.Builder result = new LogicalArrayVector.Builder();
     for(String string : x) {
-      result.add( ! StringVector.isNA(string) && re.match(string ));
+      result.add( ! StringVector.isNA(string) && re.find(string ));
     }
     return result.build();
   }
@@ -400,6 +400,7 @@ public class ExtendedRE implements Serializable, RE {
   transient CharacterIterator search;           // The string being matched against
   int matchFlags;                               // Match behaviour flags
   int maxParen = MAX_PAREN;
+  transient LazyDFA dfa;                        // Linear-time matcher for the program, if it has one
 
   // Parenthesized subexpressions
   transient int parenCount;                     // Number of subexpressions matched (num open parens + 1)
@@ -506,6 +507,17 @@ public class ExtendedRE implements Serializable, RE {
     this((REProgram) null, MATCH_NORMAL);
   }
 
+  /**
+   * Constructs a matcher for a pre-compiled program together with its {@link LazyDFA},
+   * which must have been built for the same {@code matchFlags}. The DFA answers
+   * {@link #find(String)} and rejects non-matching input before the backtracking
+   * matcher runs.
+   */
+  ExtendedRE(REProgram program, LazyDFA dfa, int matchFlags) {
+    this(program, matchFlags);
+    this.dfa = dfa;
+  }
+
   /**
    * Sets match behaviour flags which alter the way RE does matching.
    *
@@ -519,6 +531,7 @@ public class ExtendedRE implements Serializable, RE {
    */
   public void setMatchFlags(int matchFlags) {
     this.matchFlags = matchFlags;
+    this.dfa = null;
   }
 
   /**
@@ -546,6 +559,7 @@ public class ExtendedRE implements Serializable, RE {
    */
   public void setProgram(REProgram program) {
     this.program = program;
+    this.dfa = null;
     if (program != null && program.maxParens != -1) {
       this.maxParen = program.maxParens;
     } else {
@@ -947,35 +961,9 @@ public class ExtendedRE implements Serializable, RE {
             case E_NSPACE:
 
               // Give up if out of input
-              if (search.isEnd(idx)) {
+              if (search.isEnd(idx) || !matchesChar(instruction, node, search.charAt(idx), matchFlags)) {
                 return -1;
               }
-
-              char c = search.charAt(idx);
-
-              // Switch on escape
-              switch (opdata) {
-                case E_ALNUM:
-                case E_NALNUM:
-                  if (!((Character.isLetterOrDigit(c) || c == '_') == (opdata == E_ALNUM))) {
-                    return -1;
-                  }
-                  break;
-
-                case E_DIGIT:
-                case E_NDIGIT:
-                  if (!(Character.isDigit(c) == (opdata == E_DIGIT))) {
-                    return -1;
-                  }
-                  break;
-
-                case E_SPACE:
-                case E_NSPACE:
-                  if (!(Character.isWhitespace(c) == (opdata == E_SPACE))) {
-                    return -1;
-                  }
-                  break;
-              }
               idx++;
               break;
 
@@ -985,17 +973,12 @@ public class ExtendedRE implements Serializable, RE {
           break;
 
         case OP_ANY:
+        case OP_POSIXCLASS:
+        case OP_ANYOF:
 
-          if ((matchFlags & MATCH_SINGLELINE) == MATCH_SINGLELINE) {
-            // Match anything
-            if (search.isEnd(idx)) {
-              return -1;
-            }
-          } else {
-            // Match anything but a newline
-            if (search.isEnd(idx) || isNewline(idx)) {
-              return -1;
-            }
+          // Out of input, or not matched by the character class?
+          if (search.isEnd(idx) || !matchesChar(instruction, node, search.charAt(idx), matchFlags)) {
+            return -1;
           }
           idx++;
           break;
@@ -1027,159 +1010,6 @@ public class ExtendedRE implements Serializable, RE {
         }
         break;
 
-        case OP_POSIXCLASS: {
-          // Out of input?
-          if (search.isEnd(idx)) {
-            return -1;
-          }
-
-          switch (opdata) {
-            case POSIX_CLASS_ALNUM:
-              if (!Character.isLetterOrDigit(search.charAt(idx))) {
-                return -1;
-              }
-              break;
-
-            case POSIX_CLASS_ALPHA:
-              if (!Character.isLetter(search.charAt(idx))) {
-                return -1;
-              }
-              break;
-
-            case POSIX_CLASS_DIGIT:
-              if (!Character.isDigit(search.charAt(idx))) {
-                return -1;
-              }
-              break;
-
-            case POSIX_CLASS_BLANK: // JWL - bugbug: is this right??
-              if (!Character.isSpaceChar(search.charAt(idx))) {
-                return -1;
-              }
-              break;
-
-            case POSIX_CLASS_SPACE:
-              if (!Character.isWhitespace(search.charAt(idx))) {
-                return -1;
-              }
-              break;
-
-            case POSIX_CLASS_CNTRL:
-              if (Character.getType(search.charAt(idx)) != Character.CONTROL) {
-                return -1;
-              }
-              break;
-
-            case POSIX_CLASS_GRAPH: // JWL - bugbug???
-              switch (Character.getType(search.charAt(idx))) {
-                case Character.MATH_SYMBOL:
-                case Character.CURRENCY_SYMBOL:
-                case Character.MODIFIER_SYMBOL:
-                case Character.OTHER_SYMBOL:
-                  break;
-
-                default:
-                  return -1;
-              }
-              break;
-
-            case POSIX_CLASS_LOWER:
-              if (Character.getType(search.charAt(idx)) != Character.LOWERCASE_LETTER) {
-                return -1;
-              }
-              break;
-
-            case POSIX_CLASS_UPPER:
-              if (Character.getType(search.charAt(idx)) != Character.UPPERCASE_LETTER) {
-                return -1;
-              }
-              break;
-
-            case POSIX_CLASS_PRINT:
-              if (Character.getType(search.charAt(idx)) == Character.CONTROL) {
-                return -1;
-              }
-              break;
-
-            case POSIX_CLASS_PUNCT: {
-              int type = Character.getType(search.charAt(idx));
-              switch (type) {
-                case Character.DASH_PUNCTUATION:
-                case Character.START_PUNCTUATION:
-                case Character.END_PUNCTUATION:
-                case Character.CONNECTOR_PUNCTUATION:
-                case Character.OTHER_PUNCTUATION:
-                  break;
-
-                default:
-                  return -1;
-              }
-            }
-            break;
-
-            case POSIX_CLASS_XDIGIT: // JWL - bugbug??
-            {
-              boolean isXDigit = ((search.charAt(idx) >= '0' && search.charAt(idx) <= '9') ||
-                  (search.charAt(idx) >= 'a' && search.charAt(idx) <= 'f') ||
-                  (search.charAt(idx) >= 'A' && search.charAt(idx) <= 'F'));
-              if (!isXDigit) {
-                return -1;
-              }
-            }
-            break;
-
-            case POSIX_CLASS_JSTART:
-              if (!Character.isJavaIdentifierStart(search.charAt(idx))) {
-                return -1;
-              }
-              break;
-
-            case POSIX_CLASS_JPART:
-              if (!Character.isJavaIdentifierPart(search.charAt(idx))) {
-                return -1;
-              }
-              break;
-
-            default:
-              internalError("Bad posix class");
-              break;
-          }
-
-          // Matched.
-          idx++;
-        }
-        break;
-
-        case OP_ANYOF: {
-          // Out of input?
-          if (search.isEnd(idx)) {
-            return -1;
-          }
-
-          // Get character to match against character class and maybe casefold
-          char c = search.charAt(idx);
-          boolean caseFold = (matchFlags & MATCH_CASEINDEPENDENT) != 0;
-          // Loop through character class checking our match character
-          int idxRange = node + NODE_SIZE;
-          int idxEnd = idxRange + (opdata * 2);
-          boolean match = false;
-          for (int i = idxRange; !match && i < idxEnd; ) {
-            // Get start, end and match characters
-            char s = instruction[i++];
-            char e = instruction[i++];
-
-            match = ((compareChars(c, s, caseFold) >= 0)
-                && (compareChars(c, e, caseFold) <= 0));
-          }
-
-          // Fail if we didn't match the character class
-          if (!match) {
-            return -1;
-          }
-          idx++;
-        }
-        break;
-
         case OP_BRANCH: {
           // Check for choices
           // FIXME Dead code - only reason to keep is backward compat with pre-compiled exprs. Remove?
@@ -1244,6 +1074,127 @@ public class ExtendedRE implements Serializable, RE {
     return -1;
   }
 
+  /**
+   * Tests whether the single-character node at {@code node} matches {@code c}. This
+   * covers {@code OP_ANY}, {@code OP_ANYOF}, {@code OP_POSIXCLASS} and the character
+   * class escapes, and is shared by the backtracking matcher and {@link LazyDFA}.
+   */
+  static boolean matchesChar(char[] instruction, int node, char c, int matchFlags) {
+    int opdata = instruction[node + OFFSET_OPDATA];
+    switch (instruction[node /* + offsetOpcode */]) {
+      case OP_ANY:
+        // Match anything, or anything but a newline
+        return (matchFlags & MATCH_SINGLELINE) == MATCH_SINGLELINE || !isNewline(c);
+
+      case OP_ESCAPE:
+        switch (opdata) {
+          case E_ALNUM:
+          case E_NALNUM:
+            return (Character.isLetterOrDigit(c) || c == '_') == (opdata == E_ALNUM);
+
+          case E_DIGIT:
+          case E_NDIGIT:
+            return Character.isDigit(c) == (opdata == E_DIGIT);
+
+          case E_SPACE:
+          case E_NSPACE:
+            return Character.isWhitespace(c) == (opdata == E_SPACE);
+
+          default:
+            throw new Error("RE internal error: Unrecognized escape '" + opdata + "'");
+        }
+
+      case OP_POSIXCLASS:
+        switch (opdata) {
+          case POSIX_CLASS_ALNUM:
+            return Character.isLetterOrDigit(c);
+
+          case POSIX_CLASS_ALPHA:
+            return Character.isLetter(c);
+
+          case POSIX_CLASS_DIGIT:
+            return Character.isDigit(c);
+
+          case POSIX_CLASS_BLANK: // JWL - bugbug: is this right??
+            return Character.isSpaceChar(c);
+
+          case POSIX_CLASS_SPACE:
+            return Character.isWhitespace(c);
+
+          case POSIX_CLASS_CNTRL:
+            return Character.getType(c) == Character.CONTROL;
+
+          case POSIX_CLASS_GRAPH: // JWL - bugbug???
+            switch (Character.getType(c)) {
+              case Character.MATH_SYMBOL:
+              case Character.CURRENCY_SYMBOL:
+              case Character.MODIFIER_SYMBOL:
+              case Character.OTHER_SYMBOL:
+                return true;
+
+              default:
+                return false;
+            }
+
+          case POSIX_CLASS_LOWER:
+            return Character.getType(c) == Character.LOWERCASE_LETTER;
+
+          case POSIX_CLASS_UPPER:
+            return Character.getType(c) == Character.UPPERCASE_LETTER;
+
+          case POSIX_CLASS_PRINT:
+            return Character.getType(c) != Character.CONTROL;
+
+          case POSIX_CLASS_PUNCT:
+            switch (Character.getType(c)) {
+              case Character.DASH_PUNCTUATION:
+              case Character.START_PUNCTUATION:
+              case Character.END_PUNCTUATION:
+              case Character.CONNECTOR_PUNCTUATION:
+              case Character.OTHER_PUNCTUATION:
+                return true;
+
+              default:
+                return false;
+            }
+
+          case POSIX_CLASS_XDIGIT: // JWL - bugbug??
+            return (c >= '0' && c <= '9') ||
+                (c >= 'a' && c <= 'f') ||
+                (c >= 'A' && c <= 'F');
+
+          case POSIX_CLASS_JSTART:
+            return Character.isJavaIdentifierStart(c);
+
+          case POSIX_CLASS_JPART:
+            return Character.isJavaIdentifierPart(c);
+
+          default:
+            throw new Error("RE internal error: Bad posix class");
+        }
+
+      case OP_ANYOF: {
+        // Loop through character class checking our match character
+        boolean caseFold = (matchFlags & MATCH_CASEINDEPENDENT) != 0;
+        int idxRange = node + NODE_SIZE;
+        int idxEnd = idxRange + (opdata * 2);
+        for (int i = idxRange; i < idxEnd; ) {
+          // Get start, end and match characters
+          char s = instruction[i++];
+          char e = instruction[i++];
+
+          if ((compareChars(c, s, caseFold) >= 0) && (compareChars(c, e, caseFold) <= 0)) {
+            return true;
+          }
+        }
+        return false;
+      }
+
+      default:
+        throw new Error("RE internal error: Not a character class '" + instruction[node] + "'");
+    }
+  }
+
   /**
    * Match the current regular expression program against the current
    * input string, starting at index i of the input string.  This method
@@ -1285,6 +1236,10 @@ public class ExtendedRE implements Serializable, RE {
 
 
   public boolean match(String search, int i) {
+    if (dfa != null && !dfa.find(search, i)) {
+      parenCount = 0;
+      return false;
+    }
     return match(new StringCharacterIterator(search), i);
   }
 
@@ -1384,6 +1339,14 @@ public class ExtendedRE implements Serializable, RE {
     return match(search, 0);
   }
 
+  @Override
+  public boolean find(String search) {
+    if (dfa != null) {
+      return dfa.find(search, 0);
+    }
+    return match(search, 0);
+  }
+
   /**
    * Splits a string into an array of strings on regular expression boundaries.
    * This function works the same way as the Perl function of the same name.
@@ -1558,8 +1521,10 @@ public class ExtendedRE implements Serializable, RE {
    * @return true if character at i-th position in the <code>search</code> string is a newline
    */
   private boolean isNewline(int i) {
-    char nextChar = search.charAt(i);
+    return isNewline(search.charAt(i));
+  }
 
+  static boolean isNewline(char nextChar) {
     return nextChar == '\n' || nextChar == '\r' || nextChar == '\u0085' ||
         nextChar == '\u2028' || nextChar == '\u2029';
   }
@@ -1573,7 +1538,7 @@ public class ExtendedRE implements Serializable, RE {
    * @return negative, 0, or positive integer as the first character
    * less than, equal to, or greater then the second.
    */
-  private int compareChars(char c1, char c2, boolean caseIndependent) {
+  static int compareChars(char c1, char c2, boolean caseIndependent) {
     if (caseIndependent) {
       c1 = Character.toLowerCase(c1);
       c2 = Character.toLowerCase(c2);
@@ -0,0 +1,433 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+
+package org.renjin.primitives.text.regex;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A lazily-constructed DFA that decides whether a compiled {@link REProgram} matches anywhere
+ * in a string, in time linear in the length of the string.
+ *
+ * <p>The program's nodes are treated as a Thompson NFA: each DFA state is the set of
+ * character-consuming nodes (plus {@code OP_EOL} and {@code OP_END}) that the backtracking
+ * matcher could be positioned at after reading a prefix of the input. States and their
+ * transitions are created on demand and cached, so each character of the input costs a
+ * single table lookup once the automaton has warmed up.</p>
+ *
+ * <p>Programs that use backreferences, reluctant closures or word boundaries cannot be
+ * matched this way; {@link #compile(REProgram, int)} returns {@code null} for them and the
+ * backtracking matcher is used alone.</p>
+ *
+ * <p>Instances are safe to share between threads: lookups of existing transitions are lock-free,
+ * and new states are built while holding the DFA's monitor.</p>
+ */
+final class LazyDFA {
+
+  /**
+   * The maximum number of states kept before the cache is flushed and rebuilt from scratch.
+   */
+  private static final int MAX_STATES = 1000;
+
+  private final char[] instruction;
+  private final int matchFlags;
+  private final boolean caseFold;
+
+  /**
+   * For each index into the instruction array that holds a character of an {@code OP_ATOM},
+   * the index of the atom node itself, or -1.
+   */
+  private final int[] atomNode;
+
+  private final Map<Key, State> states = new HashMap<>();
+
+  /**
+   * The initial state when matching from the start of the string.
+   */
+  private volatile State startAtBeginning;
+
+  /**
+   * The initial state when matching from any other position. Its positions are also merged into
+   * every other state, which makes the automaton search for a match starting anywhere.
+   */
+  private volatile State start;
+
+  // Scratch space for building states, guarded by this
+  private final int[] visited;
+  private final int[] inSet;
+  private int generation;
+  private int[] stack;
+  private int[] found;
+  private int foundCount;
+
+  private LazyDFA(REProgram program, int matchFlags, int[] atomNode) {
+    this.instruction = program.instruction;
+    this.matchFlags = matchFlags;
+    this.caseFold = (matchFlags & ExtendedRE.MATCH_CASEINDEPENDENT) != 0;
+    this.atomNode = atomNode;
+    this.visited = new int[program.lenInstruction];
+    this.inSet = new int[program.lenInstruction];
+    this.stack = new int[16];
+    this.found = new int[16];
+    reset();
+  }
+
+  /**
+   * Builds a DFA for {@code program}, or returns {@code null} if the program uses features
+   * that cannot be matched without backtracking.
+   */
+  static LazyDFA compile(REProgram program, int matchFlags) {
+    if ((matchFlags & ~(ExtendedRE.MATCH_CASEINDEPENDENT | ExtendedRE.MATCH_SINGLELINE)) != 0) {
+      return null;
+    }
+    char[] instruction = program.instruction;
+    int lenInstruction = program.lenInstruction;
+    if (instruction == null || lenInstruction == 0) {
+      return null;
+    }
+    int[] atomNode = new int[lenInstruction];
+    Arrays.fill(atomNode, -1);
+
+    for (int node = 0; node < lenInstruction; node += ExtendedRE.NODE_SIZE) {
+      char opdata = instruction[node + ExtendedRE.OFFSET_OPDATA];
+      switch (instruction[node + ExtendedRE.OFFSET_OPCODE]) {
+        case ExtendedRE.OP_ANYOF:
+          node += opdata * 2;
+          break;
+
+        case ExtendedRE.OP_ATOM:
+          if (opdata == 0) {
+            return null;
+          }
+          for (int i = 0; i < opdata; i++) {
+            atomNode[node + ExtendedRE.NODE_SIZE + i] = node;
+          }
+          node += opdata;
+          break;
+
+        case ExtendedRE.OP_ESCAPE:
+          if (opdata == ExtendedRE.E_BOUND || opdata == ExtendedRE.E_NBOUND) {
+            return null;
+          }
+          break;
+
+        case ExtendedRE.OP_END:
+        case ExtendedRE.OP_BOL:
+        case ExtendedRE.OP_EOL:
+        case ExtendedRE.OP_ANY:
+        case ExtendedRE.OP_BRANCH:
+        case ExtendedRE.OP_STAR:
+        case ExtendedRE.OP_PLUS:
+        case ExtendedRE.OP_MAYBE:
+        case ExtendedRE.OP_OPEN:
+        case ExtendedRE.OP_OPEN_CLUSTER:
+        case ExtendedRE.OP_CLOSE:
+        case ExtendedRE.OP_CLOSE_CLUSTER:
+        case ExtendedRE.OP_GOTO:
+        case ExtendedRE.OP_NOTHING:
+        case ExtendedRE.OP_CONTINUE:
+        case ExtendedRE.OP_POSIXCLASS:
+          break;
+
+        default:
+          // Backreferences and reluctant closures
+          return null;
+      }
+    }
+    return new LazyDFA(program, matchFlags, atomNode);
+  }
+
+  /**
+   * Returns true if the program matches {@code search} at any position at or after
+   * {@code from}, with the same result as {@link ExtendedRE#match(String, int)}.
+   */
+  boolean find(String search, int from) {
+    int length = search.length();
+    if (from > length) {
+      return false;
+    }
+    State state = from == 0 ? startAtBeginning : start;
+    for (int i = from; ; i++) {
+      if (state.accepting) {
+        return true;
+      }
+      if (i == length) {
+        return state.acceptsAtEnd;
+      }
+      if (state.positions.length == 0) {
+        return false;
+      }
+      state = next(state, search.charAt(i));
+    }
+  }
+
+  private State next(State state, char c) {
+    State next;
+    if (c < State.ASCII) {
+      next = state.ascii[c];
+    } else {
+      next = state.others.get(c);
+    }
+    if (next == null) {
+      next = computeNext(state, c);
+    }
+    return next;
+  }
+
+  private synchronized State computeNext(State state, char c) {
+    if (states.size() >= MAX_STATES) {
+      reset();
+    }
+    newSet();
+    for (int pos : state.positions) {
+      int atom = atomNode[pos];
+      if (atom != -1) {
+        if (ExtendedRE.compareChars(c, instruction[pos], caseFold) == 0) {
+          if (pos + 1 < atom + ExtendedRE.NODE_SIZE + instruction[atom + ExtendedRE.OFFSET_OPDATA]) {
+            addToSet(pos + 1);
+          } else {
+            closure(nextNode(atom), false, false);
+          }
+        }
+      } else {
+        char opcode = instruction[pos];
+        if (opcode != ExtendedRE.OP_EOL && opcode != ExtendedRE.OP_END &&
+            ExtendedRE.matchesChar(instruction, pos, c, matchFlags)) {
+          closure(nextNode(pos), false, false);
+        }
+      }
+    }
+    for (int pos : start.positions) {
+      addToSet(pos);
+    }
+    State next = intern(false);
+    if (c < State.ASCII) {
+      state.ascii[c] = next;
+    } else {
+      state.others.put(c, next);
+    }
+    return next;
+  }
+
+  private void reset() {
+    states.clear();
+
+    newSet();
+    closure(0, true, false);
+    startAtBeginning = newState(true);
+
+    newSet();
+    closure(0, false, false);
+    start = intern(false);
+  }
+
+  private State intern(boolean atStart) {
+    Key key = new Key(sortedSet());
+    State state = states.get(key);
+    if (state == null) {
+      state = newState(atStart);
+      states.put(key, state);
+    }
+    return state;
+  }
+
+  private State newState(boolean atStart) {
+    int[] positions = sortedSet();
+    boolean accepting = false;
+    for (int pos : positions) {
+      if (atomNode[pos] == -1 && instruction[pos] == ExtendedRE.OP_END) {
+        accepting = true;
+      }
+    }
+
+    // Would the state accept if the input ended here?
+    boolean acceptsAtEnd = accepting;
+    if (!accepting) {
+      newSet();
+      for (int pos : positions) {
+        if (atomNode[pos] == -1 && instruction[pos] == ExtendedRE.OP_EOL) {
+          closure(nextNode(pos), atStart, true);
+        }
+      }
+      for (int i = 0; i < foundCount; i++) {
+        if (atomNode[found[i]] == -1 && instruction[found[i]] == ExtendedRE.OP_END) {
+          acceptsAtEnd = true;
+        }
+      }
+    }
+    return new State(positions, accepting, acceptsAtEnd);
+  }
+
+  private int nextNode(int node) {
+    return node + (short) instruction[node + ExtendedRE.OFFSET_NEXT];
+  }
+
+  /**
+   * Adds the nodes reachable from {@code first} without consuming input to the current set,
+   * following the same paths as {@link ExtendedRE#matchNodes(int, int, int)}.
+   */
+  private void closure(int first, boolean atStart, boolean atEnd) {
+    int top = push(0, first);
+    while (top > 0) {
+      int node = stack[--top];
+      if (visited[node] == generation) {
+        continue;
+      }
+      visited[node] = generation;
+
+      int next = nextNode(node);
+      switch (instruction[node + ExtendedRE.OFFSET_OPCODE]) {
+        case ExtendedRE.OP_MAYBE:
+        case ExtendedRE.OP_STAR:
+          top = push(top, next);
+          top = push(top, node + ExtendedRE.NODE_SIZE);
+          break;
+
+        case ExtendedRE.OP_PLUS:
+          // Either repeat the operand, which follows the OP_CONTINUE that the next
+          // pointer refers to, or continue with the rest of the expression
+          top = push(top, nextNode(next));
+          top = push(top, next);
+          break;
+
+        case ExtendedRE.OP_CONTINUE:
+          top = push(top, node + ExtendedRE.NODE_SIZE);
+          break;
+
+        case ExtendedRE.OP_BRANCH:
+          if (instruction[next] != ExtendedRE.OP_BRANCH) {
+            top = push(top, node + ExtendedRE.NODE_SIZE);
+          } else {
+            int nextBranch;
+            do {
+              top = push(top, node + ExtendedRE.NODE_SIZE);
+              nextBranch = (short) instruction[node + ExtendedRE.OFFSET_NEXT];
+              node += nextBranch;
+            } while (nextBranch != 0 && instruction[node] == ExtendedRE.OP_BRANCH);
+          }
+          break;
+
+        case ExtendedRE.OP_OPEN:
+        case ExtendedRE.OP_CLOSE:
+        case ExtendedRE.OP_OPEN_CLUSTER:
+        case ExtendedRE.OP_CLOSE_CLUSTER:
+        case ExtendedRE.OP_NOTHING:
+        case ExtendedRE.OP_GOTO:
+          top = push(top, next);
+          break;
+
+        case ExtendedRE.OP_BOL:
+          if (atStart) {
+            top = push(top, next);
+          }
+          break;
+
+        case ExtendedRE.OP_EOL:
+          if (atEnd) {
+            top = push(top, next);
+          } else {
+            addToSet(node);
+          }
+          break;
+
+        case ExtendedRE.OP_ATOM:
+          addToSet(node + ExtendedRE.NODE_SIZE);
+          break;
+
+        default:
+          // OP_END and single-character nodes
+          addToSet(node);
+          break;
+      }
+    }
+  }
+
+  private int push(int top, int node) {
+    if (visited[node] != generation) {
+      if (top == stack.length) {
+        stack = Arrays.copyOf(stack, stack.length * 2);
+      }
+      stack[top++] = node;
+    }
+    return top;
+  }
+
+  private void newSet() {
+    generation++;
+    foundCount = 0;
+  }
+
+  private void addToSet(int pos) {
+    if (inSet[pos] == generation) {
+      return;
+    }
+    inSet[pos] = generation;
+    if (foundCount == found.length) {
+      found = Arrays.copyOf(found, found.length * 2);
+    }
+    found[foundCount++] = pos;
+  }
+
+  private int[] sortedSet() {
+    int[] set = Arrays.copyOf(found, foundCount);
+    Arrays.sort(set);
+    return set;
+  }
+
+  private static final class State {
+
+    static final int ASCII = 128;
+
+    final int[] positions;
+    final boolean accepting;
+    final boolean acceptsAtEnd;
+
+    final State[] ascii = new State[ASCII];
+    final Map<Character, State> others = new ConcurrentHashMap<>();
+
+    State(int[] positions, boolean accepting, boolean acceptsAtEnd) {
+      this.positions = positions;
+      this.accepting = accepting;
+      this.acceptsAtEnd = acceptsAtEnd;
+    }
+  }
+
+  private static final class Key {
+    private final int[] positions;
+    private final int hashCode;
+
+    Key(int[] positions) {
+      this.positions = positions;
+      this.hashCode = Arrays.hashCode(positions);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Key && Arrays.equals(positions, ((Key) obj).positions);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
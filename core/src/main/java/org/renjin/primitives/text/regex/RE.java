@@ -50,6 +50,18 @@ public interface RE {
    */
   boolean match(String search);
 
+  /**
+   * Tests whether this regular expression matches anywhere in a string. Unlike
+   * {@link #match(String)}, the positions of the match and its groups are not
+   * recorded, which allows implementations to use a faster matcher.
+   *
+   * @param search String to match against
+   * @return True if string matched
+   */
+  default boolean find(String search) {
+    return match(search);
+  }
+
   /**
    * Substitutes a string for this regular expression in another string.
    * This method works like the Perl function of the same name.
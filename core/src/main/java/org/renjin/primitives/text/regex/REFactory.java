@@ -22,14 +22,27 @@
 package org.renjin.primitives.text.regex;
 
 import org.renjin.eval.EvalException;
+import org.renjin.repackaged.guava.cache.Cache;
+import org.renjin.repackaged.guava.cache.CacheBuilder;
 
+import java.util.Objects;
 import java.util.function.Predicate;
 
 /**
  * Compiles a regular expression based on the supplied options.
+ *
+ * <p>Compiled programs, together with their {@link LazyDFA}s, are cached by pattern and
+ * flags. Functions such as {@code sub} and {@code gsub} compile their pattern once for every
+ * element of their input, so the same pattern is typically requested many times in a row.
+ * Programs are immutable, so each call still receives its own {@link ExtendedRE} to hold
+ * the state of the match.</p>
  */
 public class REFactory {
 
+  private static final Cache<PatternKey, CompiledPattern> CACHE = CacheBuilder.newBuilder()
+      .maximumSize(500)
+      .build();
+
   /**
    * Compiles the pattern based on the supplied arguments.
    *
@@ -58,7 +71,7 @@ public class REFactory {
           return new EmptyFixedRE();
         }
 
-        return new ExtendedRE(pattern, ignoreCase);
+        return compileExtended(pattern, ignoreCase ? ExtendedRE.MATCH_CASEINDEPENDENT : ExtendedRE.MATCH_NORMAL);
       }
     } catch (RESyntaxException e) {
       throw new EvalException("Invalid pattern '%s': %s (perl=%s, fixed=%s)",
@@ -69,7 +82,55 @@ public class REFactory {
     }
   }
 
+  private static RE compileExtended(String pattern, int matchFlags) throws RESyntaxException {
+    PatternKey key = new PatternKey(pattern, matchFlags);
+    CompiledPattern compiled = CACHE.getIfPresent(key);
+    if (compiled == null) {
+      REProgram program = new RECompiler().compile(pattern);
+      compiled = new CompiledPattern(program, LazyDFA.compile(program, matchFlags));
+      CACHE.put(key, compiled);
+    }
+    return new ExtendedRE(compiled.program, compiled.dfa, matchFlags);
+  }
+
   public static Predicate<String> asPredicate(final RE re) {
-    return input -> re.match(input);
+    return input -> re.find(input);
+  }
+
+  private static final class PatternKey {
+    private final String pattern;
+    private final int matchFlags;
+
+    private PatternKey(String pattern, int matchFlags) {
+      this.pattern = pattern;
+      this.matchFlags = matchFlags;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof PatternKey)) {
+        return false;
+      }
+      PatternKey that = (PatternKey) o;
+      return matchFlags == that.matchFlags && pattern.equals(that.pattern);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(pattern, matchFlags);
+    }
+  }
+
+  private static final class CompiledPattern {
+    private final REProgram program;
+    private final LazyDFA dfa;
+
+    private CompiledPattern(REProgram program, LazyDFA dfa) {
+      this.program = program;
+      this.dfa = dfa;
+    }
   }
 }
@@ -18,6 +18,7 @@
  */
 package org.renjin.primitives.vector;
 
+import org.renjin.sexp.AtomicVector;
 import org.renjin.sexp.AttributeMap;
 import org.renjin.sexp.DoubleVector;
 import org.renjin.sexp.Vector;
@@ -59,6 +60,15 @@ public class ConvertingDoubleVector extends DoubleVector implements DeferredComp
   public double getElementAsDouble(int index) {
     return operand.getElementAsDouble(index);
   }
+
+  @Override
+  public void getDoubles(int start, double[] dst, int dstOffset, int length) {
+    if(operand instanceof AtomicVector) {
+      ((AtomicVector) operand).getDoubles(start, dst, dstOffset, length);
+    } else {
+      super.getDoubles(start, dst, dstOffset, length);
+    }
+  }
   
   @Override
   public boolean isConstantAccessTime() {
@@ -18,6 +18,7 @@
  */
 package org.renjin.primitives.vector;
 
+import org.renjin.sexp.AtomicVector;
 import org.renjin.sexp.AttributeMap;
 import org.renjin.sexp.IntVector;
 import org.renjin.sexp.SEXP;
@@ -40,6 +41,15 @@ public class ConvertingIntVector extends IntVector {
     return x.getElementAsInt(i);
   }
 
+  @Override
+  public void getInts(int start, int[] dst, int dstOffset, int length) {
+    if(x instanceof AtomicVector) {
+      ((AtomicVector) x).getInts(start, dst, dstOffset, length);
+    } else {
+      super.getInts(start, dst, dstOffset, length);
+    }
+  }
+
   @Override
   public boolean isConstantAccessTime() {
     return x.isConstantAccessTime();
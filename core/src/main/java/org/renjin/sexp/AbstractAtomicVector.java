@@ -104,9 +104,7 @@ public abstract class AbstractAtomicVector extends AbstractVector implements Ato
       Profiler.memoryAllocated(Double.SIZE, length());
     }
     double [] d = new double[length()];
-    for(int i=0;i!=d.length;++i) {
-      d[i] = getElementAsDouble(i);
-    }
+    getDoubles(0, d, 0, d.length);
     return d;
   }
 
@@ -116,12 +114,41 @@ public abstract class AbstractAtomicVector extends AbstractVector implements Ato
       Profiler.memoryAllocated(Integer.SIZE, length());
     }
     int[] array = new int[length()];
-    for(int i=0;i!=array.length;++i) {
-      array[i] = getElementAsInt(i);
-    }
+    getInts(0, array, 0, array.length);
     return array;
   }
 
+  @Override
+  public void getDoubles(int start, double[] dst, int dstOffset, int length) {
+    checkRange(start, length);
+    for(int i=0;i!=length;++i) {
+      dst[dstOffset + i] = getElementAsDouble(start + i);
+    }
+  }
+
+  @Override
+  public void getInts(int start, int[] dst, int dstOffset, int length) {
+    checkRange(start, length);
+    for(int i=0;i!=length;++i) {
+      dst[dstOffset + i] = getElementAsInt(start + i);
+    }
+  }
+
+  @Override
+  public void getStrings(int start, String[] dst, int dstOffset, int length) {
+    checkRange(start, length);
+    for(int i=0;i!=length;++i) {
+      dst[dstOffset + i] = getElementAsString(start + i);
+    }
+  }
+
+  protected final void checkRange(int start, int length) {
+    if(start < 0 || length < 0 || start + length > length()) {
+      throw new IndexOutOfBoundsException("range [" + start + ", " + (start + length) +
+          ") is out of bounds for vector of length " + length());
+    }
+  }
+
   @Override
   public final boolean equals(Object obj) {
     if(this == obj) {
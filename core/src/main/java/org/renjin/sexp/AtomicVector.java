@@ -81,6 +81,38 @@ public interface AtomicVector extends Vector {
    */
   int[] toIntArray();
 
+  /**
+   * Copies a range of this vector's elements, converted to doubles, into {@code dst}.
+   * The conversion follows {@link #getElementAsDouble(int)}, so that NA values are
+   * copied as {@link DoubleVector#NA}.
+   *
+   * <p>Implementations backed by an array or with a closed form override this method
+   * to avoid the per-element virtual call, which is what primitives iterating over
+   * vectors of many different classes should use in their inner loops.</p>
+   *
+   * @param start the index of the first element to copy
+   * @param dst the destination array
+   * @param dstOffset the position in {@code dst} of the first copied element
+   * @param length the number of elements to copy
+   */
+  void getDoubles(int start, double[] dst, int dstOffset, int length);
+
+  /**
+   * Copies a range of this vector's elements, converted to integers as by
+   * {@link #getElementAsInt(int)}, into {@code dst}.
+   *
+   * @see #getDoubles(int, double[], int, int)
+   */
+  void getInts(int start, int[] dst, int dstOffset, int length);
+
+  /**
+   * Copies a range of this vector's elements, converted to strings as by
+   * {@link #getElementAsString(int)}, into {@code dst}.
+   *
+   * @see #getDoubles(int, double[], int, int)
+   */
+  void getStrings(int start, String[] dst, int dstOffset, int length);
+
   @Override
   Builder newBuilderWithInitialSize(int initialSize);
 
@@ -18,10 +18,15 @@
  */
 package org.renjin.sexp;
 
+import org.renjin.compiler.ClosureCompiler;
+import org.renjin.eval.ArgumentMatcher;
 import org.renjin.eval.ClosureDispatcher;
 import org.renjin.eval.Context;
+import org.renjin.primitives.special.ReturnException;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 
 /**
@@ -40,8 +45,33 @@ public class Closure extends AbstractSEXP implements Function {
   private SEXP body;
   private PairList formals;
   
-  private int invocationCount = 0;
-  private boolean compilationFailed = false;
+  /**
+   * The number of invocations, counted up to {@link ClosureCompiler#THRESHOLD} + 1. Closures can be
+   * shared by sessions on different threads, so this and {@link #compiler} are updated atomically.
+   */
+  private volatile int invocationCount = 0;
+
+  private static final AtomicIntegerFieldUpdater<Closure> INVOCATION_COUNT =
+      AtomicIntegerFieldUpdater.newUpdater(Closure.class, "invocationCount");
+
+  /**
+   * Manages the compiled variants of this closure's body, created once the closure
+   * has been invoked more than {@link ClosureCompiler#THRESHOLD} times.
+   */
+  private volatile ClosureCompiler compiler = null;
+
+  private static final AtomicReferenceFieldUpdater<Closure, ClosureCompiler> COMPILER =
+      AtomicReferenceFieldUpdater.newUpdater(Closure.class, ClosureCompiler.class, "compiler");
+
+  /**
+   * The layout of this closure's call frames, computed on the first call.
+   */
+  private FrameLayout frameLayout = null;
+
+  /**
+   * Matches the arguments of calls to this closure to its formals, created on the first call.
+   */
+  private ArgumentMatcher argumentMatcher = null;
   
   public Closure(Environment enclosingEnvironment, PairList formals, SEXP body, AttributeMap attributes) {
     super(attributes);
@@ -86,17 +116,64 @@ public class Closure extends AbstractSEXP implements Function {
 
   public SEXP doApply(Context functionContext) {
 
-    invocationCount++;
+    int count = invocationCount;
+    if(count <= ClosureCompiler.THRESHOLD) {
+      count = INVOCATION_COUNT.incrementAndGet(this);
+    }
+
+    if(ClosureCompiler.ENABLED && count > ClosureCompiler.THRESHOLD) {
+      ClosureCompiler compiler = this.compiler;
+      if(compiler == null) {
+        COMPILER.compareAndSet(this, null, new ClosureCompiler(this));
+        compiler = this.compiler;
+      }
+      if(compiler != null && !compiler.isFailed()) {
+        SEXP result = compiler.tryEvaluate(functionContext);
+        if (result != null) {
+          return result;
+        }
+        Environment entryEnvironment = compiler.beginCompilation(functionContext);
+        if(entryEnvironment != null) {
+          return evaluateAndCompile(functionContext, compiler, entryEnvironment);
+        }
+      }
+    }
 
-//    if(invocationCount > 5000) {
-//      CompiledBody body = Compiler.tryCompile(functionContext, functionContext.getEnvironment(), getBody());
-//      if(body != null) {
-//        return body.evaluate(functionContext, functionContext.getEnvironment());
-//      }
-//    }
-//    
     return functionContext.evaluate(body);
   }
+
+  /**
+   * Interprets the body, and then compiles a new variant if the body returned normally, either by
+   * completing or through a call to {@code return()} in this function's environment. If the body is exited
+   * by an error or another unwinding of the stack, the environment may be incomplete, and nothing is compiled.
+   */
+  private SEXP evaluateAndCompile(Context functionContext, ClosureCompiler compiler, Environment entryEnvironment) {
+    boolean returned = false;
+    try {
+      SEXP result = functionContext.evaluate(body);
+      returned = true;
+      return result;
+
+    } catch (ReturnException e) {
+      returned = (e.getEnvironment() == functionContext.getEnvironment());
+      throw e;
+
+    } finally {
+      if(returned) {
+        compiler.compileAfterInterpreting(functionContext, entryEnvironment);
+      } else {
+        compiler.abandonCompilation();
+      }
+    }
+  }
+
+  /**
+   * @return the compiler managing the compiled variants of this closure's body, or {@code null} if the
+   * closure has not yet been invoked often enough to be compiled.
+   */
+  public ClosureCompiler getCompiler() {
+    return compiler;
+  }
    
 
   /**
@@ -148,12 +225,39 @@ public class Closure extends AbstractSEXP implements Function {
     return formals;
   }
 
+  /**
+   * @return the matcher for arguments supplied to this closure, which remembers the
+   * argument positions matched for recently seen argument tags.
+   */
+  public ArgumentMatcher getArgumentMatcher() {
+    if(argumentMatcher == null) {
+      argumentMatcher = new ArgumentMatcher(formals);
+    }
+    return argumentMatcher;
+  }
+
+  /**
+   * @return the assignment of this closure's arguments and local variables to the slots
+   * of its call frames.
+   */
+  public FrameLayout getFrameLayout() {
+    if(frameLayout == null) {
+      frameLayout = FrameLayout.of(formals, body);
+    }
+    return frameLayout;
+  }
+
   public void unsafeSetFormals(PairList formals) {
     this.formals = formals;
+    this.frameLayout = null;
+    this.argumentMatcher = null;
+    this.compiler = null;
   }
 
   public void unsafeSetBody(SEXP body) {
     this.body = body;
+    this.frameLayout = null;
+    this.compiler = null;
   }
 
   public void unsafeSetEnclosingEnvironment(Environment v) {
@@ -0,0 +1,124 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.sexp;
+
+import org.renjin.eval.Context;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * A frame which initially shares all of its bindings with another frame, but keeps any
+ * changes to itself.
+ *
+ * <p>Used for the global environment of sessions forked from another session, so that the child
+ * can read the parent's variables without copying them, while assignments and removals made by
+ * the child are not visible to the parent.</p>
+ *
+ * <p>The shared frame must not be modified while this frame is in use.</p>
+ */
+public class CopyOnWriteFrame implements Frame {
+
+  private final Frame shared;
+
+  /**
+   * Bindings which have been assigned in this frame.
+   */
+  private final IdentityHashMap<Symbol, SEXP> local = new IdentityHashMap<>();
+
+  /**
+   * Symbols from the shared frame which have been removed from this frame.
+   */
+  private Set<Symbol> removed = null;
+
+  public CopyOnWriteFrame(Frame shared) {
+    this.shared = shared;
+  }
+
+  private boolean isRemoved(Symbol name) {
+    return removed != null && removed.contains(name);
+  }
+
+  @Override
+  public Set<Symbol> getSymbols() {
+    Set<Symbol> symbols = Collections.newSetFromMap(new IdentityHashMap<Symbol, Boolean>());
+    symbols.addAll(shared.getSymbols());
+    if(removed != null) {
+      symbols.removeAll(removed);
+    }
+    symbols.addAll(local.keySet());
+    return symbols;
+  }
+
+  @Override
+  public SEXP getVariable(Symbol name) {
+    SEXP value = local.get(name);
+    if(value != null) {
+      return value;
+    }
+    if(isRemoved(name)) {
+      return Symbol.UNBOUND_VALUE;
+    }
+    return shared.getVariable(name);
+  }
+
+  @Override
+  public Function getFunction(Context context, Symbol name) {
+    SEXP value = local.get(name);
+    if(value != null) {
+      value = value.force(context);
+      return value instanceof Function ? (Function) value : null;
+    }
+    if(isRemoved(name)) {
+      return null;
+    }
+    return shared.getFunction(context, name);
+  }
+
+  @Override
+  public boolean isMissingArgument(Symbol name) {
+    SEXP value = local.get(name);
+    if(value != null) {
+      return value == Symbol.MISSING_ARG;
+    }
+    return !isRemoved(name) && shared.isMissingArgument(name);
+  }
+
+  @Override
+  public void setVariable(Symbol name, SEXP value) {
+    local.put(name, value);
+  }
+
+  @Override
+  public void remove(Symbol name) {
+    local.remove(name);
+    if(removed == null) {
+      removed = Collections.newSetFromMap(new IdentityHashMap<Symbol, Boolean>());
+    }
+    removed.add(name);
+  }
+
+  @Override
+  public void clear() {
+    local.clear();
+    removed = Collections.newSetFromMap(new IdentityHashMap<Symbol, Boolean>());
+    removed.addAll(shared.getSymbols());
+  }
+}
@@ -184,7 +184,25 @@ public final class DoubleArrayVector extends DoubleVector {
 
   @Override
   public void copyTo(double[] array, int offset, int length) {
-    System.arraycopy(array, 0, array, offset, length);
+    System.arraycopy(values, 0, array, offset, length);
+  }
+
+  @Override
+  public void getDoubles(int start, double[] dst, int dstOffset, int length) {
+    System.arraycopy(values, start, dst, dstOffset, length);
+  }
+
+  @Override
+  public void getInts(int start, int[] dst, int dstOffset, int length) {
+    checkRange(start, length);
+    for(int i=0;i!=length;++i) {
+      double value = values[start + i];
+      if(Double.isNaN(value) || Double.isInfinite(value)) {
+        dst[dstOffset + i] = IntVector.NA;
+      } else {
+        dst[dstOffset + i] = (int) value;
+      }
+    }
   }
 
   public static class Builder extends AbstractAtomicBuilder {
@@ -0,0 +1,113 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.sexp;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+
+/**
+ * A double vector backed by a {@code DoubleBuffer}, which may be on the heap or
+ * off-heap, such as a view over a memory-mapped file or a column buffer handed to
+ * Renjin by an embedding application. The elements are never copied onto the heap.
+ */
+public class DoubleBufferVector extends DoubleVector {
+
+  private final DoubleBuffer buffer;
+  private final int length;
+
+  public DoubleBufferVector(DoubleBuffer buffer, int length) {
+    this.buffer = buffer;
+    this.length = length;
+  }
+
+  public DoubleBufferVector(DoubleBuffer buffer, int length, AttributeMap attributes) {
+    super(attributes);
+    this.buffer = buffer;
+    this.length = length;
+  }
+
+  /**
+   * Creates a vector over the remaining elements of {@code buffer}. The buffer is
+   * not copied, and so must not be modified while the vector is reachable.
+   */
+  public static DoubleBufferVector wrap(DoubleBuffer buffer) {
+    return new DoubleBufferVector(buffer.slice(), buffer.remaining());
+  }
+
+  /**
+   * Creates a vector over the remaining bytes of {@code buffer}, interpreted as doubles
+   * in the buffer's {@link ByteBuffer#order() byte order}. The buffer is not copied, and
+   * so must not be modified while the vector is reachable.
+   */
+  public static DoubleBufferVector wrap(ByteBuffer buffer) {
+    ByteBuffer slice = buffer.slice().order(buffer.order());
+    return new DoubleBufferVector(slice.asDoubleBuffer(), slice.remaining() / 8);
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public double getElementAsDouble(int index) {
+    return buffer.get(index);
+  }
+
+  @Override
+  public boolean isConstantAccessTime() {
+    return true;
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new DoubleBufferVector(buffer, length, attributes);
+  }
+
+  /**
+   * Returns the underlying {@code DoubleBuffer} backing this vector. The
+   * returned buffer <strong>absolutely should not be modified!</strong>
+   */
+  public DoubleBuffer toDoubleBufferUnsafe() {
+    return buffer;
+  }
+
+  @Override
+  public double[] toDoubleArray() {
+    double[] array = new double[length];
+    copyTo(array, 0, length);
+    return array;
+  }
+
+  @Override
+  public void copyTo(double[] array, int offset, int length) {
+    DoubleBuffer source = buffer.duplicate();
+    source.clear();
+    source.get(array, offset, length);
+  }
+
+  @Override
+  public void getDoubles(int start, double[] dst, int dstOffset, int length) {
+    checkRange(start, length);
+    DoubleBuffer source = buffer.duplicate();
+    source.clear();
+    source.position(start);
+    source.get(dst, dstOffset, length);
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.sexp;
+
+/**
+ * Iterates over the elements of an {@link AtomicVector} as doubles, one chunk at a time.
+ *
+ * <p>Reading elements through {@link AtomicVector#getElementAsDouble(int)} costs a virtual
+ * call per element, which the JIT cannot inline at call sites that see many different vector
+ * classes. The cursor instead copies up to {@link #CHUNK_SIZE} elements at a time using
+ * {@link AtomicVector#getDoubles(int, double[], int, int)}, so that the inner loop runs over a
+ * plain {@code double[]}. Vectors backed by a {@code double[]} are exposed directly as a single
+ * chunk without copying.</p>
+ *
+ * <pre>
+ * DoubleCursor cursor = new DoubleCursor(vector);
+ * while(cursor.next()) {
+ *   double[] chunk = cursor.getChunk();
+ *   int length = cursor.getChunkLength();
+ *   for(int i = 0; i != length; ++i) {
+ *     // chunk[i] is element cursor.getChunkStart() + i
+ *   }
+ * }
+ * </pre>
+ *
+ * <p>The chunk array must not be modified.</p>
+ */
+public final class DoubleCursor {
+
+  public static final int CHUNK_SIZE = 1024;
+
+  private final AtomicVector vector;
+  private final int length;
+
+  private double[] chunk;
+  private int chunkStart;
+  private int chunkLength;
+
+  public DoubleCursor(AtomicVector vector) {
+    this.vector = vector;
+    this.length = vector.length();
+  }
+
+  /**
+   * Advances to the next chunk of elements.
+   *
+   * @return false if all elements have already been visited
+   */
+  public boolean next() {
+    int nextStart = chunkStart + chunkLength;
+    if(nextStart >= length) {
+      return false;
+    }
+    if(chunk == null && vector instanceof DoubleArrayVector) {
+      chunk = ((DoubleArrayVector) vector).toDoubleArrayUnsafe();
+      chunkStart = 0;
+      chunkLength = length;
+      return true;
+    }
+    if(chunk == null) {
+      chunk = new double[Math.min(CHUNK_SIZE, length)];
+    }
+    chunkStart = nextStart;
+    chunkLength = Math.min(chunk.length, length - nextStart);
+    vector.getDoubles(chunkStart, chunk, 0, chunkLength);
+    return true;
+  }
+
+  /**
+   * @return the array holding the current chunk's elements, beginning at index zero.
+   */
+  public double[] getChunk() {
+    return chunk;
+  }
+
+  /**
+   * @return the index within the vector of the current chunk's first element
+   */
+  public int getChunkStart() {
+    return chunkStart;
+  }
+
+  /**
+   * @return the number of elements in the current chunk
+   */
+  public int getChunkLength() {
+    return chunkLength;
+  }
+}
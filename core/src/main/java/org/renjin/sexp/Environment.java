@@ -26,6 +26,7 @@ import org.renjin.repackaged.guava.collect.Sets;
 import org.renjin.repackaged.guava.collect.UnmodifiableIterator;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 
 /**
@@ -91,6 +92,19 @@ public class Environment extends AbstractSEXP implements Recursive {
    * of the actual value itself.
    */
   private Set<Symbol> missingArguments = null;
+
+  /**
+   * True if this environment was created to evaluate a closure call, and has not (yet) become
+   * the parent of any other kind of environment. Changes to the bindings of call frames do not update the
+   * {@link #getFunctionBindingsVersion() function bindings version}, and so callers that cache
+   * function lookups must search call frames directly.
+   */
+  private boolean callFrame = false;
+
+  /**
+   * Version stamp for all bindings which could affect function lookup, outside of call frames.
+   */
+  private static final AtomicLong FUNCTION_BINDINGS_VERSION = new AtomicLong();
   
   /**
    * The root of the environment hierarchy.
@@ -193,10 +207,77 @@ public class Environment extends AbstractSEXP implements Recursive {
       activeBindings.remove(symbol);
     }
     frame.remove(symbol);
+    if(!callFrame) {
+      FUNCTION_BINDINGS_VERSION.incrementAndGet();
+    }
   }
 
   public void clear() {
     frame.clear();
+    if(!callFrame) {
+      FUNCTION_BINDINGS_VERSION.incrementAndGet();
+    }
+  }
+
+  /**
+   * Returns the current version of function bindings. The version is incremented whenever a binding that
+   * could be a function is added, changed or removed in any environment that is not a call frame,
+   * and whenever an environment's parent changes, for example when packages are attached or detached.
+   *
+   * <p>A function found by searching from a non-call-frame environment can be reused for as long as the
+   * version does not change.</p>
+   */
+  public static long getFunctionBindingsVersion() {
+    return FUNCTION_BINDINGS_VERSION.get();
+  }
+
+  /**
+   * Increments the function bindings version. This must be called by code that modifies a {@link Frame}
+   * directly rather than through its {@code Environment}.
+   */
+  public static void invalidateFunctionBindings() {
+    FUNCTION_BINDINGS_VERSION.incrementAndGet();
+  }
+
+  /**
+   * @return true if this environment is the frame of a closure call whose bindings are not tracked by
+   * the {@link #getFunctionBindingsVersion() function bindings version}.
+   */
+  public boolean isCallFrame() {
+    return callFrame;
+  }
+
+  private static boolean couldBeFunction(SEXP value) {
+    return value instanceof Function || value instanceof Promise || value == Symbol.MISSING_ARG;
+  }
+
+  /**
+   * Updates the function bindings version if changing the binding of {@code symbol} to {@code value} could
+   * change the result of a function lookup through this environment.
+   */
+  private void onBindingChanged(Symbol symbol, SEXP value) {
+    if(!callFrame) {
+      if(couldBeFunction(value) || couldBeFunction(frame.getVariable(symbol))) {
+        FUNCTION_BINDINGS_VERSION.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Called when an environment which is not a call frame is created beneath {@code parent}: from then on,
+   * the parent and any call frames above it may be searched as part of a cached lookup, and so must
+   * update the function bindings version.
+   */
+  private static void shareCallFrames(Environment parent) {
+    boolean shared = false;
+    while(parent.callFrame) {
+      parent.callFrame = false;
+      parent = parent.parent;
+      shared = true;
+    }
+    if(shared) {
+      FUNCTION_BINDINGS_VERSION.incrementAndGet();
+    }
   }
 
   public String getName() {
@@ -226,6 +307,10 @@ public class Environment extends AbstractSEXP implements Recursive {
    */
   public void setParent(Environment parent) {
     this.parent = parent;
+    if(!callFrame) {
+      shareCallFrames(parent);
+    }
+    FUNCTION_BINDINGS_VERSION.incrementAndGet();
   }
 
   @Override
@@ -276,6 +361,7 @@ public class Environment extends AbstractSEXP implements Recursive {
    * @param value value to be assigned.
    */
   public void setVariableUnsafe(Symbol symbol, SEXP value) {
+    onBindingChanged(symbol, value);
     frame.setVariable(symbol, value);
   }
 
@@ -284,6 +370,7 @@ public class Environment extends AbstractSEXP implements Recursive {
    * or locked bindings as this should ONLY be called when constructing a new environment for a function call.
    */
   public void setArgument(Symbol symbol, SEXP value) {
+    onBindingChanged(symbol, value);
     frame.setVariable(symbol, value);
   }
 
@@ -292,6 +379,7 @@ public class Environment extends AbstractSEXP implements Recursive {
    * or locked bindings as this should ONLY be called when constructing a new environment for a function call.
    */
   public void setMissingArgument(Symbol symbol, SEXP defaultValue) {
+    onBindingChanged(symbol, defaultValue);
     frame.setVariable(symbol, defaultValue);
     if(missingArguments == null) {
       missingArguments = new HashSet<>();
@@ -381,6 +469,7 @@ public class Environment extends AbstractSEXP implements Recursive {
       throw new EvalException("cannot add bindings to a locked environment");
     }
 
+    onBindingChanged(symbol, value);
     frame.setVariable(symbol, value);
 
     if(missingArguments != null) {
@@ -556,16 +645,25 @@ public class Environment extends AbstractSEXP implements Recursive {
 
 
   public Function findFunction(Context context, Symbol symbol) {
-    if(frame.isMissingArgument(symbol)) {
-      throw new EvalException("argument '%s' is missing, with no default", symbol.toString());
-    }
-    Function value = frame.getFunction(context, symbol);
+    Function value = findLocalFunction(context, symbol);
     if(value != null) {
       return value;
     }
     return parent.findFunction(context, symbol);
   }
 
+  /**
+   * Searches only this environment's own frame for a function bound to {@code symbol}
+   *
+   * @return the function, or {@code null} if this frame has no such binding.
+   */
+  public Function findLocalFunction(Context context, Symbol symbol) {
+    if(frame.isMissingArgument(symbol)) {
+      throw new EvalException("argument '%s' is missing, with no default", symbol.toString());
+    }
+    return frame.getFunction(context, symbol);
+  }
+
   /**
    *
    * @return true if this environment is locked. When locked, bindings cannot be added  or removed.
@@ -866,6 +964,17 @@ public class Environment extends AbstractSEXP implements Recursive {
     public Environment build() {
       Environment child = new Environment(frame);
       child.parent = parent;
+      shareCallFrames(parent);
+      return child;
+    }
+
+    /**
+     * Builds a new environment for the evaluation of a closure call.
+     */
+    public Environment buildCallFrame() {
+      Environment child = new Environment(frame);
+      child.parent = parent;
+      child.callFrame = true;
       return child;
     }
   }
@@ -0,0 +1,174 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.sexp;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The fixed assignment of symbols to slots in a {@link SlotFrame}, computed once per {@link Closure}.
+ *
+ * <p>The layout contains the closure's formal arguments, in order, followed by all symbols which
+ * are assigned to directly in the closure's body. Symbols assigned only within nested function
+ * definitions or quoted expressions are not included.</p>
+ */
+public final class FrameLayout {
+
+  private static final Symbol FUNCTION = Symbol.get("function");
+  private static final Symbol QUOTE = Symbol.get("quote");
+  private static final Symbol ASSIGN = Symbol.get("<-");
+  private static final Symbol EQUALS = Symbol.get("=");
+  private static final Symbol FOR = Symbol.get("for");
+  private static final Symbol TMP = Symbol.get("*tmp*");
+
+  private final PairList formals;
+  private final Symbol[] symbols;
+
+  /**
+   * Open-addressed table mapping symbols to their slot indexes
+   */
+  private final Symbol[] keys;
+  private final int[] slots;
+  private final int mask;
+
+  private FrameLayout(PairList formals, List<Symbol> symbols) {
+    this.formals = formals;
+    this.symbols = symbols.toArray(new Symbol[0]);
+
+    int capacity = 8;
+    while(capacity < this.symbols.length * 2) {
+      capacity <<= 1;
+    }
+    this.keys = new Symbol[capacity];
+    this.slots = new int[capacity];
+    this.mask = capacity - 1;
+
+    for (int i = 0; i < this.symbols.length; i++) {
+      int h = hash(this.symbols[i]);
+      while(keys[h] != null) {
+        h = (h + 1) & mask;
+      }
+      keys[h] = this.symbols[i];
+      slots[h] = i;
+    }
+  }
+
+  /**
+   * Computes the frame layout for a closure with the given formals and body.
+   */
+  public static FrameLayout of(PairList formals, SEXP body) {
+    Map<Symbol, Symbol> symbols = new IdentityHashMap<>();
+    List<Symbol> ordered = new ArrayList<>();
+    boolean aligned = true;
+    for (PairList.Node formal : formals.nodes()) {
+      if(formal.hasTag() && symbols.put(formal.getTag(), formal.getTag()) == null) {
+        ordered.add(formal.getTag());
+      } else {
+        aligned = false;
+      }
+    }
+    collectLocals(body, symbols, ordered);
+
+    // Only allow formals to be written directly by index if each formal has its own slot
+    return new FrameLayout(aligned ? formals : null, ordered);
+  }
+
+  private static void collectLocals(SEXP exp, Map<Symbol, Symbol> symbols, List<Symbol> ordered) {
+    if(!(exp instanceof FunctionCall)) {
+      return;
+    }
+    FunctionCall call = (FunctionCall) exp;
+    SEXP function = call.getFunction();
+    if(function == FUNCTION || function == QUOTE) {
+      return;
+    }
+    if(function == ASSIGN || function == EQUALS) {
+      if(call.getArguments().length() > 0) {
+        SEXP target = call.getArgument(0);
+        if(target instanceof FunctionCall) {
+          // Complex assignment such as names(x)[1] <- "a": the target is the innermost
+          // first argument, and *tmp* is bound while the assignment is evaluated.
+          addLocal(TMP, symbols, ordered);
+          while(target instanceof FunctionCall && ((FunctionCall) target).getArguments().length() > 0) {
+            target = ((FunctionCall) target).getArgument(0);
+          }
+        }
+        if(target instanceof StringVector && target.length() == 1) {
+          target = Symbol.get(((StringVector) target).getElementAsString(0));
+        }
+        if(target instanceof Symbol) {
+          addLocal((Symbol) target, symbols, ordered);
+        }
+      }
+    } else if(function == FOR) {
+      if(call.getArguments().length() > 0 && call.getArgument(0) instanceof Symbol) {
+        addLocal(call.<Symbol>getArgument(0), symbols, ordered);
+      }
+    }
+
+    collectLocals(function, symbols, ordered);
+    for (PairList.Node argument : call.getArguments().nodes()) {
+      collectLocals(argument.getValue(), symbols, ordered);
+    }
+  }
+
+  private static void addLocal(Symbol symbol, Map<Symbol, Symbol> symbols, List<Symbol> ordered) {
+    if(symbol != Symbol.MISSING_ARG && symbols.put(symbol, symbol) == null) {
+      ordered.add(symbol);
+    }
+  }
+
+  private int hash(Symbol symbol) {
+    int h = System.identityHashCode(symbol);
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+  /**
+   * @return true if this layout was computed for the given formal argument list. If so, the
+   * formal at index {@code i} is stored in slot {@code i}.
+   */
+  public boolean hasFormals(PairList formals) {
+    return this.formals != null && this.formals == formals;
+  }
+
+  public int getSlotCount() {
+    return symbols.length;
+  }
+
+  public Symbol getSymbol(int slot) {
+    return symbols[slot];
+  }
+
+  /**
+   * @return the slot index of the given {@code symbol}, or -1 if the symbol has no fixed slot in this layout.
+   */
+  public int indexOf(Symbol symbol) {
+    int h = hash(symbol);
+    Symbol key;
+    while((key = keys[h]) != null) {
+      if(key == symbol) {
+        return slots[h];
+      }
+      h = (h + 1) & mask;
+    }
+    return -1;
+  }
+}
@@ -29,6 +29,11 @@ public class FunctionCall extends PairList.Node {
   public static final String TYPE_NAME = "language";
   public static final String IMPLICIT_CLASS = "call";
 
+  /**
+   * The result of the last function lookup from this call site, or {@code null}
+   */
+  private volatile CachedFunction cachedFunction;
+
   public FunctionCall(SEXP function, PairList arguments) {
     super(function, arguments);
   }
@@ -57,6 +62,32 @@ public class FunctionCall extends PairList.Node {
     return getArguments().getElementAsSEXP(index);
   }
 
+  /**
+   * Returns the function previously found by searching from {@code environment}, provided that no function
+   * bindings have changed since.
+   *
+   * @param environment the environment from which the function would be searched
+   * @param version the current {@link Environment#getFunctionBindingsVersion() function bindings version}
+   * @return the cached function, or {@code null} if there is no valid cached function.
+   */
+  public Function getCachedFunction(Environment environment, long version) {
+    CachedFunction cached = this.cachedFunction;
+    if(cached != null && cached.environment == environment && cached.version == version) {
+      return cached.function;
+    }
+    return null;
+  }
+
+  /**
+   * Caches the result of a function lookup from this call site.
+   *
+   * @param version the {@link Environment#getFunctionBindingsVersion() function bindings version} read
+   *                <em>before</em> the lookup began.
+   */
+  public void cacheFunction(Environment environment, Function function, long version) {
+    this.cachedFunction = new CachedFunction(environment, function, version);
+  }
+
   @Override
   public void accept(SexpVisitor visitor) {
     visitor.visit(this);
@@ -175,4 +206,16 @@ public class FunctionCall extends PairList.Node {
 
   }
 
+
+  private static final class CachedFunction {
+    private final Environment environment;
+    private final Function function;
+    private final long version;
+
+    private CachedFunction(Environment environment, Function function, long version) {
+      this.environment = environment;
+      this.function = function;
+      this.version = version;
+    }
+  }
 }
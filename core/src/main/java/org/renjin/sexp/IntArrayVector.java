@@ -87,6 +87,20 @@ public class IntArrayVector extends IntVector {
     return values;
   }
 
+  @Override
+  public void getInts(int start, int[] dst, int dstOffset, int length) {
+    System.arraycopy(values, start, dst, dstOffset, length);
+  }
+
+  @Override
+  public void getDoubles(int start, double[] dst, int dstOffset, int length) {
+    checkRange(start, length);
+    for(int i=0;i!=length;++i) {
+      int value = values[start + i];
+      dst[dstOffset + i] = value == NA ? DoubleVector.NA : value;
+    }
+  }
+
   /**
    * Creates a new IntArrayVector from the given array, without copying.
    * {@code array} MUST NOT be subsequently modified.
@@ -18,6 +18,7 @@
  */
 package org.renjin.sexp;
 
+import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 
 public class IntBufferVector extends IntVector {
@@ -36,6 +37,24 @@ public class IntBufferVector extends IntVector {
     this.length = length;
   }
 
+  /**
+   * Creates a vector over the remaining elements of {@code buffer}. The buffer is
+   * not copied, and so must not be modified while the vector is reachable.
+   */
+  public static IntBufferVector wrap(IntBuffer buffer) {
+    return new IntBufferVector(buffer.slice(), buffer.remaining());
+  }
+
+  /**
+   * Creates a vector over the remaining bytes of {@code buffer}, interpreted as 32-bit
+   * integers in the buffer's {@link ByteBuffer#order() byte order}. The buffer is not
+   * copied, and so must not be modified while the vector is reachable.
+   */
+  public static IntBufferVector wrap(ByteBuffer buffer) {
+    ByteBuffer slice = buffer.slice().order(buffer.order());
+    return new IntBufferVector(slice.asIntBuffer(), slice.remaining() / 4);
+  }
+
   @Override
   public int length() {
     return length;
@@ -64,6 +83,15 @@ public class IntBufferVector extends IntVector {
     return buffer;
   }
 
+  @Override
+  public int[] toIntArray() {
+    int[] array = new int[length];
+    IntBuffer source = buffer.duplicate();
+    source.clear();
+    source.get(array);
+    return array;
+  }
+
   @Override
   public void copyTo(double[] array, int offset, int length) {
     for (int i = 0; i < length; i++) {
@@ -75,4 +103,22 @@ public class IntBufferVector extends IntVector {
       }
     }
   }
+
+  @Override
+  public void getInts(int start, int[] dst, int dstOffset, int length) {
+    checkRange(start, length);
+    IntBuffer source = buffer.duplicate();
+    source.clear();
+    source.position(start);
+    source.get(dst, dstOffset, length);
+  }
+
+  @Override
+  public void getDoubles(int start, double[] dst, int dstOffset, int length) {
+    checkRange(start, length);
+    for (int i = 0; i < length; i++) {
+      int value = buffer.get(start + i);
+      dst[dstOffset + i] = value == IntVector.NA ? DoubleVector.NA : value;
+    }
+  }
 }
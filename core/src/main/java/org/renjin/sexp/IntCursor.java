@@ -0,0 +1,98 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.sexp;
+
+/**
+ * Iterates over the elements of an {@link AtomicVector} as integers, one chunk at a time.
+ *
+ * <p>This is the integer counterpart of {@link DoubleCursor}: elements are converted as by
+ * {@link AtomicVector#getElementAsInt(int)}, and integer and logical vectors backed by an
+ * {@code int[]} are exposed directly as a single chunk without copying.</p>
+ *
+ * <p>The chunk array must not be modified.</p>
+ */
+public final class IntCursor {
+
+  public static final int CHUNK_SIZE = DoubleCursor.CHUNK_SIZE;
+
+  private final AtomicVector vector;
+  private final int length;
+
+  private int[] chunk;
+  private int chunkStart;
+  private int chunkLength;
+
+  public IntCursor(AtomicVector vector) {
+    this.vector = vector;
+    this.length = vector.length();
+  }
+
+  /**
+   * Advances to the next chunk of elements.
+   *
+   * @return false if all elements have already been visited
+   */
+  public boolean next() {
+    int nextStart = chunkStart + chunkLength;
+    if(nextStart >= length) {
+      return false;
+    }
+    if(chunk == null) {
+      if(vector instanceof IntArrayVector) {
+        return whole(((IntArrayVector) vector).toIntArrayUnsafe());
+      }
+      if(vector instanceof LogicalArrayVector) {
+        return whole(((LogicalArrayVector) vector).toIntArrayUnsafe());
+      }
+      chunk = new int[Math.min(CHUNK_SIZE, length)];
+    }
+    chunkStart = nextStart;
+    chunkLength = Math.min(chunk.length, length - nextStart);
+    vector.getInts(chunkStart, chunk, 0, chunkLength);
+    return true;
+  }
+
+  private boolean whole(int[] array) {
+    chunk = array;
+    chunkStart = 0;
+    chunkLength = length;
+    return true;
+  }
+
+  /**
+   * @return the array holding the current chunk's elements, beginning at index zero.
+   */
+  public int[] getChunk() {
+    return chunk;
+  }
+
+  /**
+   * @return the index within the vector of the current chunk's first element
+   */
+  public int getChunkStart() {
+    return chunkStart;
+  }
+
+  /**
+   * @return the number of elements in the current chunk
+   */
+  public int getChunkLength() {
+    return chunkLength;
+  }
+}
@@ -166,9 +166,7 @@ public abstract class IntVector extends AbstractAtomicVector implements Iterable
 
   public int[] toIntArray() {
     int[] array = new int[length()];
-    for(int i=0;i!=array.length;++i) {
-      array[i] = getElementAsInt(i);
-    }
+    getInts(0, array, 0, array.length);
     return array;
   }
 
@@ -185,14 +183,7 @@ public abstract class IntVector extends AbstractAtomicVector implements Iterable
   @Override
   public double[] toDoubleArray() {
     double[] d = new double[length()];
-    for (int i = 0; i != d.length; ++i) {
-      int x = getElementAsInt(i);
-      if (x == NA) {
-        d[i] = DoubleVector.NA;
-      } else {
-        d[i] = x;
-      }
-    }
+    getDoubles(0, d, 0, d.length);
     return d;
   }
 
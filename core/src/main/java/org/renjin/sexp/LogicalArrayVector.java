@@ -107,6 +107,20 @@ public class LogicalArrayVector extends LogicalVector {
     return values[index];
   }
 
+  @Override
+  public void getInts(int start, int[] dst, int dstOffset, int length) {
+    System.arraycopy(values, start, dst, dstOffset, length);
+  }
+
+  @Override
+  public void getDoubles(int start, double[] dst, int dstOffset, int length) {
+    checkRange(start, length);
+    for(int i=0;i!=length;++i) {
+      int value = values[start + i];
+      dst[dstOffset + i] = value == IntVector.NA ? DoubleVector.NA : value;
+    }
+  }
+
   @Override
   public boolean isElementTrue(int index) {
     return values[index] == 1;
@@ -0,0 +1,129 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.sexp;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * A logical vector backed by an {@code IntBuffer} holding the raw logical values
+ * ({@code 0}, {@code 1} or {@code NA}), which may be on the heap or off-heap, such
+ * as a view over a memory-mapped file.
+ */
+public class LogicalBufferVector extends LogicalVector {
+
+  private final IntBuffer buffer;
+  private final int length;
+
+  public LogicalBufferVector(IntBuffer buffer, int length) {
+    this.buffer = buffer;
+    this.length = length;
+  }
+
+  public LogicalBufferVector(IntBuffer buffer, int length, AttributeMap attributes) {
+    super(attributes);
+    this.buffer = buffer;
+    this.length = length;
+  }
+
+  /**
+   * Creates a vector over the remaining elements of {@code buffer}. The buffer is
+   * not copied, and so must not be modified while the vector is reachable.
+   */
+  public static LogicalBufferVector wrap(IntBuffer buffer) {
+    return new LogicalBufferVector(buffer.slice(), buffer.remaining());
+  }
+
+  /**
+   * Creates a vector over the remaining bytes of {@code buffer}, interpreted as 32-bit
+   * logical values in the buffer's {@link ByteBuffer#order() byte order}. The buffer is
+   * not copied, and so must not be modified while the vector is reachable.
+   */
+  public static LogicalBufferVector wrap(ByteBuffer buffer) {
+    ByteBuffer slice = buffer.slice().order(buffer.order());
+    return new LogicalBufferVector(slice.asIntBuffer(), slice.remaining() / 4);
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public int getElementAsRawLogical(int index) {
+    return buffer.get(index);
+  }
+
+  @Override
+  public boolean isConstantAccessTime() {
+    return true;
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new LogicalBufferVector(buffer, length, attributes);
+  }
+
+  /**
+   * Returns the underlying {@code IntBuffer} backing this vector. The
+   * returned buffer <strong>absolutely should not be modified!</strong>
+   */
+  public IntBuffer toIntBufferUnsafe() {
+    return buffer;
+  }
+
+  @Override
+  public int[] toIntArray() {
+    int[] array = new int[length];
+    IntBuffer source = buffer.duplicate();
+    source.clear();
+    source.get(array);
+    return array;
+  }
+
+  @Override
+  public void copyTo(double[] array, int offset, int length) {
+    for (int i = 0; i < length; i++) {
+      int value = buffer.get(i);
+      if(value == IntVector.NA) {
+        array[offset + i] = DoubleVector.NA;
+      } else {
+        array[offset + i] = value;
+      }
+    }
+  }
+
+  @Override
+  public void getInts(int start, int[] dst, int dstOffset, int length) {
+    checkRange(start, length);
+    IntBuffer source = buffer.duplicate();
+    source.clear();
+    source.position(start);
+    source.get(dst, dstOffset, length);
+  }
+
+  @Override
+  public void getDoubles(int start, double[] dst, int dstOffset, int length) {
+    checkRange(start, length);
+    for (int i = 0; i < length; i++) {
+      int value = buffer.get(start + i);
+      dst[dstOffset + i] = value == IntVector.NA ? DoubleVector.NA : value;
+    }
+  }
+}
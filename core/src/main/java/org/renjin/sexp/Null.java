@@ -339,6 +339,27 @@ public final class Null extends AbstractSEXP implements AtomicVector, PairList,
     return new int[0];
   }
 
+  @Override
+  public void getDoubles(int start, double[] dst, int dstOffset, int length) {
+    checkEmptyRange(start, length);
+  }
+
+  @Override
+  public void getInts(int start, int[] dst, int dstOffset, int length) {
+    checkEmptyRange(start, length);
+  }
+
+  @Override
+  public void getStrings(int start, String[] dst, int dstOffset, int length) {
+    checkEmptyRange(start, length);
+  }
+
+  private static void checkEmptyRange(int start, int length) {
+    if(start != 0 || length != 0) {
+      throw new IndexOutOfBoundsException("NULL has no elements");
+    }
+  }
+
   @Override
   public boolean equals(Object obj) {
     return obj == this;
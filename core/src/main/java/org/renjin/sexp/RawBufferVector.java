@@ -0,0 +1,95 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.sexp;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A raw vector backed by a {@code ByteBuffer}, which may be on the heap or
+ * off-heap, such as a view over a memory-mapped file or shared memory.
+ */
+public class RawBufferVector extends RawVector {
+
+  private final ByteBuffer buffer;
+  private final int length;
+
+  public RawBufferVector(ByteBuffer buffer, int length) {
+    this(buffer, length, AttributeMap.EMPTY);
+  }
+
+  public RawBufferVector(ByteBuffer buffer, int length, AttributeMap attributes) {
+    super(attributes);
+    this.buffer = buffer;
+    this.length = length;
+  }
+
+  /**
+   * Creates a vector over the remaining bytes of {@code buffer}. The buffer is
+   * not copied, and so must not be modified while the vector is reachable.
+   */
+  public static RawBufferVector wrap(ByteBuffer buffer) {
+    return new RawBufferVector(buffer.slice(), buffer.remaining());
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public byte getElementAsByte(int index) {
+    return buffer.get(index);
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new RawBufferVector(buffer, length, attributes);
+  }
+
+  /**
+   * Returns the underlying {@code ByteBuffer} backing this vector. The
+   * returned buffer <strong>absolutely should not be modified!</strong>
+   */
+  public ByteBuffer toByteBufferUnsafe() {
+    return buffer;
+  }
+
+  @Override
+  public byte[] toByteArray() {
+    byte[] array = new byte[length];
+    copyTo(array, 0, 0, length);
+    return array;
+  }
+
+  /**
+   * @return a copy of the elements, as this vector has no underlying array
+   */
+  @Override
+  public byte[] toByteArrayUnsafe() {
+    return toByteArray();
+  }
+
+  @Override
+  public void copyTo(byte[] array, int sourceIndex, int offset, int length) {
+    ByteBuffer source = buffer.duplicate();
+    source.clear();
+    source.position(sourceIndex);
+    source.get(array, offset, length);
+  }
+}
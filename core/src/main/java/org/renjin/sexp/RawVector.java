@@ -39,6 +39,14 @@ public class RawVector extends AbstractAtomicVector implements Iterable<Byte> {
   private RawVector() {
   }
 
+  /**
+   * Constructor for subclasses which store their elements elsewhere and
+   * override {@link #getElementAsByte(int)} and {@link #length()}.
+   */
+  protected RawVector(AttributeMap attributes) {
+    super(attributes);
+  }
+
   public RawVector(byte... values) {
     this.values = new byte[values.length];
     this.values = Arrays.copyOf(values, values.length);
@@ -78,6 +86,13 @@ public class RawVector extends AbstractAtomicVector implements Iterable<Byte> {
     return(this.values[index]);
   }
 
+  /**
+   * Copies {@code length} elements of this vector, starting at {@code sourceIndex}, into {@code array}.
+   */
+  public void copyTo(byte[] array, int sourceIndex, int offset, int length) {
+    System.arraycopy(this.values, sourceIndex, array, offset, length);
+  }
+
   @Override
   public double getElementAsDouble(int index) {
     return (double)getElementAsInt(index);
@@ -85,12 +100,12 @@ public class RawVector extends AbstractAtomicVector implements Iterable<Byte> {
 
   @Override
   public int getElementAsInt(int index) {
-    return UnsignedBytes.toInt(this.values[index]);
+    return UnsignedBytes.toInt(getElementAsByte(index));
   }
 
   @Override
   public String getElementAsString(int index) {
-    return toString(this.values[index]);
+    return toString(getElementAsByte(index));
   }
 
   public static String toString(byte value) {
@@ -113,7 +128,7 @@ public class RawVector extends AbstractAtomicVector implements Iterable<Byte> {
 
   @Override
   public int getElementAsRawLogical(int index) {
-    return this.values[index] == 0 ? 0 : 1;
+    return getElementAsByte(index) == 0 ? 0 : 1;
   }
   
   @Override
@@ -124,7 +139,7 @@ public class RawVector extends AbstractAtomicVector implements Iterable<Byte> {
 
   @Override
   public SEXP getElementAsSEXP(int index) {
-    return new RawVector(this.values[index]);
+    return new RawVector(getElementAsByte(index));
   }
 
   @Override
@@ -172,7 +187,7 @@ public class RawVector extends AbstractAtomicVector implements Iterable<Byte> {
 
   @Override
   public Object getElementAsObject(int index) {
-    return (values[index]);
+    return (getElementAsByte(index));
   }
 
   @Override
@@ -182,7 +197,7 @@ public class RawVector extends AbstractAtomicVector implements Iterable<Byte> {
 
   @Override
   public int compare(int index1, int index2) {
-    return UnsignedBytes.compare(values[index1], values[index2]);
+    return UnsignedBytes.compare(getElementAsByte(index1), getElementAsByte(index2));
   }
 
   @Override
@@ -208,7 +223,7 @@ public class RawVector extends AbstractAtomicVector implements Iterable<Byte> {
     }
 
     private Builder(RawVector exp) {
-      this.values = Arrays.copyOf(exp.values, exp.values.length);
+      this.values = exp.toByteArray();
       copyAttributesFrom(exp);
     }
 
@@ -309,7 +324,7 @@ public class RawVector extends AbstractAtomicVector implements Iterable<Byte> {
 
   @Override
   public String toString() {
-    if (values.length == 1) {
+    if (length() == 1) {
       return getElementAsString(0);
     } else {
       StringBuilder sb = new StringBuilder();
@@ -330,12 +345,12 @@ public class RawVector extends AbstractAtomicVector implements Iterable<Byte> {
 
     @Override
     public boolean hasNext() {
-      return i < values.length;
+      return i < length();
     }
 
     @Override
     public Byte next() {
-      return values[i++];
+      return getElementAsByte(i++);
     }
   }
 }
@@ -0,0 +1,182 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.sexp;
+
+import org.renjin.eval.Context;
+import org.renjin.eval.EvalException;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Frame for the environment of a closure call, storing the closure's arguments and local
+ * variables in an array according to the closure's {@link FrameLayout}.
+ *
+ * <p>Variables which are not part of the layout, for example those created with {@code assign()} or
+ * {@code eval()}, are stored in a map which is only allocated when first needed.</p>
+ */
+public class SlotFrame implements Frame {
+
+  private final FrameLayout layout;
+
+  /**
+   * Values of the slots in the layout, or {@code null} if the slot is unbound.
+   */
+  private final SEXP[] values;
+
+  private IdentityHashMap<Symbol, SEXP> overflow = null;
+
+  /**
+   * Bloom-esque filter keeping track of which functions have
+   * been (potentially) set into this frame.
+   */
+  private int functionFilter = 0;
+
+  public SlotFrame(FrameLayout layout) {
+    this.layout = layout;
+    this.values = new SEXP[layout.getSlotCount()];
+  }
+
+  public FrameLayout getLayout() {
+    return layout;
+  }
+
+  @Override
+  public Set<Symbol> getSymbols() {
+    Set<Symbol> symbols = Collections.newSetFromMap(new IdentityHashMap<Symbol, Boolean>());
+    for (int i = 0; i < values.length; i++) {
+      if(values[i] != null) {
+        symbols.add(layout.getSymbol(i));
+      }
+    }
+    if(overflow != null) {
+      symbols.addAll(overflow.keySet());
+    }
+    return symbols;
+  }
+
+  private SEXP get(Symbol name) {
+    int slot = layout.indexOf(name);
+    if(slot != -1) {
+      return values[slot];
+    }
+    if(overflow != null) {
+      return overflow.get(name);
+    }
+    return null;
+  }
+
+  @Override
+  public SEXP getVariable(Symbol name) {
+    SEXP value = get(name);
+    return value == null ? Symbol.UNBOUND_VALUE : value;
+  }
+
+  @Override
+  public Function getFunction(Context context, Symbol name) {
+    if(functionFilter != 0 && (functionFilter & name.hashBit()) != 0) {
+      SEXP value = get(name);
+      if(value != null) {
+        value = value.force(context);
+        if(value == Symbol.MISSING_ARG) {
+          throw new EvalException("argument '%s' is missing with no default", name.toString());
+        }
+        if(value instanceof Function) {
+          return (Function)value;
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean isMissingArgument(Symbol name) {
+    if(functionFilter != 0 && (functionFilter & name.hashBit()) != 0) {
+      return get(name) == Symbol.MISSING_ARG;
+    }
+    return false;
+  }
+
+  @Override
+  public void setVariable(Symbol name, SEXP value) {
+    int slot = layout.indexOf(name);
+    if(slot != -1) {
+      setSlot(slot, value);
+    } else {
+      if(overflow == null) {
+        overflow = new IdentityHashMap<>();
+      }
+      overflow.put(name, value);
+      updateFilter(name, value);
+    }
+  }
+
+  /**
+   * Binds {@code value} to the symbol at the given {@code slot} of this frame's layout.
+   */
+  public void setSlot(int slot, SEXP value) {
+    values[slot] = value;
+    updateFilter(layout.getSymbol(slot), value);
+  }
+
+  private void updateFilter(Symbol name, SEXP value) {
+    // we add Promises to the function filter because they *could* be
+    // functions
+    if(value instanceof Function || value instanceof Promise ||
+        value == Symbol.MISSING_ARG) {
+      functionFilter |= name.hashBit();
+    }
+  }
+
+  @Override
+  public void remove(Symbol name) {
+    int slot = layout.indexOf(name);
+    if(slot != -1) {
+      values[slot] = null;
+    } else if(overflow != null) {
+      overflow.remove(name);
+    }
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < values.length; i++) {
+      values[i] = null;
+    }
+    overflow = null;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < values.length; i++) {
+      if(values[i] != null) {
+        sb.append(layout.getSymbol(i)).append(" = ").append(values[i]).append("\n");
+      }
+    }
+    if(overflow != null) {
+      for (Map.Entry<Symbol, SEXP> entry : overflow.entrySet()) {
+        sb.append(entry.getKey()).append(" = ").append(entry.getValue()).append("\n");
+      }
+    }
+    return sb.toString();
+  }
+}
@@ -83,6 +83,11 @@ public class StringArrayVector extends StringVector implements Iterable<String>
     return values[index];
   }
 
+  @Override
+  public void getStrings(int start, String[] dst, int dstOffset, int length) {
+    System.arraycopy(values, start, dst, dstOffset, length);
+  }
+
   @Override
   public boolean isConstantAccessTime() {
     return true;
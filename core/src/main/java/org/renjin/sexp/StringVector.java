@@ -246,9 +246,7 @@ public abstract class StringVector extends AbstractAtomicVector implements Itera
 
   public String[] toArray() {
     String[] array = new String[length()];
-    for(int i=0;i!=array.length;++i) {
-      array[i] = getElementAsString(i);
-    }
+    getStrings(0, array, 0, array.length);
     return array;
   }
 
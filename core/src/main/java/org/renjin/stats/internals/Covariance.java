@@ -21,12 +21,16 @@ package org.renjin.stats.internals;
 
 import org.renjin.eval.EvalException;
 import org.renjin.invoke.annotations.Internal;
-import org.renjin.sexp.AtomicVector;
-import org.renjin.sexp.DoubleVector;
-import org.renjin.sexp.Vector;
+import org.renjin.primitives.summary.DeferredAccumulation;
+import org.renjin.sexp.*;
 
 public class Covariance {
 
+  /**
+   * The value of {@code na.method} for {@code use = "everything"}
+   */
+  private static final int USE_EVERYTHING = 4;
+
   @Internal
   public static DoubleVector cor(AtomicVector x, AtomicVector y, int naMethod, boolean kendall) {
 
@@ -46,6 +50,12 @@ public class Covariance {
       throw new EvalException("kendall=true nyi");
     }
 
+    // The variance of a single deferred vector can be fused with the computation of the vector
+    if(y == Null.INSTANCE && naMethod == USE_EVERYTHING && x instanceof DoubleVector && x.isDeferred() &&
+        x.getAttributes().getDim() == Null.INSTANCE) {
+      return new DeferredAccumulation("var", x, 1, AttributeMap.EMPTY);
+    }
+
     return new VarianceCalculator(x, y, naMethod)
     .withCovarianceMethod()
     .calculate();
@@ -18,6 +18,8 @@
  */
 package org.renjin.stats.internals.distributions;
 
+import java.util.Arrays;
+
 /**
  * A Mersenne-Twister implementation modeled after and validated with GNU R's RNG.
  */
@@ -65,6 +67,23 @@ public class MersenneTwister {
         setSeed(seed);
     }
 
+    /**
+     * @return a new generator with the same state as this generator
+     */
+    public MersenneTwister copy() {
+        MersenneTwister copy = new MersenneTwister(0);
+        System.arraycopy(stateVector, 0, copy.stateVector, 0, stateVector.length);
+        copy.stateVectorIndex = stateVectorIndex;
+        return copy;
+    }
+
+    /**
+     * @return a hash of this generator's current state
+     */
+    public int stateHash() {
+        return 31 * Arrays.hashCode(stateVector) + stateVectorIndex;
+    }
+
     /**
      * Sets the PRNG seed
      * @param seed The seed
@@ -29,6 +29,7 @@ import org.renjin.sexp.*;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.util.Arrays;
 
 
 public class RNG {
@@ -40,22 +41,90 @@ public class RNG {
   public Session context;
   private MethodHandle methodHandle;
 
+  private static final Symbol RANDOM_SEED = Symbol.get(".Random.seed");
+
+  /*
+   * Constants of L'Ecuyer's MRG32k3a generator, as in R's RNG.c
+   */
+  private static final long LECUYER_M1 = 4294967087L;
+  private static final long LECUYER_M2 = 4294944443L;
+  private static final double LECUYER_NORMC = 2.328306549295727688e-10;
+  private static final long LECUYER_A12 = 1403580;
+  private static final long LECUYER_A13N = 810728;
+  private static final long LECUYER_A21 = 527612;
+  private static final long LECUYER_A23N = 1370589;
+
+  /**
+   * The six (unsigned) seeds of the L'Ecuyer-CMRG generator.
+   */
+  private final long[] lecuyerSeed = new long[6];
+
+  /**
+   * The value of {@code .Random.seed} that we last assigned to the global environment. The L'Ecuyer-CMRG
+   * seed is kept in sync with {@code .Random.seed} so that parallel streams can be derived from it.
+   */
+  private SEXP publishedSeed = null;
+
+  /**
+   * True if the L'Ecuyer-CMRG generator has advanced since its seed was last assigned to
+   * {@code .Random.seed}. Drawing numbers only sets this flag: the seed is published when
+   * {@code .Random.seed} is next read, by {@link #publishSeed()}.
+   */
+  private boolean seedPending = false;
+
+  /**
+   * The number of seeds derived so far by {@link #deriveSeed()}.
+   */
+  private int derivedSeedCount = 0;
+
 
   public RNG(Session globals){
     this.context = globals;
     this.methodHandle = createMethodHandle(this);
   }
 
+  /**
+   * Creates a copy of this generator, with the same kind and state, for use by another session.
+   */
+  public RNG copy(Session session) {
+    RNG copy = new RNG(session);
+    copy.RNG_kind = RNG_kind;
+    copy.N01_kind = N01_kind;
+    copy.randomseed = randomseed;
+    if(mersenneTwisterAlg != null) {
+      copy.mersenneTwisterAlg = mersenneTwisterAlg.copy();
+    }
+    System.arraycopy(lecuyerSeed, 0, copy.lecuyerSeed, 0, lecuyerSeed.length);
+    copy.publishedSeed = publishedSeed;
+    copy.seedPending = seedPending;
+    return copy;
+  }
+
   @Internal
   public static IntVector RNGkind(@Current Context context, SEXP kindExp, SEXP normalkindExp) {
     RNG rng = context.getSession().rng;  
     
     if(kindExp != Null.INSTANCE) {
       int kind = ((AtomicVector)kindExp).getElementAsInt(0);
-      try {
-        rng.RNG_kind = RNGtype.values()[kind];
-      } catch (Exception e) {
-        throw new EvalException("RNGkind: unimplemented RNG kind " + kind);
+      RNGtype newKind;
+      if(kind == -1) {
+        newKind = RNGtype.MERSENNE_TWISTER;
+      } else {
+        try {
+          newKind = RNGtype.values()[kind];
+        } catch (Exception e) {
+          throw new EvalException("RNGkind: unimplemented RNG kind " + kind);
+        }
+      }
+      // Record the state of the outgoing generator before its kind changes
+      rng.publishSeed();
+      if(newKind == RNGtype.LECUYER_CMRG && rng.RNG_kind != RNGtype.LECUYER_CMRG) {
+        // As in GNU R, the new generator is seeded from the current one
+        double u = rng.unif_rand();
+        rng.RNG_kind = newKind;
+        rng.initLecuyer((int) (long) (u * 4294967295.0));
+      } else {
+        rng.RNG_kind = newKind;
       }
     }
     if(normalkindExp != Null.INSTANCE) {
@@ -90,33 +159,43 @@ public class RNG {
   @Internal("set.seed")
   public static void set_seed(@Current Context context, int seed, SEXP kind, SEXP normalkind) {
     RNG rng = context.getSession().rng;
-    rng.randomseed = seed;
     RNGkind(context, kind, normalkind);
-    switch (rng.RNG_kind) {
+    rng.setSeed(seed);
+  }
+
+  /**
+   * Seeds the current kind of generator, as {@code set.seed(seed)}.
+   */
+  public void setSeed(int seed) {
+    this.randomseed = seed;
+    switch (RNG_kind) {
     case WICHMANN_HILL:
-      throw new EvalException(rng.RNG_kind + " not implemented yet");
+      throw new EvalException(RNG_kind + " not implemented yet");
 
     case MARSAGLIA_MULTICARRY:
-      throw new EvalException(rng.RNG_kind + " not implemented yet");
+      throw new EvalException(RNG_kind + " not implemented yet");
 
     case SUPER_DUPER:
-      throw new EvalException(rng.RNG_kind + " not implemented yet");
+      throw new EvalException(RNG_kind + " not implemented yet");
 
     case MERSENNE_TWISTER:
-      if (rng.mersenneTwisterAlg == null) {
-        rng.mersenneTwisterAlg = new MersenneTwister(seed);
+      if (mersenneTwisterAlg == null) {
+        mersenneTwisterAlg = new MersenneTwister(seed);
       } else {
-        rng.mersenneTwisterAlg.setSeed(seed);
+        mersenneTwisterAlg.setSeed(seed);
       }
       return;
 
     case KNUTH_TAOCP:
     case KNUTH_TAOCP2:
-      throw new EvalException(rng.RNG_kind + " not implemented yet");
+      throw new EvalException(RNG_kind + " not implemented yet");
     case USER_UNIF:
-      throw new EvalException(rng.RNG_kind + " not implemented yet");
+      throw new EvalException(RNG_kind + " not implemented yet");
+    case LECUYER_CMRG:
+      initLecuyer(seed);
+      return;
     default:
-      throw new EvalException(rng.RNG_kind + " not implemented yet");
+      throw new EvalException(RNG_kind + " not implemented yet");
     }
   }
   /*
@@ -145,24 +224,56 @@ public class RNG {
         throw new EvalException(RNG_kind + " not implemented yet");
 
       case MERSENNE_TWISTER:
-        if (mersenneTwisterAlg == null) {
-          if (this.randomseed == 0) {
-            Randomize(RNG_kind);
-          }
-          mersenneTwisterAlg = new MersenneTwister((long) this.randomseed);
-        }
-        return (mersenneTwisterAlg.nextDouble());
+        return mersenneTwister().nextDouble();
 
       case KNUTH_TAOCP:
       case KNUTH_TAOCP2:
         throw new EvalException(RNG_kind + " not implemented yet");
       case USER_UNIF:
         throw new EvalException(RNG_kind + " not implemented yet");
+      case LECUYER_CMRG:
+        return lecuyerNext();
       default:
         throw new EvalException(RNG_kind + " not implemented yet");
     }
   }
 
+  private MersenneTwister mersenneTwister() {
+    if (mersenneTwisterAlg == null) {
+      if (this.randomseed == 0) {
+        Randomize(RNG_kind);
+      }
+      mersenneTwisterAlg = new MersenneTwister((long) this.randomseed);
+    }
+    return mersenneTwisterAlg;
+  }
+
+  /**
+   * Derives a seed for a new, independent generator from the current state of this generator,
+   * without drawing from it, so that this generator's own sequence is not affected. Successive calls
+   * return different seeds.
+   */
+  public int deriveSeed() {
+    long state;
+    switch (RNG_kind) {
+      case MERSENNE_TWISTER:
+        state = mersenneTwister().stateHash();
+        break;
+      case LECUYER_CMRG:
+        state = Arrays.hashCode(lecuyerSeed);
+        break;
+      default:
+        state = randomseed;
+        break;
+    }
+
+    // Mix the state with the number of seeds derived so far, using the SplitMix64 finalizer
+    long z = state * 0x9E3779B97F4A7C15L + (++derivedSeedCount) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return (int) (z ^ (z >>> 31));
+  }
+
   /*
    * This part of R is platform dependent. this formula is random itself :)
    */
@@ -194,11 +305,93 @@ public class RNG {
         throw new EvalException(RNG_kind + " not implemented yet");
       case USER_UNIF:
         throw new EvalException(RNG_kind + " not implemented yet");
+      case LECUYER_CMRG:
+        initLecuyer(sseed);
+        return;
       default:
         throw new EvalException(RNG_kind + " not implemented yet");
     }
   }
 
+  /**
+   * Seeds the L'Ecuyer-CMRG generator using GNU R's initial scrambling.
+   */
+  private void initLecuyer(int seed) {
+    for (int j = 0; j < 50; j++) {
+      seed = (69069 * seed + 1);
+    }
+    for (int j = 0; j < lecuyerSeed.length; j++) {
+      seed = (69069 * seed + 1);
+      while((seed & 0xFFFFFFFFL) >= LECUYER_M2) {
+        seed = (69069 * seed + 1);
+      }
+      lecuyerSeed[j] = seed & 0xFFFFFFFFL;
+    }
+    publishLecuyerSeed();
+  }
+
+  private double lecuyerNext() {
+    long[] s = lecuyerSeed;
+    long p1 = LECUYER_A12 * s[1] - LECUYER_A13N * s[0];
+    p1 %= LECUYER_M1;
+    if(p1 < 0) {
+      p1 += LECUYER_M1;
+    }
+    s[0] = s[1]; s[1] = s[2]; s[2] = p1;
+
+    long p2 = LECUYER_A21 * s[5] - LECUYER_A23N * s[3];
+    p2 %= LECUYER_M2;
+    if(p2 < 0) {
+      p2 += LECUYER_M2;
+    }
+    s[3] = s[4]; s[4] = s[5]; s[5] = p2;
+
+    seedPending = true;
+
+    return ((p1 > p2) ? (p1 - p2) : (p1 - p2 + LECUYER_M1)) * LECUYER_NORMC;
+  }
+
+  /**
+   * Called when {@code .Random.seed} is assigned in the global environment. Loads the L'Ecuyer-CMRG seed from
+   * the new value, for example to select a parallel stream, unless it is the current state of the generator
+   * that we assigned ourselves.
+   */
+  public void seedAssigned(SEXP value) {
+    if((value == publishedSeed && !seedPending) || !(value instanceof IntVector) || value.length() != 7) {
+      return;
+    }
+    IntVector seed = (IntVector) value;
+    if(seed.getElementAsInt(0) % 100 != RNGtype.LECUYER_CMRG.ordinal()) {
+      return;
+    }
+    for (int i = 0; i < lecuyerSeed.length; i++) {
+      lecuyerSeed[i] = seed.getElementAsInt(i + 1) & 0xFFFFFFFFL;
+    }
+    publishedSeed = value;
+    seedPending = false;
+  }
+
+  /**
+   * Assigns the current state of the generator to {@code .Random.seed}, if it has advanced since it was
+   * last assigned. Called when {@code .Random.seed} is about to be read from the global environment.
+   */
+  public void publishSeed() {
+    if(seedPending) {
+      publishLecuyerSeed();
+    }
+  }
+
+  private void publishLecuyerSeed() {
+    seedPending = false;
+    int[] seed = new int[7];
+    seed[0] = RNG_kind.ordinal() + 100 * N01_kind.ordinal();
+    for (int i = 0; i < lecuyerSeed.length; i++) {
+      seed[i + 1] = (int) lecuyerSeed[i];
+    }
+    publishedSeed = new IntArrayVector(seed);
+    context.getGlobalEnvironment().setVariableUnsafe(RANDOM_SEED, publishedSeed);
+  }
+
 
   private static MethodHandle createMethodHandle(RNG rng) {
     try {
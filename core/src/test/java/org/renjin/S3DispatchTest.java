@@ -20,10 +20,14 @@ package org.renjin;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.renjin.primitives.S3DispatchCache;
+import org.renjin.primitives.packaging.Namespaces;
+import org.renjin.sexp.Closure;
 import org.renjin.sexp.Logical;
 
 import java.io.IOException;
 
+import static org.hamcrest.Matchers.greaterThan;
 import static org.junit.Assert.assertThat;
 
 public class S3DispatchTest extends EvalTestCase {
@@ -121,4 +125,64 @@ public class S3DispatchTest extends EvalTestCase {
 
   }
 
+  @Test
+  public void cachedDispatchSeesRedefinedMethods() {
+    eval("f <- function(x) UseMethod('f')");
+    eval("f.default <- function(x) 'default'");
+    eval("f.foo <- function(x) 'foo'");
+    eval("x <- structure(1, class = c('bar', 'foo'))");
+    eval("r <- c(f(x), f(x))");
+
+    eval("f.foo <- function(x) 'foo2'");
+    eval("r <- c(r, f(x))");
+
+    eval("f.bar <- function(x) 'bar'");
+    eval("r <- c(r, f(x))");
+
+    eval("rm('f.bar', 'f.foo')");
+    eval("r <- c(r, f(x))");
+
+    assertThat(eval("r"), elementsIdenticalTo(c("foo", "foo", "foo2", "bar", "default")));
+  }
+
+  @Test
+  public void cachedDispatchSeesMethodsInCallFrames() {
+    eval("f <- function(x) UseMethod('f')");
+    eval("f.foo <- function(x) 'global'");
+    eval("g <- function(x) { f.foo <- function(x) 'local'; UseMethod('f') }");
+    eval("x <- structure(1, class = 'foo')");
+
+    assertThat(eval("c(f(x), g(x), f(x), g(x))"), elementsIdenticalTo(c("global", "local", "global", "local")));
+  }
+
+  @Test
+  public void cachedDispatchSeesRegisteredMethods() {
+    eval("f <- function(x) UseMethod('f')");
+    eval("f.default <- function(x) 'default'");
+    eval("x <- structure(1, class = 'baz')");
+    eval("r <- c(f(x), f(x))");
+
+    Closure method = (Closure) eval("function(x) 'registered'");
+    Namespaces.registerS3Method(topLevelContext, "f", "baz", method, global);
+
+    eval("r <- c(r, f(x))");
+
+    assertThat(eval("r"), elementsIdenticalTo(c("default", "default", "registered")));
+  }
+
+  @Test
+  public void repeatedDispatchHitsCache() {
+    S3DispatchCache cache = topLevelContext.getSession().getS3DispatchCache();
+
+    eval("f <- function(x) UseMethod('f')");
+    eval("f.foo <- function(x) 'foo'");
+    eval("x <- structure(1, class = 'foo')");
+    eval("f(x)");
+
+    long hits = cache.getHitCount();
+    eval("y <- c(f(x), f(x), f(x))");
+
+    assertThat(cache.getHitCount(), greaterThan(hits));
+  }
+
 }
@@ -0,0 +1,109 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.compiler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.renjin.EvalTestCase;
+import org.renjin.sexp.Closure;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+public class ClosureCompilerTest extends EvalTestCase {
+
+  @Before
+  public void enableClosureCompiler() {
+    ClosureCompiler.ENABLED = true;
+  }
+
+  @After
+  public void disableClosureCompiler() {
+    ClosureCompiler.ENABLED = false;
+  }
+
+  @Test
+  public void closureReadingItsArgumentsIsCompiled() throws InterruptedException {
+    eval("f <- function(x, y) x * 2 + y");
+    eval("for(i in 1:" + (ClosureCompiler.THRESHOLD + 1) + ") f(i, 1)");
+
+    ClosureCompiler compiler = ((Closure) eval("f")).getCompiler();
+    assertThat(compiler, notNullValue());
+    awaitVariant(compiler);
+
+    assertThat(compiler.isFailed(), equalTo(false));
+    assertThat(compiler.getVariantCount(), equalTo(1));
+
+    // Arguments of the same shape satisfy the guard without being forced first,
+    // so no further variants are compiled
+    eval("for(i in 1:10) f(i, 1)");
+    assertThat(eval("f(20L, 1)"), elementsIdenticalTo(c(41)));
+    assertThat(compiler.getVariantCount(), equalTo(1));
+  }
+
+  @Test
+  public void closureWithLocalVariableRunsCompiled() throws InterruptedException {
+    eval("f <- function(x) { y <- x * 2; y + 1 }");
+    eval("for(i in 1:" + (ClosureCompiler.THRESHOLD + 1) + ") f(i)");
+
+    ClosureCompiler compiler = ((Closure) eval("f")).getCompiler();
+    awaitVariant(compiler);
+    assertThat(compiler.getVariantCount(), equalTo(1));
+
+    // The local y is not bound when later calls start, and must not be part of the guard
+    long compiledCalls = compiler.getCompiledCallCount();
+    eval("for(i in 1:10) f(i)");
+    assertThat(compiler.getCompiledCallCount(), equalTo(compiledCalls + 10));
+    assertThat(eval("f(20L)"), elementsIdenticalTo(c(41)));
+    assertThat(compiler.getVariantCount(), equalTo(1));
+  }
+
+  @Test
+  public void closureExitedByErrorIsNotCompiled() throws InterruptedException {
+    eval("f <- function(x) { y <- x + 1; y }");
+    eval("for(i in 1:" + ClosureCompiler.THRESHOLD + ") f(i)");
+    eval("try(f(stop('not a number')), silent = TRUE)");
+
+    ClosureCompiler compiler = ((Closure) eval("f")).getCompiler();
+    assertThat(compiler.getVariantCount(), equalTo(0));
+    assertThat(compiler.isFailed(), equalTo(false));
+
+    eval("f(1)");
+    awaitVariant(compiler);
+    assertThat(compiler.getVariantCount(), equalTo(1));
+  }
+
+  @Test
+  public void closureExitedByReturnIsCompiled() throws InterruptedException {
+    eval("f <- function(x) { y <- x + 1; return(y) }");
+    eval("for(i in 1:" + (ClosureCompiler.THRESHOLD + 1) + ") f(i)");
+
+    ClosureCompiler compiler = ((Closure) eval("f")).getCompiler();
+    awaitVariant(compiler);
+    assertThat(compiler.getVariantCount(), equalTo(1));
+  }
+
+  private static void awaitVariant(ClosureCompiler compiler) throws InterruptedException {
+    for (int i = 0; i < 1000 && compiler.getVariantCount() == 0 && !compiler.isFailed(); i++) {
+      Thread.sleep(10);
+    }
+  }
+}
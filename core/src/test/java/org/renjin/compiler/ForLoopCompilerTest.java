@@ -31,11 +31,14 @@ import org.renjin.primitives.special.ForFunction;
 import org.renjin.repackaged.guava.base.Charsets;
 import org.renjin.repackaged.guava.base.Joiner;
 import org.renjin.repackaged.guava.io.Resources;
+import org.renjin.sexp.DoubleVector;
 import org.renjin.sexp.ExpressionVector;
+import org.renjin.sexp.FunctionCall;
 import org.renjin.sexp.SEXP;
 
 import java.io.IOException;
 
+import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 
 public class ForLoopCompilerTest extends EvalTestCase {
@@ -76,6 +79,60 @@ public class ForLoopCompilerTest extends EvalTestCase {
     assertThat(evalAndAssertCompiled("{ s <- 0; for(i in 1:10000) { s <- s + sqrt(i) }; s }"), closeTo(c(666716.5), 1d));
   }
 
+  @Test
+  public void compiledLoopIsCached() {
+    eval("f <- function(n) { s <- 0; for(i in 1:n) { s <- s + sqrt(i) }; s }");
+
+    CompiledLoopCache cache = topLevelContext.getSession().getCompiledLoopCache();
+
+    assertThat(evalAndAssertCompiled("f(1000)"), closeTo(c(21097.46), 0.01));
+    assertThat(cache.getCompilationCount(), equalTo(1L));
+
+    assertThat(evalAndAssertCompiled("f(1000)"), closeTo(c(21097.46), 0.01));
+    assertThat(cache.getCompilationCount(), equalTo(1L));
+    assertThat(cache.getHitCount(), equalTo(1L));
+
+    // A loop vector of the same type but different length and contents reuses the compiled body
+    assertThat(evalAndAssertCompiled("f(2000)"), closeTo(c(59650.63), 0.01));
+    assertThat(cache.getCompilationCount(), equalTo(1L));
+    assertThat(cache.getHitCount(), equalTo(2L));
+  }
+
+  @Test
+  public void compiledLoopIsReusedWithNewData() {
+    eval("f <- function(x) { s <- 0; for(i in seq_along(x)) { s <- s + x[i] }; s }");
+
+    CompiledLoopCache cache = topLevelContext.getSession().getCompiledLoopCache();
+
+    assertThat(evalAndAssertCompiled("f(c(1, 2, 3))"), closeTo(c(6), 0d));
+    assertThat(evalAndAssertCompiled("f(c(10, 20, 30))"), closeTo(c(60), 0d));
+    assertThat(evalAndAssertCompiled("f(c(1.5, 2.5, NA))"), elementsIdenticalTo(c(DoubleVector.NA)));
+    assertThat(cache.getCompilationCount(), equalTo(1L));
+
+    // A variable of a different type invalidates the guard, and the loop is compiled again
+    assertThat(evalAndAssertCompiled("f(1:3)"), closeTo(c(6), 0d));
+    assertThat(cache.getCompilationCount(), equalTo(2L));
+  }
+
+  @Test
+  public void failedCompilationIsRetried() {
+    CompiledLoopCache cache = new CompiledLoopCache();
+    FunctionCall call = (FunctionCall) RParser.parseSource("for(i in 1:10) x\n").getElementAsSEXP(0);
+
+    assertThat(cache.isUncompilable(call), equalTo(false));
+
+    // After the first failure, compilation is skipped once
+    assertThat(cache.markUncompilable(call, 0), equalTo(true));
+    assertThat(cache.isUncompilable(call), equalTo(true));
+    assertThat(cache.isUncompilable(call), equalTo(false));
+
+    // ...and then for twice as many entries after each further failure
+    assertThat(cache.markUncompilable(call, 0), equalTo(false));
+    assertThat(cache.isUncompilable(call), equalTo(true));
+    assertThat(cache.isUncompilable(call), equalTo(true));
+    assertThat(cache.isUncompilable(call), equalTo(false));
+  }
+
   @Ignore
   @Test
   public void loopWithS3Call() {
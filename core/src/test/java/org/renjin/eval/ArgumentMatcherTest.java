@@ -0,0 +1,111 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.eval;
+
+import org.junit.Test;
+import org.renjin.parser.RParser;
+import org.renjin.sexp.*;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ArgumentMatcherTest {
+
+  private final ArgumentMatcher matcher = new ArgumentMatcher(new PairList.Builder()
+      .add("x", Symbol.MISSING_ARG)
+      .add("na.rm", LogicalVector.FALSE)
+      .add("...", Symbol.MISSING_ARG)
+      .build());
+
+  @Test
+  public void repeatedSignatureReusesPositions() {
+    MatchedArguments first = matcher.match(new PairList.Builder()
+        .add(new DoubleArrayVector(1))
+        .add("na", LogicalVector.TRUE)
+        .build());
+
+    MatchedArguments second = matcher.match(new PairList.Builder()
+        .add(new DoubleArrayVector(2))
+        .add("na", LogicalVector.FALSE)
+        .build());
+
+    assertThat(second.getActualIndex(0), equalTo(0));
+    assertThat(second.getActualIndex(1), equalTo(1));
+    assertThat(second.getActualValue(1), sameInstance((SEXP) LogicalVector.FALSE));
+    assertThat(second.getPositions(), sameInstance(first.getPositions()));
+  }
+
+  @Test
+  public void differentSignaturesAreMatchedSeparately() {
+    MatchedArguments positional = matcher.match(new PairList.Builder()
+        .add(new DoubleArrayVector(1))
+        .add(LogicalVector.TRUE)
+        .build());
+
+    MatchedArguments named = matcher.match(new PairList.Builder()
+        .add("na.rm", LogicalVector.TRUE)
+        .add(new DoubleArrayVector(1))
+        .build());
+
+    assertThat(positional.getActualIndex(1), equalTo(-1));
+    assertThat(positional.buildExtraArgumentList().length(), equalTo(1));
+    assertThat(named.getActualIndex(0), equalTo(1));
+    assertThat(named.getActualIndex(1), equalTo(0));
+
+    // Repeating the first signature must not return the second's positions
+    MatchedArguments again = matcher.match(new PairList.Builder()
+        .add(new DoubleArrayVector(1))
+        .add(LogicalVector.TRUE)
+        .build());
+    assertThat(again.getActualIndex(1), equalTo(-1));
+  }
+
+  @Test
+  public void changingFormalsResetsMatcher() {
+    Session session = new SessionBuilder().build();
+    Context context = session.getTopLevelContext();
+    context.evaluate(RParser.parseSource("f <- function(a, b) a - b\n"));
+
+    assertThat(context.evaluate(RParser.parseSource("f(a = 3, b = 1)\n")), equalTo((SEXP) new DoubleArrayVector(2)));
+    assertThat(context.evaluate(RParser.parseSource("f(3, 1)\n")), equalTo((SEXP) new DoubleArrayVector(2)));
+
+    Closure f = (Closure) session.getGlobalEnvironment().getVariable(context, "f");
+    Closure reordered = (Closure) context.evaluate(RParser.parseSource("function(b, a) NULL\n"));
+    f.unsafeSetFormals(reordered.getFormals());
+
+    assertThat(context.evaluate(RParser.parseSource("f(a = 3, b = 1)\n")), equalTo((SEXP) new DoubleArrayVector(2)));
+    assertThat(context.evaluate(RParser.parseSource("f(3, 1)\n")), equalTo((SEXP) new DoubleArrayVector(-2)));
+  }
+
+  @Test
+  public void errorsAreNotRemembered() {
+    ArgumentMatcher strict = new ArgumentMatcher("x", "y");
+    for (int i = 0; i < 2; i++) {
+      try {
+        strict.match(new PairList.Builder()
+            .add("x", new DoubleArrayVector(1))
+            .add("x", new DoubleArrayVector(2))
+            .build());
+        fail("expected duplicate argument error");
+      } catch (EvalException expected) {
+      }
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.eval;
+
+import org.renjin.parser.RParser;
+import org.renjin.sexp.ExpressionVector;
+
+/**
+ * Measures the per-call overhead of small R closures, including argument matching,
+ * default arguments and {@code ...} forwarding.
+ *
+ * <pre>
+ * java -cp ... org.renjin.eval.ClosureCallBenchmark [calls]
+ * </pre>
+ */
+public class ClosureCallBenchmark {
+
+  public static void main(String[] args) {
+    int calls = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+    Session session = new SessionBuilder().build();
+    Context context = session.getTopLevelContext();
+
+    context.evaluate(RParser.parseSource(
+        "positional <- function(x, y) x\n" +
+        "defaults <- function(x, scale = 1, na.rm = FALSE) x\n" +
+        "dots <- function(x, ...) inner(x, ...)\n" +
+        "inner <- function(x, y = 2, ...) x\n"));
+
+    String[][] cases = {
+        { "f(x, y)",            "positional(i, 1)" },
+        { "defaults omitted",   "defaults(i)" },
+        { "defaults by name",   "defaults(i, na.rm = TRUE)" },
+        { "partial name",       "defaults(i, sc = 2)" },
+        { "... forwarding",     "dots(i, y = 3, z = 4)" },
+    };
+
+    for (int round = 0; round < 3; round++) {
+      System.out.println(String.format("Round %d", round + 1));
+      for (String[] benchmark : cases) {
+        ExpressionVector loop = RParser.parseSource(String.format("for(i in 1:%d) %s\n", calls, benchmark[1]));
+        long start = System.nanoTime();
+        context.evaluate(loop);
+        double nanos = (double) (System.nanoTime() - start) / calls;
+        System.out.println(String.format("  %-20s %8.1f ns/call", benchmark[0], nanos));
+      }
+    }
+  }
+}
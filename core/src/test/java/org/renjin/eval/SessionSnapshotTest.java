@@ -0,0 +1,101 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.eval;
+
+import org.junit.Test;
+import org.renjin.methods.MethodDispatch;
+import org.renjin.methods.PrimitiveMethodTable;
+import org.renjin.parser.RParser;
+import org.renjin.primitives.NativeCallCache;
+import org.renjin.primitives.packaging.NamespaceRegistry;
+import org.renjin.sexp.AtomicVector;
+import org.renjin.sexp.Logical;
+import org.renjin.sexp.SEXP;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class SessionSnapshotTest {
+
+  @Test
+  public void sessionsAreIsolated() {
+    Session template = new SessionBuilder().build();
+    eval(template, "x <- 41; f <- function() x + 1; options(digits = 4)");
+
+    SessionSnapshot snapshot = template.snapshot();
+
+    Session a = new SessionBuilder().fromSnapshot(snapshot).build();
+    Session b = snapshot.newSession();
+
+    assertThat(evalDouble(a, "f()"), equalTo(42.0));
+
+    eval(a, "x <- 1; options(digits = 10); rm(f)");
+
+    assertThat(evalDouble(a, "x"), equalTo(1.0));
+    assertThat(evalLogical(a, "exists('f')"), equalTo(false));
+    assertThat(evalDouble(a, "getOption('digits')"), equalTo(10.0));
+
+    assertThat(evalDouble(b, "f()"), equalTo(42.0));
+    assertThat(evalDouble(b, "getOption('digits')"), equalTo(4.0));
+  }
+
+  @Test
+  public void mutableSingletonsAreNotShared() {
+    Session template = new SessionBuilder().build();
+    eval(template, "try(stop('template'), silent = TRUE)");
+
+    SessionSnapshot snapshot = template.snapshot();
+    Session a = snapshot.newSession();
+    Session b = snapshot.newSession();
+
+    assertThat(a.getSingleton(MethodDispatch.class) == b.getSingleton(MethodDispatch.class), equalTo(false));
+    assertThat(a.getSingleton(PrimitiveMethodTable.class) == b.getSingleton(PrimitiveMethodTable.class), equalTo(false));
+    assertThat(a.getSingleton(NamespaceRegistry.class) == b.getSingleton(NamespaceRegistry.class), equalTo(false));
+    assertThat(a.getSingleton(NativeCallCache.class) == b.getSingleton(NativeCallCache.class), equalTo(true));
+
+    eval(a, "try(stop('boom'), silent = TRUE)");
+    assertThat(evalLogical(a, "grepl('boom', geterrmessage())"), equalTo(true));
+    assertThat(evalLogical(b, "identical(grepl('boom', geterrmessage()), TRUE)"), equalTo(false));
+  }
+
+  @Test
+  public void snapshotIsNotAffectedByTemplate() {
+    Session template = new SessionBuilder().build();
+    eval(template, "x <- 1");
+
+    SessionSnapshot snapshot = template.snapshot();
+    eval(template, "x <- 2; y <- 3");
+
+    Session session = snapshot.newSession();
+    assertThat(evalDouble(session, "x"), equalTo(1.0));
+    assertThat(evalLogical(session, "exists('y')"), equalTo(false));
+  }
+
+  private static double evalDouble(Session session, String source) {
+    return ((AtomicVector) eval(session, source)).getElementAsDouble(0);
+  }
+
+  private static boolean evalLogical(Session session, String source) {
+    return ((AtomicVector) eval(session, source)).getElementAsLogical(0) == Logical.TRUE;
+  }
+
+  private static SEXP eval(Session session, String source) {
+    return session.getTopLevelContext().evaluate(RParser.parseSource(source + "\n"));
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.invoke.reflection;
+
+import org.renjin.eval.Context;
+import org.renjin.eval.Session;
+import org.renjin.eval.SessionBuilder;
+import org.renjin.parser.RParser;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.ExpressionVector;
+import org.renjin.sexp.ExternalPtr;
+import org.renjin.sexp.SEXP;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures the cost of calling a Java method from R, comparing {@code obj$method(x)} with
+ * the same loop calling an R closure, and the binding's method handle invoker with
+ * {@link Method#invoke}.
+ *
+ * <pre>
+ * java -cp ... org.renjin.invoke.reflection.FunctionBindingBenchmark [calls]
+ * </pre>
+ */
+public class FunctionBindingBenchmark {
+
+  public static class Counter {
+    private double total;
+
+    public void add(double x) {
+      total += x;
+    }
+
+    public void add(String x) {
+      total += Double.parseDouble(x);
+    }
+
+    public double getTotal() {
+      return total;
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    int calls = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+    Session session = new SessionBuilder().build();
+    Context context = session.getTopLevelContext();
+    Counter counter = new Counter();
+    session.getGlobalEnvironment().setVariable(context, "counter", new ExternalPtr<>(counter));
+
+    ExpressionVector javaLoop = RParser.parseSource(String.format("for(i in 1:%d) counter$add(i)\n", calls));
+    ExpressionVector closureLoop = RParser.parseSource(String.format(
+        "add <- function(x) invisible(x); for(i in 1:%d) add(i)\n", calls));
+
+    Method method = Counter.class.getMethod("add", double.class);
+    FunctionBinding binding = new FunctionBinding(Collections.singletonList(method));
+    FunctionBinding.Overload overload = binding.getOverloads().get(0);
+
+    for (int round = 0; round < 3; round++) {
+      System.out.println(String.format("Round %d", round + 1));
+      System.out.println(String.format("  counter$add(i) from R:        %8.1f ns/call", time(context, javaLoop, calls)));
+      System.out.println(String.format("  R closure from R:             %8.1f ns/call", time(context, closureLoop, calls)));
+
+      long start = System.nanoTime();
+      for (int i = 0; i < calls; i++) {
+        method.invoke(counter, (double) i);
+      }
+      System.out.println(String.format("  Method.invoke:                %8.1f ns/call", (double) (System.nanoTime() - start) / calls));
+
+      List<SEXP> arguments = Collections.<SEXP>singletonList(new DoubleArrayVector(1));
+      start = System.nanoTime();
+      for (int i = 0; i < calls; i++) {
+        overload.invoke(context, counter, arguments);
+      }
+      System.out.println(String.format("  Overload.invoke, converting:  %8.1f ns/call", (double) (System.nanoTime() - start) / calls));
+    }
+  }
+
+  private static double time(Context context, ExpressionVector loop, int calls) {
+    long start = System.nanoTime();
+    context.evaluate(loop);
+    return (double) (System.nanoTime() - start) / calls;
+  }
+}
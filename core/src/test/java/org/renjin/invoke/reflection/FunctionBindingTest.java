@@ -0,0 +1,112 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.invoke.reflection;
+
+import org.junit.Test;
+import org.renjin.EvalTestCase;
+import org.renjin.sexp.ExternalPtr;
+import org.renjin.sexp.ListVector;
+
+import static org.junit.Assert.assertThat;
+
+
+public class FunctionBindingTest extends EvalTestCase {
+
+  public static class Adder {
+    private double total;
+
+    public String add(int x) {
+      total += x;
+      return "int";
+    }
+
+    public String add(double x) {
+      total += x;
+      return "double";
+    }
+
+    public String add(String x) {
+      total += Double.parseDouble(x);
+      return "string";
+    }
+
+    public void reset() {
+      total = 0;
+    }
+
+    public double getTotal() {
+      return total;
+    }
+
+    public static double twice(double x) {
+      return x * 2;
+    }
+  }
+
+  public static class Describer {
+    public String describe(Object x) {
+      return x == null ? "null" : x.getClass().getSimpleName();
+    }
+
+    public String describe(Object x, Object y) {
+      return describe(x) + "," + describe(y);
+    }
+  }
+
+  @Test
+  public void overloadIsChosenByArgumentTypeAtEachCallSite() {
+    global.setVariable(topLevelContext, "adder", new ExternalPtr<>(new Adder()));
+
+    eval("f <- function(x) adder$add(x)");
+
+    assertThat(eval("f(1L)"), elementsIdenticalTo(c("int")));
+    assertThat(eval("f(1.5)"), elementsIdenticalTo(c("double")));
+    assertThat(eval("f('2')"), elementsIdenticalTo(c("string")));
+    assertThat(eval("f(3L)"), elementsIdenticalTo(c("int")));
+    assertThat(eval("adder$total"), elementsIdenticalTo(c(7.5)));
+  }
+
+  @Test
+  public void naScalarsAreDistinguishedAtEachCallSite() {
+    global.setVariable(topLevelContext, "describer", new ExternalPtr<>(new Describer()));
+
+    eval("f <- function(x) describer$describe(x)");
+
+    assertThat(eval("f(1.5)"), elementsIdenticalTo(c("Double")));
+    assertThat(eval("f(NA_real_)"), elementsIdenticalTo(c("DoubleArrayVector")));
+    assertThat(eval("f(2.5)"), elementsIdenticalTo(c("Double")));
+    assertThat(eval("f(NA_real_)"), elementsIdenticalTo(c("DoubleArrayVector")));
+    assertThat(eval("describer$describe(NA_real_, 1L)"), elementsIdenticalTo(c("DoubleArrayVector,Integer")));
+  }
+
+  @Test
+  public void voidAndStaticMethods() {
+    Adder adder = new Adder();
+    global.setVariable(topLevelContext, "adder", new ExternalPtr<>(adder));
+
+    eval("for(i in 1:100) adder$add(i)");
+    assertThat(eval("adder$total"), elementsIdenticalTo(c(5050)));
+
+    eval("adder$reset()");
+    assertThat(eval("adder$total"), elementsIdenticalTo(c(0)));
+
+    FunctionBinding twice = ClassBindingImpl.get(Adder.class).getStaticMethodBinding("twice");
+    assertThat(twice.invoke(null, topLevelContext, (ListVector) list(21)), elementsIdenticalTo(c(42)));
+  }
+}
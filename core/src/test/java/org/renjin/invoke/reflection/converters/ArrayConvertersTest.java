@@ -0,0 +1,103 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.invoke.reflection.converters;
+
+import org.junit.Test;
+import org.renjin.sexp.*;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.*;
+
+public class ArrayConvertersTest {
+
+  @Test
+  public void doubleArrayIsWrappedWithoutCopying() {
+    double[] array = {1, 2, 3};
+    DoubleVector vector = DoubleArrayConverter.DOUBLE_ARRAY.convertToR(array);
+
+    assertThat(((DoubleArrayVector) vector).toDoubleArrayUnsafe(), sameInstance(array));
+    assertThat(DoubleArrayConverter.DOUBLE_ARRAY.convertToJava(vector), sameInstance((Object) array));
+  }
+
+  @Test
+  public void smallFloatArrayIsWidened() {
+    DoubleVector vector = FloatArrayConverter.FLOAT_ARRAY.convertToR(new float[] { 1.5f, -2f });
+
+    assertThat(vector, instanceOf(DoubleArrayVector.class));
+    assertArrayEquals(new double[] { 1.5, -2 }, vector.toDoubleArray(), 0);
+  }
+
+  @Test
+  public void largeFloatArrayIsViewed() {
+    float[] array = new float[DoubleArrayConverter.VIEW_THRESHOLD];
+    array[42] = 0.25f;
+    DoubleVector vector = FloatArrayConverter.FLOAT_ARRAY.convertToR(array);
+
+    assertFalse(vector instanceof DoubleArrayVector);
+    assertEquals(array.length, vector.length());
+    assertEquals(0.25, vector.getElementAsDouble(42), 0);
+
+    float[] roundTrip = (float[]) FloatArrayConverter.FLOAT_ARRAY.convertToJava(vector);
+    assertArrayEquals(array, roundTrip, 0);
+  }
+
+  @Test
+  public void longArrays() {
+    long[] array = new long[DoubleArrayConverter.VIEW_THRESHOLD + 1];
+    array[0] = 1L << 40;
+    DoubleVector vector = LongArrayConverter.LONG_ARRAY.convertToR(array);
+
+    assertEquals(Math.pow(2, 40), vector.getElementAsDouble(0), 0);
+    assertArrayEquals(new long[] { 3, -4 },
+        (long[]) LongArrayConverter.LONG_ARRAY.convertToJava(new DoubleArrayVector(3, -4)));
+  }
+
+  @Test
+  public void boxedDoublesWithNulls() {
+    DoubleVector vector = BoxedDoubleArrayConverter.BOXED_DOUBLE_ARRAY.convertToR(new Double[] { 1d, null });
+
+    assertEquals(1, vector.getElementAsDouble(0), 0);
+    assertTrue(vector.isElementNA(1));
+  }
+
+  @Test
+  public void intArrays() {
+    int[] array = { 1, IntVector.NA, 3 };
+    SEXP vector = Converters.get(int[].class).convertToR(array);
+
+    assertThat(((IntArrayVector) vector).toIntArrayUnsafe(), sameInstance(array));
+    assertThat(Converters.get(int[].class).convertToJava(vector), sameInstance((Object) array));
+    assertArrayEquals(new Integer[] { 1, null, 3 }, (Integer[]) Converters.get(Integer[].class).convertToJava(vector));
+  }
+
+  @Test
+  public void booleanArrays() {
+    Converter converter = Converters.get(boolean[].class);
+    LogicalVector vector = (LogicalVector) converter.convertToR(new boolean[] { true, false });
+
+    assertEquals(Logical.TRUE, vector.getElementAsLogical(0));
+    assertEquals(Logical.FALSE, vector.getElementAsLogical(1));
+    assertArrayEquals(new boolean[] { false, true }, (boolean[]) converter.convertToJava(
+        new LogicalArrayVector(Logical.FALSE, Logical.TRUE)));
+
+    LogicalVector boxed = (LogicalVector) Converters.get(Boolean[].class).convertToR(new Boolean[] { true, null });
+    assertTrue(boxed.isElementNA(1));
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.pipeliner.fusion;
+
+import org.junit.Test;
+import org.renjin.pipeliner.VectorPipeliner;
+import org.renjin.primitives.summary.DeferredSum;
+import org.renjin.sexp.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class BufferNodeTest {
+
+  private final VectorPipeliner pipeliner = new VectorPipeliner(Executors.newFixedThreadPool(1));
+
+  @Test
+  public void directLittleEndianDoubles() {
+    ByteBuffer bytes = ByteBuffer.allocateDirect(100 * 8).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < 100; i++) {
+      bytes.putDouble(i);
+    }
+    bytes.flip();
+    DoubleBufferVector vector = DoubleBufferVector.wrap(bytes);
+
+    assertThat(vector.length(), equalTo(100));
+    assertThat(vector.getElementAsDouble(99), equalTo(99d));
+    assertThat(vector.toDoubleArray()[42], equalTo(42d));
+
+    assertThat(sum(vector), equalTo(4950d));
+  }
+
+  @Test
+  public void logicals() {
+    ByteBuffer bytes = ByteBuffer.allocate(4 * 4);
+    bytes.putInt(1).putInt(0).putInt(1).putInt(1);
+    bytes.flip();
+    LogicalBufferVector vector = LogicalBufferVector.wrap(bytes);
+
+    assertThat(vector.getElementAsRawLogical(1), equalTo(0));
+    assertThat(sum(vector), equalTo(3d));
+  }
+
+  @Test
+  public void logicalNAsAreConverted() {
+    LogicalBufferVector vector = LogicalBufferVector.wrap(IntBuffer.wrap(new int[] { 1, IntVector.NA, 1 }));
+
+    assertTrue(vector.isElementNA(1));
+    assertTrue(DoubleVector.isNA(vector.toDoubleArray()[1]));
+  }
+
+  @Test
+  public void unsignedRaws() {
+    ByteBuffer bytes = ByteBuffer.allocateDirect(256);
+    for (int i = 0; i < 256; i++) {
+      bytes.put((byte) i);
+    }
+    bytes.flip();
+    RawBufferVector vector = RawBufferVector.wrap(bytes);
+
+    assertThat(vector.getElementAsInt(200), equalTo(200));
+    assertThat(vector.toByteArray()[255], equalTo((byte) 255));
+
+    assertThat(sum(vector), equalTo(32640d));
+  }
+
+  private double sum(Vector vector) {
+    DeferredSum sum = new DeferredSum(vector, AttributeMap.EMPTY);
+    return pipeliner.materialize(sum).getElementAsDouble(0);
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.pipeliner.fusion;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.renjin.pipeliner.VectorPipeliner;
+import org.renjin.primitives.matrix.DeferredColSums;
+import org.renjin.primitives.matrix.DeferredRowMeans;
+import org.renjin.primitives.sequence.IntSequence;
+import org.renjin.primitives.summary.DeferredAccumulation;
+import org.renjin.primitives.summary.DeferredMean;
+import org.renjin.primitives.summary.DeferredSum;
+import org.renjin.sexp.AtomicVector;
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.Vector;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PartitionedComputationTest {
+
+  private int threshold;
+  private int maxPartitions;
+  private ExecutorService executorService;
+  private VectorPipeliner pipeliner;
+
+  @Before
+  public void setUp() {
+    threshold = VectorPipeliner.PARTITION_THRESHOLD;
+    maxPartitions = VectorPipeliner.MAX_PARTITIONS;
+    VectorPipeliner.PARTITION_THRESHOLD = 10;
+    VectorPipeliner.MAX_PARTITIONS = 3;
+
+    executorService = Executors.newFixedThreadPool(2);
+    pipeliner = new VectorPipeliner(executorService);
+  }
+
+  @After
+  public void tearDown() {
+    VectorPipeliner.PARTITION_THRESHOLD = threshold;
+    VectorPipeliner.MAX_PARTITIONS = maxPartitions;
+    executorService.shutdown();
+  }
+
+  @Test
+  public void sum() {
+    Vector result = pipeliner.materialize(new DeferredSum(new IntSequence(1, 1, 1000), AttributeMap.EMPTY));
+    assertEquals(500500d, result.getElementAsDouble(0), 0d);
+  }
+
+  @Test
+  public void mean() {
+    Vector result = pipeliner.materialize(new DeferredMean(new IntSequence(1, 1, 1000), AttributeMap.EMPTY));
+    assertEquals(500.5, result.getElementAsDouble(0), 0d);
+  }
+
+  @Test
+  public void sumWithInfinity() {
+    double[] values = new double[100];
+    values[99] = Double.POSITIVE_INFINITY;
+    Vector result = pipeliner.materialize(new DeferredSum(new DoubleArrayVector(values), AttributeMap.EMPTY));
+    assertEquals(Double.POSITIVE_INFINITY, result.getElementAsDouble(0), 0d);
+  }
+
+  @Test
+  public void colSums() {
+
+    //        [,1] [,2] [,3] [,4]
+    //  [1,]    1    4    7   10
+    //  [2,]    2    5    8   11
+    //  [3,]    3    6    9   12
+    DeferredColSums colSums = new DeferredColSums(new IntSequence(1, 1, 12), 4, false, AttributeMap.EMPTY);
+    Vector result = pipeliner.materialize(colSums);
+
+    assertArrayEquals(new double[] { 6, 15, 24, 33 }, ((AtomicVector) result).toDoubleArray(), 0d);
+  }
+
+  @Test
+  public void rowMeans() {
+    DeferredRowMeans rowMeans = new DeferredRowMeans(new IntSequence(1, 1, 12), 3, AttributeMap.EMPTY);
+    Vector result = pipeliner.materialize(rowMeans);
+
+    assertArrayEquals(new double[] { 5.5, 6.5, 7.5 }, ((AtomicVector) result).toDoubleArray(), 0d);
+  }
+
+  @Test
+  public void variance() {
+    Vector result = pipeliner.materialize(
+        new DeferredAccumulation("var", new IntSequence(1, 1, 1000), 1, AttributeMap.EMPTY));
+    assertEquals(83416.66666666667, result.getElementAsDouble(0), 1e-8);
+  }
+
+  @Test
+  public void cumsum() {
+    Vector result = pipeliner.materialize(
+        new DeferredAccumulation("cumsum", new IntSequence(1, 1, 100), 100, AttributeMap.EMPTY));
+    assertEquals(100, result.length());
+    for (int i = 0; i < 100; i++) {
+      assertEquals((i + 1) * (i + 2) / 2d, result.getElementAsDouble(i), 0d);
+    }
+  }
+
+  @Test
+  public void whichMaxPrefersFirstRange() {
+    double[] values = new double[100];
+    values[20] = 1;
+    values[80] = 1;
+    Vector result = pipeliner.materialize(
+        new DeferredAccumulation("which.max", new DoubleArrayVector(values), 1, AttributeMap.EMPTY));
+    assertEquals(21d, result.getElementAsDouble(0), 0d);
+  }
+}
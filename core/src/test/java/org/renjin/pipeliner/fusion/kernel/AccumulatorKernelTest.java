@@ -0,0 +1,124 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.pipeliner.fusion.kernel;
+
+import org.junit.Test;
+import org.renjin.pipeliner.DeferredGraph;
+import org.renjin.pipeliner.fusion.FusedNode;
+import org.renjin.pipeliner.fusion.LoopKernelCache;
+import org.renjin.primitives.R$primitive$$times$deferred_dd;
+import org.renjin.primitives.matrix.DeferredColMeans;
+import org.renjin.primitives.matrix.DeferredRowSums;
+import org.renjin.primitives.sequence.IntSequence;
+import org.renjin.primitives.summary.DeferredAccumulation;
+import org.renjin.repackaged.guava.util.concurrent.MoreExecutors;
+import org.renjin.sexp.*;
+
+import java.nio.IntBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AccumulatorKernelTest {
+
+  @Test
+  public void maxOfProduct() {
+    AtomicVector times = new R$primitive$$times$deferred_dd(
+        new DoubleArrayVector(1, -2, 3), new DoubleArrayVector(4, 5, -6), AttributeMap.EMPTY);
+
+    assertArrayEquals(new double[] { 4 }, compute("max", times, 1), 0d);
+    assertArrayEquals(new double[] { -18, 4 }, compute("range", times, 2), 0d);
+  }
+
+  @Test
+  public void integerNaPropagates() {
+    IntBufferVector x = new IntBufferVector(IntBuffer.wrap(new int[] { 1, IntVector.NA, 3 }), 3);
+    AtomicVector times = new R$primitive$$times$deferred_dd(x, new DoubleArrayVector(2, 2, 2), AttributeMap.EMPTY);
+
+    assertTrue(DoubleVector.isNA(compute("max", times, 1)[0]));
+    assertTrue(DoubleVector.isNA(compute("prod", times, 1)[0]));
+    assertArrayEquals(new double[] { 3 }, compute("which.max", times, 1), 0d);
+  }
+
+  @Test
+  public void variance() {
+    double[] result = compute("var", new IntSequence(1, 1, 10), 1);
+
+    assertEquals(55d / 6d, result[0], 1e-12);
+  }
+
+  @Test
+  public void cumsum() {
+    double[] result = compute("cumsum", new IntSequence(1, 1, 5), 5);
+
+    assertArrayEquals(new double[] { 1, 3, 6, 10, 15 }, result, 0d);
+  }
+
+  @Test
+  public void anyAndAll() {
+    IntArrayVector x = new IntArrayVector(0, IntVector.NA, 2);
+
+    assertArrayEquals(new double[] { 1 }, compute("any", x, 1), 0d);
+    assertArrayEquals(new double[] { 0 }, compute("all", x, 1), 0d);
+  }
+
+  @Test
+  public void tabulate() {
+    IntArrayVector bins = new IntArrayVector(2, 3, 5, IntVector.NA, 3, 7);
+    DeferredAccumulation tabulate = new DeferredAccumulation("tabulate", bins, 5, 5, AttributeMap.EMPTY);
+
+    assertArrayEquals(new double[] { 0, 1, 2, 0, 1 }, compute(tabulate), 0d);
+  }
+
+  @Test
+  public void rowSumsAndColMeans() {
+
+    //        [,1] [,2] [,3] [,4]
+    //  [1,]    1    4    7   10
+    //  [2,]    2    5    8   11
+    //  [3,]    3    6    9   12
+    IntSequence matrix = new IntSequence(1, 1, 12);
+
+    assertArrayEquals(new double[] { 22, 26, 30 },
+        compute(new DeferredRowSums(matrix, 3, AttributeMap.EMPTY)), 0d);
+    assertArrayEquals(new double[] { 2, 5, 8, 11 },
+        compute(new DeferredColMeans(matrix, 4, AttributeMap.EMPTY)), 0d);
+  }
+
+  private double[] compute(String name, Vector vector, int length) {
+    DeferredAccumulation accumulation = new DeferredAccumulation(name, vector, length, AttributeMap.EMPTY);
+    double[] fused = compute(accumulation);
+
+    // Verify that the fused kernel agrees with the accumulation computed in Java
+    DeferredAccumulation unfused = new DeferredAccumulation(name, vector, length, AttributeMap.EMPTY);
+    assertArrayEquals(((AtomicVector) unfused.forceResult()).toDoubleArray(), fused, 0d);
+
+    return fused;
+  }
+
+  private double[] compute(Vector vector) {
+    DeferredGraph graph = new DeferredGraph(vector);
+    graph.optimize(new LoopKernelCache(MoreExecutors.sameThreadExecutor()));
+    FusedNode root = (FusedNode) graph.getRoot();
+    root.run();
+
+    return root.getVector().toDoubleArray();
+  }
+}
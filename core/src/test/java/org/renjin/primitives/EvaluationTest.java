@@ -910,5 +910,36 @@ public class EvaluationTest extends EvalTestCase {
     eval("f <- function(x = NULL) g(y = x)");
     assertThat(eval("f()"), elementsIdenticalTo(c(false)));
   }
+
+  @Test
+  public void functionLookupSeesRedefinitions() {
+    eval("g <- function() 1");
+    eval("f <- function() g()");
+    eval("x <- c(f(), f())");
+    eval("g <- function() 2");
+    eval("x <- c(x, f())");
+    eval("h <- function() { g <- function() 3; f2 <- function() g(); f2() }");
+    eval("x <- c(x, h(), f())");
+    eval("e <- new.env()");
+    eval("environment(f) <- e");
+    eval("x <- c(x, f())");
+    eval("assign('g', function() 4, envir = e)");
+    eval("x <- c(x, f())");
+    eval("rm('g', envir = e)");
+    eval("x <- c(x, f())");
+
+    assertThat(eval("x"), elementsIdenticalTo(c(1, 1, 2, 3, 2, 2, 4, 2)));
+  }
+
+  @Test
+  public void closureFrameWithDynamicVariables() {
+    eval("f <- function(a, ...) { b <- a + 1; assign('c', b * 2); eval(quote(d <- c + 1)); rm(b); " +
+        "list(ls(), a, c, d, exists('b', inherits = FALSE), length(list(...))) }");
+
+    assertThat(eval("f(1, 2, 3)[[1]]"), elementsIdenticalTo(c("a", "c", "d")));
+    assertThat(eval("f(1, 2, 3)[[4]]"), elementsIdenticalTo(c(5)));
+    assertThat(eval("f(1, 2, 3)[[5]]"), elementsIdenticalTo(c(false)));
+    assertThat(eval("f(1, 2, 3)[[6]]"), elementsIdenticalTo(c_i(2)));
+  }
 }
 
@@ -0,0 +1,97 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives;
+
+import org.renjin.eval.Context;
+import org.renjin.eval.Session;
+import org.renjin.eval.SessionBuilder;
+import org.renjin.gcc.runtime.DoublePtr;
+import org.renjin.gcc.runtime.IntPtr;
+import org.renjin.parser.RParser;
+import org.renjin.primitives.packaging.DllSymbol;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.IntArrayVector;
+import org.renjin.sexp.ListVector;
+import org.renjin.sexp.SEXP;
+
+/**
+ * Measures the overhead of calling a tiny native routine through {@code .C}, comparing the
+ * cached call site with the previous path, which resolved the symbol and called
+ * {@code invokeWithArguments} on every call.
+ *
+ * <pre>
+ * java -cp ... org.renjin.primitives.NativeCallBenchmark [calls]
+ * </pre>
+ */
+public class NativeCallBenchmark {
+
+  public static void add(DoublePtr x, IntPtr n) {
+    x.setDouble(x.getDouble() + n.getInt());
+  }
+
+  public static void main(String[] args) throws Exception {
+    int calls = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+    Session session = new SessionBuilder().build();
+    Context context = session.getTopLevelContext();
+
+    DllSymbol symbol = new DllSymbol(DllSymbol.Convention.C, NativeCallBenchmark.class.getMethod("add", DoublePtr.class, IntPtr.class));
+    SEXP symbolInfo = symbol.buildNativeSymbolInfoSexp();
+    ListVector arguments = new ListVector(new DoubleArrayVector(0), new IntArrayVector(1));
+
+    for (int round = 0; round < 3; round++) {
+      System.out.println(String.format("Round %d", round + 1));
+      System.out.println(String.format("  uncached, invokeWithArguments: %8.1f ns/call", uncached(context, symbolInfo, arguments, calls)));
+      System.out.println(String.format("  cached call site, invokeExact: %8.1f ns/call", cached(context, symbolInfo, arguments, calls)));
+    }
+
+    session.getGlobalEnvironment().setVariable(context, "C_add", symbolInfo);
+    context.evaluate(RParser.parseSource("f <- function(x) .C(C_add, x, 1L)[[1]]\n"));
+    SEXP loop = RParser.parseSource(String.format("x <- 0; for(i in 1:%d) x <- f(x)\n", calls / 10));
+    for (int round = 0; round < 3; round++) {
+      long start = System.nanoTime();
+      context.evaluate(loop);
+      System.out.println(String.format("  .C() from R, including evaluation: %8.1f ns/call",
+          (double) (System.nanoTime() - start) / (calls / 10)));
+    }
+  }
+
+  private static double uncached(Context context, SEXP symbolInfo, ListVector arguments, int calls) throws Throwable {
+    long start = System.nanoTime();
+    for (int i = 0; i < calls; i++) {
+      DllSymbol symbol = Native.findMethod(context, symbolInfo, null, null, DllSymbol.Convention.C);
+      Object[] nativeArguments = new Object[symbol.getMethodHandle().type().parameterCount()];
+      for (int j = 0; j < nativeArguments.length; j++) {
+        nativeArguments[j] = NativeCallCache.CArgument.of(arguments.get(j)).marshal(arguments.get(j));
+      }
+      symbol.getMethodHandle().invokeWithArguments(nativeArguments);
+    }
+    return (double) (System.nanoTime() - start) / calls;
+  }
+
+  private static double cached(Context context, SEXP symbolInfo, ListVector arguments, int calls) throws Throwable {
+    NativeCallCache cache = context.getSession().getSingleton(NativeCallCache.class);
+    long start = System.nanoTime();
+    for (int i = 0; i < calls; i++) {
+      NativeCallCache.CallSite callSite = cache.get(context, symbolInfo, null, null, DllSymbol.Convention.C);
+      callSite.invokeWithPointers(callSite.marshalC(arguments));
+    }
+    return (double) (System.nanoTime() - start) / calls;
+  }
+}
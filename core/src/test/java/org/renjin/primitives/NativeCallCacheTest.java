@@ -0,0 +1,89 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives;
+
+import org.junit.Test;
+import org.renjin.EvalTestCase;
+import org.renjin.gcc.runtime.DoublePtr;
+import org.renjin.gcc.runtime.IntPtr;
+import org.renjin.primitives.packaging.DllSymbol;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.Null;
+import org.renjin.sexp.SEXP;
+
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class NativeCallCacheTest extends EvalTestCase {
+
+  public static void scale(DoublePtr x, IntPtr n, DoublePtr factor) {
+    for (int i = 0; i < n.getInt(); i++) {
+      x.setAlignedDouble(i, x.getAlignedDouble(i) * factor.getDouble());
+    }
+  }
+
+  public static SEXP twice(SEXP x) {
+    return new DoubleArrayVector(x.asReal() * 2);
+  }
+
+  public static void nothing(SEXP x) {
+  }
+
+  @Test
+  public void dotC() throws NoSuchMethodException {
+    defineSymbol("C_scale", DllSymbol.Convention.C, "scale", DoublePtr.class, IntPtr.class, DoublePtr.class);
+
+    eval("f <- function(x) .C(C_scale, x = x, n = length(x), factor = 3)$x");
+
+    assertThat(eval("f(c(1, 2, 3))"), elementsIdenticalTo(c(3, 6, 9)));
+    assertThat(eval("f(c(4, 5))"), elementsIdenticalTo(c(12, 15)));
+    assertThat(eval(".C(C_scale, x = 1, n = 1L, factor = 2)$n"), elementsIdenticalTo(c_i(1)));
+  }
+
+  @Test
+  public void dotCall() throws NoSuchMethodException {
+    defineSymbol("C_twice", DllSymbol.Convention.CALL, "twice", SEXP.class);
+    defineSymbol("C_nothing", DllSymbol.Convention.CALL, "nothing", SEXP.class);
+
+    eval("g <- function(x) .Call(C_twice, x)");
+
+    assertThat(eval("g(21)"), elementsIdenticalTo(c(42)));
+    assertThat(eval("g(2)"), elementsIdenticalTo(c(4)));
+    assertThat(eval(".Call(C_nothing, 1)"), sameInstance((SEXP) Null.INSTANCE));
+  }
+
+  @Test
+  public void callSiteIsReused() throws NoSuchMethodException {
+    defineSymbol("C_twice", DllSymbol.Convention.CALL, "twice", SEXP.class);
+
+    NativeCallCache cache = topLevelContext.getSession().getSingleton(NativeCallCache.class);
+    SEXP methodExp = eval("C_twice");
+
+    NativeCallCache.CallSite first = cache.get(topLevelContext, methodExp, null, null, DllSymbol.Convention.CALL);
+    NativeCallCache.CallSite second = cache.get(topLevelContext, methodExp, null, null, DllSymbol.Convention.CALL);
+
+    assertThat(second, sameInstance(first));
+  }
+
+  private void defineSymbol(String name, DllSymbol.Convention convention, String methodName, Class<?>... parameterTypes)
+      throws NoSuchMethodException {
+    DllSymbol symbol = new DllSymbol(convention, getClass().getMethod(methodName, parameterTypes));
+    global.setVariable(topLevelContext, name, symbol.buildNativeSymbolInfoSexp());
+  }
+}
@@ -98,6 +98,34 @@ public class SortTest extends EvalTestCase {
     assertThat( eval(".Internal(order(TRUE,TRUE,c(1,1,1), c(1,2,1), c(3,9,1)))"), elementsIdenticalTo(c_i(2,1,3)));
   }
 
+  @Test
+  public void orderWithNAs() {
+    assertThat( eval(".Internal(order(TRUE, FALSE, c(3, NA, 1, NaN, -Inf, 0)))"), elementsIdenticalTo(c_i(5, 6, 3, 1, 2, 4)));
+    assertThat( eval(".Internal(order(FALSE, FALSE, c(3, NA, 1, NaN, -Inf, 0)))"), elementsIdenticalTo(c_i(2, 4, 5, 6, 3, 1)));
+    assertThat( eval(".Internal(order(TRUE, TRUE, c(3L, NA, 1L, -2147483647L, 2147483647L)))"), elementsIdenticalTo(c_i(5, 1, 3, 4, 2)));
+    assertThat( eval(".Internal(order(FALSE, TRUE, c('b', NA, 'a', 'c')))"), elementsIdenticalTo(c_i(2, 4, 1, 3)));
+  }
+
+  @Test
+  public void orderIsStable() {
+    assertThat( eval(".Internal(order(TRUE, FALSE, c(2, 1, 2, 1, 2)))"), elementsIdenticalTo(c_i(2, 4, 1, 3, 5)));
+    assertThat( eval(".Internal(order(TRUE, TRUE, c(2, 1, 2, 1, 2)))"), elementsIdenticalTo(c_i(1, 3, 5, 2, 4)));
+    assertThat( eval(".Internal(order(TRUE, FALSE, c('x', 'y', 'x'), c(2L, 1L, 1L)))"), elementsIdenticalTo(c_i(3, 1, 2)));
+    assertThat( eval(".Internal(order(TRUE, FALSE, c(TRUE, FALSE, NA, FALSE)))"), elementsIdenticalTo(c_i(2, 4, 1, 3)));
+  }
+
+  @Test
+  public void orderLargeRange() {
+    eval("x <- c(100000L, -50L, 7L, 2000000000L, -2000000000L)");
+    assertThat( eval(".Internal(order(TRUE, FALSE, x))"), elementsIdenticalTo(c_i(5, 2, 3, 1, 4)));
+    assertThat( eval(".Internal(order(TRUE, FALSE, c(1e300, -1e-300, 0, -0, 1e-300)))"), elementsIdenticalTo(c_i(2, 3, 4, 5, 1)));
+  }
+
+  @Test
+  public void rankFirst() {
+    assertThat(eval(".Internal(rank(c(2, 3, 1, 1, 2), \"first\"))"), elementsIdenticalTo(c_i(3, 5, 1, 2, 4)));
+  }
+
   @Test
   public void qsort() {
     assertThat( eval(".Internal(qsort(c(3,1,5,0), FALSE))"), elementsIdenticalTo(c(0, 1, 3, 5)));
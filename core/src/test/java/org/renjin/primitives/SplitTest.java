@@ -93,4 +93,45 @@ public class SplitTest extends EvalTestCase {
     assertThat(eval("names(x[[1]])"), elementsIdenticalTo(c("x")));
   }
   
+  @Test
+  public void splitKeepsAllLevelsInOrder() {
+    eval("x <- split(1:4, factor(c('b','d','b','d'), levels = c('d', 'c', 'b')))");
+
+    assertThat(eval("names(x)"), elementsIdenticalTo(c("d", "c", "b")));
+    assertThat(eval("x$d"), elementsIdenticalTo(c_i(2, 4)));
+    assertThat(eval("x$c"), elementsIdenticalTo(c_i()));
+    assertThat(eval("x$b"), elementsIdenticalTo(c_i(1, 3)));
+  }
+
+  @Test
+  public void splitManyGroups() {
+    eval("g <- factor(rep_len(c(17, 5, 3, 11), 1000))");
+    eval("x <- split(seq_len(1000), g)");
+
+    assertThat(eval("names(x)"), elementsIdenticalTo(c("3", "5", "11", "17")));
+    assertThat(eval("x$`17`[1:3]"), elementsIdenticalTo(c_i(1, 5, 9)));
+    assertThat(eval("length(x$`3`)"), elementsIdenticalTo(c_i(250)));
+  }
+
+  @Test
+  public void tapplyReductionsMatchSplitAndApply() {
+    eval("g <- factor(c('a','b','a','c','b','a', NA), levels = c('a','b','c','z'))");
+    eval("h <- c(1, 1, 2, 2, 1, 2, 1)");
+    eval("v <- c(1.5, 2, 3, NA, 5, NaN, 7)");
+    eval("i <- c(1L, 2L, NA, 4L, 5L, 6L, 7L)");
+    eval("l <- c(TRUE, FALSE, TRUE, NA, TRUE, TRUE, FALSE)");
+
+    for (String x : new String[] { "v", "i", "l" }) {
+      for (String fn : new String[] { "sum", "mean", "length" }) {
+        String expected = "tapply(" + x + ", g, function(y) " + fn + "(y))";
+        assertThat(eval("identical(tapply(" + x + ", g, " + fn + "), " + expected + ")"), elementsIdenticalTo(c(true)));
+      }
+      for (String fn : new String[] { "sum", "mean" }) {
+        String expected = "tapply(" + x + ", list(g, h), function(y) " + fn + "(y, na.rm = TRUE))";
+        assertThat(eval("identical(tapply(" + x + ", list(g, h), " + fn + ", na.rm = TRUE), " + expected + ")"),
+            elementsIdenticalTo(c(true)));
+      }
+    }
+  }
+
 }
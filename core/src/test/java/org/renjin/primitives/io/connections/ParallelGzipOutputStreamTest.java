@@ -0,0 +1,66 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.io.connections;
+
+import org.junit.Test;
+import org.renjin.repackaged.guava.io.ByteStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class ParallelGzipOutputStreamTest {
+
+  @Test
+  public void empty() throws IOException {
+    assertRoundTrip(new byte[0]);
+  }
+
+  @Test
+  public void severalBlocks() throws IOException {
+    Random random = new Random(1);
+    byte[] data = new byte[ParallelGzipOutputStream.BLOCK_SIZE * 5 + 123];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) random.nextInt(16);
+    }
+    assertRoundTrip(data);
+  }
+
+  private void assertRoundTrip(byte[] data) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try(ParallelGzipOutputStream out = new ParallelGzipOutputStream(compressed)) {
+      // Mix single byte and array writes across block boundaries
+      int offset = 0;
+      while(offset < data.length) {
+        out.write(data[offset++]);
+        int count = Math.min(data.length - offset, 50000);
+        out.write(data, offset, count);
+        offset += count;
+      }
+    }
+    byte[] decompressed = ByteStreams.toByteArray(
+        new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray())));
+
+    assertArrayEquals(data, decompressed);
+  }
+}
@@ -20,8 +20,11 @@ package org.renjin.primitives.io.serialization;
 
 import org.hamcrest.Matchers;
 import org.junit.Test;
+import org.apache.commons.math.complex.Complex;
 import org.renjin.EvalTestCase;
 import org.renjin.primitives.Types;
+import org.renjin.primitives.sequence.DoubleSequence;
+import org.renjin.primitives.sequence.IntSequence;
 import org.renjin.repackaged.guava.base.Charsets;
 import org.renjin.sexp.*;
 import org.renjin.sexp.PairList.Builder;
@@ -150,6 +153,38 @@ public class RDataWriterTest extends EvalTestCase {
     writeAndReRead(eval("g(f)"));
   }
 
+  @Test
+  public void vectorsSpanningSeveralBlocks() throws IOException {
+    double[] doubles = new double[20001];
+    int[] ints = new int[20001];
+    int[] logicals = new int[20001];
+    for (int i = 0; i < doubles.length; i++) {
+      doubles[i] = i % 97 == 0 ? DoubleVector.NA : (i % 89 == 0 ? Double.NaN : i * 0.25);
+      ints[i] = i % 97 == 0 ? IntVector.NA : i - 500;
+      logicals[i] = i % 97 == 0 ? IntVector.NA : i % 2;
+    }
+    assertReRead(new DoubleArrayVector(doubles));
+    assertReRead(new IntArrayVector(ints));
+    assertReRead(new LogicalArrayVector(logicals));
+    assertReRead(new IntSequence(1, 3, 50000));
+    assertReRead(new DoubleSequence(0.5, 0.125, 30000));
+
+    Complex[] complex = new Complex[9000];
+    for (int i = 0; i < complex.length; i++) {
+      complex[i] = new Complex(i, -i * 0.5);
+    }
+    assertReRead(new ComplexArrayVector(complex));
+  }
+
+  @Test
+  public void naIsDistinguishedFromNaN() throws IOException {
+    DoubleVector result = (DoubleVector) writeAndReRead(new DoubleArrayVector(DoubleVector.NA, Double.NaN, 1));
+    assertTrue(DoubleVector.isNA(result.getElementAsDouble(0)));
+    assertFalse(DoubleVector.isNA(result.getElementAsDouble(1)));
+    assertTrue(Double.isNaN(result.getElementAsDouble(1)));
+    assertThat(result.getElementAsDouble(2), equalTo(1d));
+  }
+
   private void write(String fileName, SEXP exp) throws IOException {
     FileOutputStream fos = new FileOutputStream(fileName);
     GZIPOutputStream zos = new GZIPOutputStream(fos);
@@ -0,0 +1,105 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.io.serialization;
+
+import org.renjin.primitives.io.connections.ParallelGzipOutputStream;
+import org.renjin.repackaged.guava.io.ByteStreams;
+import org.renjin.sexp.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures the throughput, in MB/s of uncompressed serialized data, of writing and reading
+ * numeric vectors with {@link RDataWriter} and {@link RDataReader}, and of compressing the
+ * serialized stream with {@link GZIPOutputStream} and {@link ParallelGzipOutputStream}.
+ *
+ * <p>Run with the vector length as an optional argument, for example:</p>
+ * <pre>
+ * java -cp ... org.renjin.primitives.io.serialization.SerializationBenchmark 100000000
+ * </pre>
+ */
+public class SerializationBenchmark {
+
+  public static void main(String[] args) throws IOException {
+    int length = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+
+    Random random = new Random(1);
+    double[] doubles = new double[length];
+    int[] ints = new int[length];
+    for (int i = 0; i < length; i++) {
+      doubles[i] = Math.round(random.nextGaussian() * 1000) / 100d;
+      ints[i] = random.nextInt(1000);
+    }
+
+    System.out.printf("%-10s %14s %14s %14s %14s%n", "vector", "write", "read", "gzip", "parallel gzip");
+    run("double", new DoubleArrayVector(doubles));
+    run("integer", new IntArrayVector(ints));
+  }
+
+  private static void run(String name, SEXP vector) throws IOException {
+    byte[] serialized = serialize(vector, new ByteArrayOutputStream());
+    double megabytes = serialized.length / 1e6;
+
+    double write = time(() -> serialize(vector, new ByteArrayOutputStream(serialized.length)));
+    double read = time(() -> new RDataReader(new ByteArrayInputStream(serialized)).readFile());
+    double gzip = time(() -> compress(serialized, new GZIPOutputStream(ByteStreams.nullOutputStream())));
+    double parallelGzip = time(() -> compress(serialized,
+        new ParallelGzipOutputStream(ByteStreams.nullOutputStream())));
+
+    System.out.printf("%-10s %9.1f MB/s %9.1f MB/s %9.1f MB/s %9.1f MB/s%n", name,
+        megabytes / write, megabytes / read, megabytes / gzip, megabytes / parallelGzip);
+  }
+
+  private static byte[] serialize(SEXP exp, ByteArrayOutputStream out) throws IOException {
+    RDataWriter writer = new RDataWriter(HeadlessWriteContext.INSTANCE, out);
+    writer.save(exp);
+    return out.toByteArray();
+  }
+
+  private static Object compress(byte[] data, OutputStream out) throws IOException {
+    out.write(data);
+    out.close();
+    return out;
+  }
+
+  private interface Task {
+    Object run() throws IOException;
+  }
+
+  /**
+   * @return the best time, in seconds, of several runs after warming up
+   */
+  private static double time(Task task) throws IOException {
+    for (int i = 0; i < 2; i++) {
+      task.run();
+    }
+    double best = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < 5; i++) {
+      long start = System.nanoTime();
+      task.run();
+      best = Math.min(best, (System.nanoTime() - start) / 1e9);
+    }
+    return best;
+  }
+}
@@ -24,6 +24,8 @@ import org.renjin.EvalTestCase;
 import org.renjin.repackaged.guava.io.Files;
 import org.renjin.repackaged.guava.io.Resources;
 import org.renjin.repackaged.guava.primitives.UnsignedBytes;
+import org.renjin.sexp.DoubleBufferVector;
+import org.renjin.sexp.LogicalBufferVector;
 import org.renjin.sexp.StringArrayVector;
 
 import java.io.BufferedReader;
@@ -33,6 +35,7 @@ import java.io.InputStreamReader;
 import java.util.Arrays;
 import java.util.Objects;
 
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertThat;
 
 public class SerializationTest extends EvalTestCase {
@@ -122,6 +125,47 @@ public class SerializationTest extends EvalTestCase {
     
     assertThat(eval("x"), elementsIdenticalTo(c("A")));
   }
+
+  @Test
+  public void readLargeUncompressedRdsIsMapped() throws IOException {
+
+    File tempFile = File.createTempFile("renjin", "rds");
+    tempFile.deleteOnExit();
+    global.setVariable(topLevelContext, "tempFile", new StringArrayVector(tempFile.getAbsolutePath()));
+
+    eval("x <- list(d = c(NA, seq(0.5, by = 0.25, length.out = 200000)), i = c(1:100000, NA), b = rep(c(TRUE, FALSE, NA), 1000))");
+    eval("saveRDS(x, file=tempFile, compress=FALSE)");
+    eval("y <- readRDS(tempFile)");
+
+    assertThat(eval("identical(x, y)"), elementsIdenticalTo(c(true)));
+    assertThat(eval("y$d"), instanceOf(DoubleBufferVector.class));
+    assertThat(eval("y$b"), instanceOf(LogicalBufferVector.class));
+    assertThat(eval("sum(y$d, na.rm = TRUE)"), elementsIdenticalTo(eval("sum(x$d, na.rm = TRUE)")));
+
+    eval("saveRDS(x, file=tempFile, compress=TRUE)");
+    assertThat(eval("identical(x, readRDS(tempFile))"), elementsIdenticalTo(c(true)));
+  }
+
+  @Test
+  public void overwritingMappedRdsDoesNotChangeVectors() throws IOException {
+
+    File tempFile = File.createTempFile("renjin", "rds");
+    tempFile.deleteOnExit();
+    global.setVariable(topLevelContext, "tempFile", new StringArrayVector(tempFile.getAbsolutePath()));
+
+    eval("x <- seq(0.5, by = 0.25, length.out = 200000)");
+    eval("saveRDS(x, file=tempFile, compress=FALSE)");
+    eval("y <- readRDS(tempFile)");
+    assertThat(eval("y"), instanceOf(DoubleBufferVector.class));
+
+    eval("saveRDS(-x, file=tempFile, compress=FALSE)");
+    assertThat(eval("identical(x, y)"), elementsIdenticalTo(c(true)));
+    assertThat(eval("identical(-x, readRDS(tempFile))"), elementsIdenticalTo(c(true)));
+
+    eval("saveRDS(1:10, file=tempFile, compress=FALSE)");
+    assertThat(eval("identical(x, y)"), elementsIdenticalTo(c(true)));
+    assertThat(eval("readRDS(tempFile)"), elementsIdenticalTo(c_i(1,2,3,4,5,6,7,8,9,10)));
+  }
   
   
   @Test
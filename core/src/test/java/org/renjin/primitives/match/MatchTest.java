@@ -62,6 +62,23 @@ public class MatchTest extends EvalTestCase {
     
   }
   
+  @Test
+  public void matchAgainstLargeTable() {
+    eval("t <- c(seq(1, 100), NA, NaN, -0, 5)");
+    assertThat( eval("match(c(NaN, NA, 0, 5, 1000), t)"), elementsIdenticalTo(c_i(102, 101, 103, 5, IntVector.NA)));
+    assertThat( eval("match(c(3L, NA), c(1:100, NA))"), elementsIdenticalTo(c_i(3, 101)));
+    assertThat( eval("match(c('b', NA, 'zz'), c(letters, NA, 'b'))"), elementsIdenticalTo(c_i(2, 27, IntVector.NA)));
+    assertThat( eval("match(c(TRUE, NA), c(rep(FALSE, 20), NA, TRUE))"), elementsIdenticalTo(c_i(22, 21)));
+  }
+
+  @Test
+  public void matchAgainstCachedIndex() {
+    eval("keys <- as.character(1:5000 * 2L)");
+    assertThat( eval("match(c('2', '3', '10000'), keys)"), elementsIdenticalTo(c_i(1, IntVector.NA, 5000)));
+    assertThat( eval("match(c('4', '9998'), keys)"), elementsIdenticalTo(c_i(2, 4999)));
+    assertThat( eval("c('6', '7') %in% keys"), elementsIdenticalTo(c(true, false)));
+  }
+
   @Test
   public void matchAgainstRowNamesSequence() {
     assertThat( eval(" match(1.5, as.character(1:1000))"), elementsIdenticalTo(c_i(IntVector.NA)));
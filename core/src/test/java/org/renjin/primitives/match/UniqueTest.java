@@ -20,6 +20,8 @@ package org.renjin.primitives.match;
 
 import org.junit.Test;
 import org.renjin.EvalTestCase;
+import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.IntVector;
 
 import static org.junit.Assert.assertThat;
 
@@ -57,4 +59,20 @@ public class UniqueTest extends EvalTestCase {
 
   }
 
+  @Test
+  public void uniqueWithNaValues() {
+    assertThat( eval(".Internal(unique(c(1, NA, NaN, NA, NaN, -0, 0), FALSE, FALSE))"), elementsIdenticalTo( c(1, DoubleVector.NA, DoubleVector.NaN, -0d)) );
+    assertThat( eval(".Internal(unique(c(3L, NA, 3L, NA), FALSE, FALSE))"), elementsIdenticalTo( c_i(3, IntVector.NA)) );
+    assertThat( eval(".Internal(unique(c('a', NA, 'b', NA, 'a'), FALSE, FALSE))"), elementsIdenticalTo( c("a", null, "b")) );
+  }
+
+  @Test
+  public void sortedInput() {
+    assertThat( eval(".Internal(unique(c(1L, 1L, 2L, 5L, 5L, 5L), FALSE, FALSE))"), elementsIdenticalTo( c_i(1, 2, 5)) );
+    assertThat( eval(".Internal(duplicated(c(1, 1, 2, 5, 5), FALSE, TRUE))"), elementsIdenticalTo( c(true, false, false, true, false)) );
+    assertThat( eval(".Internal(anyDuplicated(c(1, 2, 3, 3), FALSE, FALSE))"), elementsIdenticalTo( c_i(4)) );
+    assertThat( eval(".Internal(anyDuplicated(1:100, FALSE, FALSE))"), elementsIdenticalTo( c_i(0)) );
+    assertThat( eval(".Internal(unique(10:1, FALSE, TRUE))"), elementsIdenticalTo( c_i(10, 9, 8, 7, 6, 5, 4, 3, 2, 1)) );
+  }
+
 }
@@ -0,0 +1,153 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.matrix;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class JvmBlasTest {
+
+  private final Random random = new Random(42);
+
+  @Test
+  public void dgemm() {
+    // Sizes which are not multiples of the micro-kernel or cache blocks
+    int[][] sizes = { {1, 1, 1}, {3, 5, 7}, {97, 101, 259}, {200, 9, 400} };
+
+    for (int[] size : sizes) {
+      for (String transa : new String[] { "N", "T" }) {
+        for (String transb : new String[] { "N", "T" }) {
+          int m = size[0];
+          int n = size[1];
+          int k = size[2];
+          int lda = transa.equals("N") ? m + 2 : k + 1;
+          int ldb = transb.equals("N") ? k + 3 : n;
+          int ldc = m + 1;
+          double[] a = randomArray(lda * (transa.equals("N") ? k : m));
+          double[] b = randomArray(ldb * (transb.equals("N") ? n : k));
+          double[] c = randomArray(ldc * n);
+          double[] expected = c.clone();
+
+          for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+              double sum = 0;
+              for (int l = 0; l < k; l++) {
+                double aij = transa.equals("N") ? a[i + l * lda] : a[l + i * lda];
+                double bij = transb.equals("N") ? b[l + j * ldb] : b[j + l * ldb];
+                sum += aij * bij;
+              }
+              expected[i + j * ldc] = 1.5 * sum + 0.5 * expected[i + j * ldc];
+            }
+          }
+
+          JvmBlas.dgemm(transa, transb, m, n, k, 1.5, a, lda, b, ldb, 0.5, c, ldc);
+
+          assertArrayEquals(expected, c, 1e-10);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void dsyrk() {
+    for (String uplo : new String[] { "U", "L" }) {
+      for (String trans : new String[] { "N", "T" }) {
+        int n = 300;
+        int k = 70;
+        int lda = trans.equals("N") ? n + 1 : k + 2;
+        double[] a = randomArray(lda * (trans.equals("N") ? k : n));
+        double[] c = randomArray(n * n);
+        double[] expected = c.clone();
+
+        for (int i = 0; i < n; i++) {
+          for (int j = 0; j < n; j++) {
+            if(uplo.equals("U") ? i <= j : i >= j) {
+              double sum = 0;
+              for (int l = 0; l < k; l++) {
+                double x = trans.equals("N") ? a[i + l * lda] : a[l + i * lda];
+                double y = trans.equals("N") ? a[j + l * lda] : a[l + j * lda];
+                sum += x * y;
+              }
+              expected[i + j * n] = 2 * sum + 0.5 * expected[i + j * n];
+            }
+          }
+        }
+
+        JvmBlas.dsyrk(uplo, trans, n, k, 2, a, lda, 0.5, c, n);
+
+        // The other triangle must not be modified
+        assertArrayEquals(expected, c, 1e-10);
+      }
+    }
+  }
+
+  @Test
+  public void dgemv() {
+    int m = 1100;
+    int n = 1300;
+    int lda = m + 1;
+    double[] a = randomArray(lda * n);
+
+    for (String trans : new String[] { "N", "T" }) {
+      for (int inc : new int[] { 1, -2 }) {
+        int lenx = trans.equals("N") ? n : m;
+        int leny = trans.equals("N") ? m : n;
+        double[] x = randomArray(lenx * Math.abs(inc));
+        double[] y = randomArray(leny * Math.abs(inc));
+        double[] expected = y.clone();
+
+        for (int i = 0; i < leny; i++) {
+          double sum = 0;
+          for (int j = 0; j < lenx; j++) {
+            double aij = trans.equals("N") ? a[i + j * lda] : a[j + i * lda];
+            sum += aij * x[index(j, lenx, inc)];
+          }
+          int iy = index(i, leny, inc);
+          expected[iy] = 0.7 * sum + 0.3 * expected[iy];
+        }
+
+        JvmBlas.dgemv(trans, m, n, 0.7, a, lda, x, inc, 0.3, y, inc);
+
+        assertArrayEquals(expected, y, 1e-10);
+      }
+    }
+  }
+
+  /**
+   * @return the index of the i-th element of a BLAS vector with the given increment
+   */
+  private static int index(int i, int length, int inc) {
+    if(inc > 0) {
+      return i * inc;
+    } else {
+      return (length - 1 - i) * -inc;
+    }
+  }
+
+  private double[] randomArray(int length) {
+    double[] array = new double[length];
+    for (int i = 0; i < length; i++) {
+      array[i] = random.nextDouble() - 0.5;
+    }
+    return array;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.matrix;
+
+import com.github.fommil.netlib.BLAS;
+
+import java.util.Random;
+
+/**
+ * Compares the time taken by the {@link JvmBlas} kernels and the BLAS found by netlib-java to
+ * multiply square matrices.
+ *
+ * <p>Run with the largest matrix size as an optional argument, for example:</p>
+ * <pre>
+ * java -cp ... org.renjin.primitives.matrix.MatrixProductBenchmark 4000
+ * </pre>
+ * <p>The netlib-java routines are single-threaded, so they are only timed up to 2000 x 2000
+ * unless {@code -Dbenchmark.netlib.max} is set.</p>
+ */
+public class MatrixProductBenchmark {
+
+  private static final int[] SIZES = { 100, 250, 500, 1000, 2000, 4000 };
+
+  public static void main(String[] args) {
+    int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+    int netlibMaxSize = Integer.getInteger("benchmark.netlib.max", 2000);
+
+    System.out.println("netlib-java BLAS: " + BLAS.getInstance().getClass().getName());
+    System.out.printf("%6s %8s %12s %12s %12s %12s%n", "n", "routine", "jvm (ms)", "jvm GFLOPS",
+        "netlib (ms)", "netlib GFLOPS");
+
+    Random random = new Random(1);
+
+    for (int n : SIZES) {
+      if(n > maxSize) {
+        break;
+      }
+      double[] a = randomArray(random, n * n);
+      double[] b = randomArray(random, n * n);
+      double[] c = new double[n * n];
+
+      double gemmFlops = 2d * n * n * n;
+      double jvmGemm = time(n, () -> JvmBlas.dgemm("N", "N", n, n, n, 1, a, n, b, n, 0, c, n));
+      double netlibGemm = n > netlibMaxSize ? Double.NaN :
+          time(n, () -> BLAS.getInstance().dgemm("N", "N", n, n, n, 1, a, n, b, n, 0, c, n));
+      report(n, "dgemm", gemmFlops, jvmGemm, netlibGemm);
+
+      double syrkFlops = (double) n * n * n;
+      double jvmSyrk = time(n, () -> JvmBlas.dsyrk("U", "T", n, n, 1, a, n, 0, c, n));
+      double netlibSyrk = n > netlibMaxSize ? Double.NaN :
+          time(n, () -> BLAS.getInstance().dsyrk("U", "T", n, n, 1, a, n, 0, c, n));
+      report(n, "dsyrk", syrkFlops, jvmSyrk, netlibSyrk);
+
+      double gemvFlops = 2d * n * n;
+      double jvmGemv = time(n, () -> JvmBlas.dgemv("N", n, n, 1, a, n, b, 1, 0, c, 1));
+      double netlibGemv = time(n, () -> BLAS.getInstance().dgemv("N", n, n, 1, a, n, b, 1, 0, c, 1));
+      report(n, "dgemv", gemvFlops, jvmGemv, netlibGemv);
+    }
+  }
+
+  /**
+   * @return the best time, in milliseconds, of several runs after warming up
+   */
+  private static double time(int n, Runnable routine) {
+    int runs = n <= 500 ? 20 : (n <= 1000 ? 5 : 2);
+    for (int i = 0; i < runs; i++) {
+      routine.run();
+    }
+    double best = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < runs; i++) {
+      long start = System.nanoTime();
+      routine.run();
+      best = Math.min(best, (System.nanoTime() - start) / 1e6);
+    }
+    return best;
+  }
+
+  private static void report(int n, String routine, double flops, double jvmMillis, double netlibMillis) {
+    System.out.printf("%6d %8s %12.2f %12.2f %12.2f %12.2f%n", n, routine,
+        jvmMillis, flops / jvmMillis / 1e6,
+        netlibMillis, flops / netlibMillis / 1e6);
+  }
+
+  private static double[] randomArray(Random random, int length) {
+    double[] array = new double[length];
+    for (int i = 0; i < length; i++) {
+      array[i] = random.nextDouble();
+    }
+    return array;
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.primitives.text.regex;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LazyDFATest {
+
+  @Test
+  public void agreesWithBacktrackingMatcher() throws RESyntaxException {
+    String[] patterns = {
+        "abc", "a(b|c)+d", "^[[:digit:]]+$", "x*$", "(ab|a)c", "a{2,3}b", "^$", "\\s\\w+",
+        "[^a]b?", "(|a)b", "colou?r", "^(a|b)*c"
+    };
+    String[] inputs = { "", "abc", "abbcd", "123", "12a", "xx", "aac", "aaab", " word", "ba", "b", "color", "colour", "ababc" };
+
+    for (String pattern : patterns) {
+      for (int flags : new int[] { ExtendedRE.MATCH_NORMAL, ExtendedRE.MATCH_CASEINDEPENDENT }) {
+        REProgram program = new RECompiler().compile(pattern);
+        LazyDFA dfa = LazyDFA.compile(program, flags);
+        assertNotNull(pattern, dfa);
+        for (String input : inputs) {
+          for (int from = 0; from <= input.length(); from++) {
+            assertEquals("/" + pattern + "/ on '" + input + "' from " + from,
+                new ExtendedRE(program, flags).match(input, from),
+                dfa.find(input, from));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void caseIndependent() throws RESyntaxException {
+    LazyDFA dfa = LazyDFA.compile(new RECompiler().compile("^ab[c-e]$"), ExtendedRE.MATCH_CASEINDEPENDENT);
+    assertTrue(dfa.find("ABD", 0));
+    assertFalse(dfa.find("ABF", 0));
+  }
+
+  @Test
+  public void backtrackingOnlyFeatures() throws RESyntaxException {
+    assertNull(LazyDFA.compile(new RECompiler().compile("(a)\\1"), ExtendedRE.MATCH_NORMAL));
+    assertNull(LazyDFA.compile(new RECompiler().compile("a*?b"), ExtendedRE.MATCH_NORMAL));
+    assertNull(LazyDFA.compile(new RECompiler().compile("\\bword"), ExtendedRE.MATCH_NORMAL));
+  }
+
+  @Test
+  public void pathologicalPatternIsLinear() {
+    // (a*)*b takes exponential time to reject with a backtracking matcher
+    RE re = REFactory.compile("(a*)*b", false, false, false, false);
+    StringBuilder input = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      input.append('a');
+    }
+    assertFalse(re.find(input.toString()));
+    assertFalse(re.match(input.toString()));
+    assertTrue(re.find(input + "b"));
+  }
+
+  @Test
+  public void compiledPatternsAreShared() {
+    ExtendedRE first = (ExtendedRE) REFactory.compile("[a-z]+", false, false, false, false);
+    ExtendedRE second = (ExtendedRE) REFactory.compile("[a-z]+", false, false, false, false);
+
+    assertNotSame(first, second);
+    assertSame(first.getProgram(), second.getProgram());
+
+    assertTrue(first.match("123abc"));
+    assertFalse(second.match("123"));
+    assertEquals(3, first.getGroupStart(0));
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.sexp;
+
+import org.renjin.primitives.sequence.DoubleSequence;
+import org.renjin.primitives.sequence.IntSequence;
+import org.renjin.primitives.sequence.RepDoubleVector;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Compares summing vectors through the per-element {@link AtomicVector#getElementAsDouble(int)}
+ * accessor with summing them through a {@link DoubleCursor}.
+ *
+ * <p>Both loops are run over a mix of vector classes, so that the accessor's call site is
+ * megamorphic, as it is in the summary and arithmetic primitives.</p>
+ *
+ * <pre>
+ * java -cp ... org.renjin.sexp.BulkAccessBenchmark 10000000
+ * </pre>
+ */
+public class BulkAccessBenchmark {
+
+  public static void main(String[] args) {
+    int length = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+
+    double[] values = new DoubleSequence(1, 0.5, length).toDoubleArray();
+    AtomicVector[] vectors = {
+        new DoubleArrayVector(values),
+        new IntArrayVector(new IntSequence(1, 1, length).toIntArray()),
+        new IntSequence(1, 1, length),
+        new DoubleSequence(1, 0.5, length),
+        new RepDoubleVector(new DoubleArrayVector(1, 2, 3), length, 1, AttributeMap.EMPTY),
+        new DoubleBufferVector(DoubleBuffer.wrap(values), length) };
+
+    System.out.printf("%-20s %14s %14s %10s%n", "vector", "element (ms)", "cursor (ms)", "speedup");
+
+    // Warm up both loops with every class before timing any of them
+    for (int i = 0; i < 5; i++) {
+      for (AtomicVector vector : vectors) {
+        sumByElement(vector);
+        sumByCursor(vector);
+      }
+    }
+
+    for (AtomicVector vector : vectors) {
+      double element = time(() -> sumByElement(vector));
+      double cursor = time(() -> sumByCursor(vector));
+      System.out.printf("%-20s %14.2f %14.2f %9.1fx%n", vector.getClass().getSimpleName(),
+          element, cursor, element / cursor);
+    }
+  }
+
+  private static double sumByElement(AtomicVector vector) {
+    double sum = 0;
+    int length = vector.length();
+    for (int i = 0; i < length; i++) {
+      sum += vector.getElementAsDouble(i);
+    }
+    return sum;
+  }
+
+  private static double sumByCursor(AtomicVector vector) {
+    double sum = 0;
+    DoubleCursor cursor = new DoubleCursor(vector);
+    while(cursor.next()) {
+      double[] chunk = cursor.getChunk();
+      int chunkLength = cursor.getChunkLength();
+      for (int i = 0; i < chunkLength; i++) {
+        sum += chunk[i];
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * @return the best time, in milliseconds, of several runs
+   */
+  private static double time(Runnable routine) {
+    double best = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < 10; i++) {
+      long start = System.nanoTime();
+      routine.run();
+      best = Math.min(best, (System.nanoTime() - start) / 1e6);
+    }
+    return best;
+  }
+}
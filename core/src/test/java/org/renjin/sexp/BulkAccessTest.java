@@ -0,0 +1,140 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.sexp;
+
+import org.junit.Test;
+import org.renjin.primitives.sequence.DoubleSequence;
+import org.renjin.primitives.sequence.IntSequence;
+import org.renjin.primitives.sequence.RepDoubleVector;
+import org.renjin.primitives.sequence.RepIntVector;
+import org.renjin.primitives.vector.ConvertingDoubleVector;
+import org.renjin.primitives.vector.ConvertingIntVector;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class BulkAccessTest {
+
+  private static final double[] DOUBLES = { 1.5, -2, DoubleVector.NA, Double.NaN, 3e10,
+      Double.POSITIVE_INFINITY, 0, 41.9, -0.5, 7 };
+
+  private static final int[] INTS = { 3, IntVector.NA, -4, 0, 1, 99, 12, IntVector.NA, 5, 6 };
+
+  private static final int[] LOGICALS = { 1, 0, IntVector.NA, 1, 1, 0, 0, 1, IntVector.NA, 0 };
+
+  private List<AtomicVector> vectors() {
+    DoubleArrayVector doubles = new DoubleArrayVector(DOUBLES);
+    IntArrayVector ints = new IntArrayVector(INTS);
+    return Arrays.<AtomicVector>asList(
+        doubles,
+        ints,
+        new LogicalArrayVector(LOGICALS),
+        new StringArrayVector("a", null, "3.5", "x", "-2"),
+        new DoubleBufferVector(DoubleBuffer.wrap(DOUBLES), DOUBLES.length),
+        new IntBufferVector(IntBuffer.wrap(INTS), INTS.length),
+        new LogicalBufferVector(IntBuffer.wrap(LOGICALS), LOGICALS.length),
+        new IntSequence(5, -3, 12),
+        new DoubleSequence(0.25, 1.5, 11),
+        new RepDoubleVector(doubles, 23, 1, AttributeMap.EMPTY),
+        new RepDoubleVector(new DoubleArrayVector(1, 2, 3), 17, 4, AttributeMap.EMPTY),
+        new RepIntVector(ints, 25, 1, AttributeMap.EMPTY),
+        new RepIntVector(new IntArrayVector(7, 8), 13, 3, AttributeMap.EMPTY),
+        new ConvertingDoubleVector(ints),
+        new ConvertingIntVector(doubles, AttributeMap.EMPTY),
+        Null.INSTANCE);
+  }
+
+  @Test
+  public void bulkReadsMatchElementAccessors() {
+    for (AtomicVector vector : vectors()) {
+      int length = vector.length();
+      for (int start = 0; start <= length; start++) {
+        for (int count = 0; start + count <= length; count++) {
+          double[] doubles = new double[count + 2];
+          int[] ints = new int[count + 2];
+          String[] strings = new String[count + 2];
+          vector.getDoubles(start, doubles, 1, count);
+          vector.getInts(start, ints, 1, count);
+          vector.getStrings(start, strings, 1, count);
+          for (int i = 0; i < count; i++) {
+            String message = vector.getClass().getSimpleName() + "[" + (start + i) + "]";
+            assertEquals(message, Double.doubleToRawLongBits(vector.getElementAsDouble(start + i)),
+                Double.doubleToRawLongBits(doubles[1 + i]));
+            assertEquals(message, vector.getElementAsInt(start + i), ints[1 + i]);
+            assertEquals(message, vector.getElementAsString(start + i), strings[1 + i]);
+          }
+        }
+      }
+    }
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void rangeIsChecked() {
+    new IntSequence(1, 1, 10).getInts(5, new int[10], 0, 6);
+  }
+
+  @Test
+  public void copyToCopiesValues() {
+    double[] array = new double[4];
+    new DoubleArrayVector(1, 2, 3).copyTo(array, 1, 3);
+    assertArrayEquals(new double[] { 0, 1, 2, 3 }, array, 0);
+  }
+
+  @Test
+  public void cursorsVisitEveryElement() {
+    int length = DoubleCursor.CHUNK_SIZE * 2 + 17;
+    AtomicVector[] vectors = {
+        new IntSequence(1, 1, length),
+        new DoubleSequence(1, 1, length),
+        new ConvertingDoubleVector(new IntSequence(1, 1, length)),
+        new DoubleArrayVector(new DoubleSequence(1, 1, length)) };
+
+    for (AtomicVector vector : vectors) {
+      DoubleCursor doubleCursor = new DoubleCursor(vector);
+      int next = 0;
+      while(doubleCursor.next()) {
+        assertEquals(next, doubleCursor.getChunkStart());
+        for (int i = 0; i < doubleCursor.getChunkLength(); i++) {
+          assertEquals(vector.getElementAsDouble(next++), doubleCursor.getChunk()[i], 0);
+        }
+      }
+      assertEquals(length, next);
+      assertFalse(doubleCursor.next());
+
+      IntCursor intCursor = new IntCursor(vector);
+      next = 0;
+      while(intCursor.next()) {
+        assertEquals(next, intCursor.getChunkStart());
+        for (int i = 0; i < intCursor.getChunkLength(); i++) {
+          assertEquals(vector.getElementAsInt(next++), intCursor.getChunk()[i]);
+        }
+      }
+      assertEquals(length, next);
+    }
+
+    assertFalse(new DoubleCursor(Null.INSTANCE).next());
+    assertFalse(new IntCursor(IntArrayVector.EMPTY).next());
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.sexp;
+
+import org.renjin.eval.Context;
+import org.renjin.eval.Session;
+import org.renjin.eval.SessionBuilder;
+import org.renjin.parser.RParser;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the memory allocated per closure call environment, comparing a {@link HashFrame} with a
+ * {@link SlotFrame} holding the same arguments and locals, and then per call of small R closures.
+ *
+ * <p>Allocation is measured with the HotSpot {@code com.sun.management.ThreadMXBean}, and is
+ * reported as unavailable on other JVMs.</p>
+ *
+ * <pre>
+ * java -cp ... org.renjin.sexp.FrameAllocationBenchmark [calls]
+ * </pre>
+ */
+public class FrameAllocationBenchmark {
+
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+  private static int sink;
+
+  public static void main(String[] args) {
+    int calls = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+    Session session = new SessionBuilder().build();
+    Context context = session.getTopLevelContext();
+    context.evaluate(RParser.parseSource(
+        "noLocals <- function(x, y) x\n" +
+        "withLocals <- function(x, y, z = 1) { a <- x + y; b <- a * z; a + b }\n"));
+
+    Closure closure = (Closure) session.getGlobalEnvironment().getVariable(context, "withLocals");
+    FrameLayout layout = closure.getFrameLayout();
+    Symbol[] symbols = new Symbol[layout.getSlotCount()];
+    for (int i = 0; i < symbols.length; i++) {
+      symbols[i] = layout.getSymbol(i);
+    }
+
+    String[][] cases = {
+        { "no locals",   "noLocals(i, 1)" },
+        { "with locals", "withLocals(i, 1)" },
+    };
+
+    System.out.printf("%-20s %14s %14s%n", "", "bytes/call", "ns/call");
+
+    for (int round = 0; round < 3; round++) {
+      System.out.println(String.format("Round %d", round + 1));
+
+      long bytes = allocatedBytes();
+      long start = System.nanoTime();
+      for (int i = 0; i < calls; i++) {
+        HashFrame frame = new HashFrame();
+        for (Symbol symbol : symbols) {
+          frame.setVariable(symbol, Null.INSTANCE);
+        }
+        sink += frame.getVariable(symbols[0]).length();
+      }
+      report("HashFrame", bytes, start, calls);
+
+      bytes = allocatedBytes();
+      start = System.nanoTime();
+      for (int i = 0; i < calls; i++) {
+        SlotFrame frame = new SlotFrame(layout);
+        for (int slot = 0; slot < symbols.length; slot++) {
+          frame.setSlot(slot, Null.INSTANCE);
+        }
+        sink += frame.getVariable(symbols[0]).length();
+      }
+      report("SlotFrame", bytes, start, calls);
+
+      for (String[] benchmark : cases) {
+        ExpressionVector loop = RParser.parseSource(String.format("for(i in 1:%d) %s\n", calls, benchmark[1]));
+        bytes = allocatedBytes();
+        start = System.nanoTime();
+        context.evaluate(loop);
+        report(benchmark[0], bytes, start, calls);
+      }
+    }
+    System.out.println(String.format("(checksum %d)", sink));
+  }
+
+  private static void report(String name, long startBytes, long startNanos, int calls) {
+    double nanos = (double) (System.nanoTime() - startNanos) / calls;
+    long endBytes = allocatedBytes();
+    String bytes = startBytes < 0 || endBytes < 0 ? "n/a" : String.format("%.1f", (double) (endBytes - startBytes) / calls);
+    System.out.println(String.format("  %-18s %14s %14.1f", name, bytes, nanos));
+  }
+
+  private static long allocatedBytes() {
+    if(THREADS instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1;
+  }
+}
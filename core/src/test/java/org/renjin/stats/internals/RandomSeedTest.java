@@ -0,0 +1,55 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.stats.internals;
+
+import org.junit.Test;
+import org.renjin.EvalTestCase;
+
+import static org.junit.Assert.assertThat;
+
+public class RandomSeedTest extends EvalTestCase {
+
+  @Test
+  public void lecuyerSeedIsCurrentWhenRead() {
+    eval("RNGkind(\"L'Ecuyer-CMRG\")");
+    eval("set.seed(1)");
+    eval("s0 <- .Random.seed");
+    eval("u <- runif(3)");
+    eval("s1 <- .Random.seed");
+
+    assertThat(eval("identical(s0, s1)"), elementsIdenticalTo(c(false)));
+    assertThat(eval("identical(s1, .Random.seed)"), elementsIdenticalTo(c(true)));
+
+    // Within a single call, the seed read after drawing reflects all draws
+    assertThat(eval("local({ runif(5); s <- .Random.seed; runif(1); !identical(s, .Random.seed) })"),
+        elementsIdenticalTo(c(true)));
+  }
+
+  @Test
+  public void assignedLecuyerSeedIsUsed() {
+    eval("RNGkind(\"L'Ecuyer-CMRG\")");
+    eval("set.seed(1)");
+    eval("s0 <- .Random.seed");
+    eval("u <- runif(3)");
+    eval("runif(10)");
+
+    eval(".Random.seed <- s0");
+    assertThat(eval("identical(runif(3), u)"), elementsIdenticalTo(c(true)));
+  }
+}
@@ -0,0 +1,97 @@
+package org.renjin.parallel;
+
+import org.renjin.eval.EvalException;
+import org.renjin.eval.Session;
+import org.renjin.sexp.*;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A node of a fork cluster, which evaluates the messages sent to it on its own
+ * thread, within a child {@link Session} forked from the master.
+ *
+ * <p>Messages are evaluated in the order they are sent, and their results
+ * received in the same order.</p>
+ */
+public class ForkNode {
+
+  private final Session session;
+  private final Function evaluator;
+  private final ExecutorService executor;
+  private final Deque<Future<SEXP>> pending = new ArrayDeque<>();
+
+  ForkNode(Session session, Function evaluator) {
+    this.session = session;
+    this.evaluator = evaluator;
+    this.executor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "renjin-fork-node");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Sends a message to this node. "EXEC" messages are queued for evaluation, and "DONE" messages
+   * shut the node down once all queued messages have been evaluated.
+   */
+  public void send(ListVector message) {
+    String type = message.getElementAsString("type");
+    if("DONE".equals(type)) {
+      executor.shutdown();
+    } else {
+      pending.add(executor.submit(() -> {
+        FunctionCall call = FunctionCall.newCall(evaluator, message);
+        return session.getTopLevelContext().evaluate(call, session.getGlobalEnvironment());
+      }));
+    }
+  }
+
+  /**
+   * @return true if the result of the oldest message sent to this node is available.
+   */
+  public boolean isReady() {
+    return !pending.isEmpty() && pending.peek().isDone();
+  }
+
+  /**
+   * @return true if there are messages sent to this node whose result has not been received.
+   */
+  public boolean isBusy() {
+    return !pending.isEmpty();
+  }
+
+  /**
+   * Waits for, and returns, the result of the oldest message sent to this node.
+   */
+  public SEXP receive() {
+    Future<SEXP> result = pending.poll();
+    if(result == null) {
+      throw new EvalException("No messages have been sent to this node");
+    }
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new EvalException("Interrupted while waiting for node");
+    } catch (ExecutionException e) {
+      if(e.getCause() instanceof EvalException) {
+        throw (EvalException) e.getCause();
+      }
+      throw new EvalException("Error in fork node: " + e.getCause().getMessage(), e.getCause());
+    }
+  }
+
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  @Override
+  public String toString() {
+    return "ForkNode";
+  }
+}
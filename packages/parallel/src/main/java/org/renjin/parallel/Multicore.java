@@ -0,0 +1,108 @@
+package org.renjin.parallel;
+
+import org.renjin.eval.Context;
+import org.renjin.eval.EvalException;
+import org.renjin.eval.Session;
+import org.renjin.invoke.annotations.Current;
+import org.renjin.sexp.*;
+import org.renjin.stats.internals.distributions.RNG;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * In-process implementation of the multicore "fork": each job is evaluated in a child
+ * {@link Session} created with {@link Session#fork()}, which shares the parent's loaded namespaces,
+ * and has a private copy-on-write global environment.
+ */
+public class Multicore {
+
+  private static final Symbol RANDOM_SEED = Symbol.get(".Random.seed");
+
+  private Multicore() {
+  }
+
+  /**
+   * Applies {@code worker} to each element of {@code x}, using up to {@code cores} threads.
+   *
+   * @param x the vector of elements
+   * @param worker a function of one argument
+   * @param cores the maximum number of jobs to run concurrently
+   * @param preschedule if {@code true}, the elements are divided into {@code cores} jobs up front, with
+   *                    element {@code i} assigned to job {@code i} modulo {@code cores}. Otherwise, each element
+   *                    is evaluated as a separate job in its own child session.
+   * @param setSeed if {@code true}, and no {@code seeds} are provided, each job's random number
+   *                generator is seeded with a value derived from the state of this session's generator,
+   *                without drawing from it. Otherwise the job inherits the state of this session's generator.
+   * @param seeds either {@code NULL} or a list containing the {@code .Random.seed} to use for each job.
+   * @return a list containing the result of each call to {@code worker}, in the order of {@code x}.
+   */
+  public static ListVector apply(@Current Context context, Vector x, Function worker, int cores,
+                                 boolean preschedule, boolean setSeed, SEXP seeds) {
+
+    int n = x.length();
+    int jobCount = preschedule ? Math.min(cores, n) : n;
+    if(seeds instanceof ListVector && seeds.length() < jobCount) {
+      throw new EvalException("expected %d seeds", jobCount);
+    }
+
+    // Fork all the sessions up front, on this thread, so that their
+    // random number generators are seeded in a deterministic order
+    Session[] sessions = new Session[jobCount];
+    RNG parentRng = context.getSession().getRNG();
+    for (int job = 0; job < jobCount; job++) {
+      sessions[job] = context.getSession().fork();
+      if(seeds instanceof ListVector) {
+        sessions[job].getGlobalEnvironment().setVariableUnsafe(RANDOM_SEED, ((ListVector) seeds).getElementAsSEXP(job));
+      } else if(setSeed) {
+        sessions[job].getRNG().setSeed(parentRng.deriveSeed());
+      }
+    }
+
+    SEXP[] results = new SEXP[n];
+    ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(cores, jobCount)));
+    try {
+      List<ForkJoinTask<?>> tasks = new ArrayList<>();
+      for (int job = 0; job < jobCount; job++) {
+        Session session = sessions[job];
+        int start = job;
+        int step = preschedule ? jobCount : n;
+        tasks.add(pool.submit(() -> {
+          for (int i = start; i < n; i += step) {
+            results[i] = evaluate(session, worker, x, i);
+          }
+        }));
+      }
+      for (ForkJoinTask<?> task : tasks) {
+        task.join();
+      }
+    } catch (EvalException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      throw new EvalException("Error in forked job: " + e.getMessage(), e);
+    } finally {
+      pool.shutdown();
+    }
+
+    return new ListVector(results);
+  }
+
+  static SEXP evaluate(Session session, Function worker, Vector x, int index) {
+    // Pass the element in the same form as lapply(), as an unevaluated call to x[[i]]
+    FunctionCall element = FunctionCall.newCall(Symbol.get("[["), x, IntVector.valueOf(index + 1));
+    FunctionCall call = FunctionCall.newCall(worker, element);
+
+    return session.getTopLevelContext().evaluate(call, session.getGlobalEnvironment());
+  }
+
+  /**
+   * Creates a new node for a fork cluster.
+   *
+   * @param evaluator the R function which evaluates EXEC messages sent to the node.
+   */
+  public static ForkNode newForkNode(@Current Context context, Function evaluator) {
+    return new ForkNode(context.getSession().fork(), evaluator);
+  }
+}
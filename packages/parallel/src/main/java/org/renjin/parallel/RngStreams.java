@@ -0,0 +1,97 @@
+package org.renjin.parallel;
+
+import org.renjin.sexp.IntArrayVector;
+import org.renjin.sexp.IntVector;
+
+/**
+ * Advances L'Ecuyer-CMRG seeds to the start of the next stream or substream, as
+ * described in L'Ecuyer, Simard, Chen and Kelton (2002), and implemented in GNU R's
+ * {@code parallel/src/rngstream.c}
+ */
+public class RngStreams {
+
+  private static final long M1 = 4294967087L;
+  private static final long M2 = 4294944443L;
+
+  private static final long[][] A1P127 = {
+      {2427906178L, 3580155704L, 949770784L},
+      {226153695L, 1230515664L, 3580155704L},
+      {1988835001L, 986791581L, 1230515664L}
+  };
+
+  private static final long[][] A2P127 = {
+      {1464411153L, 277697599L, 1610723613L},
+      {32183930L, 1464411153L, 1022607788L},
+      {2824425944L, 32183930L, 2093834863L}
+  };
+
+  private static final long[][] A1P76 = {
+      {82758667L, 1871391091L, 4127413238L},
+      {3672831523L, 69195019L, 1871391091L},
+      {3672091415L, 3528743235L, 69195019L}
+  };
+
+  private static final long[][] A2P76 = {
+      {1511326704L, 3759209742L, 1610795712L},
+      {4292754251L, 1511326704L, 3889917532L},
+      {3859662829L, 4292754251L, 3708466080L}
+  };
+
+  private RngStreams() {
+  }
+
+  /**
+   * @param seed a {@code .Random.seed} value for the L'Ecuyer-CMRG generator
+   * @return the seed for the start of the next stream, 2^127 steps ahead.
+   */
+  public static IntVector nextStream(IntVector seed) {
+    return advance(seed, A1P127, A2P127);
+  }
+
+  /**
+   * @param seed a {@code .Random.seed} value for the L'Ecuyer-CMRG generator
+   * @return the seed for the start of the next substream, 2^76 steps ahead.
+   */
+  public static IntVector nextSubStream(IntVector seed) {
+    return advance(seed, A1P76, A2P76);
+  }
+
+  private static IntVector advance(IntVector seed, long[][] a1, long[][] a2) {
+    long[] s1 = new long[3];
+    long[] s2 = new long[3];
+    for (int i = 0; i < 3; i++) {
+      s1[i] = seed.getElementAsInt(i + 1) & 0xFFFFFFFFL;
+      s2[i] = seed.getElementAsInt(i + 4) & 0xFFFFFFFFL;
+    }
+    s1 = multiply(a1, s1, M1);
+    s2 = multiply(a2, s2, M2);
+
+    int[] result = new int[7];
+    result[0] = seed.getElementAsInt(0);
+    for (int i = 0; i < 3; i++) {
+      result[i + 1] = (int) s1[i];
+      result[i + 4] = (int) s2[i];
+    }
+    return new IntArrayVector(result);
+  }
+
+  private static long[] multiply(long[][] a, long[] s, long m) {
+    long[] v = new long[3];
+    for (int i = 0; i < 3; i++) {
+      long sum = 0;
+      for (int j = 0; j < 3; j++) {
+        sum = (sum + multiplyMod(a[i][j], s[j], m)) % m;
+      }
+      v[i] = sum;
+    }
+    return v;
+  }
+
+  /**
+   * Computes (a * s) mod m for 32-bit unsigned a and s without overflowing 64 bits.
+   */
+  private static long multiplyMod(long a, long s, long m) {
+    long high = (a * (s >>> 16)) % m;
+    return ((high << 16) + a * (s & 0xFFFFL)) % m;
+  }
+}
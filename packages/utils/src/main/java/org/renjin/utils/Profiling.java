@@ -0,0 +1,84 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.utils;
+
+import org.apache.commons.vfs2.FileObject;
+import org.renjin.eval.Context;
+import org.renjin.eval.EvalException;
+import org.renjin.eval.Profiler;
+import org.renjin.invoke.annotations.Current;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Implements {@code Rprof()} using the session's {@link Profiler}.
+ *
+ * <p>Renjin's profiler is instrumenting rather than sampling, so the profile is written when profiling
+ * is stopped rather than as samples are taken. Profiles written to files ending in ".json" or ".folded" are written
+ * as JSON or collapsed stacks, respectively; all other files are written in the format read by
+ * {@code summaryRprof()}.</p>
+ */
+public class Profiling {
+
+  /**
+   * Per-session state of {@code Rprof()}
+   */
+  public static class State {
+    private String filename;
+    private boolean append;
+    private double interval;
+  }
+
+  public static void rprof(@Current Context context, String filename, boolean append, double interval) throws IOException {
+    Profiler profiler = context.getSession().getProfiler();
+    State state = context.getSession().getSingleton(State.class);
+
+    if(state.filename != null) {
+      profiler.stop();
+      write(context, profiler, state);
+      state.filename = null;
+    }
+
+    if(!filename.isEmpty()) {
+      if(!(interval > 0)) {
+        throw new EvalException("invalid 'interval' argument");
+      }
+      state.filename = filename;
+      state.append = append;
+      state.interval = interval;
+      profiler.start();
+    }
+  }
+
+  private static void write(Context context, Profiler profiler, State state) throws IOException {
+    FileObject file = context.resolveFile(state.filename);
+    try(Writer writer = new OutputStreamWriter(file.getContent().getOutputStream(state.append), StandardCharsets.UTF_8)) {
+      if(state.filename.endsWith(".json")) {
+        profiler.writeJson(writer);
+      } else if(state.filename.endsWith(".folded")) {
+        profiler.writeCollapsedStacks(writer);
+      } else {
+        profiler.writeRprof(writer, Math.round(state.interval * 1e6));
+      }
+    }
+  }
+}
@@ -29,6 +29,7 @@ import org.renjin.eval.Session;
 import org.renjin.eval.SessionBuilder;
 import org.renjin.parser.*;
 import org.renjin.parser.RParser.StatusResult;
+import org.renjin.primitives.matrix.JvmBlas;
 import org.renjin.repackaged.guava.base.Strings;
 import org.renjin.sexp.*;
 
@@ -162,7 +163,11 @@ public class JlineRepl {
         reader.println("Using system BLAS libraries.");
         break;
       default:
-        reader.println("Falling back to pure JVM BLAS libraries.");
+        if(JvmBlas.ENABLED) {
+          reader.println("Using multithreaded JVM BLAS kernels for matrix products.");
+        } else {
+          reader.println("Falling back to pure JVM BLAS libraries.");
+        }
         break;
     }
   }
@@ -21,6 +21,7 @@ package org.renjin.script;
 import org.renjin.RVersion;
 import org.renjin.eval.Session;
 import org.renjin.eval.SessionBuilder;
+import org.renjin.eval.SessionSnapshot;
 import org.renjin.repackaged.guava.collect.Lists;
 
 import javax.script.ScriptEngine;
@@ -113,4 +114,11 @@ public class RenjinScriptEngineFactory implements ScriptEngineFactory {
   public RenjinScriptEngine getScriptEngine(Session session) {
     return new RenjinScriptEngine(this, session);
   }
+
+  /**
+   * Creates a new engine with a new session created from the given snapshot.
+   */
+  public RenjinScriptEngine getScriptEngine(SessionSnapshot snapshot) {
+    return new RenjinScriptEngine(this, snapshot.newSession());
+  }
 }
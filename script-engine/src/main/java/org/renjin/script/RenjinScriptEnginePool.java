@@ -0,0 +1,157 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.script;
+
+import org.renjin.eval.SessionBuilder;
+import org.renjin.eval.SessionSnapshot;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of {@link RenjinScriptEngine}s, each with its own isolated session created from a
+ * common {@link SessionSnapshot}.
+ *
+ * <p>Engines are checked out with {@link #checkout()} and must be returned with {@link #release(RenjinScriptEngine)}.
+ * No more than {@code maxSize} engines can be checked out at the same time. Engines are reset when they are
+ * returned: the engine's session is discarded, and the next caller receives an engine with a fresh session in which
+ * none of the previous caller's variables, options, connections, error messages or S4 method definitions are
+ * visible.</p>
+ *
+ * <p>Because the engines share the snapshot's loaded namespaces and attached packages, scripts run with
+ * pooled engines should not modify them.</p>
+ */
+public class RenjinScriptEnginePool implements AutoCloseable {
+
+  private final RenjinScriptEngineFactory factory;
+  private final SessionSnapshot snapshot;
+  private final Semaphore permits;
+
+  /**
+   * Fresh engines which have not yet been checked out.
+   */
+  private final ConcurrentLinkedQueue<RenjinScriptEngine> idle = new ConcurrentLinkedQueue<>();
+
+  private final Set<RenjinScriptEngine> checkedOut =
+      Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<RenjinScriptEngine, Boolean>()));
+
+  private volatile boolean closed = false;
+
+  /**
+   * Creates a new pool of engines with the default packages loaded.
+   *
+   * @param maxSize the maximum number of engines which can be checked out at one time.
+   */
+  public RenjinScriptEnginePool(int maxSize) {
+    this(new RenjinScriptEngineFactory(), new SessionBuilder().withDefaultPackages().build().snapshot(), maxSize);
+  }
+
+  /**
+   * Creates a new pool of engines created from the given snapshot.
+   *
+   * @param maxSize the maximum number of engines which can be checked out at one time.
+   */
+  public RenjinScriptEnginePool(RenjinScriptEngineFactory factory, SessionSnapshot snapshot, int maxSize) {
+    if(maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be at least 1");
+    }
+    this.factory = factory;
+    this.snapshot = snapshot;
+    this.permits = new Semaphore(maxSize, true);
+  }
+
+  public SessionSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Checks out an engine from the pool, waiting if necessary until one is available.
+   */
+  public RenjinScriptEngine checkout() throws InterruptedException {
+    permits.acquire();
+    return take();
+  }
+
+  /**
+   * Checks out an engine from the pool, waiting up to the given time for one to become available.
+   *
+   * @return an engine, or {@code null} if no engine became available before the timeout elapsed.
+   */
+  public RenjinScriptEngine checkout(long timeout, TimeUnit unit) throws InterruptedException {
+    if(!permits.tryAcquire(timeout, unit)) {
+      return null;
+    }
+    return take();
+  }
+
+  private RenjinScriptEngine take() {
+    try {
+      if(closed) {
+        throw new IllegalStateException("The pool has been closed");
+      }
+      RenjinScriptEngine engine = idle.poll();
+      if(engine == null) {
+        engine = factory.getScriptEngine(snapshot);
+      }
+      checkedOut.add(engine);
+      return engine;
+
+    } catch (RuntimeException | Error e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns an engine to the pool. The engine must not be used by the caller after it has been returned.
+   */
+  public void release(RenjinScriptEngine engine) {
+    if(!checkedOut.remove(engine)) {
+      throw new IllegalArgumentException("The engine was not checked out from this pool");
+    }
+    try {
+      if(!closed) {
+        idle.add(factory.getScriptEngine(snapshot));
+      }
+    } finally {
+      permits.release();
+    }
+  }
+
+  /**
+   * @return the number of engines currently checked out.
+   */
+  public int getCheckedOutCount() {
+    return checkedOut.size();
+  }
+
+  /**
+   * Closes the pool. Engines which are currently checked out may still be returned, but no further
+   * engines can be checked out.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    idle.clear();
+  }
+}
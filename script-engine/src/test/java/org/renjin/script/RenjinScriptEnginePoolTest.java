@@ -0,0 +1,95 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.script;
+
+import org.junit.Test;
+import org.renjin.sexp.SEXP;
+import org.renjin.sexp.Vector;
+
+import javax.script.ScriptException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class RenjinScriptEnginePoolTest {
+
+  @Test
+  public void enginesAreResetWhenReturned() throws Exception {
+    try(RenjinScriptEnginePool pool = new RenjinScriptEnginePool(1)) {
+
+      RenjinScriptEngine engine = pool.checkout();
+      engine.eval("x <- 42");
+      assertThat(evalLogical(engine, "exists('x')"), equalTo(true));
+
+      // stats is loaded from the snapshot
+      engine.eval("dnorm(0)");
+
+      pool.release(engine);
+
+      RenjinScriptEngine next = pool.checkout();
+      assertThat(evalLogical(next, "exists('x')"), equalTo(false));
+      pool.release(next);
+    }
+  }
+
+  @Test
+  public void pooledEnginesDoNotShareState() throws Exception {
+    try(RenjinScriptEnginePool pool = new RenjinScriptEnginePool(2)) {
+      RenjinScriptEngine a = pool.checkout();
+      RenjinScriptEngine b = pool.checkout();
+
+      a.eval("try(stop('boom'), silent = TRUE)");
+      a.eval("setGeneric('area', function(shape) standardGeneric('area'))");
+      a.eval("setMethod('area', 'numeric', function(shape) shape^2)");
+      assertThat(evalLogical(a, "grepl('boom', geterrmessage())"), equalTo(true));
+      assertThat(evalLogical(a, "existsMethod('area', 'numeric')"), equalTo(true));
+
+      assertThat(evalLogical(b, "identical(grepl('boom', geterrmessage()), TRUE)"), equalTo(false));
+      assertThat(evalLogical(b, "isGeneric('area')"), equalTo(false));
+      assertThat(evalLogical(b, "existsMethod('area', 'numeric')"), equalTo(false));
+
+      pool.release(a);
+      pool.release(b);
+    }
+  }
+
+  @Test
+  public void poolIsBounded() throws Exception {
+    try(RenjinScriptEnginePool pool = new RenjinScriptEnginePool(2)) {
+      RenjinScriptEngine a = pool.checkout();
+      RenjinScriptEngine b = pool.checkout();
+
+      assertThat(pool.checkout(10, TimeUnit.MILLISECONDS), nullValue());
+
+      pool.release(a);
+      RenjinScriptEngine c = pool.checkout(10, TimeUnit.MILLISECONDS);
+      assertThat(c == null, equalTo(false));
+
+      pool.release(b);
+      pool.release(c);
+    }
+  }
+
+  private static boolean evalLogical(RenjinScriptEngine engine, String source) throws ScriptException {
+    SEXP result = (SEXP) engine.eval(source);
+    return ((Vector) result).isElementTrue(0);
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.gnur.api;
+
+import org.renjin.eval.Context;
+import org.renjin.primitives.Native;
+import org.renjin.repackaged.guava.cache.Cache;
+import org.renjin.repackaged.guava.cache.CacheBuilder;
+import org.renjin.sexp.AtomicVector;
+import org.renjin.sexp.ComplexVector;
+import org.renjin.sexp.SEXP;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Arrays materialized from vectors that are not backed by an array of the requested type,
+ * such as deferred computations, sequences or buffer-backed vectors, when C code asks for
+ * a pointer to their data with {@code REAL()}, {@code INTEGER()}, {@code LOGICAL()} or {@code COMPLEX()}.
+ *
+ * <p>C code commonly calls these accessors within a loop, for example {@code REAL(x)[i]}, so
+ * the array is copied only once per vector and native call, and then reused for the rest of that call.
+ * The pointers returned are writable, so an array is never handed to a different native call, and
+ * C code that writes through a pointer will see its changes only until the call returns. As in GNU R,
+ * the changes are never visible through the vector itself.</p>
+ *
+ * <p>Each {@link org.renjin.eval.Session} holds its own instance, obtained with
+ * {@code session.getSingleton(MaterializedArrays.class)}. Vectors are compared by identity and
+ * held weakly, and the arrays retained are bounded by a total byte budget, set with the
+ * {@code renjin.gnur.materialized.bytes} system property.</p>
+ */
+public final class MaterializedArrays {
+
+  private static final long MAX_CACHED_BYTES = Long.getLong("renjin.gnur.materialized.bytes", 256L * 1024 * 1024);
+
+  /**
+   * Used when no session is available. As no native call is in progress either, nothing is cached.
+   */
+  private static final MaterializedArrays DETACHED = new MaterializedArrays();
+
+  private final Cache<SEXP, Materialized> cache = CacheBuilder.newBuilder()
+      .weakKeys()
+      .maximumWeight(MAX_CACHED_BYTES)
+      .weigher((SEXP vector, Materialized arrays) -> arrays.bytes())
+      .build();
+
+  private final Statistics statistics = new Statistics();
+
+  public MaterializedArrays() {
+  }
+
+  /**
+   * The arrays materialized for a single vector, and the native call to which they were handed out.
+   */
+  private static final class Materialized {
+    private final Object call;
+    private final double[] doubles;
+    private final int[] ints;
+    private final double[] complex;
+
+    private Materialized(Object call, double[] doubles, int[] ints, double[] complex) {
+      this.call = call;
+      this.doubles = doubles;
+      this.ints = ints;
+      this.complex = complex;
+    }
+
+    private int bytes() {
+      long bytes = 0;
+      if(doubles != null) {
+        bytes += doubles.length * 8L;
+      }
+      if(ints != null) {
+        bytes += ints.length * 4L;
+      }
+      if(complex != null) {
+        bytes += complex.length * 8L;
+      }
+      return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+  }
+
+  /**
+   * @return the counts of copies made for this session
+   */
+  public Statistics getStatistics() {
+    return statistics;
+  }
+
+  public static double[] doubles(AtomicVector vector) {
+    return current().materializeDoubles(vector);
+  }
+
+  public static int[] ints(AtomicVector vector) {
+    return current().materializeInts(vector);
+  }
+
+  /**
+   * @return the real and imaginary parts of each element, interleaved
+   */
+  public static double[] complex(ComplexVector vector) {
+    return current().materializeComplex(vector);
+  }
+
+  private static MaterializedArrays current() {
+    Context context = Native.CURRENT_CONTEXT.get();
+    if(context == null) {
+      return DETACHED;
+    }
+    return context.getSession().getSingleton(MaterializedArrays.class);
+  }
+
+  private double[] materializeDoubles(AtomicVector vector) {
+    Object call = Native.currentCall();
+    Materialized cached = lookup(vector, call);
+    if(cached != null && cached.doubles != null) {
+      statistics.hit();
+      return cached.doubles;
+    }
+    double[] array = vector.toDoubleArray();
+    statistics.copied(vector, array.length * 8L);
+    store(vector, call, cached == null ?
+        new Materialized(call, array, null, null) :
+        new Materialized(call, array, cached.ints, cached.complex));
+    return array;
+  }
+
+  private int[] materializeInts(AtomicVector vector) {
+    Object call = Native.currentCall();
+    Materialized cached = lookup(vector, call);
+    if(cached != null && cached.ints != null) {
+      statistics.hit();
+      return cached.ints;
+    }
+    int[] array = vector.toIntArray();
+    statistics.copied(vector, array.length * 4L);
+    store(vector, call, cached == null ?
+        new Materialized(call, null, array, null) :
+        new Materialized(call, cached.doubles, array, cached.complex));
+    return array;
+  }
+
+  private double[] materializeComplex(ComplexVector vector) {
+    Object call = Native.currentCall();
+    Materialized cached = lookup(vector, call);
+    if(cached != null && cached.complex != null) {
+      statistics.hit();
+      return cached.complex;
+    }
+    double[] array = new double[vector.length() * 2];
+    for (int i = 0; i < vector.length(); i++) {
+      array[i * 2] = vector.getElementAsDouble(i);
+      array[i * 2 + 1] = vector.getElementAsComplexIm(i);
+    }
+    statistics.copied(vector, array.length * 8L);
+    store(vector, call, cached == null ?
+        new Materialized(call, null, null, array) :
+        new Materialized(call, cached.doubles, cached.ints, array));
+    return array;
+  }
+
+  /**
+   * @return the arrays handed out for {@code vector} during {@code call}, or {@code null} if there are none.
+   * Arrays handed out to an earlier call may have been written to, and are discarded.
+   */
+  private Materialized lookup(SEXP vector, Object call) {
+    if(call == null) {
+      return null;
+    }
+    Materialized cached = cache.getIfPresent(vector);
+    if(cached == null) {
+      return null;
+    }
+    if(cached.call != call) {
+      cache.invalidate(vector);
+      return null;
+    }
+    return cached;
+  }
+
+  private void store(SEXP vector, Object call, Materialized arrays) {
+    if(call != null) {
+      cache.put(vector, arrays);
+    }
+  }
+
+  /**
+   * Counts, for a session, the vectors copied when C code asked for a pointer to their data,
+   * to help find the functions that pass non-array vectors to native code.
+   */
+  public static final class Statistics {
+
+    private final AtomicLong copies = new AtomicLong();
+    private final AtomicLong bytesCopied = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final Map<String, AtomicLong> copiesByClass = new ConcurrentHashMap<>();
+
+    private Statistics() {
+    }
+
+    private void hit() {
+      hits.incrementAndGet();
+    }
+
+    private void copied(SEXP vector, long bytes) {
+      copies.incrementAndGet();
+      bytesCopied.addAndGet(bytes);
+      copiesByClass.computeIfAbsent(vector.getClass().getName(), name -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * @return the number of times a vector was copied to an array
+     */
+    public long getCopies() {
+      return copies.get();
+    }
+
+    public long getBytesCopied() {
+      return bytesCopied.get();
+    }
+
+    /**
+     * @return the number of times a previously copied array was reused
+     */
+    public long getHits() {
+      return hits.get();
+    }
+
+    /**
+     * @return the number of copies made, by the class name of the vector copied
+     */
+    public Map<String, Long> getCopiesByClass() {
+      Map<String, Long> map = new TreeMap<>();
+      copiesByClass.forEach((name, count) -> map.put(name, count.get()));
+      return map;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d copies (%d bytes), %d reused: %s", getCopies(), getBytesCopied(), getHits(), getCopiesByClass());
+    }
+  }
+}
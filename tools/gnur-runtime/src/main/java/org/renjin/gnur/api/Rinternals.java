@@ -583,8 +583,7 @@ public final class Rinternals {
     if(x instanceof LogicalArrayVector) {
       return new IntPtr(((LogicalArrayVector)x).toIntArrayUnsafe());
     } else if(x instanceof LogicalVector) {
-      // TODO: cache arrays for the case of repeated LOGICAL() calls?
-      return new IntPtr(((LogicalVector) x).toIntArray());
+      return new IntPtr(MaterializedArrays.ints((LogicalVector) x));
     } else {
       throw new EvalException("LOGICAL(): expected logical vector, found %s", x.getTypeName());
     }
@@ -599,13 +598,8 @@ public final class Rinternals {
       return new IntPtr(((IntArrayVector) x).toIntArrayUnsafe());
     } else if(x instanceof LogicalArrayVector) {
       return new IntPtr(((LogicalArrayVector) x).toIntArrayUnsafe());
-    } else if (x instanceof DoubleVector) {
-      return new IntPtr(((DoubleVector) x).toIntArray());
-    } else if(x instanceof IntVector) {
-      // TODO: cache arrays for the case of repeated INTEGER() calls?
-      return new IntPtr(((IntVector) x).toIntArray());
-    } else if(x instanceof LogicalVector) {
-      return new IntPtr(((LogicalVector) x).toIntArray());
+    } else if (x instanceof DoubleVector || x instanceof IntVector || x instanceof LogicalVector) {
+      return new IntPtr(MaterializedArrays.ints((AtomicVector) x));
     } else if(x == Null.INSTANCE) {
       return new IntPtr(0);
     } else {
@@ -633,9 +627,8 @@ public final class Rinternals {
       // this contract.
       return new DoublePtr(((DoubleArrayVector) x).toDoubleArrayUnsafe());
     } else if(x instanceof DoubleVector) {
-      // Return a copy of this vector as an array.
-      // TODO: Cache arrays for the case of frequent REAL() calls?
-      return new DoublePtr(((DoubleVector) x).toDoubleArray());
+      // Return a copy of this vector as an array, which is reused by subsequent calls
+      return new DoublePtr(MaterializedArrays.doubles((DoubleVector) x));
     } else {
       throw new EvalException("REAL(): expected numeric vector, found %s", x.getTypeName());
     }
@@ -644,8 +637,8 @@ public final class Rinternals {
   public static DoublePtr COMPLEX (SEXP x) {
     if(x instanceof ComplexArrayVector) {
       return new DoublePtr(((ComplexArrayVector) x).toComplexArrayVectorUnsafe());
-//    } else if(x instanceof ComplexVector) {
-//      return new DoublePtr(((ComplexVector) x).toComplexArrayUnsafe());
+    } else if(x instanceof ComplexVector) {
+      return new DoublePtr(MaterializedArrays.complex((ComplexVector) x));
     } else {
       throw new EvalException("COMPLEX(): expected complex vector, found %s", x.getTypeName());
     }
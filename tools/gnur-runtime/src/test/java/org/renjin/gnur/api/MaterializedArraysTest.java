@@ -0,0 +1,115 @@
+/*
+ * Renjin : JVM-based interpreter for the R language for the statistical analysis
+ * Copyright © 2010-2019 BeDataDriven Groep B.V. and contributors
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, a copy is available at
+ * https://www.gnu.org/licenses/gpl-2.0.txt
+ */
+package org.renjin.gnur.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.renjin.eval.Context;
+import org.renjin.eval.Session;
+import org.renjin.eval.SessionBuilder;
+import org.renjin.gcc.runtime.IntPtr;
+import org.renjin.parser.RParser;
+import org.renjin.primitives.packaging.DllSymbol;
+import org.renjin.primitives.sequence.IntSequence;
+import org.renjin.sexp.IntArrayVector;
+import org.renjin.sexp.LogicalVector;
+import org.renjin.sexp.SEXP;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class MaterializedArraysTest {
+
+  private Session session;
+
+  @Before
+  public void setUp() throws Exception {
+    session = newSession();
+  }
+
+  /**
+   * Reads the first element of x through INTEGER(), and then overwrites it.
+   */
+  public static SEXP scribble(SEXP x) {
+    IntPtr pointer = Rinternals.INTEGER(x);
+    int first = pointer.array[pointer.offset];
+    pointer.array[pointer.offset] = -1;
+    return new IntArrayVector(first);
+  }
+
+  /**
+   * @return true if repeated calls to INTEGER() return the same array
+   */
+  public static SEXP sameArray(SEXP x) {
+    return LogicalVector.valueOf(Rinternals.INTEGER(x).array == Rinternals.INTEGER(x).array);
+  }
+
+  @Test
+  public void arrayIsReusedWithinCall() {
+    assertThat(eval(session, ".Call(C_sameArray, x)"), equalTo(LogicalVector.TRUE));
+
+    MaterializedArrays.Statistics statistics = statistics(session);
+    assertThat(statistics.getCopies(), equalTo(1L));
+    assertThat(statistics.getHits(), equalTo(1L));
+  }
+
+  @Test
+  public void writesAreNotSeenByLaterCalls() {
+    assertThat(eval(session, ".Call(C_scribble, x)"), equalTo((SEXP) new IntArrayVector(1)));
+    assertThat(eval(session, ".Call(C_scribble, x)"), equalTo((SEXP) new IntArrayVector(1)));
+    assertThat(eval(session, "x[1]"), equalTo((SEXP) new IntArrayVector(1)));
+
+    assertThat(statistics(session).getCopies(), equalTo(2L));
+  }
+
+  @Test
+  public void sessionsHaveSeparateCaches() throws Exception {
+    Session other = newSession();
+    SEXP x = session.getGlobalEnvironment().getVariable(session.getTopLevelContext(), "x");
+    other.getGlobalEnvironment().setVariable(other.getTopLevelContext(), "x", x);
+
+    eval(session, ".Call(C_scribble, x)");
+    assertThat(eval(other, ".Call(C_scribble, x)"), equalTo((SEXP) new IntArrayVector(1)));
+
+    assertThat(statistics(session), not(sameInstance(statistics(other))));
+    assertThat(statistics(session).getCopies(), equalTo(1L));
+    assertThat(statistics(other).getCopies(), equalTo(1L));
+  }
+
+  private static Session newSession() throws Exception {
+    Session session = new SessionBuilder().build();
+    Context context = session.getTopLevelContext();
+    for (String name : new String[] { "scribble", "sameArray" }) {
+      DllSymbol symbol = new DllSymbol(DllSymbol.Convention.CALL, MaterializedArraysTest.class.getMethod(name, SEXP.class));
+      session.getGlobalEnvironment().setVariable(context, "C_" + name, symbol.buildNativeSymbolInfoSexp());
+    }
+    session.getGlobalEnvironment().setVariable(context, "x", new IntSequence(1, 1, 10));
+    return session;
+  }
+
+  private static SEXP eval(Session session, String source) {
+    return session.getTopLevelContext().evaluate(RParser.parseSource(source + "\n"));
+  }
+
+  private static MaterializedArrays.Statistics statistics(Session session) {
+    return session.getSingleton(MaterializedArrays.class).getStatistics();
+  }
+}